@@ -1,27 +1,42 @@
 package com.kitkat.android.retrofit;
 
 import android.app.ProgressDialog;
+import android.content.pm.ApplicationInfo;
 import android.support.v4.app.FragmentActivity;
 import android.os.Bundle;
+import android.os.Handler;
 import android.util.Log;
+import android.widget.Toast;
 
 import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.SupportMapFragment;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
-import com.kitkat.android.retrofit.domain.Data;
-import com.kitkat.android.retrofit.domain.Row;
+import com.kitkat.android.retrofit.metrics.Metrics;
+import com.kitkat.android.retrofit.network.ApiClient;
+import com.kitkat.android.retrofit.network.CityLoader;
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+import com.kitkat.android.retrofit.parking.SnapshotDiff;
+import com.kitkat.android.retrofit.parking.SnapshotStore;
+import com.kitkat.android.retrofit.render.ClusterRenderer;
+import com.kitkat.android.retrofit.render.FrameBatcher;
+import com.kitkat.android.retrofit.render.IconCache;
+import com.kitkat.android.retrofit.render.IndexedSnapshot;
+import com.kitkat.android.retrofit.render.MarkerLayer;
+import com.kitkat.android.retrofit.render.RenderPipeline;
+import com.kitkat.android.retrofit.render.ViewportRenderer;
+import com.kitkat.android.retrofit.spatial.ClusterIndex;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.File;
+import java.io.IOException;
 
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
+import okhttp3.CacheControl;
 
 /** Retrofit
  *  http://square.github.io/retrofit/
@@ -173,12 +188,45 @@ import retrofit2.converter.gson.GsonConverterFactory;
  */
 
 public class MapsActivity extends FragmentActivity implements OnMapReadyCallback {
+    // CUR_PARKING 은 몇 분 단위로 갱신되므로 같은 주기로 다시 불러와 바뀐 Marker 만 갱신
+    private static final long REFRESH_INTERVAL_MILLIS = 3 * 60 * 1000;
+
     private GoogleMap mMap;
-    public static final String baseUrl = "http://openapi.seoul.go.kr:8088/";
+    private RenderPipeline<Void> pipeline;
+    private final Handler handler = new Handler();
+    private ProgressDialog dialog;
+    private boolean destroyed;
+
+    // 마지막 Snapshot 을 저장해 두었다가 다음 실행 시 Network 응답 전에 Marker 를 그린다.
+    private SnapshotStore store;
+
+    // 점유 구간 (MarkerLayer.bucket) 별 Marker 색
+    private static final float[] BUCKET_HUES = {BitmapDescriptorFactory.HUE_GREEN, BitmapDescriptorFactory.HUE_YELLOW,
+            BitmapDescriptorFactory.HUE_ORANGE, BitmapDescriptorFactory.HUE_RED, BitmapDescriptorFactory.HUE_AZURE};
+
+    // 두 Renderer 의 Marker 변경을 Frame 단위로 모아 적용하고, 지운 Marker 와 Icon 을 재사용
+    private MarkerLayer<Marker, BitmapDescriptor> markerLayer;
+    // 도시 전체 Snapshot 중 Camera 범위 안의 주차장만 Marker 로 그린다.
+    private ViewportRenderer<MarkerLayer.Handle> renderer;
+    // ClusterIndex.DEFAULT_MAX_ZOOM 이하에서는 주차장 대신 미리 계산한 Cluster 를 그린다.
+    private ClusterRenderer<MarkerLayer.Handle> clusterRenderer;
+
+    private final Runnable refresh = new Runnable() {
+        @Override
+        public void run() {
+            refresh();
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // 방금 받은 구 Data 는 다시 내려받지 않도록 Disk Cache 사용 (getInstance() 보다 먼저)
+        ApiClient.initialize(getCacheDir());
+        // Debug Build 에서만 단계별 소요 시간을 모아 Load / Refresh 마다 Log 로 출력
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0)
+            Metrics.install();
+        store = new SnapshotStore(new File(getFilesDir(), "parking.snapshot"));
         setContentView(R.layout.activity_maps);
         // Obtain the SupportMapFragment and get notified when the map is ready to be used.
         SupportMapFragment mapFragment = (SupportMapFragment) getSupportFragmentManager()
@@ -186,6 +234,23 @@ public class MapsActivity extends FragmentActivity implements OnMapReadyCallback
         mapFragment.getMapAsync(this);
     }
 
+    @Override
+    protected void onDestroy() {
+        // Activity 가 사라지면 진행 중인 Request 를 취소하고 이후 Callback 을 받지 않는다.
+        // 화면 회전이면 Request 는 그대로 두어 새 Activity 의 같은 Request 가 진행 중인 것에 합류하게 한다.
+        destroyed = true;
+        handler.removeCallbacks(refresh);
+        if (markerLayer != null)
+            markerLayer.cancel();
+        if (pipeline != null) {
+            if (isChangingConfigurations())
+                pipeline.detach();
+            else
+                pipeline.cancel();
+        }
+        super.onDestroy();
+    }
+
     @Override
     public void onMapReady(GoogleMap googleMap) {
         mMap = googleMap;
@@ -194,75 +259,249 @@ public class MapsActivity extends FragmentActivity implements OnMapReadyCallback
         LatLng seoul = new LatLng(37.566696, 126.977942);
         mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(seoul, 10f));
 
-        retrofit(baseUrl);
-    }
+        markerLayer = new MarkerLayer<>(ApiClient.getInstance().getCallbackExecutor(), new MarkerLayer.Canvas<Marker, BitmapDescriptor>() {
+            @Override
+            public Marker create(MarkerLayer.Handle handle, BitmapDescriptor icon) {
+                Marker marker = mMap.addMarker(new MarkerOptions().position(new LatLng(handle.lat(), handle.lng())).icon(icon));
+                marker.setTag(handle);
+                return marker;
+            }
 
-    public void retrofit(String baseUrl) {
-        final ProgressDialog dialog = new ProgressDialog(this);
-        dialog.setMessage("Retrofit Loading..");
-        dialog.setProgressStyle(ProgressDialog.STYLE_SPINNER);
-        dialog.show();
+            @Override
+            public void move(Marker marker, double lat, double lng) {
+                marker.setPosition(new LatLng(lat, lng));
+            }
 
-        // 1. Retrofit Class Instantiate
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl) // Set Base Url
-                .addConverterFactory(GsonConverterFactory.create()) // Set GSON Converter
-                .build();
+            @Override
+            public void setIcon(Marker marker, BitmapDescriptor icon) {
+                marker.setIcon(icon);
+            }
+
+            @Override
+            public void show(Marker marker, MarkerLayer.Handle handle) {
+                marker.setTag(handle);
+                marker.setVisible(true);
+            }
 
-        // 2. Retrofit Instance 로 Runtime 시 HTTP API Java Interface 구현체 인스턴스화
-        OpenApiService openApiService = retrofit.create(OpenApiService.class);
+            @Override
+            public void hide(Marker marker) {
+                marker.setVisible(false);
+            }
 
-        // 3. HTTP API Java Interface 구현체의 Method 로  Web Server 로 Request 및 Response
-        Call<Data> result = openApiService.get("중구", 1, 1000);
+            @Override
+            public void remove(Marker marker) {
+                marker.remove();
+            }
+        }, new IconCache.Factory<BitmapDescriptor>() {
+            @Override
+            public BitmapDescriptor create(int key) {
+                return BitmapDescriptorFactory.defaultMarker(BUCKET_HUES[MarkerLayer.bucketOf(key)]);
+            }
+        });
+        renderer = new ViewportRenderer<>(markerLayer);
+        clusterRenderer = new ClusterRenderer<>(markerLayer);
 
-        // 4. Call Instance 의 비동기 Callback Method 로 JSON String 반환
-        // Android 에서는 비동기  Callback Method 가 Main Thread 로 동작.
-        // interface 구현체의 각 Call Instance 는 Remote Web Server 로 동기식 또는 비동기식 HTTP Request 가능.
-        result.enqueue(new Callback<Data>() {
-            // Data Request 성공 시 호출되는 Callback Method
+        // 제목은 Marker 마다 미리 만들지 않고 Click 한 Marker 만 만든다. (false : 기본 동작으로 Info Window 표시)
+        mMap.setOnMarkerClickListener(new GoogleMap.OnMarkerClickListener() {
             @Override
-            public void onResponse(Call<Data> call, Response<Data> response) {
-                // Response Message is Successful
-                if(response.isSuccessful()) {
-                    Log.i("Retrofit", "Response is Successful");
+            public boolean onMarkerClick(Marker marker) {
+                MarkerLayer.Handle handle = (MarkerLayer.Handle) marker.getTag();
+                if (handle == null)
+                    return false;
+                String title = handle.remaining() + " / " + handle.capacity();
+                marker.setTitle(handle.count() > 1 ? handle.count() + "곳 " + title : title);
+                return false;
+            }
+        });
 
-                    // 5. Response Instance 의 JSON String 으로 부터 Java Instance 반환
-                    // JSON String 을 Java Instance 로 변환하는 라이브러리인 GSON Converter 적용.
-                    Data data = response.body();
+        // Camera 이동이 끝날 때마다 범위 밖 Marker 는 지우고 들어온 주차장만 추가
+        mMap.setOnCameraIdleListener(new GoogleMap.OnCameraIdleListener() {
+            @Override
+            public void onCameraIdle() {
+                updateViewport();
+            }
+        });
+        updateViewport();
 
-                    List<Integer> parkingList = new ArrayList<>();
-                    for(Row row : data.getSearchParkingInfoRealtime().getRow()) {
-                        int parkingCode = Integer.parseInt(row.getPARKING_CODE());
+        retrofit();
+        restore();
+    }
 
-                        if(parkingList.contains(parkingCode))
-                            continue;
+    private void updateViewport() {
+        float zoom = mMap.getCameraPosition().zoom;
+        LatLngBounds bounds = mMap.getProjection().getVisibleRegion().latLngBounds;
+        if (zoom > ClusterIndex.DEFAULT_MAX_ZOOM) {
+            clusterRenderer.clear();
+            renderer.setViewport(bounds.southwest.latitude, bounds.southwest.longitude,
+                    bounds.northeast.latitude, bounds.northeast.longitude);
+        } else {
+            // Zoom 변경은 미리 계산한 Level 조회뿐
+            renderer.clear();
+            clusterRenderer.setViewport(zoom, bounds.southwest.latitude, bounds.southwest.longitude,
+                    bounds.northeast.latitude, bounds.northeast.longitude);
+        }
+    }
 
-                        parkingList.add(parkingCode);
+    /** 새 Snapshot 을 화면에 반영. GridIndex 와 모든 Zoom Level 의 Cluster 는 Worker Thread 에서 이미 계산되어 있다. */
+    private void showSnapshot(IndexedSnapshot snapshot) {
+        renderer.setSnapshot(snapshot.getSnapshot(), snapshot.getGrid());
+        clusterRenderer.setClusters(snapshot.getClusters());
+    }
 
-                        double lat = Double.parseDouble(row.getLAT());
-                        double lng = Double.parseDouble(row.getLNG());
+    /** 지난 실행의 Snapshot 을 Background 에서 읽어 Network 응답이 오기 전에 Marker 를 그린다. */
+    private void restore() {
+        ApiClient.getInstance().getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                ParkingSnapshot snapshot;
+                try {
+                    snapshot = store.read();
+                } catch (IOException e) {
+                    Log.w("Retrofit", "Snapshot read failed : " + e.getMessage(), e);
+                    return;
+                }
+                // File 이 없거나 손상 / Version 불일치 : Network 결과를 기다린다.
+                if (snapshot == null)
+                    return;
 
-                        double capa = Double.parseDouble(row.getCAPACITY());
-                        double cur = Double.parseDouble(row.getCUR_PARKING());
-                        double remain = capa - cur;
+                // 아직 도착하지 않은 구는 지난 Snapshot 으로 채운다.
+                pipeline.setFallback(snapshot);
+                final IndexedSnapshot restored = IndexedSnapshot.build(snapshot);
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        // Network 응답이 먼저 도착했다면 그쪽이 더 최신이므로 무시
+                        if (destroyed || renderer.getSnapshot() != null)
+                            return;
 
-                        LatLng parking = new LatLng(lat, lng);
-                        mMap.addMarker(new MarkerOptions().position(parking).title((int)remain + " / " + (int)capa));
+                        showSnapshot(restored);
+                        Log.i("Retrofit", "Restored " + restored.getSnapshot().size() + " lots from " + store.getFile());
+                        dialog.dismiss();
                     }
+                });
+            }
+        });
+    }
+
+    private void save(final ParkingSnapshot snapshot) {
+        ApiClient.getInstance().getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    store.write(snapshot);
+                } catch (IOException e) {
+                    Log.w("Retrofit", "Snapshot write failed : " + e.getMessage(), e);
+                }
+            }
+        });
+    }
+
+    public void retrofit() {
+        dialog = new ProgressDialog(this);
+        dialog.setMessage("Retrofit Loading..");
+        dialog.setProgressStyle(ProgressDialog.STYLE_SPINNER);
+        // 기다리기 싫으면 Back 으로 닫고 지도를 볼 수 있다. (불러오기는 계속)
+        dialog.setCancelable(true);
+        dialog.show();
+
+        // 1, 2. Process 당 하나인 ApiClient 가 Retrofit Instance 와 HTTP API Java Interface 구현체를 보관
+        // 매 호출마다 Retrofit / OkHttpClient 를 새로 만들면 Connection Pool, Gson Cache, Annotation 해석 결과를 버리게 된다.
+        // 3. HTTP API Java Interface 구현체의 Method 로  Web Server 로 Request 및 Response
+        // CityLoader 가 25개 구를 제한된 수만큼 동시에 요청하고, 각 구는 PagedFetcher 가 {start}/{end} 구간으로 나누어 요청.
+        // 4. RenderPipeline 이 Decode, 중복 제거 (LotMerger), ParkingSnapshot 생성까지 Worker Thread 에서 처리하고
+        // Main Thread 에서는 ViewportRenderer 가 화면 안의 Marker 만 변경한다.
+        // 5. ParkingLotAdapter 가 JSON 을 Decode 하면서 숫자 Field 를 이미 Primitive 로 변환해 두었으므로 문자열을 다시 Parsing 하지 않는다.
+        pipeline = new RenderPipeline<>(ApiClient.getInstance(), null, null, new RenderPipeline.Sink<Void>() {
+            @Override
+            public void apply(Void item) {
+                // Transform 없음 : Snapshot 단위로 그린다.
+            }
+
+            // 구가 도착하면 지금까지의 Snapshot 으로 화면 갱신 (Main Thread 가 바쁘면 여러 구를 한 번에)
+            @Override
+            public void onProgress(IndexedSnapshot snapshot) {
+                showSnapshot(snapshot);
 
+                // 첫 구가 도착하면 지도를 보여주고 나머지는 도착하는 대로 추가
+                if (dialog.isShowing())
                     dialog.dismiss();
+            }
+
+            // 구 하나의 Data Request 실패 시 호출되는 Callback Method
+            // Resilience 가 Timeout / 재시도 / Hedge 를 모두 적용한 뒤에도 실패한 경우이다. (deadline 안에 반드시 호출됨)
+            @Override
+            public void onDistrictFailed(String gu, Throwable t) {
+                // Response Message is Error
+                Log.e("Retrofit", gu + " : " + t.getMessage(), t);
 
-                } else {
-                    // Response Message is Error
-                    Log.e("Retrofit", response.message());
+                // 나머지 구를 기다리는 동안 Dialog 로 화면을 막지 않는다.
+                if (dialog.isShowing()) {
+                    dialog.dismiss();
+                    Toast.makeText(MapsActivity.this, "일부 지역의 주차장 정보를 불러오지 못했습니다.", Toast.LENGTH_SHORT).show();
                 }
             }
 
-            // Data Request 실패 시 호출되는 Callback Method
             @Override
-            public void onFailure(Call<Data> call, Throwable t) {
+            public void onComplete(int loaded, int failed, IndexedSnapshot snapshot) {
+                FrameBatcher<Void> batcher = pipeline.getBatcher();
+                Log.i("Retrofit", "Loaded " + loaded + " gu, failed " + failed + " : main thread "
+                        + batcher.totalNanos() / 1000000 + " ms (max " + batcher.maxBatchNanos() / 1000000 + " ms)");
+                dialog.dismiss();
+                if (loaded == 0 && snapshot.getSnapshot().size() == 0)
+                    Toast.makeText(MapsActivity.this, "주차장 정보를 불러오지 못했습니다. 잠시 후 다시 시도합니다.", Toast.LENGTH_LONG).show();
+
+                // Disk Snapshot 에만 있던 (더 이상 없는) 주차장은 여기서 사라진다. 실패한 구가 있으면 Fallback 으로 유지.
+                showSnapshot(snapshot);
+                save(snapshot.getSnapshot());
+                logMetrics();
+                handler.postDelayed(refresh, REFRESH_INTERVAL_MILLIS);
+            }
+        });
+        pipeline.start(CityLoader.SEOUL_GU);
+    }
+
+    /** Load / Refresh 한 번 동안 모은 Metrics 를 출력하고 다음 주기를 위해 비운다. */
+    private void logMetrics() {
+        Metrics metrics = Metrics.get();
+        if (metrics == null)
+            return;
+        Log.i("Retrofit", metrics.summary());
+        metrics.reset();
+    }
+
+    /** 다시 불러온 Snapshot 으로 교체. ViewportRenderer 가 화면 안에서 점유가 바뀐 주차장의 Marker 만 갱신 */
+    public void refresh() {
+        final ParkingSnapshot previous = renderer.getSnapshot();
+
+        // Refresh 는 최신 점유 정보가 목적이므로 Cache 를 건너뛰고, 받은 Response 로 Cache 를 갱신
+        pipeline = new RenderPipeline<>(ApiClient.getInstance(), CacheControl.FORCE_NETWORK, null, new RenderPipeline.Sink<Void>() {
+            @Override
+            public void apply(Void item) {
+            }
+
+            // 중간 결과로 화면을 여러 번 바꾸지 않고 Complete 에서 한 번만 갱신 (setProgress(false))
+            @Override
+            public void onProgress(IndexedSnapshot snapshot) {
+            }
+
+            @Override
+            public void onDistrictFailed(String gu, Throwable t) {
+                Log.e("Retrofit", "Refresh " + gu + " : " + t.getMessage(), t);
+            }
+
+            @Override
+            public void onComplete(int loaded, int failed, IndexedSnapshot next) {
+                // 실패한 구의 주차장은 응답에 없을 뿐 사라진 것이 아니므로 Fallback (이전 Snapshot) 으로 남는다.
+                Log.i("Retrofit", "Refresh : " + SnapshotDiff.compute(previous, next.getSnapshot()));
 
+                showSnapshot(next);
+                save(next.getSnapshot());
+                logMetrics();
+                handler.postDelayed(refresh, REFRESH_INTERVAL_MILLIS);
             }
         });
+        pipeline.setFallback(previous);
+        pipeline.setProgress(false);
+        pipeline.start(CityLoader.SEOUL_GU);
     }
 }
@@ -0,0 +1,46 @@
+package com.kitkat.android.retrofit;
+
+import com.kitkat.android.retrofit.converter.Project;
+import com.kitkat.android.retrofit.converter.RowStream;
+import com.kitkat.android.retrofit.domain.Data;
+import com.kitkat.android.retrofit.domain.Row;
+import com.kitkat.android.retrofit.network.SingleFlightInterceptor;
+import com.kitkat.android.retrofit.parking.CompactLotFormat;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+import com.kitkat.android.retrofit.reactive.Publisher;
+
+import retrofit2.Call;
+import retrofit2.http.GET;
+import retrofit2.http.Header;
+import retrofit2.http.Headers;
+import retrofit2.http.Path;
+import retrofit2.http.Streaming;
+
+/** HTTP API To Java Interface for Retrofit
+ *
+ */
+public interface OpenApiService {
+    @GET("666569554d63686f36356b6f5a615a/json/SearchParkingInfoRealtime/{start}/{end}/{gu}") // HTTP Method Annotation
+    Call<Data> get(@Path("gu") String gu, @Path("start") int start, @Path("end") int end); // Call<Data> : 전체 JSON String
+
+    @Streaming // Body 를 Memory 에 Buffer 하지 않고 StreamingConverterFactory 로 전달
+    @GET("666569554d63686f36356b6f5a615a/json/SearchParkingInfoRealtime/{start}/{end}/{gu}")
+    Call<RowStream<Row>> stream(@Path("gu") String gu, @Path("start") int start, @Path("end") int end); // Row 를 하나씩 Decode
+
+    @Project({"LAT", "LNG", "CAPACITY", "CUR_PARKING", "CUR_PARKING_TIME", // ParkingSnapshot / ScheduleTable 이 쓰는 Field 만 Decode
+            "PARKING_NAME", "ADDR", "TEL", "PAY_NM", "PARKING_TYPE_NM", "NIGHT_FREE_OPEN_NM",
+            "WEEKDAY_BEGIN_TIME", "WEEKDAY_END_TIME", "WEEKEND_BEGIN_TIME", "WEEKEND_END_TIME",
+            "HOLIDAY_BEGIN_TIME", "HOLIDAY_END_TIME", "SATURDAY_PAY_NM", "HOLIDAY_PAY_NM",
+            "RATES", "TIME_RATE", "ADD_RATES", "ADD_TIME_RATE", "DAY_MAXIMUM"}) // 나머지는 ParkingLot.getRaw()
+    @Streaming
+    @Headers("Accept: " + CompactLotFormat.ACCEPT) // Proxy 는 Compact Row 로 응답, Open API 는 무시
+    @GET("666569554d63686f36356b6f5a615a/json/SearchParkingInfoRealtime/{start}/{end}/{gu}")
+    Call<RowStream<ParkingLot>> lots(@Path("gu") String gu, @Path("start") int start, @Path("end") int end, // Decode 시점에 Primitive 로 변환된 ParkingLot
+                                     @Header("Cache-Control") String cacheControl, // null 이면 Header 생략 (ApiCache 기본 정책)
+                                     @Header(SingleFlightInterceptor.HEADER) String singleFlight); // BYPASS 이면 진행 중인 같은 Request 와 합치지 않음
+
+    @Streaming // Body 를 Subscriber 의 request(n) 만큼만 읽는다.
+    @Headers("Accept: " + CompactLotFormat.ACCEPT)
+    @GET("666569554d63686f36356b6f5a615a/json/SearchParkingInfoRealtime/{start}/{end}/{gu}")
+    Publisher<ParkingLot[]> batches(@Path("gu") String gu, @Path("start") int start, @Path("end") int end); // request(1) 마다 ParkingLot 100개 (PublisherCallAdapterFactory)
+}
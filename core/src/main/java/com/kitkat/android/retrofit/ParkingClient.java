@@ -0,0 +1,149 @@
+package com.kitkat.android.retrofit;
+
+import com.kitkat.android.retrofit.network.ApiClient;
+import com.kitkat.android.retrofit.network.CityLoader;
+import com.kitkat.android.retrofit.network.PagedFetcher;
+import com.kitkat.android.retrofit.parking.LotMerger;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+import com.kitkat.android.retrofit.parking.ScheduleTable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+import okhttp3.CacheControl;
+
+/** Headless Parking Client
+ *
+ *  UI 없이 (Backend 집계 Server, Benchmark, CLI 등) 여러 구의 주차장을 불러와 하나의 ParkingSnapshot 으로 합친다.
+ *  RenderPipeline 과 같은 CityLoader → PagedFetcher → LotMerger → ParkingSnapshot 경로이며,
+ *  Callback 대신 호출한 Thread 를 Block 하여 결과를 반환한다.
+ *
+ *      ParkingClient client = new ParkingClient(ApiClient.getInstance());
+ *      ParkingClient.Result result = client.load(CityLoader.SEOUL_GU);
+ *      ParkingSnapshot snapshot = result.getSnapshot();
+ *      ScheduleTable schedule = result.getSchedule();              // snapshot 과 같은 Index
+ *      for (Map.Entry<String, Throwable> failure : result.getFailures().entrySet())
+ *          ...
+ *
+ *  여러 Thread 에서 동시에 load() 해도 된다. (load() 마다 따로 합친다.)
+ */
+public final class ParkingClient {
+    // Listener 를 Page 를 받은 Worker Thread 에서 그대로 실행
+    private static final Executor WORKER = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    /** load() 한 번의 결과 */
+    public static final class Result {
+        private final ParkingSnapshot snapshot;
+        private final ScheduleTable schedule;
+        private final int loaded;
+        private final Map<String, Throwable> failures;
+
+        Result(ParkingSnapshot snapshot, ScheduleTable schedule, int loaded, Map<String, Throwable> failures) {
+            this.snapshot = snapshot;
+            this.schedule = schedule;
+            this.loaded = loaded;
+            this.failures = Collections.unmodifiableMap(failures);
+        }
+
+        /** 성공한 구의 주차장 (PARKING_CODE 중복 제거, 도착 순서) */
+        public ParkingSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        /** snapshot 의 운영시간 / 요금표 (i 번째가 snapshot 의 i 번째 주차장) */
+        public ScheduleTable getSchedule() {
+            return schedule;
+        }
+
+        public int getLoadedCount() {
+            return loaded;
+        }
+
+        /** 실패한 구 → 원인 (실패 순서) */
+        public Map<String, Throwable> getFailures() {
+            return failures;
+        }
+
+        public boolean isComplete() {
+            return failures.isEmpty();
+        }
+    }
+
+    private final CityLoader loader;
+
+    public ParkingClient(ApiClient client) {
+        this(client, null);
+    }
+
+    /** cacheControl : 모든 Page Request 의 Cache-Control (예: CacheControl.FORCE_NETWORK) */
+    public ParkingClient(ApiClient client, CacheControl cacheControl) {
+        this(new CityLoader(new PagedFetcher(client.getOpenApiService(), client.getExecutor(), WORKER,
+                        PagedFetcher.MAX_PAGE_SIZE, PagedFetcher.DEFAULT_MAX_IN_FLIGHT, cacheControl, client.getResilience()),
+                client.getExecutor(), WORKER, CityLoader.DEFAULT_CONCURRENCY));
+    }
+
+    /** loader 의 callbackExecutor 가 load() 를 호출한 Thread 를 필요로 하면 안 된다. (예: Android Main Thread) */
+    public ParkingClient(CityLoader loader) {
+        this.loader = loader;
+    }
+
+    /** 모든 구가 끝날 때까지 Block. Interrupt 되면 진행 중인 Request 를 취소하고 InterruptedException */
+    public Result load(String... districts) throws InterruptedException {
+        final LotMerger merger = new LotMerger();
+        final Map<String, Throwable> failures = new LinkedHashMap<>();
+        final int[] loaded = new int[1];
+        final CountDownLatch done = new CountDownLatch(1);
+
+        CityLoader.Task task = loader.load(districts, new CityLoader.Listener() {
+            @Override
+            public void onDistrictLoaded(String gu, ParkingLot[] lots) {
+                synchronized (merger) {
+                    merger.add(lots);
+                }
+            }
+
+            @Override
+            public void onDistrictFailed(String gu, Throwable t) {
+                synchronized (merger) {
+                    failures.put(gu, t);
+                }
+            }
+
+            @Override
+            public void onComplete(int loadedCount, int failedCount) {
+                synchronized (merger) {
+                    loaded[0] = loadedCount;
+                }
+                done.countDown();
+            }
+        });
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            task.cancel();
+            throw e;
+        }
+
+        synchronized (merger) {
+            ParkingLot[] lots = merger.toArray();
+            ParkingSnapshot snapshot = new ParkingSnapshot.Builder().addAll(lots).build();
+            ScheduleTable schedule = new ScheduleTable.Builder().addAll(lots).build();
+            return new Result(snapshot, schedule, loaded[0], failures);
+        }
+    }
+
+    /** 서울시 25개 구 전체 */
+    public Result loadSeoul() throws InterruptedException {
+        return load(CityLoader.SEOUL_GU);
+    }
+}
@@ -0,0 +1,25 @@
+package com.kitkat.android.retrofit.converter;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/** RowStream<ParkingLot> Method 가 Decode 할 Row Field
+ *
+ *  StreamingConverterFactory 가 이 Field 만 Decode 하는 ParkingLotAdapter 를 사용한다. (Projection 참고)
+ *  나머지 Field 는 ParkingLot.getRaw() 로 필요할 때 다시 읽는다.
+ *
+ *      @Project({"LAT", "LNG", "CAPACITY", "CUR_PARKING"})
+ *      @Streaming
+ *      @GET("...")
+ *      Call<RowStream<ParkingLot>> markers(...);
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Project {
+    /** Row Field 이름 (PARKING_CODE 는 항상 포함) */
+    String[] value();
+}
@@ -0,0 +1,6 @@
+package com.kitkat.android.retrofit.converter;
+
+/** RowStream 이 Decode 한 Row 를 하나씩 전달받는 Consumer */
+public interface RowConsumer<T> {
+    void accept(T row);
+}
@@ -0,0 +1,150 @@
+package com.kitkat.android.retrofit.converter;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.kitkat.android.retrofit.domain.RESULT;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.NoSuchElementException;
+
+/** Streaming view of a SearchParkingInfoRealtime Response Body
+ *
+ *  Data → SearchParkingInfoRealtime → Row[] 전체를 Memory 에 만들지 않고,
+ *  JsonReader 로 Header (RESULT, list_total_count) 를 먼저 읽은 뒤 "row" 배열의 원소를 하나씩 Decode 한다.
+ *  원소 Type T 는 Row (Reflection) 또는 ParkingLot (ParkingLotAdapter) 등 Gson 에 등록된 Type.
+ *  Body 를 내려받는 중에도 앞쪽 Row 부터 사용할 수 있고, Consumer 가 Row 를 보관하지 않으면 Memory 사용량이 일정하다.
+ *
+ *      RowStream<Row> stream = openApiService.stream("중구", 1, 1000).execute().body();
+ *      try {
+ *          stream.getTotalCount();
+ *          stream.readAll(consumer);
+ *      } finally {
+ *          stream.close();
+ *      }
+ *
+ *  Response Body 를 소유하므로 반드시 close() 해야 한다.
+ */
+public final class RowStream<T> implements Closeable {
+    private static final String ROOT = "SearchParkingInfoRealtime";
+
+    private final JsonReader reader;
+    private final Closeable body;
+    private final TypeAdapter<T> rowAdapter;
+    private final TypeAdapter<RESULT> resultAdapter;
+
+    private RESULT result;
+    private int totalCount = -1;
+
+    // Header 를 읽은 뒤 "row" 배열 안에 위치해 있는지 여부
+    private boolean inRows;
+    private int depth;
+
+    /** Retrofit 없이 Reader (예: 저장해 둔 JSON) 로부터 RowStream 을 만든다. */
+    public static <T> RowStream<T> create(Gson gson, Reader json, Class<T> type) throws IOException {
+        return new RowStream<>(gson.newJsonReader(json), json, gson.getAdapter(type), gson.getAdapter(RESULT.class));
+    }
+
+    RowStream(JsonReader reader, Closeable body, TypeAdapter<T> rowAdapter, TypeAdapter<RESULT> resultAdapter)
+            throws IOException {
+        this.reader = reader;
+        this.body = body;
+        this.rowAdapter = rowAdapter;
+        this.resultAdapter = resultAdapter;
+        readHeader();
+    }
+
+    /** RESULT (CODE, MESSAGE). Error Response 이거나 Header 가 없으면 RESULT 만 있거나 null. */
+    public RESULT getResult() {
+        return result;
+    }
+
+    /** list_total_count. 없으면 -1 */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public boolean hasNext() throws IOException {
+        if (!inRows)
+            return false;
+        if (reader.hasNext())
+            return true;
+
+        // "row" 배열 이후의 나머지 Field 까지 읽어 Body 를 끝까지 소비
+        reader.endArray();
+        inRows = false;
+        readFields();
+        return false;
+    }
+
+    public T next() throws IOException {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        return rowAdapter.read(reader);
+    }
+
+    /** 다음 Row 를 Decode 하지 않고 건너뛴다. */
+    public void skip() throws IOException {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        reader.skipValue();
+    }
+
+    /** 남은 Row 를 모두 Consumer 로 전달하고 전달한 개수를 반환 */
+    public int readAll(RowConsumer<? super T> consumer) throws IOException {
+        int count = 0;
+        while (hasNext()) {
+            consumer.accept(rowAdapter.read(reader));
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } finally {
+            body.close();
+        }
+    }
+
+    private void readHeader() throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT)
+            throw new IOException("Expected JSON object but was " + reader.peek());
+
+        reader.beginObject();
+        depth = 1;
+        readFields();
+    }
+
+    /** "row" 배열을 만날 때까지 (또는 Body 끝까지) Header Field 를 읽는다. */
+    private void readFields() throws IOException {
+        while (depth > 0) {
+            if (!reader.hasNext()) {
+                reader.endObject();
+                depth--;
+                continue;
+            }
+
+            String name = reader.nextName();
+            if (depth == 1 && ROOT.equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                depth = 2;
+            } else if ("RESULT".equals(name)) {
+                result = resultAdapter.read(reader);
+            } else if (depth == 2 && "list_total_count".equals(name) && reader.peek() != JsonToken.NULL) {
+                totalCount = Integer.parseInt(reader.nextString().trim());
+            } else if (depth == 2 && "row".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                inRows = true;
+                return;
+            } else {
+                reader.skipValue();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.kitkat.android.retrofit.converter;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.kitkat.android.retrofit.domain.RESULT;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+import com.kitkat.android.retrofit.parking.ParkingLotAdapter;
+import com.kitkat.android.retrofit.parking.Projection;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/** Converter.Factory for RowStream
+ *
+ *  Return Type 이 RowStream<T> 인 Method 만 처리하고 나머지는 다음 Factory (GsonConverterFactory) 에 맡긴다.
+ *  Body 를 Buffer 하지 않도록 Method 에 @Streaming 을 함께 선언해야 한다.
+ *  RowStream<ParkingLot> Method 에 @Project 가 있으면 그 Field 만 Decode 한다.
+ *
+ *      Retrofit retrofit = new Retrofit.Builder()
+ *          .addConverterFactory(StreamingConverterFactory.create(gson)) // GsonConverterFactory 보다 먼저
+ *          .addConverterFactory(GsonConverterFactory.create(gson))
+ *          .build();
+ */
+public final class StreamingConverterFactory extends Converter.Factory {
+    private final Gson gson;
+
+    public static StreamingConverterFactory create(Gson gson) {
+        return new StreamingConverterFactory(gson);
+    }
+
+    private StreamingConverterFactory(Gson gson) {
+        this.gson = gson;
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        if (TypeToken.get(type).getRawType() != RowStream.class)
+            return null;
+        if (!(type instanceof ParameterizedType))
+            throw new IllegalArgumentException("RowStream return type must be parameterized as RowStream<Row> or RowStream<ParkingLot>");
+
+        Type elementType = ((ParameterizedType) type).getActualTypeArguments()[0];
+        if (elementType instanceof WildcardType)
+            elementType = ((WildcardType) elementType).getUpperBounds()[0];
+
+        Project project = findProject(annotations);
+        if (project != null) {
+            if (elementType != ParkingLot.class)
+                throw new IllegalArgumentException("@Project is only supported for RowStream<ParkingLot>, not " + type);
+            return newConverter(new ParkingLotAdapter(Projection.of(project.value())));
+        }
+        return newConverter(gson.getAdapter(TypeToken.get(elementType)));
+    }
+
+    private static Project findProject(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof Project)
+                return (Project) annotation;
+        }
+        return null;
+    }
+
+    private <T> Converter<ResponseBody, RowStream<T>> newConverter(final TypeAdapter<T> rowAdapter) {
+        final TypeAdapter<RESULT> resultAdapter = gson.getAdapter(RESULT.class);
+        return new Converter<ResponseBody, RowStream<T>>() {
+            @Override
+            public RowStream<T> convert(ResponseBody value) throws IOException {
+                JsonReader reader = gson.newJsonReader(value.charStream());
+                try {
+                    return new RowStream<>(reader, value, rowAdapter, resultAdapter);
+                } catch (IOException | RuntimeException e) {
+                    value.close();
+                    throw e;
+                }
+            }
+        };
+    }
+}
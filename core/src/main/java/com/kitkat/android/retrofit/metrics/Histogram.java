@@ -0,0 +1,103 @@
+package com.kitkat.android.retrofit.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Lock-free Log-Linear Histogram
+ *
+ *  값 (nanos, bytes 등 0 이상의 long) 을 2 의 거듭제곱 구간마다 8 개의 Bucket 으로 나누어 센다. (상대 오차 12.5% 이하)
+ *  record() 는 AtomicLongArray 의 increment 몇 번뿐이므로 여러 Thread 에서 Lock 없이 호출할 수 있다.
+ *
+ *      0 ~ 7       : 값마다 Bucket 하나
+ *      8 ~ 15      : 1 단위 Bucket 8 개
+ *      16 ~ 31     : 2 단위 Bucket 8 개
+ *      ...
+ *
+ *  percentile() 등 읽기는 기록과 동시에 해도 되지만 Bucket 사이의 일관성은 보장하지 않는다. (Log 출력용)
+ */
+public final class Histogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /** 음수는 0 으로 기록 */
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+        buckets.incrementAndGet(index(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // retry
+        }
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    public long sum() {
+        return sum.get();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long n = count.get();
+        return n > 0 ? (double) sum.get() / n : 0;
+    }
+
+    /** percentile (0 ~ 1) 의 값. 해당 Bucket 의 상한 (max 를 넘지 않음), 기록이 없으면 0 */
+    public long percentile(double percentile) {
+        long n = count.get();
+        if (n == 0)
+            return 0;
+
+        long target = Math.max(1, (long) Math.ceil(percentile * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= target)
+                return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++)
+            buckets.set(i, 0);
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        int shift = (index >> SUB_BITS) - 1;
+        return (long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1))) << shift;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        int shift = (index >> SUB_BITS) - 1;
+        return lowerBound(index) + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,149 @@
+package com.kitkat.android.retrofit.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Fetch / Decode / Render Instrumentation
+ *
+ *  retrofit() 부터 마지막 Marker 까지 단계별 소요 시간을 Histogram 으로, 전송 Byte / Row / Marker 수를 Counter 로 모은다.
+ *
+ *      DNS, CONNECT    NetworkMetrics 의 Dns / SocketFactory
+ *      TTFB            Request 를 보내고 Response Header 를 받을 때까지 (Network Interceptor)
+ *      BODY            Response Body 를 읽으며 Socket 에서 기다린 시간의 합
+ *      DECODE          Page 의 Row 를 모두 Decode 하는 시간 (Streaming 이므로 BODY 를 포함)
+ *      DEDUP, SNAPSHOT RenderPipeline 의 LotMerger / ParkingSnapshot 생성
+ *      CLUSTER         ClusterIndex 생성
+ *      RENDER          ViewportRenderer / ClusterRenderer 의 Marker 변경 (Main Thread)
+ *      LOAD            RenderPipeline.start() 부터 onComplete 까지
+ *
+ *  install() 하기 전에는 꺼져 있으며, 이때 각 Hook 의 비용은 volatile 읽기 한 번과 분기뿐이다.
+ *
+ *      Metrics.install();                          // Debug Build 등
+ *      long start = Metrics.start();
+ *      ...
+ *      Metrics.stop(Metrics.Timer.DECODE, start);
+ *      Metrics.count(Metrics.Counter.ROWS, rows);
+ *      ...
+ *      Log.i("Retrofit", Metrics.get().summary());
+ */
+public final class Metrics {
+    public enum Timer {
+        DNS, CONNECT, TTFB, BODY, DECODE, DEDUP, SNAPSHOT, CLUSTER, RENDER, LOAD
+    }
+
+    public enum Counter {
+        REQUESTS, BYTES, ROWS, MARKERS
+    }
+
+    private static final Timer[] TIMERS = Timer.values();
+    private static final Counter[] COUNTERS = Counter.values();
+
+    private static volatile Metrics installed;
+
+    private final Histogram[] histograms = new Histogram[TIMERS.length];
+    private final AtomicLongArray counters = new AtomicLongArray(COUNTERS.length);
+    private volatile long since = System.nanoTime();
+
+    public Metrics() {
+        for (int i = 0; i < histograms.length; i++)
+            histograms[i] = new Histogram();
+    }
+
+    /** 새 Metrics 로 기록 시작. 이미 있으면 그대로 반환 */
+    public static synchronized Metrics install() {
+        if (installed == null)
+            installed = new Metrics();
+        return installed;
+    }
+
+    public static synchronized void install(Metrics metrics) {
+        installed = metrics;
+    }
+
+    public static synchronized void uninstall() {
+        installed = null;
+    }
+
+    /** 꺼져 있으면 null */
+    public static Metrics get() {
+        return installed;
+    }
+
+    public static boolean isEnabled() {
+        return installed != null;
+    }
+
+    /** 측정 시작 시각. 꺼져 있으면 0 (System.nanoTime() 도 호출하지 않음) */
+    public static long start() {
+        return installed != null ? System.nanoTime() : 0;
+    }
+
+    /** start() 의 반환값부터 지금까지를 기록. start 가 0 (시작 시 꺼져 있었음) 이면 무시 */
+    public static void stop(Timer timer, long start) {
+        Metrics metrics = installed;
+        if (metrics != null && start != 0)
+            metrics.histograms[timer.ordinal()].record(System.nanoTime() - start);
+    }
+
+    public static void record(Timer timer, long nanos) {
+        Metrics metrics = installed;
+        if (metrics != null)
+            metrics.histograms[timer.ordinal()].record(nanos);
+    }
+
+    public static void count(Counter counter, long delta) {
+        Metrics metrics = installed;
+        if (metrics != null)
+            metrics.counters.addAndGet(counter.ordinal(), delta);
+    }
+
+    public Histogram histogram(Timer timer) {
+        return histograms[timer.ordinal()];
+    }
+
+    public long counter(Counter counter) {
+        return counters.get(counter.ordinal());
+    }
+
+    public void reset() {
+        for (Histogram histogram : histograms)
+            histogram.reset();
+        for (int i = 0; i < COUNTERS.length; i++)
+            counters.set(i, 0);
+        since = System.nanoTime();
+    }
+
+    /** 단계별 count / p50 / p90 / p99 / max / 합계 와 Counter, 처리량 (Log 출력용 여러 줄) */
+    public String summary() {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append(String.format(Locale.US, "Metrics for last %.1f s%n", (System.nanoTime() - since) / 1e9));
+        sb.append(String.format(Locale.US, "  %-9s %7s %9s %9s %9s %9s %10s%n", "stage", "count", "p50", "p90", "p99", "max", "total"));
+        for (Timer timer : TIMERS) {
+            Histogram h = histograms[timer.ordinal()];
+            if (h.count() == 0)
+                continue;
+            sb.append(String.format(Locale.US, "  %-9s %7d %9s %9s %9s %9s %10s%n",
+                    timer.name().toLowerCase(Locale.US), h.count(),
+                    millis(h.percentile(0.5)), millis(h.percentile(0.9)), millis(h.percentile(0.99)),
+                    millis(h.max()), millis(h.sum())));
+        }
+
+        long bytes = counter(Counter.BYTES);
+        long rows = counter(Counter.ROWS);
+        long bodyNanos = histogram(Timer.BODY).sum();
+        long decodeNanos = histogram(Timer.DECODE).sum();
+        sb.append(String.format(Locale.US, "  requests %d, bytes %.1f KB (%.2f MB/s body), rows %d (%.0f rows/s decode), markers %d",
+                counter(Counter.REQUESTS), bytes / 1024.0, rate(bytes, bodyNanos) / (1024 * 1024), rows,
+                rate(rows, decodeNanos), counter(Counter.MARKERS)));
+        return sb.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.US, "%.2fms", nanos / 1e6);
+    }
+
+    private static double rate(long amount, long nanos) {
+        return nanos > 0 ? amount * (double) TimeUnit.SECONDS.toNanos(1) / nanos : 0;
+    }
+}
@@ -0,0 +1,240 @@
+package com.kitkat.android.retrofit.network;
+
+import com.kitkat.android.retrofit.parking.CompactLotFormat;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.GzipSource;
+
+/** Disk Response Cache with stale-while-revalidate for SearchParkingInfoRealtime
+ *
+ *  서울시 Open API 는 쓸만한 Cache Header 를 보내지 않으므로 Network Interceptor 가
+ *  SearchParkingInfoRealtime Response 에 "Cache-Control: max-age={fresh}" 를 붙여 OkHttp Disk Cache 에 저장되게 한다.
+ *
+ *      - age <= fresh          : Cache 에서 바로 반환 (hit)
+ *      - age <= fresh + stale  : Cache 의 지난 Response 를 바로 반환하고 Background 에서 다시 요청하여 Cache 갱신 (stale hit)
+ *      - 그 외                  : Network 요청 (miss)
+ *
+ *  HTTP 200 이라도 RESULT.CODE 가 오류 (예: ERROR-500) 이면 "no-store" 로 Cache 에 저장하지 않는다. 재시도가 Cache 의 오류를 받으면 안 된다.
+ *  RESULT 는 row 앞에 오므로 Body 의 앞부분 (RESULT_PEEK_BYTES) 만 읽어 확인한다.
+ *
+ *  OkHttp Cache 의 Key 는 URL 뿐이다. Proxy 가 Accept 를 보고 Compact Row (CompactLotFormat) 로 응답했는데 "Vary: Accept" 가 없으면
+ *  "Vary: Accept" 를 붙여, 같은 URL 을 원래 JSON 으로 읽는 Request (stream(), get()) 가 Cache 의 Compact Body 를 받지 않게 한다.
+ *
+ *  Request 에 "Cache-Control: no-cache" 가 있으면 (예: 주기적 Refresh) Cache 를 건너뛰고 Network 결과로 Cache 를 갱신한다.
+ *
+ *      ApiCache cache = new ApiCache(new File(context.getCacheDir(), "openapi"));
+ *      ApiClient client = new ApiClient(ApiClient.BASE_URL, cache);
+ */
+public final class ApiCache {
+    public static final long DEFAULT_MAX_SIZE = 10 * 1024 * 1024;
+    public static final long DEFAULT_FRESH_SECONDS = 60;
+    public static final long DEFAULT_STALE_SECONDS = 10 * 60;
+
+    private static final String CACHEABLE_PATH = "/SearchParkingInfoRealtime/";
+
+    // list_total_count, RESULT 까지 (row 앞) 충분한 크기
+    private static final long RESULT_PEEK_BYTES = 512;
+    private static final Pattern RESULT_CODE = Pattern.compile("\"RESULT\"\\s*:\\s*\\{\\s*\"CODE\"\\s*:\\s*\"([^\"]*)\"");
+
+    private final Cache cache;
+    private final long freshMillis;
+    private final long staleSeconds;
+    private final String cacheControlHeader;
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger staleHits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicInteger revalidations = new AtomicInteger();
+
+    // 같은 URL 의 Background 재요청은 하나만
+    private final Set<String> revalidating = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private volatile Call.Factory callFactory;
+
+    public ApiCache(File directory) {
+        this(directory, DEFAULT_MAX_SIZE, DEFAULT_FRESH_SECONDS, DEFAULT_STALE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public ApiCache(File directory, long maxSize, long fresh, long stale, TimeUnit unit) {
+        this.cache = new Cache(directory, maxSize);
+        this.freshMillis = unit.toMillis(fresh);
+        this.staleSeconds = Math.max(0, unit.toSeconds(stale));
+        this.cacheControlHeader = "public, max-age=" + Math.max(0, unit.toSeconds(fresh));
+    }
+
+    /** Cache 와 Interceptor 를 Builder 에 설치 */
+    public OkHttpClient.Builder install(OkHttpClient.Builder builder) {
+        builder.cache(cache);
+        // 다른 Application Interceptor 보다 먼저 Cache 를 확인
+        builder.interceptors().add(0, staleWhileRevalidate);
+        builder.addNetworkInterceptor(freshness);
+        return builder;
+    }
+
+    /** Background 재요청에 사용할 Client (install() 한 Builder 로 만든 OkHttpClient) */
+    public void bind(Call.Factory callFactory) {
+        this.callFactory = callFactory;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public int hitCount() {
+        return hits.get();
+    }
+
+    public int staleHitCount() {
+        return staleHits.get();
+    }
+
+    public int missCount() {
+        return misses.get();
+    }
+
+    public int revalidationCount() {
+        return revalidations.get();
+    }
+
+    private static boolean isCacheable(Request request) {
+        return "GET".equals(request.method()) && request.url().encodedPath().contains(CACHEABLE_PATH);
+    }
+
+    private final Interceptor freshness = new Interceptor() {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Response response = chain.proceed(chain.request());
+            if (!response.isSuccessful() || !isCacheable(chain.request()))
+                return response;
+            // 200 은 Header 가 없어도 저장되고 max-stale 안에서 다시 쓰이므로 명시적으로 막는다.
+            if (OpenApiException.isError(resultCode(response)))
+                return response.newBuilder().header("Cache-Control", "no-store").build();
+
+            Response.Builder builder = response.newBuilder()
+                    .removeHeader("Pragma")
+                    .header("Cache-Control", cacheControlHeader);
+            if (isCompact(response) && !varies(response, "Accept"))
+                builder.addHeader("Vary", "Accept");
+            return builder.build();
+        }
+    };
+
+    private static boolean isCompact(Response response) {
+        String contentType = response.header("Content-Type");
+        return contentType != null && contentType.startsWith(CompactLotFormat.MEDIA_TYPE);
+    }
+
+    private static boolean varies(Response response, String header) {
+        for (String vary : response.headers("Vary")) {
+            for (String field : vary.split(",")) {
+                field = field.trim();
+                if ("*".equals(field) || header.equalsIgnoreCase(field))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /** Body 앞부분의 RESULT.CODE, 없으면 null. Body 는 소비하지 않는다. */
+    static String resultCode(Response response) throws IOException {
+        BufferedSource peek = response.peekBody(RESULT_PEEK_BYTES).source();
+        Buffer head = new Buffer();
+        // Network Interceptor 는 압축을 풀기 전의 Body 를 본다.
+        if ("gzip".equalsIgnoreCase(response.header("Content-Encoding"))) {
+            GzipSource gzip = new GzipSource(peek);
+            try {
+                while (head.size() < RESULT_PEEK_BYTES && gzip.read(head, RESULT_PEEK_BYTES) != -1) {
+                    // 앞부분만
+                }
+            } catch (EOFException truncated) {
+                // 잘라 읽은 압축 Body 의 끝
+            }
+        } else {
+            head.writeAll(peek);
+        }
+
+        Matcher matcher = RESULT_CODE.matcher(head.readUtf8());
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private final Interceptor staleWhileRevalidate = new Interceptor() {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            if (!isCacheable(request) || request.cacheControl().noCache())
+                return chain.proceed(request);
+
+            Request cacheOnly = request.newBuilder()
+                    .cacheControl(new CacheControl.Builder()
+                            .onlyIfCached()
+                            .maxStale((int) Math.min(Integer.MAX_VALUE, staleSeconds), TimeUnit.SECONDS)
+                            .build())
+                    .build();
+            Response cached = chain.proceed(cacheOnly);
+
+            // onlyIfCached 를 만족하는 Cache 가 없으면 OkHttp 는 504 를 돌려준다.
+            if (cached.code() == 504) {
+                cached.close();
+                misses.incrementAndGet();
+                return chain.proceed(request);
+            }
+
+            long age = System.currentTimeMillis() - cached.receivedResponseAtMillis();
+            if (age <= freshMillis) {
+                hits.incrementAndGet();
+            } else {
+                staleHits.incrementAndGet();
+                revalidate(request);
+            }
+            return cached;
+        }
+    };
+
+    private void revalidate(Request request) {
+        Call.Factory factory = callFactory;
+        final String url = request.url().toString();
+        if (factory == null || !revalidating.add(url))
+            return;
+
+        revalidations.incrementAndGet();
+        factory.newCall(request.newBuilder().cacheControl(CacheControl.FORCE_NETWORK).build()).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                revalidating.remove(url);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) throws IOException {
+                // Body 를 끝까지 읽어야 CacheInterceptor 가 Cache 에 기록한다.
+                try {
+                    BufferedSource source = response.body().source();
+                    Buffer buffer = new Buffer();
+                    while (source.read(buffer, 8192) != -1)
+                        buffer.clear();
+                } finally {
+                    response.close();
+                    revalidating.remove(url);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,204 @@
+package com.kitkat.android.retrofit.network;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.kitkat.android.retrofit.OpenApiService;
+import com.kitkat.android.retrofit.converter.StreamingConverterFactory;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+import com.kitkat.android.retrofit.parking.ParkingLotAdapter;
+import com.kitkat.android.retrofit.reactive.PublisherCallAdapterFactory;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/** Process-wide API Client
+ *
+ *  Retrofit, OkHttpClient, Gson 그리고 OpenApiService 구현체를 Process 당 한 번만 생성하여 모든 화면에서 재사용.
+ *
+ *      - OkHttpClient 는 Connection Pool 과 Dispatcher (Thread Pool) 를 소유하므로 하나만 두어야 Keep-Alive Connection 이 재사용된다.
+ *      - Gson 은 Type Adapter 를 내부에 Cache 하므로 재사용 시 두 번째 Response 부터 Reflection 비용이 사라진다.
+ *      - retrofit.create() 가 만든 Proxy 는 Method 별 Annotation 해석 결과(ServiceMethod)를 Cache 한다.
+ *      - 진행 중인 것과 같은 GET Request 는 SingleFlightInterceptor 가 하나로 합친다.
+ *      - OkHttp 가 Accept-Encoding: gzip 을 붙이고 투명하게 풀어 준다. (직접 Accept-Encoding 을 지정하면 꺼지므로 지정하지 않는다)
+ *      - baseUrl 을 Proxy 로 두면 lots() 는 CompactLotFormat 으로 응답받는다. (Decode 는 같은 ParkingLotAdapter)
+ *      - Publisher<T[]> Method 는 Worker Thread 에서 Subscriber 의 수요만큼만 Body 를 읽는다. (PublisherCallAdapterFactory)
+ *
+ *      ApiClient.initialize(context.getCacheDir()); // Application / Activity.onCreate(), 선택
+ *      OpenApiService service = ApiClient.getInstance().getOpenApiService();
+ */
+public final class ApiClient {
+    public static final String BASE_URL = "http://openapi.seoul.go.kr:8088/";
+
+    // Paging / 구 단위 병렬 Request 가 같은 Host 로 몰리므로 기본값(5)보다 여유있게 Idle Connection 을 유지.
+    static final int MAX_IDLE_CONNECTIONS = 8;
+    static final long KEEP_ALIVE_MINUTES = 5;
+
+    // 같은 Host 로 동시에 진행하는 Request 수. 서버의 동시 접속 제한을 넘지 않도록 한다.
+    public static final int MAX_REQUESTS_PER_HOST = 6;
+
+    static final long CONNECT_TIMEOUT_SECONDS = 10;
+    static final long READ_TIMEOUT_SECONDS = 30;
+
+    // Background 작업 (Paging, Decode 등) 용 Worker Thread 수. Idle Connection 수와 맞춘다.
+    static final int WORKER_THREADS = MAX_IDLE_CONNECTIONS;
+
+    private static volatile ApiClient instance;
+    private static File cacheDirectory;
+
+    private final OkHttpClient okHttpClient;
+    private final Gson gson;
+    private final Retrofit retrofit;
+    private final OpenApiService openApiService;
+    private final ExecutorService executor;
+    private final Executor callbackExecutor;
+    private final ApiCache cache;
+    private final Resilience resilience;
+
+    /** getInstance() 가 사용할 Disk Cache 위치. getInstance() 보다 먼저 호출해야 하며, 호출하지 않으면 Cache 없이 동작. */
+    public static synchronized void initialize(File cacheDir) {
+        if (instance == null)
+            cacheDirectory = new File(cacheDir, "openapi");
+    }
+
+    public static ApiClient getInstance() {
+        ApiClient client = instance;
+        if (client == null) {
+            synchronized (ApiClient.class) {
+                client = instance;
+                if (client == null)
+                    instance = client = cacheDirectory != null
+                            ? new ApiClient(BASE_URL, new ApiCache(cacheDirectory))
+                            : new ApiClient(BASE_URL);
+            }
+        }
+        return client;
+    }
+
+    public ApiClient(String baseUrl) {
+        this(baseUrl, newOkHttpClientBuilder().build());
+    }
+
+    public ApiClient(String baseUrl, ApiCache cache) {
+        this(baseUrl, cache.install(newOkHttpClientBuilder()).build(), cache);
+    }
+
+    public ApiClient(String baseUrl, OkHttpClient okHttpClient) {
+        this(baseUrl, okHttpClient, null);
+    }
+
+    private ApiClient(String baseUrl, OkHttpClient okHttpClient, ApiCache cache) {
+        this.okHttpClient = okHttpClient;
+        this.cache = cache;
+        if (cache != null)
+            cache.bind(okHttpClient); // stale Response 의 Background 재요청
+        this.gson = new GsonBuilder()
+                .registerTypeAdapter(ParkingLot.class, new ParkingLotAdapter())
+                .create();
+        this.executor = newWorkerExecutor();
+        this.retrofit = new Retrofit.Builder()
+                .baseUrl(baseUrl)
+                .client(okHttpClient)
+                .addCallAdapterFactory(PublisherCallAdapterFactory.create(executor)) // Publisher<ParkingLot[]>
+                .addConverterFactory(StreamingConverterFactory.create(gson)) // Call<RowStream>
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .build();
+        this.openApiService = retrofit.create(OpenApiService.class);
+        // 모든 Page Request 가 같은 Timeout / Retry 정책과 Latency 통계를 공유한다.
+        this.resilience = new Resilience(RetryPolicy.DEFAULT, executor);
+
+        // Android 에서는 Main Thread, JVM 에서는 호출한 Thread 에서 Callback 실행 (Retrofit 과 동일)
+        Executor platformExecutor = retrofit.callbackExecutor();
+        this.callbackExecutor = platformExecutor != null ? platformExecutor : new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+    }
+
+    /** Tuned OkHttpClient.Builder
+     *  Interceptor 등을 추가하려면 이 Builder 에서 시작하여 ApiClient(String, OkHttpClient) 로 전달.
+     */
+    public static OkHttpClient.Builder newOkHttpClientBuilder() {
+        return newOkHttpClientBuilder(MAX_REQUESTS_PER_HOST);
+    }
+
+    public static OkHttpClient.Builder newOkHttpClientBuilder(int maxRequestsPerHost) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .addInterceptor(new SingleFlightInterceptor())
+                .addInterceptor(new HostLimitInterceptor(maxRequestsPerHost))
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .connectTimeout(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(true);
+        // DNS / Connect / TTFB / Body 측정 (Metrics.install() 전에는 사실상 비용 없음)
+        return NetworkMetrics.install(builder);
+    }
+
+    private static ExecutorService newWorkerExecutor() {
+        final AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ApiClient worker " + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public OkHttpClient getOkHttpClient() {
+        return okHttpClient;
+    }
+
+    /** Disk Cache 를 사용하지 않으면 null */
+    public ApiCache getCache() {
+        return cache;
+    }
+
+    /** Page Request 의 Retry / Timeout / Hedge */
+    public Resilience getResilience() {
+        return resilience;
+    }
+
+    public Gson getGson() {
+        return gson;
+    }
+
+    public Retrofit getRetrofit() {
+        return retrofit;
+    }
+
+    public OpenApiService getOpenApiService() {
+        return openApiService;
+    }
+
+    /** Shared background Thread Pool (Daemon, Idle 시 종료) */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /** Retrofit 의 Callback 과 같은 Thread 로 결과를 전달하는 Executor */
+    public Executor getCallbackExecutor() {
+        return callbackExecutor;
+    }
+}
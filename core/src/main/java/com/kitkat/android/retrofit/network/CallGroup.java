@@ -0,0 +1,64 @@
+package com.kitkat.android.retrofit.network;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import retrofit2.Call;
+
+/** 함께 취소되는 Call 들의 묶음
+ *
+ *  Worker Thread 에서 execute() 중인 Call 은 Thread.interrupt() 로 멈추지 않으므로,
+ *  진행 중인 Call 을 등록해 두었다가 cancel() 시 Call.cancel() 로 Socket 을 닫는다.
+ *  cancel() 이후 등록되는 Call 은 즉시 취소된다.
+ *
+ *  parent 를 주면 등록한 Call 은 parent 에도 등록되어 어느 쪽을 cancel() 해도 취소된다.
+ *  (예: Task 전체 취소와 Request 한 번의 Timeout / Hedge 패배)
+ */
+public final class CallGroup {
+    private final Set<Call<?>> calls = Collections.newSetFromMap(new IdentityHashMap<Call<?>, Boolean>());
+    private final CallGroup parent;
+    private boolean cancelled;
+
+    public CallGroup() {
+        this(null);
+    }
+
+    public CallGroup(CallGroup parent) {
+        this.parent = parent;
+    }
+
+    public synchronized void add(Call<?> call) {
+        if (isCancelled()) {
+            call.cancel();
+            return;
+        }
+        calls.add(call);
+        if (parent != null)
+            parent.add(call);
+    }
+
+    public synchronized void remove(Call<?> call) {
+        calls.remove(call);
+        if (parent != null)
+            parent.remove(call);
+    }
+
+    /** parent 가 취소된 경우도 포함 */
+    public synchronized boolean isCancelled() {
+        return cancelled || (parent != null && parent.isCancelled());
+    }
+
+    public void cancel() {
+        Call<?>[] running;
+        synchronized (this) {
+            if (cancelled)
+                return;
+            cancelled = true;
+            running = calls.toArray(new Call<?>[calls.size()]);
+            calls.clear();
+        }
+        for (Call<?> call : running)
+            call.cancel();
+    }
+}
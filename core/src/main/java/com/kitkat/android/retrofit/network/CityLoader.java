@@ -0,0 +1,147 @@
+package com.kitkat.android.retrofit.network;
+
+import com.kitkat.android.retrofit.parking.ParkingLot;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.CacheControl;
+
+/** City-wide Loader
+ *
+ *  서울시 25개 구를 구 단위로 나누어 최대 concurrency 개씩 동시에 불러오고,
+ *  구 하나가 끝날 때마다 Listener 로 주차장 목록을 바로 전달한다. (전체 완료를 기다리지 않음)
+ *  각 구는 PagedFetcher 로 Paging 되며, Host 당 동시 Request 수는 ApiClient 의 HostLimitInterceptor 가 제한한다.
+ *
+ *      CityLoader.Task task = new CityLoader(ApiClient.getInstance()).load(CityLoader.SEOUL_GU, listener);
+ *      ...
+ *      task.cancel(); // Activity.onDestroy()
+ */
+public class CityLoader {
+    public static final String[] SEOUL_GU = {
+            "종로구", "중구", "용산구", "성동구", "광진구", "동대문구", "중랑구", "성북구", "강북구", "도봉구",
+            "노원구", "은평구", "서대문구", "마포구", "양천구", "강서구", "구로구", "금천구", "영등포구", "동작구",
+            "관악구", "서초구", "강남구", "송파구", "강동구"
+    };
+
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    /** 모든 Method 는 callbackExecutor (Android 에서는 Main Thread) 에서 호출. cancel() 이후에는 호출되지 않는다. */
+    public interface Listener {
+        void onDistrictLoaded(String gu, ParkingLot[] lots);
+
+        void onDistrictFailed(String gu, Throwable t);
+
+        void onComplete(int loaded, int failed);
+    }
+
+    /** 진행 중인 load() 의 Handle */
+    public static final class Task {
+        private final CallGroup group = new CallGroup();
+
+        public void cancel() {
+            group.cancel();
+        }
+
+        public boolean isCancelled() {
+            return group.isCancelled();
+        }
+    }
+
+    private final PagedFetcher fetcher;
+    private final ExecutorService executor;
+    private final Executor callbackExecutor;
+    private final int concurrency;
+
+    public CityLoader(ApiClient client) {
+        this(client, null);
+    }
+
+    /** cacheControl : 모든 Page Request 의 Cache-Control (예: Refresh 시 CacheControl.FORCE_NETWORK) */
+    public CityLoader(ApiClient client, CacheControl cacheControl) {
+        this(new PagedFetcher(client, cacheControl), client.getExecutor(), client.getCallbackExecutor(), DEFAULT_CONCURRENCY);
+    }
+
+    public CityLoader(PagedFetcher fetcher, ExecutorService executor, Executor callbackExecutor, int concurrency) {
+        if (concurrency < 1)
+            throw new IllegalArgumentException("concurrency < 1: " + concurrency);
+
+        this.fetcher = fetcher;
+        this.executor = executor;
+        this.callbackExecutor = callbackExecutor;
+        this.concurrency = concurrency;
+    }
+
+    public Task load(final String[] districts, final Listener listener) {
+        final Task task = new Task();
+        final AtomicInteger nextDistrict = new AtomicInteger();
+        final AtomicInteger remaining = new AtomicInteger(districts.length);
+        final AtomicInteger loaded = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+
+        if (districts.length == 0) {
+            deliver(task, new Runnable() {
+                @Override
+                public void run() {
+                    listener.onComplete(0, 0);
+                }
+            });
+            return task;
+        }
+
+        // 구 Index 를 나누어 갖는 Worker 를 concurrency 개만 띄워 동시에 진행하는 구의 수를 제한
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int index;
+                while (!task.isCancelled() && (index = nextDistrict.getAndIncrement()) < districts.length) {
+                    final String gu = districts[index];
+                    try {
+                        final ParkingLot[] lots = fetcher.fetch(gu, task.group);
+                        loaded.incrementAndGet();
+                        deliver(task, new Runnable() {
+                            @Override
+                            public void run() {
+                                listener.onDistrictLoaded(gu, lots);
+                            }
+                        });
+                    } catch (final Throwable t) {
+                        failed.incrementAndGet();
+                        deliver(task, new Runnable() {
+                            @Override
+                            public void run() {
+                                listener.onDistrictFailed(gu, t);
+                            }
+                        });
+                    }
+
+                    if (remaining.decrementAndGet() == 0) {
+                        deliver(task, new Runnable() {
+                            @Override
+                            public void run() {
+                                listener.onComplete(loaded.get(), failed.get());
+                            }
+                        });
+                    }
+                }
+            }
+        };
+
+        for (int i = 0; i < Math.min(concurrency, districts.length); i++)
+            executor.execute(worker);
+
+        return task;
+    }
+
+    private void deliver(final Task task, final Runnable event) {
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                // cancel() 과 같은 Thread 에서 확인하므로 취소 이후의 Callback 은 Activity 에 도달하지 않는다.
+                if (!task.isCancelled())
+                    event.run();
+            }
+        });
+    }
+}
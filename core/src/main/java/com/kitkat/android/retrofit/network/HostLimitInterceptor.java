@@ -0,0 +1,122 @@
+package com.kitkat.android.retrofit.network;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/** Per-host concurrency limit
+ *
+ *  OkHttp Dispatcher 의 maxRequestsPerHost 는 enqueue() 된 비동기 Call 에만 적용되고,
+ *  Worker Thread 에서 execute() 하는 동기 Call 은 제한하지 않는다.
+ *  이 Interceptor 는 Host 별 Semaphore 로 동시에 진행 중인 Exchange 수를 제한한다.
+ *  Permit 은 Response Body 를 모두 읽거나 close() 할 때 반환된다.
+ */
+public class HostLimitInterceptor implements Interceptor {
+    private final int maxRequestsPerHost;
+    private final ConcurrentMap<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+    public HostLimitInterceptor(int maxRequestsPerHost) {
+        if (maxRequestsPerHost < 1)
+            throw new IllegalArgumentException("maxRequestsPerHost < 1: " + maxRequestsPerHost);
+        this.maxRequestsPerHost = maxRequestsPerHost;
+    }
+
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final Semaphore semaphore = semaphore(chain.request().url().host());
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for " + chain.request().url().host());
+        }
+
+        Response response;
+        try {
+            response = chain.proceed(chain.request());
+        } catch (IOException | RuntimeException e) {
+            semaphore.release();
+            throw e;
+        }
+
+        if (response.body() == null) {
+            semaphore.release();
+            return response;
+        }
+        return response.newBuilder().body(new ReleasingBody(response.body(), semaphore)).build();
+    }
+
+    private Semaphore semaphore(String host) {
+        Semaphore semaphore = permits.get(host);
+        if (semaphore == null) {
+            Semaphore created = new Semaphore(maxRequestsPerHost, true);
+            semaphore = permits.putIfAbsent(host, created);
+            if (semaphore == null)
+                semaphore = created;
+        }
+        return semaphore;
+    }
+
+    private static final class ReleasingBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private final Semaphore semaphore;
+
+        ReleasingBody(ResponseBody delegate, Semaphore semaphore) {
+            this.delegate = delegate;
+            this.semaphore = semaphore;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read == -1)
+                        release();
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    release();
+                    super.close();
+                }
+            });
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true))
+                semaphore.release();
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
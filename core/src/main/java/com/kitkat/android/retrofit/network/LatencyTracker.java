@@ -0,0 +1,52 @@
+package com.kitkat.android.retrofit.network;
+
+import java.util.Arrays;
+
+/** 최근 Request Latency 의 Percentile
+ *
+ *  최근 capacity 개의 성공한 Request Latency 를 Ring Buffer 에 보관하고, 요청 시 정렬하여 Percentile 을 계산한다.
+ *  Hedged Request 를 보낼 시점 (예: p95) 을 정하는 데 사용한다.
+ */
+public final class LatencyTracker {
+    public static final int DEFAULT_CAPACITY = 128;
+    public static final int DEFAULT_MIN_SAMPLES = 20;
+
+    private final long[] samples;
+    private final long[] sorted;
+    private final int minSamples;
+    private int count;
+    private int next;
+
+    public LatencyTracker() {
+        this(DEFAULT_CAPACITY, DEFAULT_MIN_SAMPLES);
+    }
+
+    public LatencyTracker(int capacity, int minSamples) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity < 1: " + capacity);
+        this.samples = new long[capacity];
+        this.sorted = new long[capacity];
+        this.minSamples = Math.max(1, Math.min(minSamples, capacity));
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length)
+            count++;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    /** percentile (0 ~ 1) 의 Latency (nanos). Sample 이 minSamples 보다 적으면 -1 */
+    public synchronized long percentile(double percentile) {
+        if (count < minSamples)
+            return -1;
+        System.arraycopy(samples, 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+        int index = (int) Math.ceil(percentile * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+}
@@ -0,0 +1,180 @@
+package com.kitkat.android.retrofit.network;
+
+import com.kitkat.android.retrofit.metrics.Metrics;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+import javax.net.SocketFactory;
+
+import okhttp3.Dns;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/** OkHttp Instrumentation for Metrics
+ *
+ *  OkHttp 3.6 에는 EventListener 가 없으므로 같은 지점을 다음으로 측정한다.
+ *
+ *      DNS      Dns 를 감싸 lookup() 시간
+ *      CONNECT  SocketFactory 가 만든 Socket 의 connect() 시간 (TCP Handshake)
+ *      TTFB     Network Interceptor 에서 proceed() 가 Response Header 를 반환할 때까지
+ *      BODY     Response Body 의 read() 에서 기다린 시간의 합, BYTES 는 읽은 Byte 수
+ *
+ *  Metrics 가 꺼져 있으면 각 지점은 Metrics.start() 의 volatile 읽기 외에 아무 일도 하지 않는다.
+ *
+ *      NetworkMetrics.install(builder); // ApiClient.newOkHttpClientBuilder() 가 설치
+ */
+public final class NetworkMetrics {
+    private NetworkMetrics() {
+    }
+
+    public static OkHttpClient.Builder install(OkHttpClient.Builder builder) {
+        return builder.dns(new TimedDns(Dns.SYSTEM))
+                .socketFactory(new TimedSocketFactory(SocketFactory.getDefault()))
+                .addNetworkInterceptor(INTERCEPTOR);
+    }
+
+    private static final Interceptor INTERCEPTOR = new Interceptor() {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            long start = Metrics.start();
+            if (start == 0)
+                return chain.proceed(chain.request());
+
+            Response response = chain.proceed(chain.request());
+            Metrics.stop(Metrics.Timer.TTFB, start);
+            Metrics.count(Metrics.Counter.REQUESTS, 1);
+
+            if (response.body() == null)
+                return response;
+            return response.newBuilder().body(new TimedBody(response.body())).build();
+        }
+    };
+
+    static final class TimedDns implements Dns {
+        private final Dns delegate;
+
+        TimedDns(Dns delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+            long start = Metrics.start();
+            try {
+                return delegate.lookup(hostname);
+            } finally {
+                Metrics.stop(Metrics.Timer.DNS, start);
+            }
+        }
+    }
+
+    /** OkHttp 는 createSocket() 으로 만든 뒤 connect() 하므로 그 Socket 만 측정 */
+    static final class TimedSocketFactory extends SocketFactory {
+        private final SocketFactory delegate;
+
+        TimedSocketFactory(SocketFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Socket createSocket() {
+            return new TimedSocket();
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return delegate.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return delegate.createSocket(host, port, localHost, localPort);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return delegate.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+            return delegate.createSocket(address, port, localAddress, localPort);
+        }
+    }
+
+    static final class TimedSocket extends Socket {
+        @Override
+        public void connect(SocketAddress endpoint, int timeout) throws IOException {
+            long start = Metrics.start();
+            super.connect(endpoint, timeout);
+            Metrics.stop(Metrics.Timer.CONNECT, start);
+        }
+    }
+
+    /** read() 안에서 보낸 시간 (Socket 대기 + 복사) 과 Byte 수. 끝까지 읽거나 닫을 때 한 번 기록 */
+    static final class TimedBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+        private long nanos;
+        private long bytes;
+        private boolean recorded;
+
+        TimedBody(ResponseBody delegate) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long start = System.nanoTime();
+                    long read = super.read(sink, byteCount);
+                    nanos += System.nanoTime() - start;
+                    if (read == -1)
+                        record();
+                    else
+                        bytes += read;
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    record();
+                    super.close();
+                }
+            });
+        }
+
+        private void record() {
+            if (recorded)
+                return;
+            recorded = true;
+            Metrics.record(Metrics.Timer.BODY, nanos);
+            Metrics.count(Metrics.Counter.BYTES, bytes);
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.kitkat.android.retrofit.network;
+
+import java.io.IOException;
+
+/** 서버가 응답은 했지만 실패를 알린 경우 (HTTP Status 또는 RESULT.CODE)
+ *
+ *  서울시 Open API 는 HTTP 200 으로 응답하면서 RESULT.CODE 에 오류를 담는다.
+ *
+ *      INFO-000            정상 처리
+ *      INFO-200            해당하는 데이터 없음 (빈 Page 로 처리, 오류 아님)
+ *      INFO-100            인증키 오류                         → 재시도 무의미
+ *      ERROR-300 ~ 336     요청 형식 오류 (필수값, 범위 등)    → 재시도 무의미
+ *      ERROR-500           서버 오류                           → 재시도
+ *      ERROR-600, 601      DB 연결 / SQL 오류                  → 재시도
+ *
+ *  HTTP Status 는 408, 429, 5xx 만 재시도한다.
+ */
+public class OpenApiException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public static final String OK = "INFO-000";
+    public static final String NO_DATA = "INFO-200";
+
+    private final int httpCode;
+    private final String resultCode;
+
+    /** HTTP Status 오류 */
+    public OpenApiException(int httpCode, String message) {
+        super("HTTP " + httpCode + " " + message);
+        this.httpCode = httpCode;
+        this.resultCode = null;
+    }
+
+    /** RESULT.CODE 오류 */
+    public OpenApiException(String resultCode, String message) {
+        super(resultCode + " " + message);
+        this.httpCode = 200;
+        this.resultCode = resultCode;
+    }
+
+    public int getHttpCode() {
+        return httpCode;
+    }
+
+    /** RESULT.CODE, HTTP Status 오류이면 null */
+    public String getResultCode() {
+        return resultCode;
+    }
+
+    /** 같은 Request 를 다시 보내면 성공할 수도 있는 오류인지 */
+    public boolean isRetryable() {
+        if (resultCode != null)
+            return isRetryable(resultCode);
+        return httpCode == 408 || httpCode == 429 || httpCode >= 500;
+    }
+
+    /** 정상 (INFO-000) 과 데이터 없음 (INFO-200) 외의 CODE. 없으면 (null) 정상으로 본다. */
+    public static boolean isError(String resultCode) {
+        return resultCode != null && !OK.equals(resultCode) && !NO_DATA.equals(resultCode);
+    }
+
+    public static boolean isRetryable(String resultCode) {
+        return "ERROR-500".equals(resultCode) || "ERROR-600".equals(resultCode) || "ERROR-601".equals(resultCode);
+    }
+}
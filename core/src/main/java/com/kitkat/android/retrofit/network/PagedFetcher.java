@@ -0,0 +1,315 @@
+package com.kitkat.android.retrofit.network;
+
+import com.kitkat.android.retrofit.OpenApiService;
+import com.kitkat.android.retrofit.converter.RowStream;
+import com.kitkat.android.retrofit.domain.RESULT;
+import com.kitkat.android.retrofit.domain.Row;
+import com.kitkat.android.retrofit.metrics.Metrics;
+import com.kitkat.android.retrofit.parking.CompactLotFormat;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+import com.kitkat.android.retrofit.parking.RawSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.CacheControl;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/** Paging Engine for SearchParkingInfoRealtime
+ *
+ *  Open API 는 한 번의 Request 로 최대 1000 Row 만 반환하므로 {start}/{end} 구간을 나누어 요청해야 한다.
+ *
+ *      1. 첫 Page (1 ~ pageSize) 를 요청하여 list_total_count 를 얻는다.
+ *      2. 나머지 Page 구간을 최대 maxInFlight 개까지 동시에 요청한다.
+ *      3. Page 순서대로 ParkingLot 배열을 이어 붙인다.
+ *
+ *  lots() 는 @Project 의 Field 만 Decode 하므로 각 ParkingLot 에 Page 의 RawSource 를 붙여 둔다.
+ *  상세 화면은 ParkingLot.getRaw() 로 그 Page 를 다시 받아 (ApiCache 가 있으면 대개 Disk 에서) 원래 Row 를 얻는다.
+ *
+ *  fetch() 를 호출한 Thread 도 Page 를 가져오는 Worker 로 참여하므로,
+ *  Executor 의 Thread 가 모두 바쁘더라도 (예: 여러 구를 동시에 Paging) Deadlock 없이 진행된다.
+ *
+ *  cacheControl 은 모든 Page Request 에 Header 로 붙는다. 주기적 Refresh 처럼 Cache 를 건너뛰어야 하면 CacheControl.FORCE_NETWORK.
+ *
+ *  각 Page Request 는 Resilience 가 Timeout, 재시도 (Backoff + Jitter), Hedge 를 적용한다.
+ *  RESULT.CODE 가 오류 (INFO-000, INFO-200 외) 이면 OpenApiException 으로 실패하며, 서버 / DB 오류만 재시도한다.
+ *  재시도와 Hedge 는 Cache 를 건너뛴다 (no-cache). 첫 Attempt 가 Cache 에서 받은 Page 가 실패였더라도 Network 로 다시 받는다.
+ */
+public class PagedFetcher {
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    /** 결과는 callbackExecutor (Android 에서는 Main Thread) 에서 전달 */
+    public interface Callback {
+        void onResponse(ParkingLot[] lots);
+
+        void onFailure(Throwable t);
+    }
+
+    private final OpenApiService service;
+    private final ExecutorService executor;
+    private final Executor callbackExecutor;
+    private final int pageSize;
+    private final int maxInFlight;
+    private final String cacheControl;
+    private final Resilience resilience;
+
+    public PagedFetcher(ApiClient client) {
+        this(client, null);
+    }
+
+    public PagedFetcher(ApiClient client, CacheControl cacheControl) {
+        this(client.getOpenApiService(), client.getExecutor(), client.getCallbackExecutor(),
+                MAX_PAGE_SIZE, DEFAULT_MAX_IN_FLIGHT, cacheControl, client.getResilience());
+    }
+
+    public PagedFetcher(OpenApiService service, ExecutorService executor, Executor callbackExecutor,
+                        int pageSize, int maxInFlight) {
+        this(service, executor, callbackExecutor, pageSize, maxInFlight, null);
+    }
+
+    public PagedFetcher(OpenApiService service, ExecutorService executor, Executor callbackExecutor,
+                        int pageSize, int maxInFlight, CacheControl cacheControl) {
+        this(service, executor, callbackExecutor, pageSize, maxInFlight, cacheControl,
+                new Resilience(RetryPolicy.DEFAULT, executor));
+    }
+
+    public PagedFetcher(OpenApiService service, ExecutorService executor, Executor callbackExecutor,
+                        int pageSize, int maxInFlight, CacheControl cacheControl, Resilience resilience) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE)
+            throw new IllegalArgumentException("pageSize must be in 1.." + MAX_PAGE_SIZE + ": " + pageSize);
+        if (maxInFlight < 1)
+            throw new IllegalArgumentException("maxInFlight < 1: " + maxInFlight);
+
+        this.service = service;
+        this.executor = executor;
+        this.callbackExecutor = callbackExecutor;
+        this.pageSize = pageSize;
+        this.maxInFlight = maxInFlight;
+        this.cacheControl = cacheControl != null ? cacheControl.toString() : null;
+        this.resilience = resilience;
+    }
+
+    public Resilience getResilience() {
+        return resilience;
+    }
+
+    /** Background Thread 에서 fetch() 후 결과를 Callback 으로 전달 */
+    public void enqueue(final String gu, final Callback callback) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final ParkingLot[] lots = fetch(gu);
+                    callbackExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onResponse(lots);
+                        }
+                    });
+                } catch (final Throwable t) {
+                    callbackExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onFailure(t);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /** 구(gu) 의 전체 주차장을 Page 순서대로 반환. 호출한 Thread 를 Block 하므로 Main Thread 에서 호출 금지. */
+    public ParkingLot[] fetch(String gu) throws IOException {
+        return fetch(gu, new CallGroup());
+    }
+
+    /** group.cancel() 시 진행 중인 Page Request 를 취소하고 IOException 으로 종료 */
+    public ParkingLot[] fetch(final String gu, final CallGroup group) throws IOException {
+        Page first = fetchPage(gu, 1, pageSize, group);
+        // list_total_count 가 없으면 첫 Page 가 전부라고 본다.
+        int total = first.totalCount >= 0 ? first.totalCount : first.lots.length;
+        final int pages = (total + pageSize - 1) / pageSize;
+        if (pages <= 1)
+            return first.lots;
+
+        final ParkingLot[][] results = new ParkingLot[pages][];
+        results[0] = first.lots;
+
+        final AtomicInteger nextPage = new AtomicInteger(1);
+        final CountDownLatch done = new CountDownLatch(pages - 1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int page;
+                while ((page = nextPage.getAndIncrement()) < pages) {
+                    try {
+                        // 앞선 Page 가 실패했다면 남은 Page 는 요청하지 않고 건너뛴다.
+                        if (failure.get() == null) {
+                            int start = page * pageSize + 1;
+                            results[page] = fetchPage(gu, start, start + pageSize - 1, group).lots;
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }
+        };
+
+        int helpers = Math.min(maxInFlight, pages - 1) - 1;
+        for (int i = 0; i < helpers; i++)
+            executor.execute(worker);
+        worker.run();
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while paging " + gu, e);
+        }
+
+        Throwable t = failure.get();
+        if (t instanceof IOException)
+            throw (IOException) t;
+        if (t != null)
+            throw new IOException("Paging " + gu + " failed", t);
+
+        return merge(results);
+    }
+
+    private Page fetchPage(final String gu, final int start, final int end, CallGroup group) throws IOException {
+        final AtomicInteger attempts = new AtomicInteger();
+        return resilience.execute(new Resilience.Attempt<Page>() {
+            @Override
+            public Page run(CallGroup attempt, boolean hedged) throws IOException {
+                return requestPage(gu, start, end, attempt, hedged, attempts.getAndIncrement() > 0);
+            }
+        }, group);
+    }
+
+    private Page requestPage(String gu, int start, int end, CallGroup group, boolean hedged, boolean retried) throws IOException {
+        // Hedge 가 진행 중인 느린 Request 에 합쳐지면 의미가 없다.
+        Call<RowStream<ParkingLot>> call = service.lots(gu, start, end,
+                retried ? CacheControl.FORCE_NETWORK.toString() : cacheControl,
+                hedged ? SingleFlightInterceptor.BYPASS : null);
+        group.add(call);
+        try {
+            Response<RowStream<ParkingLot>> response = call.execute();
+            if (!response.isSuccessful()) {
+                response.errorBody().close();
+                throw new OpenApiException(response.code(), response.message() + " for " + start + "/" + end + "/" + gu);
+            }
+
+            // Data Tree 없이 Decode 된 ParkingLot 만 바로 모은다.
+            RowStream<ParkingLot> stream = response.body();
+            try {
+                long decodeStart = Metrics.start();
+                List<ParkingLot> lots = new ArrayList<>(Math.max(0, end - start + 1));
+                while (stream.hasNext())
+                    lots.add(stream.next());
+                Metrics.stop(Metrics.Timer.DECODE, decodeStart);
+                Metrics.count(Metrics.Counter.ROWS, lots.size());
+
+                // HTTP 200 이면서 RESULT.CODE 로 오류를 알리는 경우 (예: ERROR-500)
+                RESULT result = stream.getResult();
+                if (result != null && OpenApiException.isError(result.getCODE()))
+                    throw new OpenApiException(result.getCODE(), result.getMESSAGE() + " for " + start + "/" + end + "/" + gu);
+
+                ParkingLot[] page = lots.toArray(new ParkingLot[lots.size()]);
+                // Proxy 의 Compact Row 는 원래 Row 가 없으므로 getRaw() 는 toRow() 로 대신한다.
+                String contentType = response.headers().get("Content-Type");
+                if (contentType == null || !contentType.startsWith(CompactLotFormat.MEDIA_TYPE))
+                    ParkingLot.attachRaw(page, new PageSource(service, gu, start, end));
+                return new Page(stream.getTotalCount(), page);
+            } finally {
+                stream.close();
+            }
+        } finally {
+            group.remove(call);
+        }
+    }
+
+    static ParkingLot[] merge(ParkingLot[][] pages) {
+        int size = 0;
+        for (ParkingLot[] page : pages)
+            size += page.length;
+
+        ParkingLot[] lots = new ParkingLot[size];
+        int offset = 0;
+        for (ParkingLot[] page : pages) {
+            System.arraycopy(page, 0, lots, offset, page.length);
+            offset += page.length;
+        }
+        return lots;
+    }
+
+    /** lots() 와 같은 Page 를 stream() 으로 다시 받아 Row 그대로 읽는다. (ApiCache 가 있으면 대개 Disk 에서) */
+    static final class PageSource implements RawSource {
+        private final OpenApiService service;
+        private final String gu;
+        private final int start;
+        private final int end;
+
+        PageSource(OpenApiService service, String gu, int start, int end) {
+            this.service = service;
+            this.gu = gu;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Row row(int ordinal, int parkingCode) throws IOException {
+            // 1. 같은 순서의 Row 가 그대로 있으면 앞의 Row 는 Decode 하지 않는다.
+            Row row = read(ordinal, parkingCode);
+            if (row != null)
+                return row;
+            // 2. 그 사이 Row 순서가 바뀌었다면 같은 PARKING_CODE 의 첫 Row
+            return read(-1, parkingCode);
+        }
+
+        private Row read(int ordinal, int parkingCode) throws IOException {
+            Response<RowStream<Row>> response = service.stream(gu, start, end).execute();
+            if (!response.isSuccessful()) {
+                response.errorBody().close();
+                throw new OpenApiException(response.code(), response.message() + " for " + start + "/" + end + "/" + gu);
+            }
+
+            RowStream<Row> stream = response.body();
+            try {
+                for (int i = 0; i < ordinal && stream.hasNext(); i++)
+                    stream.skip();
+                while (stream.hasNext()) {
+                    Row row = stream.next();
+                    if (String.valueOf(parkingCode).equals(row.getPARKING_CODE()))
+                        return row;
+                    if (ordinal >= 0)
+                        return null;
+                }
+                return null;
+            } finally {
+                stream.close();
+            }
+        }
+    }
+
+    private static final class Page {
+        final int totalCount;
+        final ParkingLot[] lots;
+
+        Page(int totalCount, ParkingLot[] lots) {
+            this.totalCount = totalCount;
+            this.lots = lots;
+        }
+    }
+}
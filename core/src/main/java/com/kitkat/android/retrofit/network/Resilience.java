@@ -0,0 +1,292 @@
+package com.kitkat.android.retrofit.network;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Retry, Timeout budget and Hedged Requests
+ *
+ *  RetryPolicy 에 따라 Attempt 를 실행한다.
+ *
+ *      1. Attempt 를 호출한 Thread 에서 실행하고 attemptTimeout (남은 deadline 이 더 짧으면 그만큼) 이 지나면 Call 을 취소
+ *      2. 최근 Latency 의 p95 가 지나도 끝나지 않으면 같은 Attempt 를 executor 에서 하나 더 실행 (Hedge)
+ *         먼저 성공한 쪽의 결과를 사용하고 다른 쪽의 Call 은 취소
+ *      3. 실패가 재시도할 만한 것이면 (RetryPolicy.isRetryable) Backoff 후 다시 시도. deadline 을 넘기지 않는다.
+ *
+ *  Hedge 는 executor 에 여유가 있을 때만 실행된다. 첫 Attempt 가 먼저 끝나면 아직 시작하지 않은 Hedge 는 건너뛰므로
+ *  executor 의 Thread 가 모두 바쁘더라도 Deadlock 은 없다.
+ *
+ *      Page page = resilience.execute(new Resilience.Attempt<Page>() {
+ *          public Page run(CallGroup group, boolean hedged) throws IOException {
+ *              Call<...> call = service.lots(...);
+ *              group.add(call); // Timeout / Hedge 패배 시 취소
+ *              ...
+ *          }
+ *      }, task.group);
+ */
+public final class Resilience {
+    public interface Attempt<T> {
+        /** 만든 Call 을 group 에 등록해야 Timeout / Hedge 패배 시 취소된다. hedged 는 Hedge 로 실행된 경우 true */
+        T run(CallGroup group, boolean hedged) throws IOException;
+    }
+
+    private static final ScheduledExecutorService TIMER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Resilience timer");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final RetryPolicy policy;
+    private final Executor executor;
+    private final LatencyTracker latency;
+    private final Random random = new Random();
+
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final AtomicInteger retries = new AtomicInteger();
+    private final AtomicInteger hedges = new AtomicInteger();
+    private final AtomicInteger hedgeWins = new AtomicInteger();
+    private final AtomicInteger timeouts = new AtomicInteger();
+
+    /** executor : Hedged Attempt 를 실행할 Thread Pool */
+    public Resilience(RetryPolicy policy, Executor executor) {
+        this(policy, executor, new LatencyTracker());
+    }
+
+    public Resilience(RetryPolicy policy, Executor executor, LatencyTracker latency) {
+        this.policy = policy;
+        this.executor = executor;
+        this.latency = latency;
+    }
+
+    public RetryPolicy getPolicy() {
+        return policy;
+    }
+
+    public LatencyTracker getLatencyTracker() {
+        return latency;
+    }
+
+    /** 실행한 Attempt 수 (Hedge 포함) */
+    public int attemptCount() {
+        return attempts.get();
+    }
+
+    public int retryCount() {
+        return retries.get();
+    }
+
+    public int hedgeCount() {
+        return hedges.get();
+    }
+
+    /** Hedge 가 첫 Attempt 보다 먼저 성공한 수 */
+    public int hedgeWinCount() {
+        return hedgeWins.get();
+    }
+
+    public int timeoutCount() {
+        return timeouts.get();
+    }
+
+    /** parent.cancel() 시 진행 중인 Attempt 를 취소하고 재시도하지 않는다. */
+    public <T> T execute(Attempt<T> attempt, CallGroup parent) throws IOException {
+        long deadline = System.nanoTime() + policy.deadlineNanos;
+        IOException failure = null;
+
+        for (int n = 0; n < policy.maxAttempts; n++) {
+            if (parent.isCancelled())
+                throw new IOException("Canceled");
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+                break;
+            if (n > 0)
+                retries.incrementAndGet();
+
+            try {
+                return race(attempt, parent, Math.min(policy.attemptTimeoutNanos, remaining));
+            } catch (IOException e) {
+                failure = e;
+                if (parent.isCancelled() || !RetryPolicy.isRetryable(e))
+                    throw e;
+            }
+
+            if (n + 1 < policy.maxAttempts) {
+                long backoff = policy.backoffNanos(n, random);
+                // Backoff 후에 시도할 시간이 남지 않는다.
+                if (backoff >= deadline - System.nanoTime())
+                    break;
+                sleep(backoff);
+            }
+        }
+
+        if (failure == null)
+            throw new SocketTimeoutException("Deadline exceeded");
+        throw failure;
+    }
+
+    private <T> T race(Attempt<T> attempt, CallGroup parent, long timeoutNanos) throws IOException {
+        final Race<T> race = new Race<>(attempt, parent);
+        ScheduledFuture<?> timeout = TIMER.schedule(new Runnable() {
+            @Override
+            public void run() {
+                race.timeout();
+            }
+        }, timeoutNanos, TimeUnit.NANOSECONDS);
+
+        ScheduledFuture<?> hedge = null;
+        long hedgeDelay = policy.hedgeDelayNanos(latency);
+        if (hedgeDelay >= 0 && hedgeDelay < timeoutNanos) {
+            hedge = TIMER.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    executor.execute(race);
+                }
+            }, hedgeDelay, TimeUnit.NANOSECONDS);
+        }
+
+        try {
+            attempts.incrementAndGet();
+            long start = System.nanoTime();
+            T result;
+            try {
+                result = attempt.run(race.primary, false);
+            } catch (IOException e) {
+                return race.primaryFailed(e);
+            }
+            latency.record(System.nanoTime() - start);
+            return race.primarySucceeded(result);
+        } finally {
+            timeout.cancel(false);
+            if (hedge != null)
+                hedge.cancel(false);
+            race.finish();
+        }
+    }
+
+    private static void sleep(long nanos) throws InterruptedIOException {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during backoff");
+        }
+    }
+
+    /** 첫 Attempt 와 Hedge 중 먼저 성공한 결과. run() 은 Hedge 로 executor 에서 실행된다. */
+    private final class Race<T> implements Runnable {
+        final Attempt<T> attempt;
+        final CallGroup primary;
+        final CallGroup hedge;
+
+        private boolean done;
+        private boolean timedOut;
+        private boolean hedgeRunning;
+        private boolean hasResult;
+        private T result;
+
+        Race(Attempt<T> attempt, CallGroup parent) {
+            this.attempt = attempt;
+            this.primary = new CallGroup(parent);
+            this.hedge = new CallGroup(parent);
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                // 첫 Attempt 가 이미 끝났다.
+                if (done)
+                    return;
+                hedgeRunning = true;
+            }
+            hedges.incrementAndGet();
+            attempts.incrementAndGet();
+
+            boolean won = false;
+            long start = System.nanoTime();
+            try {
+                T value = attempt.run(hedge, true);
+                latency.record(System.nanoTime() - start);
+                synchronized (this) {
+                    if (!hasResult) {
+                        result = value;
+                        hasResult = true;
+                        won = true;
+                    }
+                }
+            } catch (Throwable ignored) {
+                // 첫 Attempt 의 결과를 사용
+            } finally {
+                synchronized (this) {
+                    hedgeRunning = false;
+                    notifyAll();
+                }
+            }
+
+            if (won) {
+                hedgeWins.incrementAndGet();
+                primary.cancel();
+            }
+        }
+
+        void timeout() {
+            synchronized (this) {
+                if (done)
+                    return;
+                timedOut = true;
+            }
+            timeouts.incrementAndGet();
+            primary.cancel();
+            hedge.cancel();
+        }
+
+        synchronized T primarySucceeded(T value) {
+            done = true;
+            if (!hasResult) {
+                result = value;
+                hasResult = true;
+            }
+            return result;
+        }
+
+        /** 진행 중인 Hedge 가 있으면 그 결과를 기다린다. (Timeout 이 지나면 Hedge 도 취소되므로 오래 걸리지 않는다) */
+        synchronized T primaryFailed(IOException e) throws IOException {
+            try {
+                while (!hasResult && hedgeRunning)
+                    wait();
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for hedged request");
+            } finally {
+                done = true;
+            }
+
+            if (hasResult)
+                return result;
+            if (timedOut) {
+                SocketTimeoutException timeout = new SocketTimeoutException("Attempt timed out");
+                timeout.initCause(e);
+                throw timeout;
+            }
+            throw e;
+        }
+
+        void finish() {
+            synchronized (this) {
+                done = true;
+            }
+            // 진 쪽 Call 정리
+            hedge.cancel();
+        }
+    }
+}
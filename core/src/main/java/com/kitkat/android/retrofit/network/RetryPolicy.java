@@ -0,0 +1,159 @@
+package com.kitkat.android.retrofit.network;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Retry / Timeout / Hedging 정책 (Immutable)
+ *
+ *      - attemptTimeout : Request 한 번 (Header + Body 를 끝까지 읽기) 의 제한 시간
+ *      - deadline       : 재시도와 Backoff 를 포함한 전체 제한 시간
+ *      - backoff        : n 번째 재시도 전 0 ~ min(maxBackoff, baseBackoff * 2^n) 사이 무작위 대기 (Full Jitter)
+ *      - hedge (선택)   : 첫 Request 가 최근 Latency 의 hedgePercentile (예: p95) 안에 끝나지 않으면
+ *                         같은 Request 를 하나 더 보내 먼저 끝난 쪽을 사용하고 나머지는 취소
+ *
+ *  Hedge 는 기본으로 꺼져 있다. Latency 에는 HostLimitInterceptor 에서 기다린 시간도 포함되므로
+ *  Host 당 동시 Request 제한에 걸릴 만큼 많은 Request 를 한꺼번에 보내는 경우 (예: CityLoader 전체 Load)
+ *  느린 서버가 아니라 줄을 선 Request 에 Hedge 를 보내게 된다.
+ *
+ *      RetryPolicy policy = new RetryPolicy.Builder()
+ *              .maxAttempts(3)
+ *              .attemptTimeout(10, TimeUnit.SECONDS)
+ *              .deadline(30, TimeUnit.SECONDS)
+ *              .hedge() // p95
+ *              .build();
+ */
+public final class RetryPolicy {
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_ATTEMPT_TIMEOUT_MILLIS = 10 * 1000;
+    public static final long DEFAULT_DEADLINE_MILLIS = 30 * 1000;
+    public static final long DEFAULT_BASE_BACKOFF_MILLIS = 200;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 5 * 1000;
+    public static final double DEFAULT_HEDGE_PERCENTILE = 0.95;
+    public static final long DEFAULT_MIN_HEDGE_DELAY_MILLIS = 100;
+
+    /** 재시도 없이 한 번만 (Timeout 만 적용) */
+    public static final RetryPolicy NONE = new Builder().maxAttempts(1).build();
+    public static final RetryPolicy DEFAULT = new Builder().build();
+
+    final int maxAttempts;
+    final long attemptTimeoutNanos;
+    final long deadlineNanos;
+    final long baseBackoffNanos;
+    final long maxBackoffNanos;
+    final double hedgePercentile;   // 0 이면 Hedge 하지 않음
+    final long minHedgeDelayNanos;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.attemptTimeoutNanos = builder.attemptTimeoutNanos;
+        this.deadlineNanos = builder.deadlineNanos;
+        this.baseBackoffNanos = builder.baseBackoffNanos;
+        this.maxBackoffNanos = builder.maxBackoffNanos;
+        this.hedgePercentile = builder.hedgePercentile;
+        this.minHedgeDelayNanos = builder.minHedgeDelayNanos;
+    }
+
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    public boolean hedges() {
+        return hedgePercentile > 0;
+    }
+
+    /** attempt (0 부터) 번째 재시도 전 대기 시간 (nanos) */
+    long backoffNanos(int attempt, Random random) {
+        long ceiling = baseBackoffNanos << Math.min(attempt, 30);
+        if (ceiling <= 0 || ceiling > maxBackoffNanos)
+            ceiling = maxBackoffNanos;
+        return ceiling > 0 ? (long) (random.nextDouble() * ceiling) : 0;
+    }
+
+    /** 최근 Latency 로 정한 Hedge 시점 (nanos). Hedge 하지 않거나 Sample 이 부족하면 -1 */
+    long hedgeDelayNanos(LatencyTracker tracker) {
+        if (!hedges())
+            return -1;
+        long percentile = tracker.percentile(hedgePercentile);
+        return percentile < 0 ? -1 : Math.max(minHedgeDelayNanos, percentile);
+    }
+
+    /** 다시 보내면 성공할 수도 있는 실패인지 */
+    public static boolean isRetryable(Throwable t) {
+        if (t instanceof OpenApiException)
+            return ((OpenApiException) t).isRetryable();
+        if (t instanceof SocketTimeoutException)
+            return true;
+        // Thread Interrupt 등
+        if (t instanceof InterruptedIOException)
+            return false;
+        // Connection 끊김, Reset 등. (Code 오류인 RuntimeException 은 재시도하지 않는다)
+        return t instanceof IOException;
+    }
+
+    public static final class Builder {
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+        private long attemptTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_ATTEMPT_TIMEOUT_MILLIS);
+        private long deadlineNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_DEADLINE_MILLIS);
+        private long baseBackoffNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_BASE_BACKOFF_MILLIS);
+        private long maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_BACKOFF_MILLIS);
+        private double hedgePercentile;
+        private long minHedgeDelayNanos;
+
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1)
+                throw new IllegalArgumentException("maxAttempts < 1: " + maxAttempts);
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder attemptTimeout(long timeout, TimeUnit unit) {
+            this.attemptTimeoutNanos = positive("attemptTimeout", unit.toNanos(timeout));
+            return this;
+        }
+
+        public Builder deadline(long deadline, TimeUnit unit) {
+            this.deadlineNanos = positive("deadline", unit.toNanos(deadline));
+            return this;
+        }
+
+        public Builder backoff(long base, long max, TimeUnit unit) {
+            if (base < 0 || max < base)
+                throw new IllegalArgumentException("backoff must satisfy 0 <= base <= max: " + base + ", " + max);
+            this.baseBackoffNanos = unit.toNanos(base);
+            this.maxBackoffNanos = unit.toNanos(max);
+            return this;
+        }
+
+        /** 최근 Latency 의 p95 (100 ms 이상) 가 지나도 끝나지 않으면 Hedged Request */
+        public Builder hedge() {
+            return hedge(DEFAULT_HEDGE_PERCENTILE, DEFAULT_MIN_HEDGE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        /** 최근 Latency 의 percentile 이 지나도 끝나지 않으면 Hedged Request. (minDelay 보다 빠르지는 않게) */
+        public Builder hedge(double percentile, long minDelay, TimeUnit unit) {
+            if (percentile <= 0 || percentile >= 1)
+                throw new IllegalArgumentException("percentile must be in (0, 1): " + percentile);
+            this.hedgePercentile = percentile;
+            this.minHedgeDelayNanos = Math.max(0, unit.toNanos(minDelay));
+            return this;
+        }
+
+        public Builder noHedge() {
+            this.hedgePercentile = 0;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+
+        private static long positive(String name, long nanos) {
+            if (nanos <= 0)
+                throw new IllegalArgumentException(name + " <= 0");
+            return nanos;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.kitkat.android.retrofit.network;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Timeout;
+
+/** Single-flight for identical GET Requests
+ *
+ *  같은 Request (Method + URL + Accept + Cache-Control) 가 이미 진행 중이면 Network 로 보내지 않고 그 결과를 기다렸다가 나누어 받는다.
+ *  화면 회전이나 MapsActivity 재진입으로 같은 (gu, start, end) 요청이 동시에 여러 번 나가는 것을 하나로 합친다.
+ *
+ *      - Leader   : 처음 요청한 Call. Body 를 평소처럼 Stream 으로 읽으면서, Follower 가 있으면 읽은 Byte 를 복사해 둔다.
+ *      - Follower : 진행 중에 들어온 같은 요청. Leader 의 Body 를 끝까지 읽으면 같은 Header / Byte 의 Response 를 받는다.
+ *
+ *  Follower 는 Leader 가 Body 를 처음 읽기 전까지만 합류할 수 있다. 그때까지 Follower 가 없으면 Leader 는 복사하지 않고,
+ *  이후 들어온 같은 요청은 새 Leader 로 Network 에 보낸다. (대부분의 Request 는 Follower 가 없다)
+ *  Follower 는 최대 maxWait (기본값은 Attempt 하나의 Timeout) 까지만 기다리고, 그래도 끝나지 않으면 직접 요청한다.
+ *
+ *  Leader 가 취소되거나 Body 를 끝까지 읽지 않고 닫거나 Connection 이 끊기면 Follower 는 각자 Network 로 요청한다.
+ *  Timeout 은 다시 요청해도 같은 시간을 기다리게 되므로 Follower 에게도 SocketTimeoutException 으로 전달된다.
+ *  (OkHttp 3.6 의 Chain 은 Call 을 알려주지 않아 취소와 Connection 실패를 구분할 수 없다.)
+ *  진행 중인 요청만 합치며, 끝난 뒤 들어온 요청은 새로 보낸다. (재사용은 ApiCache 의 몫)
+ *
+ *  "X-Single-Flight: bypass" Header 가 있는 Request 는 합치지 않는다. (Header 는 서버로 보내지 않음)
+ *  느린 Request 와 경쟁하려는 Hedged Request 가 그 Request 를 기다리게 되면 의미가 없기 때문이다.
+ */
+public class SingleFlightInterceptor implements Interceptor {
+    public static final String HEADER = "X-Single-Flight";
+    public static final String BYPASS = "bypass";
+
+    // 닫힌 Leader Body 의 남은 Byte 를 읽는 최대 시간
+    static final long DRAIN_TIMEOUT_MILLIS = 100;
+
+    private final long maxWaitNanos;
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private final AtomicInteger leaders = new AtomicInteger();
+    private final AtomicInteger followers = new AtomicInteger();
+
+    public SingleFlightInterceptor() {
+        this(RetryPolicy.DEFAULT_ATTEMPT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /** maxWait : Follower 가 Leader 의 결과를 기다리는 최대 시간 */
+    public SingleFlightInterceptor(long maxWait, TimeUnit unit) {
+        if (maxWait <= 0)
+            throw new IllegalArgumentException("maxWait <= 0: " + maxWait);
+        this.maxWaitNanos = unit.toNanos(maxWait);
+    }
+
+    /** Network 로 보낸 요청 수 */
+    public int flightCount() {
+        return leaders.get();
+    }
+
+    /** 진행 중인 요청에 합쳐진 요청 수 */
+    public int coalescedCount() {
+        return followers.get();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (request.header(HEADER) != null)
+            return chain.proceed(request.newBuilder().removeHeader(HEADER).build());
+        if (!"GET".equals(request.method()))
+            return chain.proceed(request);
+
+        // Accept 가 다르면 (예: lots() 의 Compact Format) 다른 Body 를 받을 수 있다.
+        String key = request.url() + " " + request.header("Accept") + " " + request.header("Cache-Control");
+        for (;;) {
+            Flight flight = new Flight();
+            Flight existing = flights.putIfAbsent(key, flight);
+            if (existing == null) {
+                leaders.incrementAndGet();
+                return lead(chain, key, flight);
+            }
+            if (existing.join())
+                return follow(chain, existing);
+            // Leader 가 이미 혼자 Body 를 읽고 있다 : 새 Leader 로
+            flights.remove(key, existing);
+        }
+    }
+
+    private Response lead(Chain chain, String key, Flight flight) throws IOException {
+        Response response;
+        try {
+            response = chain.proceed(chain.request());
+        } catch (IOException | RuntimeException e) {
+            flights.remove(key, flight);
+            flight.fail(e);
+            throw e;
+        }
+
+        if (response.body() == null) {
+            flights.remove(key, flight);
+            flight.complete(response, new byte[0]);
+            return response;
+        }
+        return response.newBuilder().body(new TeeBody(response, key, flight)).build();
+    }
+
+    private Response follow(Chain chain, Flight flight) throws IOException {
+        boolean done;
+        try {
+            done = flight.done.await(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for " + chain.request().url());
+        }
+
+        // Leader 가 너무 오래 걸린다 : 직접 요청 (그 사이 이 Call 이 취소되었다면 proceed() 가 바로 실패한다)
+        if (!done)
+            return chain.proceed(chain.request());
+
+        if (flight.failure != null) {
+            // Leader 가 취소되었거나 Body 를 끝까지 읽지 않았다 : 직접 요청
+            if (isRetryable(flight.failure))
+                return chain.proceed(chain.request());
+
+            SocketTimeoutException e = new SocketTimeoutException("Coalesced request timed out: " + flight.failure.getMessage());
+            e.initCause(flight.failure);
+            throw e;
+        }
+
+        followers.incrementAndGet();
+        return flight.response.newBuilder()
+                .request(chain.request())
+                .body(ResponseBody.create(flight.response.body().contentType(), flight.bytes))
+                .build();
+    }
+
+    /** Follower 가 직접 요청해도 되는 실패인지. Timeout 이 아니면 Leader 의 Call 에 한정된 문제로 본다. */
+    private static boolean isRetryable(Throwable failure) {
+        return !(failure instanceof SocketTimeoutException);
+    }
+
+    private static final class Flight {
+        final CountDownLatch done = new CountDownLatch(1);
+        // done.countDown() 이전에 기록하므로 await() 이후에는 그대로 읽어도 된다.
+        Response response;
+        byte[] bytes;
+        Throwable failure;
+
+        private int joined;
+        private boolean closed;
+
+        /** Follower 로 합류. Leader 가 이미 Follower 없이 Body 를 읽기 시작했으면 false */
+        synchronized boolean join() {
+            if (closed)
+                return false;
+            joined++;
+            return true;
+        }
+
+        /** Leader 가 Body 를 처음 읽었을 때. Follower 가 있으면 true (복사), 없으면 이후 합류를 받지 않는다. */
+        synchronized boolean startCopy() {
+            if (joined == 0)
+                closed = true;
+            return joined > 0;
+        }
+
+        void complete(Response response, byte[] bytes) {
+            this.response = response;
+            this.bytes = bytes;
+            done.countDown();
+        }
+
+        void fail(Throwable failure) {
+            this.failure = failure;
+            done.countDown();
+        }
+    }
+
+    /** Leader 의 Body. Follower 가 있으면 읽은 Byte 를 Buffer 에 복사하고, 끝까지 읽으면 Follower 에게 전달 */
+    private final class TeeBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+        private final Buffer copy = new Buffer();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private boolean draining;
+        private boolean started;
+
+        TeeBody(final Response response, final String key, final Flight flight) {
+            this.delegate = response.body();
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read;
+                    try {
+                        read = super.read(sink, byteCount);
+                    } catch (IOException e) {
+                        // 닫는 중의 실패 (Drain Timeout 포함) 는 Leader 가 Body 를 버린 것으로 본다.
+                        finish(false, draining ? null : e);
+                        throw e;
+                    }
+
+                    if (read == -1) {
+                        finish(true, null);
+                    } else if (!finished.get()) {
+                        if (!started) {
+                            started = true;
+                            if (!flight.startCopy()) {
+                                // Follower 없음 : 복사하지 않고, 닫을 때 남은 Byte 를 읽지도 않는다.
+                                finished.set(true);
+                                flights.remove(key, flight);
+                                return read;
+                            }
+                        }
+                        sink.copyTo(copy, sink.size() - read, read);
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    // Gson 등은 마지막 '}' 까지만 읽고 닫으므로 남은 Byte 를 잠시 더 읽어 본다. (OkHttp 의 discard 와 같은 방식)
+                    // 그래도 끝나지 않으면 Follower 는 직접 요청
+                    if (!finished.get())
+                        drain();
+                    finish(false, null);
+                    super.close();
+                }
+
+                private void drain() {
+                    Timeout timeout = timeout();
+                    long timeoutNanos = timeout.timeoutNanos();
+                    timeout.timeout(DRAIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    draining = true;
+                    try {
+                        Buffer skipped = new Buffer();
+                        // Follower 가 없다고 정해지면 그만 읽는다.
+                        while (!finished.get() && read(skipped, 8192) != -1)
+                            skipped.clear();
+                    } catch (IOException ignored) {
+                        // finish() 에서 처리
+                    } finally {
+                        timeout.timeout(timeoutNanos, TimeUnit.NANOSECONDS);
+                    }
+                }
+
+                private void finish(boolean exhausted, IOException e) {
+                    if (!finished.compareAndSet(false, true))
+                        return;
+                    flights.remove(key, flight);
+                    if (exhausted)
+                        flight.complete(response, copy.readByteArray());
+                    else
+                        flight.fail(e != null ? e : new IOException("Body closed before exhausted"));
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.kitkat.android.retrofit.parking;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/** Compact Row Format (Proxy → App)
+ *
+ *  Open API 의 Row 는 34개의 긴 대문자 Key 와 앱에서 쓰지 않는 Field (버스 요금, 월정기 등) 를 모두 담는다.
+ *  Proxy (예: ParkingClient 를 쓰는 Backend 집계 Server) 는 같은 Envelope 에 Row 만 앱이 쓰는 Field 의 배열로 바꿔 보낸다.
+ *
+ *      {"SearchParkingInfoRealtime":{"list_total_count":1,"RESULT":{...},"row":[
+ *          [171721,37.5734,126.9758,1260,1106,"2017-03-25 15:04:12","세종로 공영주차장(시)","종로구 세종로 80-1",
+ *           "02-2290-6566","유료","노외 주차장","야간 미개방",
+ *           0,1440,0,1440,0,1440,"유료","유료",430,5,430,5,0]
+ *      ]}}
+ *
+ *  Field 순서는 FIELDS 와 같고, 뒤에 더 붙은 값은 무시하며 빠진 값은 Open API 에 없던 것과 같이 취급한다.
+ *  (운영시간 / 요금 Field 는 뒤에 추가되었으므로 이전 Proxy 의 12개 Field Row 도 그대로 읽는다.)
+ *  *_BEGIN_TIME / *_END_TIME 은 "0900" 대신 minutes of day (540, 모르면 -1) 로 보낸다.
+ *  ParkingLotAdapter 는 Row 가 Object 이면 Open API, 배열이면 이 Format 으로 읽으므로 Client 는 어느 쪽이 와도 된다.
+ *  OpenApiService.lots() 는 Accept 로 이 Format 을 먼저 요청하며, Open API 는 이를 무시하고 원래 JSON 을 보낸다.
+ *
+ *      JsonWriter out = new JsonWriter(writer);
+ *      CompactLotFormat.writePage(out, totalCount, lots); // Proxy, Content-Type: CompactLotFormat.MEDIA_TYPE, Vary: Accept
+ *
+ *  같은 URL 이 Accept 에 따라 다른 Body 가 되므로 Proxy 는 "Vary: Accept" 를 보내야 한다. (없으면 ApiCache 가 붙인다)
+ */
+public final class CompactLotFormat {
+    public static final String MEDIA_TYPE = "application/vnd.kitkat.parking-compact+json";
+    /** Compact 를 우선하고 원래 JSON 도 받는다. */
+    public static final String ACCEPT = MEDIA_TYPE + ", application/json;q=0.9";
+
+    public static final String[] FIELDS = {
+            "PARKING_CODE", "LAT", "LNG", "CAPACITY", "CUR_PARKING", "CUR_PARKING_TIME",
+            "PARKING_NAME", "ADDR", "TEL", "PAY_NM", "PARKING_TYPE_NM", "NIGHT_FREE_OPEN_NM",
+            "WEEKDAY_BEGIN_TIME", "WEEKDAY_END_TIME", "WEEKEND_BEGIN_TIME", "WEEKEND_END_TIME",
+            "HOLIDAY_BEGIN_TIME", "HOLIDAY_END_TIME", "SATURDAY_PAY_NM", "HOLIDAY_PAY_NM",
+            "RATES", "TIME_RATE", "ADD_RATES", "ADD_TIME_RATE", "DAY_MAXIMUM"
+    };
+
+    private CompactLotFormat() {
+    }
+
+    /** 배열 하나를 ParkingLot 으로. FIELDS 에 없는 Field 는 기본값 (0, UNKNOWN) */
+    static ParkingLot read(JsonReader in, Projection projection) throws IOException {
+        ParkingLot lot = new ParkingLot();
+        in.beginArray();
+        for (int i = 0; in.hasNext(); i++) {
+            if (i < FIELDS.length && !projection.includes(FIELDS[i])) {
+                in.skipValue();
+                continue;
+            }
+            switch (i) {
+                case 0:
+                    lot.parkingCode = ParkingLotAdapter.readInt(in, ParkingLot.UNKNOWN);
+                    break;
+                case 1:
+                    lot.lat = ParkingLotAdapter.readDouble(in);
+                    break;
+                case 2:
+                    lot.lng = ParkingLotAdapter.readDouble(in);
+                    break;
+                case 3:
+                    lot.capacity = ParkingLotAdapter.readInt(in, 0);
+                    break;
+                case 4:
+                    lot.curParking = ParkingLotAdapter.readInt(in, 0);
+                    break;
+                case 5:
+                    String time = ParkingLotAdapter.readString(in);
+                    lot.curParkingTime = FieldParser.parseSeoulDateTime(time);
+                    lot.setText(ParkingLot.CUR_PARKING_TIME, time);
+                    break;
+                case 6:
+                    lot.setText(ParkingLot.PARKING_NAME, ParkingLotAdapter.readString(in));
+                    break;
+                case 7:
+                    lot.setText(ParkingLot.ADDR, ParkingLotAdapter.readString(in));
+                    break;
+                case 8:
+                    lot.setText(ParkingLot.TEL, ParkingLotAdapter.readString(in));
+                    break;
+                case 9:
+                    lot.setText(ParkingLot.PAY_NM, ParkingLotAdapter.readString(in));
+                    break;
+                case 10:
+                    lot.setText(ParkingLot.PARKING_TYPE_NM, ParkingLotAdapter.readString(in));
+                    break;
+                case 11:
+                    lot.setText(ParkingLot.NIGHT_FREE_OPEN_NM, ParkingLotAdapter.readString(in));
+                    break;
+                case 12:
+                    lot.weekdayBegin = ParkingLotAdapter.readInt(in, ParkingLot.UNKNOWN);
+                    break;
+                case 13:
+                    lot.weekdayEnd = ParkingLotAdapter.readInt(in, ParkingLot.UNKNOWN);
+                    break;
+                case 14:
+                    lot.weekendBegin = ParkingLotAdapter.readInt(in, ParkingLot.UNKNOWN);
+                    break;
+                case 15:
+                    lot.weekendEnd = ParkingLotAdapter.readInt(in, ParkingLot.UNKNOWN);
+                    break;
+                case 16:
+                    lot.holidayBegin = ParkingLotAdapter.readInt(in, ParkingLot.UNKNOWN);
+                    break;
+                case 17:
+                    lot.holidayEnd = ParkingLotAdapter.readInt(in, ParkingLot.UNKNOWN);
+                    break;
+                case 18:
+                    lot.setText(ParkingLot.SATURDAY_PAY_NM, ParkingLotAdapter.readString(in));
+                    break;
+                case 19:
+                    lot.setText(ParkingLot.HOLIDAY_PAY_NM, ParkingLotAdapter.readString(in));
+                    break;
+                case 20:
+                    lot.rates = ParkingLotAdapter.readInt(in, 0);
+                    break;
+                case 21:
+                    lot.timeRate = ParkingLotAdapter.readInt(in, 0);
+                    break;
+                case 22:
+                    lot.addRates = ParkingLotAdapter.readInt(in, 0);
+                    break;
+                case 23:
+                    lot.addTimeRate = ParkingLotAdapter.readInt(in, 0);
+                    break;
+                case 24:
+                    lot.dayMaximum = ParkingLotAdapter.readInt(in, 0);
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endArray();
+        return lot;
+    }
+
+    public static void write(JsonWriter out, ParkingLot lot) throws IOException {
+        out.beginArray();
+        out.value(lot.parkingCode);
+        // NaN 은 JSON 숫자가 아니므로 null
+        if (Double.isNaN(lot.lat))
+            out.nullValue();
+        else
+            out.value(lot.lat);
+        if (Double.isNaN(lot.lng))
+            out.nullValue();
+        else
+            out.value(lot.lng);
+        out.value(lot.capacity);
+        out.value(lot.curParking);
+        out.value(lot.getText(ParkingLot.CUR_PARKING_TIME));
+        out.value(lot.getText(ParkingLot.PARKING_NAME));
+        out.value(lot.getText(ParkingLot.ADDR));
+        out.value(lot.getText(ParkingLot.TEL));
+        out.value(lot.getText(ParkingLot.PAY_NM));
+        out.value(lot.getText(ParkingLot.PARKING_TYPE_NM));
+        out.value(lot.getText(ParkingLot.NIGHT_FREE_OPEN_NM));
+        out.value(lot.weekdayBegin);
+        out.value(lot.weekdayEnd);
+        out.value(lot.weekendBegin);
+        out.value(lot.weekendEnd);
+        out.value(lot.holidayBegin);
+        out.value(lot.holidayEnd);
+        out.value(lot.getText(ParkingLot.SATURDAY_PAY_NM));
+        out.value(lot.getText(ParkingLot.HOLIDAY_PAY_NM));
+        out.value(lot.rates);
+        out.value(lot.timeRate);
+        out.value(lot.addRates);
+        out.value(lot.addTimeRate);
+        out.value(lot.dayMaximum);
+        out.endArray();
+    }
+
+    /** Open API 와 같은 Envelope (RESULT INFO-000) 에 Compact Row 를 담은 한 Page */
+    public static void writePage(JsonWriter out, int totalCount, ParkingLot[] lots) throws IOException {
+        out.beginObject().name("SearchParkingInfoRealtime").beginObject();
+        out.name("list_total_count").value(totalCount);
+        out.name("RESULT").beginObject()
+                .name("CODE").value("INFO-000")
+                .name("MESSAGE").value("정상 처리되었습니다")
+                .endObject();
+        out.name("row").beginArray();
+        for (ParkingLot lot : lots)
+            write(out, lot);
+        out.endArray();
+        out.endObject().endObject();
+        out.flush();
+    }
+}
@@ -0,0 +1,105 @@
+package com.kitkat.android.retrofit.parking;
+
+/** Open API 문자열 값을 Primitive 로 변환하는 Parser. 잘못된 값은 Exception 대신 기본값을 반환한다. */
+final class FieldParser {
+    static final int UNKNOWN = -1;
+
+    // Asia/Seoul 은 DST 가 없으므로 고정 Offset 으로 계산
+    static final long SEOUL_OFFSET_SECONDS = 9 * 60 * 60;
+
+    private FieldParser() {
+    }
+
+    /** "30", "30.0", " 30 " → 30 */
+    static int parseInt(String value, int defaultValue) {
+        if (value == null)
+            return defaultValue;
+        String s = value.trim();
+        if (s.isEmpty())
+            return defaultValue;
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            try {
+                return (int) Double.parseDouble(s);
+            } catch (NumberFormatException ignored) {
+                return defaultValue;
+            }
+        }
+    }
+
+    static double parseDouble(String value, double defaultValue) {
+        if (value == null)
+            return defaultValue;
+        String s = value.trim();
+        if (s.isEmpty())
+            return defaultValue;
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /** "0900" 또는 "09:00" → 540 (minutes of day), "2400" → 1440, 그 외 UNKNOWN */
+    static int parseMinutesOfDay(String value) {
+        if (value == null)
+            return UNKNOWN;
+        int hours = 0;
+        int minutes = 0;
+        int digits = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ':' || c == ' ')
+                continue;
+            if (c < '0' || c > '9' || digits == 4)
+                return UNKNOWN;
+            if (digits < 2)
+                hours = hours * 10 + (c - '0');
+            else
+                minutes = minutes * 10 + (c - '0');
+            digits++;
+        }
+        if (digits != 4 || minutes > 59 || hours * 60 + minutes > 24 * 60)
+            return UNKNOWN;
+        return hours * 60 + minutes;
+    }
+
+    /** "2017-03-25 15:34:12" (Asia/Seoul) → Epoch Seconds, 형식이 다르면 UNKNOWN */
+    static long parseSeoulDateTime(String value) {
+        if (value == null || value.length() < 16)
+            return UNKNOWN;
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 2);
+        int day = digits(value, 8, 2);
+        int hour = digits(value, 11, 2);
+        int minute = digits(value, 14, 2);
+        int second = value.length() >= 19 ? digits(value, 17, 2) : 0;
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59)
+            return UNKNOWN;
+
+        return epochDay(year, month, day) * 86400L + hour * 3600 + minute * 60 + second - SEOUL_OFFSET_SECONDS;
+    }
+
+    private static int digits(String s, int offset, int length) {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /** Days since 1970-01-01 (proleptic Gregorian) */
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yoe = y - era * 400;
+        long doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+}
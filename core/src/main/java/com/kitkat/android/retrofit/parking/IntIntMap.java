@@ -0,0 +1,130 @@
+package com.kitkat.android.retrofit.parking;
+
+import java.util.Arrays;
+
+/** int → int Hash Map (Open Addressing, Linear Probing)
+ *
+ *  HashMap<Integer, Integer> 와 달리 Key / Value 를 Boxing 하지 않고 Entry 객체도 만들지 않는다.
+ *  PARKING_CODE → 배열 Index 처럼 작은 Value 를 찾는 용도. 없는 Key 는 MISSING 을 반환한다.
+ */
+public final class IntIntMap {
+    public static final int MISSING = -1;
+
+    private static final int EMPTY = Integer.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int threshold;
+
+    // EMPTY 와 같은 Key 는 Table 밖에 따로 보관
+    private boolean hasEmptyKey;
+    private int emptyKeyValue;
+
+    public IntIntMap() {
+        this(16);
+    }
+
+    public IntIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size + (hasEmptyKey ? 1 : 0);
+    }
+
+    public int get(int key) {
+        if (key == EMPTY)
+            return hasEmptyKey ? emptyKeyValue : MISSING;
+
+        int slot = hash(key) & mask;
+        while (true) {
+            int k = keys[slot];
+            if (k == key)
+                return values[slot];
+            if (k == EMPTY)
+                return MISSING;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != MISSING;
+    }
+
+    /** @return 이전 Value, 없었으면 MISSING */
+    public int put(int key, int value) {
+        if (key == EMPTY) {
+            int previous = hasEmptyKey ? emptyKeyValue : MISSING;
+            hasEmptyKey = true;
+            emptyKeyValue = value;
+            return previous;
+        }
+
+        int slot = hash(key) & mask;
+        while (true) {
+            int k = keys[slot];
+            if (k == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            if (k == EMPTY) {
+                keys[slot] = key;
+                values[slot] = value;
+                if (++size > threshold)
+                    rehash(keys.length << 1);
+                return MISSING;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /** Key 가 없을 때만 추가. @return 기존 Value, 새로 추가했으면 MISSING */
+    public int putIfAbsent(int key, int value) {
+        int existing = get(key);
+        if (existing != MISSING)
+            return existing;
+        put(key, value);
+        return MISSING;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        hasEmptyKey = false;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY)
+                put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private static int hash(int key) {
+        // 연속된 PARKING_CODE 가 인접 Slot 에 몰리지 않도록 섞는다. (Murmur3 fmix32)
+        int h = key;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,76 @@
+package com.kitkat.android.retrofit.parking;
+
+import java.util.Arrays;
+
+/** PARKING_CODE 기준 Merge Stage
+ *
+ *  Open API 는 같은 주차장을 요금 / 운영시간 Variant 별로 여러 Row 로 반환한다.
+ *  처음 나온 Row 를 대표로 남기고, 이후 같은 PARKING_CODE 의 Row 는 버리지 않고 대표의 Variant 로 붙인다.
+ *  PARKING_CODE → Index 조회는 IntIntMap 으로 O(1) 이며 Boxing 이 없다.
+ *  PARKING_CODE 를 읽지 못한 (UNKNOWN) Row 는 서로 다른 주차장일 수 있으므로 합치지 않고 각각 주차장으로 남긴다.
+ *
+ *  구 단위로 도착하는 결과를 add() 로 이어서 넣을 수 있고, add() 는 이번에 처음 나온 주차장만 반환한다.
+ *  Thread-safe 하지 않으므로 한 Thread (예: Main Thread) 에서만 사용한다.
+ */
+public final class LotMerger {
+    private final IntIntMap indexByCode;
+    private ParkingLot[] lots;
+    private int size;
+
+    public LotMerger() {
+        this(256);
+    }
+
+    public LotMerger(int expectedLots) {
+        indexByCode = new IntIntMap(expectedLots);
+        lots = new ParkingLot[Math.max(16, expectedLots)];
+    }
+
+    /** 한 번에 Merge 하여 대표 주차장만 처음 나온 순서대로 반환 */
+    public static ParkingLot[] merge(ParkingLot[] rows) {
+        LotMerger merger = new LotMerger(rows.length);
+        merger.add(rows);
+        return merger.toArray();
+    }
+
+    /** @return rows 중 처음 나온 PARKING_CODE 의 대표 주차장 (나머지는 Variant 로 합쳐짐) */
+    public ParkingLot[] add(ParkingLot[] rows) {
+        int before = size;
+        for (ParkingLot row : rows)
+            add(row);
+        return Arrays.copyOfRange(lots, before, size);
+    }
+
+    /** @return 새 주차장이면 true, 기존 주차장의 Variant 로 합쳐졌으면 false */
+    public boolean add(ParkingLot row) {
+        if (row.parkingCode != ParkingLot.UNKNOWN) {
+            int index = indexByCode.putIfAbsent(row.parkingCode, size);
+            if (index != IntIntMap.MISSING) {
+                lots[index].addVariant(row);
+                return false;
+            }
+        }
+
+        if (size == lots.length)
+            lots = Arrays.copyOf(lots, size * 2);
+        lots[size++] = row;
+        return true;
+    }
+
+    public ParkingLot get(int parkingCode) {
+        int index = indexByCode.get(parkingCode);
+        return index != IntIntMap.MISSING ? lots[index] : null;
+    }
+
+    public boolean contains(int parkingCode) {
+        return indexByCode.containsKey(parkingCode);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public ParkingLot[] toArray() {
+        return Arrays.copyOf(lots, size);
+    }
+}
@@ -0,0 +1,227 @@
+package com.kitkat.android.retrofit.parking;
+
+/** Per-Lot Occupancy History (Ring Buffer)
+ *
+ *  Refresh 때마다 받은 CUR_PARKING 을 CUR_PARKING_TIME 과 함께 주차장마다 최근 samplesPerLot 개씩 보관하고,
+ *  그 구간의 추세 (분당 증가 대수) 와 만차까지 남은 시간을 계산한다.
+ *
+ *      OccupancyHistory history = new OccupancyHistory(2000, 96);    // 2000 주차장 x 96 Sample
+ *      history.record(snapshot);                                     // Refresh 마다, 할당 없음
+ *      double perMinute = history.fillRate(code);                    // 최근 96 Sample 의 최소제곱 기울기
+ *      long seconds = history.timeToFull(code);                      // 모르면 UNKNOWN
+ *
+ *  모든 배열을 생성할 때 한 번 할당하므로 Memory 는 maxLots x samplesPerLot x 8 Byte + 주차장 당 약 60 Byte 로 고정이다.
+ *  (예: 2000 x 96 = 약 1.6 MB) maxLots 를 넘는 새 주차장은 기록하지 않고 dropped() 로 센다.
+ *
+ *  Open API 는 CUR_PARKING_TIME 이 바뀌어야 새 값이므로, 마지막 Sample 보다 늦지 않은 Sample 은 무시한다.
+ *  기울기의 합 (Σt, Σy, Σt², Σty) 은 Sample 을 넣고 뺄 때마다 정수로 갱신하므로 Query 는 O(1) 이다.
+ *  (Ring 이 한 바퀴 돌 때마다 가장 오래된 Sample 기준으로 다시 계산하여 합이 커지지 않게 한다.)
+ *
+ *  Thread-safe 하지 않으므로 한 Thread 에서만 사용한다.
+ */
+public final class OccupancyHistory {
+    public static final long UNKNOWN = ParkingLot.UNKNOWN;
+
+    private final int maxLots;
+    private final int samplesPerLot;
+    private final IntIntMap slotByCode;
+    private int lots;
+    private int dropped;
+
+    // 모든 시각은 origin 기준 초 (int)
+    private long origin = UNKNOWN;
+
+    // 주차장 s 의 k 번째 Sample : [s * samplesPerLot + k]
+    private final int[] time;
+    private final int[] current;
+
+    private final int[] capacity;
+    private final int[] head;
+    private final int[] count;
+    // 합은 base 기준 시각으로 : t = time - base
+    private final int[] base;
+    private final long[] sumT;
+    private final long[] sumY;
+    private final long[] sumTT;
+    private final long[] sumTY;
+
+    public OccupancyHistory(int maxLots, int samplesPerLot) {
+        if (maxLots <= 0 || samplesPerLot < 2)
+            throw new IllegalArgumentException("maxLots=" + maxLots + ", samplesPerLot=" + samplesPerLot);
+        this.maxLots = maxLots;
+        this.samplesPerLot = samplesPerLot;
+        slotByCode = new IntIntMap(maxLots);
+        time = new int[maxLots * samplesPerLot];
+        current = new int[maxLots * samplesPerLot];
+        capacity = new int[maxLots];
+        head = new int[maxLots];
+        count = new int[maxLots];
+        base = new int[maxLots];
+        sumT = new long[maxLots];
+        sumY = new long[maxLots];
+        sumTT = new long[maxLots];
+        sumTY = new long[maxLots];
+    }
+
+    /** snapshot 의 모든 주차장을 기록하고 새로 기록한 Sample 수를 반환 */
+    public int record(ParkingSnapshot snapshot) {
+        int recorded = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            // PARKING_CODE 가 없으면 같은 주차장의 Sample 을 이어 붙일 수 없다.
+            if (snapshot.code(i) == ParkingLot.UNKNOWN)
+                continue;
+            if (record(snapshot.code(i), snapshot.updatedAt(i), snapshot.current(i), snapshot.capacity(i)))
+                recorded++;
+        }
+        return recorded;
+    }
+
+    /** @return 기록했으면 true. 시각을 모르거나, 마지막 Sample 보다 늦지 않거나, maxLots 를 넘으면 false */
+    public boolean record(int code, long epochSeconds, int cur, int cap) {
+        if (epochSeconds == UNKNOWN)
+            return false;
+        if (origin == UNKNOWN)
+            origin = epochSeconds;
+        long relative = epochSeconds - origin;
+        if (relative < Integer.MIN_VALUE || relative > Integer.MAX_VALUE)
+            return false;
+        int t = (int) relative;
+
+        // 1. 주차장의 Slot
+        int slot = slotByCode.get(code);
+        if (slot == IntIntMap.MISSING) {
+            if (lots == maxLots) {
+                dropped++;
+                return false;
+            }
+            slot = lots++;
+            slotByCode.put(code, slot);
+            base[slot] = t;
+        } else if (t <= time[offset(slot) + newest(slot)]) {
+            return false;
+        }
+        capacity[slot] = cap;
+
+        // 2. Ring 이 차 있으면 가장 오래된 Sample 을 합에서 뺀다.
+        int k = offset(slot) + head[slot];
+        if (count[slot] == samplesPerLot)
+            accumulate(slot, time[k], current[k], -1);
+        else
+            count[slot]++;
+        time[k] = t;
+        current[k] = cur;
+        accumulate(slot, t, cur, 1);
+
+        // 3. 한 바퀴 돌았으면 가장 오래된 Sample 을 base 로 합을 다시 계산
+        head[slot] = (head[slot] + 1) % samplesPerLot;
+        if (head[slot] == 0 && count[slot] == samplesPerLot)
+            rebase(slot);
+        return true;
+    }
+
+    /** 기록 중인 주차장 수 */
+    public int lots() {
+        return lots;
+    }
+
+    /** maxLots 를 넘어 기록하지 못한 Sample 수 */
+    public int dropped() {
+        return dropped;
+    }
+
+    public int samplesPerLot() {
+        return samplesPerLot;
+    }
+
+    /** code 의 Sample 수 (없으면 0) */
+    public int size(int code) {
+        int slot = slotByCode.get(code);
+        return slot == IntIntMap.MISSING ? 0 : count[slot];
+    }
+
+    /** 오래된 순서로 epochSeconds, current 에 채우고 개수를 반환 */
+    public int samples(int code, long[] epochSeconds, int[] cur) {
+        int slot = slotByCode.get(code);
+        if (slot == IntIntMap.MISSING)
+            return 0;
+        int n = Math.min(count[slot], Math.min(epochSeconds.length, cur.length));
+        int oldest = count[slot] == samplesPerLot ? head[slot] : 0;
+        for (int j = 0; j < n; j++) {
+            int k = offset(slot) + (oldest + j) % samplesPerLot;
+            epochSeconds[j] = origin + time[k];
+            cur[j] = current[k];
+        }
+        return n;
+    }
+
+    /** 가장 최근 CUR_PARKING, 없으면 UNKNOWN */
+    public int latest(int code) {
+        int slot = slotByCode.get(code);
+        return slot == IntIntMap.MISSING ? (int) UNKNOWN : current[offset(slot) + newest(slot)];
+    }
+
+    /** 보관 중인 Sample 의 평균 점유율 (0 ~ 1), 없으면 NaN */
+    public double averageOccupancy(int code) {
+        int slot = slotByCode.get(code);
+        if (slot == IntIntMap.MISSING || capacity[slot] <= 0)
+            return Double.NaN;
+        return (double) sumY[slot] / count[slot] / capacity[slot];
+    }
+
+    /** 보관 중인 Sample 의 최소제곱 기울기 (분당 증가 대수, 빠지면 음수). Sample 이 2개 미만이면 NaN */
+    public double fillRate(int code) {
+        int slot = slotByCode.get(code);
+        if (slot == IntIntMap.MISSING)
+            return Double.NaN;
+        return slope(slot) * 60;
+    }
+
+    /** 지금 추세로 만차까지 남은 초. 이미 만차이면 0, 줄고 있거나 모르면 UNKNOWN */
+    public long timeToFull(int code) {
+        int slot = slotByCode.get(code);
+        if (slot == IntIntMap.MISSING)
+            return UNKNOWN;
+        int remaining = capacity[slot] - current[offset(slot) + newest(slot)];
+        if (remaining <= 0)
+            return 0;
+        double perSecond = slope(slot);
+        if (!(perSecond > 0))
+            return UNKNOWN;
+        return (long) Math.ceil(remaining / perSecond);
+    }
+
+    // 초당 증가 대수
+    private double slope(int slot) {
+        long n = count[slot];
+        if (n < 2)
+            return Double.NaN;
+        double denominator = (double) n * sumTT[slot] - (double) sumT[slot] * sumT[slot];
+        if (denominator <= 0)
+            return Double.NaN;
+        return ((double) n * sumTY[slot] - (double) sumT[slot] * sumY[slot]) / denominator;
+    }
+
+    private void accumulate(int slot, int t, int y, int sign) {
+        long dt = (long) t - base[slot];
+        sumT[slot] += sign * dt;
+        sumY[slot] += sign * y;
+        sumTT[slot] += sign * dt * dt;
+        sumTY[slot] += sign * dt * y;
+    }
+
+    private void rebase(int slot) {
+        int offset = offset(slot);
+        base[slot] = time[offset + head[slot]];
+        sumT[slot] = sumY[slot] = sumTT[slot] = sumTY[slot] = 0;
+        for (int k = 0; k < samplesPerLot; k++)
+            accumulate(slot, time[offset + k], current[offset + k], 1);
+    }
+
+    private int offset(int slot) {
+        return slot * samplesPerLot;
+    }
+
+    private int newest(int slot) {
+        return (head[slot] + samplesPerLot - 1) % samplesPerLot;
+    }
+}
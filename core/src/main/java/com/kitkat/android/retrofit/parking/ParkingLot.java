@@ -0,0 +1,289 @@
+package com.kitkat.android.retrofit.parking;
+
+import com.kitkat.android.retrofit.domain.Row;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/** Typed Parking Lot Record
+ *
+ *  Row 는 34개 Field 를 모두 String 으로 보관하므로 지도에 그릴 때마다 Double.parseDouble / Integer.parseInt 가 필요하다.
+ *  ParkingLot 은 ParkingLotAdapter 가 Decode 시점에 한 번만 변환한 Primitive 값을 보관한다.
+ *
+ *      - PARKING_CODE, CAPACITY, CUR_PARKING, 요금 Field → int
+ *      - LAT, LNG → double
+ *      - *_BEGIN_TIME, *_END_TIME → minutes of day (0 ~ 1440, 알 수 없으면 UNKNOWN)
+ *      - CUR_PARKING_TIME → Epoch Seconds
+ *
+ *  자주 쓰지 않는 문자열 Field (이름, 주소, 전화번호 ...) 는 하나의 String[] 에 모아두고,
+ *  상세 화면 등에서 원래 Row 가 필요할 때만 toRow() 로 다시 만든다.
+ *  Projection 으로 일부 Field 만 Decode 했다면 getRaw() 가 Page 를 다시 읽어 원래 Row 를 반환한다.
+ */
+public final class ParkingLot {
+    public static final int UNKNOWN = FieldParser.UNKNOWN;
+
+    // getText(int) Index
+    public static final int PARKING_NAME = 0;
+    public static final int ADDR = 1;
+    public static final int PARKING_TYPE_NM = 2;
+    public static final int OPERATION_RULE_NM = 3;
+    public static final int TEL = 4;
+    public static final int PAY_NM = 5;
+    public static final int SATURDAY_PAY_NM = 6;
+    public static final int HOLIDAY_PAY_NM = 7;
+    public static final int NIGHT_FREE_OPEN_NM = 8;
+    public static final int ASSIGN_CODE_NM = 9;
+    public static final int GRP_PARKNM = 10;
+    public static final int WORK_DTTM = 11;
+    public static final int CUR_PARKING_TIME = 12;
+    static final int TEXT_FIELDS = 13;
+
+    private static final ParkingLot[] NO_VARIANTS = new ParkingLot[0];
+
+    int parkingCode = UNKNOWN;
+    double lat = Double.NaN;
+    double lng = Double.NaN;
+    int capacity;
+    int curParking;
+    long curParkingTime = UNKNOWN;
+
+    int rates;
+    int timeRate;
+    int addRates;
+    int addTimeRate;
+    int dayMaximum;
+    int fulltimeMonthly;
+    int busRates;
+    int busTimeRate;
+    int busAddRates;
+    int busAddTimeRate;
+
+    int weekdayBegin = UNKNOWN;
+    int weekdayEnd = UNKNOWN;
+    int weekendBegin = UNKNOWN;
+    int weekendEnd = UNKNOWN;
+    int holidayBegin = UNKNOWN;
+    int holidayEnd = UNKNOWN;
+
+    // 문자열 Field 가 하나라도 있을 때만 할당
+    String[] text;
+
+    // 같은 PARKING_CODE 의 다른 Row (요금 / 운영시간 Variant). LotMerger 가 채운다.
+    private ParkingLot[] variants;
+
+    // Projection 으로 건너뛴 Field 를 다시 읽을 Page 와 그 안의 순서. attachRaw() 가 채운다.
+    private RawSource rawSource;
+    private int rawOrdinal;
+
+    ParkingLot() {
+    }
+
+    public int getParkingCode() {
+        return parkingCode;
+    }
+
+    public double getLat() {
+        return lat;
+    }
+
+    public double getLng() {
+        return lng;
+    }
+
+    public boolean hasLocation() {
+        return !Double.isNaN(lat) && !Double.isNaN(lng);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getCurParking() {
+        return curParking;
+    }
+
+    /** capacity - curParking */
+    public int getRemaining() {
+        return capacity - curParking;
+    }
+
+    /** CUR_PARKING_TIME (Epoch Seconds), 알 수 없으면 UNKNOWN */
+    public long getCurParkingTime() {
+        return curParkingTime;
+    }
+
+    public int getRates() {
+        return rates;
+    }
+
+    public int getTimeRate() {
+        return timeRate;
+    }
+
+    public int getAddRates() {
+        return addRates;
+    }
+
+    public int getAddTimeRate() {
+        return addTimeRate;
+    }
+
+    public int getDayMaximum() {
+        return dayMaximum;
+    }
+
+    public int getFulltimeMonthly() {
+        return fulltimeMonthly;
+    }
+
+    public int getBusRates() {
+        return busRates;
+    }
+
+    public int getBusTimeRate() {
+        return busTimeRate;
+    }
+
+    public int getBusAddRates() {
+        return busAddRates;
+    }
+
+    public int getBusAddTimeRate() {
+        return busAddTimeRate;
+    }
+
+    public int getWeekdayBegin() {
+        return weekdayBegin;
+    }
+
+    public int getWeekdayEnd() {
+        return weekdayEnd;
+    }
+
+    public int getWeekendBegin() {
+        return weekendBegin;
+    }
+
+    public int getWeekendEnd() {
+        return weekendEnd;
+    }
+
+    public int getHolidayBegin() {
+        return holidayBegin;
+    }
+
+    public int getHolidayEnd() {
+        return holidayEnd;
+    }
+
+    /** @param field PARKING_NAME, ADDR, PAY_NM ... */
+    public String getText(int field) {
+        return text != null ? text[field] : null;
+    }
+
+    public String getName() {
+        return getText(PARKING_NAME);
+    }
+
+    /** LotMerger 로 합쳐진 같은 PARKING_CODE 의 다른 Row, 없으면 빈 배열 */
+    public ParkingLot[] getVariants() {
+        return variants != null ? variants.clone() : NO_VARIANTS;
+    }
+
+    public int getVariantCount() {
+        return variants != null ? variants.length : 0;
+    }
+
+    void addVariant(ParkingLot variant) {
+        if (variants == null) {
+            variants = new ParkingLot[] { variant };
+        } else {
+            variants = Arrays.copyOf(variants, variants.length + 1);
+            variants[variants.length - 1] = variant;
+        }
+    }
+
+    void setText(int field, String value) {
+        if (value == null)
+            return;
+        if (text == null)
+            text = new String[TEXT_FIELDS];
+        text[field] = value;
+    }
+
+    /** 원래 형태의 Row 를 다시 만든다. (상세 화면용, 호출할 때마다 새 Instance) */
+    public Row toRow() {
+        Row row = new Row();
+        row.setPARKING_CODE(String.valueOf(parkingCode));
+        row.setLAT(String.valueOf(lat));
+        row.setLNG(String.valueOf(lng));
+        row.setCAPACITY(String.valueOf(capacity));
+        row.setCUR_PARKING(String.valueOf(curParking));
+        row.setRATES(String.valueOf(rates));
+        row.setTIME_RATE(String.valueOf(timeRate));
+        row.setADD_RATES(String.valueOf(addRates));
+        row.setADD_TIME_RATE(String.valueOf(addTimeRate));
+        row.setDAY_MAXIMUM(String.valueOf(dayMaximum));
+        row.setFULLTIME_MONTHLY(String.valueOf(fulltimeMonthly));
+        row.setBUS_RATES(String.valueOf(busRates));
+        row.setBUS_TIME_RATE(String.valueOf(busTimeRate));
+        row.setBUS_ADD_RATES(String.valueOf(busAddRates));
+        row.setBUS_ADD_TIME_RATE(String.valueOf(busAddTimeRate));
+        row.setWEEKDAY_BEGIN_TIME(formatMinutes(weekdayBegin));
+        row.setWEEKDAY_END_TIME(formatMinutes(weekdayEnd));
+        row.setWEEKEND_BEGIN_TIME(formatMinutes(weekendBegin));
+        row.setWEEKEND_END_TIME(formatMinutes(weekendEnd));
+        row.setHOLIDAY_BEGIN_TIME(formatMinutes(holidayBegin));
+        row.setHOLIDAY_END_TIME(formatMinutes(holidayEnd));
+        row.setPARKING_NAME(getText(PARKING_NAME));
+        row.setADDR(getText(ADDR));
+        row.setPARKING_TYPE_NM(getText(PARKING_TYPE_NM));
+        row.setOPERATION_RULE_NM(getText(OPERATION_RULE_NM));
+        row.setTEL(getText(TEL));
+        row.setPAY_NM(getText(PAY_NM));
+        row.setSATURDAY_PAY_NM(getText(SATURDAY_PAY_NM));
+        row.setHOLIDAY_PAY_NM(getText(HOLIDAY_PAY_NM));
+        row.setNIGHT_FREE_OPEN_NM(getText(NIGHT_FREE_OPEN_NM));
+        row.setASSIGN_CODE_NM(getText(ASSIGN_CODE_NM));
+        row.setGRP_PARKNM(getText(GRP_PARKNM));
+        row.setWORK_DTTM(getText(WORK_DTTM));
+        row.setCUR_PARKING_TIME(getText(CUR_PARKING_TIME));
+        return row;
+    }
+
+    /**
+     * 원래 Row 전체. Page 의 RawSource 가 있으면 다시 읽으므로 Network / Disk I/O 가 있을 수 있다. (Main Thread 에서 호출 금지)
+     * RawSource 가 없거나 Row 가 더 이상 없으면 가진 Field 로 toRow()
+     */
+    public Row getRaw() throws IOException {
+        RawSource source = rawSource;
+        if (source != null) {
+            Row row = source.row(rawOrdinal, parkingCode);
+            if (row != null)
+                return row;
+        }
+        return toRow();
+    }
+
+    /** page 의 i 번째 ParkingLot 이 source 의 i 번째 Row 에서 왔음을 기록 */
+    public static void attachRaw(ParkingLot[] page, RawSource source) {
+        for (int i = 0; i < page.length; i++) {
+            page[i].rawSource = source;
+            page[i].rawOrdinal = i;
+        }
+    }
+
+    /** 540 → "0900" */
+    static String formatMinutes(int minutes) {
+        if (minutes == UNKNOWN)
+            return null;
+        return String.format(Locale.US, "%02d%02d", minutes / 60, minutes % 60);
+    }
+
+    @Override
+    public String toString() {
+        return "ParkingLot [PARKING_CODE = " + parkingCode + ", LAT = " + lat + ", LNG = " + lng
+                + ", CAPACITY = " + capacity + ", CUR_PARKING = " + curParking + "]";
+    }
+}
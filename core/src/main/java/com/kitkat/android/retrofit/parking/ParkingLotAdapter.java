@@ -0,0 +1,257 @@
+package com.kitkat.android.retrofit.parking;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/** Gson TypeAdapter : Row JSON Object → ParkingLot
+ *
+ *  Reflection 없이 Field 이름으로 바로 분기하여 숫자/시각 Field 를 Decode 시점에 Primitive 로 변환한다.
+ *  숫자 Token 은 JsonReader.nextDouble() 로 읽으므로 중간 String 을 만들지 않는다.
+ *  Row 가 배열이면 Proxy 의 CompactLotFormat 으로 읽는다.
+ *  Projection 을 주면 그 Field 만 Decode 하고 나머지는 String 을 만들지 않고 건너뛴다.
+ *
+ *      Gson gson = new GsonBuilder()
+ *          .registerTypeAdapter(ParkingLot.class, new ParkingLotAdapter()) // 또는 new ParkingLotAdapter(Projection.SNAPSHOT)
+ *          .create();
+ */
+public class ParkingLotAdapter extends TypeAdapter<ParkingLot> {
+    private final Projection projection;
+
+    public ParkingLotAdapter() {
+        this(Projection.ALL);
+    }
+
+    /** projection 에 없는 Field 는 값을 읽지 않고 건너뛴다. */
+    public ParkingLotAdapter(Projection projection) {
+        this.projection = projection;
+    }
+
+    public Projection getProjection() {
+        return projection;
+    }
+
+    @Override
+    public ParkingLot read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        // Proxy 의 Compact Row
+        if (in.peek() == JsonToken.BEGIN_ARRAY)
+            return CompactLotFormat.read(in, projection);
+
+        ParkingLot lot = new ParkingLot();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (!projection.includes(name)) {
+                in.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "PARKING_CODE":
+                    lot.parkingCode = readInt(in, ParkingLot.UNKNOWN);
+                    break;
+                case "LAT":
+                    lot.lat = readDouble(in);
+                    break;
+                case "LNG":
+                    lot.lng = readDouble(in);
+                    break;
+                case "CAPACITY":
+                    lot.capacity = readInt(in, 0);
+                    break;
+                case "CUR_PARKING":
+                    lot.curParking = readInt(in, 0);
+                    break;
+                case "CUR_PARKING_TIME":
+                    String time = readString(in);
+                    lot.curParkingTime = FieldParser.parseSeoulDateTime(time);
+                    lot.setText(ParkingLot.CUR_PARKING_TIME, time);
+                    break;
+                case "RATES":
+                    lot.rates = readInt(in, 0);
+                    break;
+                case "TIME_RATE":
+                    lot.timeRate = readInt(in, 0);
+                    break;
+                case "ADD_RATES":
+                    lot.addRates = readInt(in, 0);
+                    break;
+                case "ADD_TIME_RATE":
+                    lot.addTimeRate = readInt(in, 0);
+                    break;
+                case "DAY_MAXIMUM":
+                    lot.dayMaximum = readInt(in, 0);
+                    break;
+                case "FULLTIME_MONTHLY":
+                    lot.fulltimeMonthly = readInt(in, 0);
+                    break;
+                case "BUS_RATES":
+                    lot.busRates = readInt(in, 0);
+                    break;
+                case "BUS_TIME_RATE":
+                    lot.busTimeRate = readInt(in, 0);
+                    break;
+                case "BUS_ADD_RATES":
+                    lot.busAddRates = readInt(in, 0);
+                    break;
+                case "BUS_ADD_TIME_RATE":
+                    lot.busAddTimeRate = readInt(in, 0);
+                    break;
+                case "WEEKDAY_BEGIN_TIME":
+                    lot.weekdayBegin = FieldParser.parseMinutesOfDay(readString(in));
+                    break;
+                case "WEEKDAY_END_TIME":
+                    lot.weekdayEnd = FieldParser.parseMinutesOfDay(readString(in));
+                    break;
+                case "WEEKEND_BEGIN_TIME":
+                    lot.weekendBegin = FieldParser.parseMinutesOfDay(readString(in));
+                    break;
+                case "WEEKEND_END_TIME":
+                    lot.weekendEnd = FieldParser.parseMinutesOfDay(readString(in));
+                    break;
+                case "HOLIDAY_BEGIN_TIME":
+                    lot.holidayBegin = FieldParser.parseMinutesOfDay(readString(in));
+                    break;
+                case "HOLIDAY_END_TIME":
+                    lot.holidayEnd = FieldParser.parseMinutesOfDay(readString(in));
+                    break;
+                case "PARKING_NAME":
+                    lot.setText(ParkingLot.PARKING_NAME, readString(in));
+                    break;
+                case "ADDR":
+                    lot.setText(ParkingLot.ADDR, readString(in));
+                    break;
+                case "PARKING_TYPE_NM":
+                    lot.setText(ParkingLot.PARKING_TYPE_NM, readString(in));
+                    break;
+                case "OPERATION_RULE_NM":
+                    lot.setText(ParkingLot.OPERATION_RULE_NM, readString(in));
+                    break;
+                case "TEL":
+                    lot.setText(ParkingLot.TEL, readString(in));
+                    break;
+                case "PAY_NM":
+                    lot.setText(ParkingLot.PAY_NM, readString(in));
+                    break;
+                case "SATURDAY_PAY_NM":
+                    lot.setText(ParkingLot.SATURDAY_PAY_NM, readString(in));
+                    break;
+                case "HOLIDAY_PAY_NM":
+                    lot.setText(ParkingLot.HOLIDAY_PAY_NM, readString(in));
+                    break;
+                case "NIGHT_FREE_OPEN_NM":
+                    lot.setText(ParkingLot.NIGHT_FREE_OPEN_NM, readString(in));
+                    break;
+                case "ASSIGN_CODE_NM":
+                    lot.setText(ParkingLot.ASSIGN_CODE_NM, readString(in));
+                    break;
+                case "GRP_PARKNM":
+                    lot.setText(ParkingLot.GRP_PARKNM, readString(in));
+                    break;
+                case "WORK_DTTM":
+                    lot.setText(ParkingLot.WORK_DTTM, readString(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return lot;
+    }
+
+    @Override
+    public void write(JsonWriter out, ParkingLot lot) throws IOException {
+        if (lot == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("PARKING_CODE").value(String.valueOf(lot.parkingCode));
+        out.name("LAT").value(lot.lat);
+        out.name("LNG").value(lot.lng);
+        out.name("CAPACITY").value(lot.capacity);
+        out.name("CUR_PARKING").value(lot.curParking);
+        out.name("RATES").value(lot.rates);
+        out.name("TIME_RATE").value(lot.timeRate);
+        out.name("ADD_RATES").value(lot.addRates);
+        out.name("ADD_TIME_RATE").value(lot.addTimeRate);
+        out.name("DAY_MAXIMUM").value(lot.dayMaximum);
+        out.name("FULLTIME_MONTHLY").value(lot.fulltimeMonthly);
+        out.name("BUS_RATES").value(lot.busRates);
+        out.name("BUS_TIME_RATE").value(lot.busTimeRate);
+        out.name("BUS_ADD_RATES").value(lot.busAddRates);
+        out.name("BUS_ADD_TIME_RATE").value(lot.busAddTimeRate);
+        out.name("WEEKDAY_BEGIN_TIME").value(ParkingLot.formatMinutes(lot.weekdayBegin));
+        out.name("WEEKDAY_END_TIME").value(ParkingLot.formatMinutes(lot.weekdayEnd));
+        out.name("WEEKEND_BEGIN_TIME").value(ParkingLot.formatMinutes(lot.weekendBegin));
+        out.name("WEEKEND_END_TIME").value(ParkingLot.formatMinutes(lot.weekendEnd));
+        out.name("HOLIDAY_BEGIN_TIME").value(ParkingLot.formatMinutes(lot.holidayBegin));
+        out.name("HOLIDAY_END_TIME").value(ParkingLot.formatMinutes(lot.holidayEnd));
+        out.name("PARKING_NAME").value(lot.getText(ParkingLot.PARKING_NAME));
+        out.name("ADDR").value(lot.getText(ParkingLot.ADDR));
+        out.name("PARKING_TYPE_NM").value(lot.getText(ParkingLot.PARKING_TYPE_NM));
+        out.name("OPERATION_RULE_NM").value(lot.getText(ParkingLot.OPERATION_RULE_NM));
+        out.name("TEL").value(lot.getText(ParkingLot.TEL));
+        out.name("PAY_NM").value(lot.getText(ParkingLot.PAY_NM));
+        out.name("SATURDAY_PAY_NM").value(lot.getText(ParkingLot.SATURDAY_PAY_NM));
+        out.name("HOLIDAY_PAY_NM").value(lot.getText(ParkingLot.HOLIDAY_PAY_NM));
+        out.name("NIGHT_FREE_OPEN_NM").value(lot.getText(ParkingLot.NIGHT_FREE_OPEN_NM));
+        out.name("ASSIGN_CODE_NM").value(lot.getText(ParkingLot.ASSIGN_CODE_NM));
+        out.name("GRP_PARKNM").value(lot.getText(ParkingLot.GRP_PARKNM));
+        out.name("WORK_DTTM").value(lot.getText(ParkingLot.WORK_DTTM));
+        out.name("CUR_PARKING_TIME").value(lot.getText(ParkingLot.CUR_PARKING_TIME));
+        out.endObject();
+    }
+
+    static int readInt(JsonReader in, int defaultValue) throws IOException {
+        switch (in.peek()) {
+            case NUMBER:
+                return (int) in.nextDouble();
+            case STRING:
+                return FieldParser.parseInt(in.nextString(), defaultValue);
+            case NULL:
+                in.nextNull();
+                return defaultValue;
+            default:
+                in.skipValue();
+                return defaultValue;
+        }
+    }
+
+    static double readDouble(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case NUMBER:
+                return in.nextDouble();
+            case STRING:
+                return FieldParser.parseDouble(in.nextString(), Double.NaN);
+            case NULL:
+                in.nextNull();
+                return Double.NaN;
+            default:
+                in.skipValue();
+                return Double.NaN;
+        }
+    }
+
+    static String readString(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case STRING:
+            case NUMBER:
+                return in.nextString();
+            case NULL:
+                in.nextNull();
+                return null;
+            default:
+                in.skipValue();
+                return null;
+        }
+    }
+}
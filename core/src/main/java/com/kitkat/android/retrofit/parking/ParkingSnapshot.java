@@ -0,0 +1,291 @@
+package com.kitkat.android.retrofit.parking;
+
+import com.kitkat.android.retrofit.domain.Row;
+import com.kitkat.android.retrofit.domain.SearchParkingInfoRealtime;
+
+import java.util.Arrays;
+
+/** Columnar (Struct of Arrays) Snapshot of Parking Lots
+ *
+ *  주차장 하나를 객체 하나로 두지 않고, Field 마다 Primitive 배열 하나에 모든 주차장의 값을 보관한다.
+ *  i 번째 주차장의 값은 각 배열의 i 번째 원소이며, 문자열 Field 는 공유 StringPool 의 Id 로 보관한다.
+ *
+ *      ParkingSnapshot snapshot = new ParkingSnapshot.Builder().addAll(lots).build();
+ *      for (int i = 0; i < snapshot.size(); i++)
+ *          draw(snapshot.lat(i), snapshot.lng(i), snapshot.remaining(i)); // Iterator / 객체 할당 없음
+ *
+ *  생성 후에는 변경되지 않으므로 여러 Thread 에서 동시에 읽어도 안전하다.
+ */
+public final class ParkingSnapshot {
+    // SnapshotStore 가 Column 을 그대로 쓰고 읽을 수 있도록 package-private
+    final int size;
+    final int[] codes;
+    final double[] lat;
+    final double[] lng;
+    final int[] capacity;
+    final int[] current;
+    final long[] updatedAt;
+
+    final int[] name;
+    final int[] addr;
+    final int[] tel;
+    final int[] payName;
+    final int[] typeName;
+    final int[] nightOpen;
+    final StringPool strings;
+
+    // PARKING_CODE → Index
+    private final IntIntMap indexByCode;
+
+    private ParkingSnapshot(Builder b) {
+        this(b.size, Arrays.copyOf(b.codes, b.size), Arrays.copyOf(b.lat, b.size), Arrays.copyOf(b.lng, b.size),
+                Arrays.copyOf(b.capacity, b.size), Arrays.copyOf(b.current, b.size), Arrays.copyOf(b.updatedAt, b.size),
+                Arrays.copyOf(b.name, b.size), Arrays.copyOf(b.addr, b.size), Arrays.copyOf(b.tel, b.size),
+                Arrays.copyOf(b.payName, b.size), Arrays.copyOf(b.typeName, b.size), Arrays.copyOf(b.nightOpen, b.size),
+                b.strings);
+    }
+
+    /** 배열을 복사하지 않고 그대로 사용. 모든 배열의 길이는 size 이상이어야 한다. */
+    ParkingSnapshot(int size, int[] codes, double[] lat, double[] lng, int[] capacity, int[] current, long[] updatedAt,
+                    int[] name, int[] addr, int[] tel, int[] payName, int[] typeName, int[] nightOpen, StringPool strings) {
+        this.size = size;
+        this.codes = codes;
+        this.lat = lat;
+        this.lng = lng;
+        this.capacity = capacity;
+        this.current = current;
+        this.updatedAt = updatedAt;
+        this.name = name;
+        this.addr = addr;
+        this.tel = tel;
+        this.payName = payName;
+        this.typeName = typeName;
+        this.nightOpen = nightOpen;
+        this.strings = strings;
+
+        indexByCode = new IntIntMap(size);
+        for (int i = 0; i < size; i++) {
+            if (codes[i] != ParkingLot.UNKNOWN)
+                indexByCode.putIfAbsent(codes[i], i);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** PARKING_CODE 의 Index, 없으면 -1 (같은 코드가 여러 번 있으면 처음 것)
+     *  PARKING_CODE 를 읽지 못한 (UNKNOWN) 주차장은 서로 구분할 수 없으므로 찾지 않는다. (항상 -1) */
+    public int indexOf(int code) {
+        return indexByCode.get(code);
+    }
+
+    public int code(int i) {
+        return codes[i];
+    }
+
+    public double lat(int i) {
+        return lat[i];
+    }
+
+    public double lng(int i) {
+        return lng[i];
+    }
+
+    public boolean hasLocation(int i) {
+        return !Double.isNaN(lat[i]) && !Double.isNaN(lng[i]);
+    }
+
+    public int capacity(int i) {
+        return capacity[i];
+    }
+
+    public int current(int i) {
+        return current[i];
+    }
+
+    /** capacity - current */
+    public int remaining(int i) {
+        return capacity[i] - current[i];
+    }
+
+    /** CUR_PARKING_TIME (Epoch Seconds), 알 수 없으면 ParkingLot.UNKNOWN */
+    public long updatedAt(int i) {
+        return updatedAt[i];
+    }
+
+    /** 모든 주차장의 남은 자리 수를 out 에 채운다. out.length >= size() */
+    public void remaining(int[] out) {
+        for (int i = 0; i < size; i++)
+            out[i] = capacity[i] - current[i];
+    }
+
+    public String name(int i) {
+        return strings.get(name[i]);
+    }
+
+    public String addr(int i) {
+        return strings.get(addr[i]);
+    }
+
+    public String tel(int i) {
+        return strings.get(tel[i]);
+    }
+
+    public String payName(int i) {
+        return strings.get(payName[i]);
+    }
+
+    public String typeName(int i) {
+        return strings.get(typeName[i]);
+    }
+
+    public String nightOpen(int i) {
+        return strings.get(nightOpen[i]);
+    }
+
+    /** Filter 비교용 StringPool Id (문자열 비교 대신 int 비교) */
+    public int payNameId(int i) {
+        return payName[i];
+    }
+
+    public int typeNameId(int i) {
+        return typeName[i];
+    }
+
+    public int nightOpenId(int i) {
+        return nightOpen[i];
+    }
+
+    public StringPool strings() {
+        return strings;
+    }
+
+    public static final class Builder {
+        private static final int INITIAL_CAPACITY = 256;
+
+        private final StringPool strings;
+        private int size;
+        private int[] codes = new int[INITIAL_CAPACITY];
+        private double[] lat = new double[INITIAL_CAPACITY];
+        private double[] lng = new double[INITIAL_CAPACITY];
+        private int[] capacity = new int[INITIAL_CAPACITY];
+        private int[] current = new int[INITIAL_CAPACITY];
+        private long[] updatedAt = new long[INITIAL_CAPACITY];
+        private int[] name = new int[INITIAL_CAPACITY];
+        private int[] addr = new int[INITIAL_CAPACITY];
+        private int[] tel = new int[INITIAL_CAPACITY];
+        private int[] payName = new int[INITIAL_CAPACITY];
+        private int[] typeName = new int[INITIAL_CAPACITY];
+        private int[] nightOpen = new int[INITIAL_CAPACITY];
+
+        public Builder() {
+            this(new StringPool());
+        }
+
+        /** 이전 Snapshot 의 StringPool 을 넘기면 같은 문자열을 다시 보관하지 않는다. */
+        public Builder(StringPool strings) {
+            this.strings = strings;
+        }
+
+        public Builder add(ParkingLot lot) {
+            int i = next();
+            codes[i] = lot.parkingCode;
+            lat[i] = lot.lat;
+            lng[i] = lot.lng;
+            capacity[i] = lot.capacity;
+            current[i] = lot.curParking;
+            updatedAt[i] = lot.curParkingTime;
+            name[i] = strings.intern(lot.getText(ParkingLot.PARKING_NAME));
+            addr[i] = strings.intern(lot.getText(ParkingLot.ADDR));
+            tel[i] = strings.intern(lot.getText(ParkingLot.TEL));
+            payName[i] = strings.intern(lot.getText(ParkingLot.PAY_NM));
+            typeName[i] = strings.intern(lot.getText(ParkingLot.PARKING_TYPE_NM));
+            nightOpen[i] = strings.intern(lot.getText(ParkingLot.NIGHT_FREE_OPEN_NM));
+            return this;
+        }
+
+        /** 다른 Snapshot 의 i 번째 주차장 (StringPool 이 달라도 된다) */
+        public Builder add(ParkingSnapshot snapshot, int i) {
+            int j = next();
+            codes[j] = snapshot.codes[i];
+            lat[j] = snapshot.lat[i];
+            lng[j] = snapshot.lng[i];
+            capacity[j] = snapshot.capacity[i];
+            current[j] = snapshot.current[i];
+            updatedAt[j] = snapshot.updatedAt[i];
+            name[j] = strings.intern(snapshot.name(i));
+            addr[j] = strings.intern(snapshot.addr(i));
+            tel[j] = strings.intern(snapshot.tel(i));
+            payName[j] = strings.intern(snapshot.payName(i));
+            typeName[j] = strings.intern(snapshot.typeName(i));
+            nightOpen[j] = strings.intern(snapshot.nightOpen(i));
+            return this;
+        }
+
+        public Builder add(Row row) {
+            int i = next();
+            codes[i] = FieldParser.parseInt(row.getPARKING_CODE(), ParkingLot.UNKNOWN);
+            lat[i] = FieldParser.parseDouble(row.getLAT(), Double.NaN);
+            lng[i] = FieldParser.parseDouble(row.getLNG(), Double.NaN);
+            capacity[i] = FieldParser.parseInt(row.getCAPACITY(), 0);
+            current[i] = FieldParser.parseInt(row.getCUR_PARKING(), 0);
+            updatedAt[i] = FieldParser.parseSeoulDateTime(row.getCUR_PARKING_TIME());
+            name[i] = strings.intern(row.getPARKING_NAME());
+            addr[i] = strings.intern(row.getADDR());
+            tel[i] = strings.intern(row.getTEL());
+            payName[i] = strings.intern(row.getPAY_NM());
+            typeName[i] = strings.intern(row.getPARKING_TYPE_NM());
+            nightOpen[i] = strings.intern(row.getNIGHT_FREE_OPEN_NM());
+            return this;
+        }
+
+        public Builder addAll(ParkingLot[] lots) {
+            ensureCapacity(size + lots.length);
+            for (ParkingLot lot : lots)
+                add(lot);
+            return this;
+        }
+
+        public Builder addAll(SearchParkingInfoRealtime response) {
+            Row[] rows = response.getRow();
+            if (rows == null)
+                return this;
+            ensureCapacity(size + rows.length);
+            for (Row row : rows)
+                add(row);
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public ParkingSnapshot build() {
+            return new ParkingSnapshot(this);
+        }
+
+        private int next() {
+            ensureCapacity(size + 1);
+            return size++;
+        }
+
+        private void ensureCapacity(int required) {
+            if (required <= codes.length)
+                return;
+            int n = Math.max(required, codes.length * 2);
+            codes = Arrays.copyOf(codes, n);
+            lat = Arrays.copyOf(lat, n);
+            lng = Arrays.copyOf(lng, n);
+            capacity = Arrays.copyOf(capacity, n);
+            current = Arrays.copyOf(current, n);
+            updatedAt = Arrays.copyOf(updatedAt, n);
+            name = Arrays.copyOf(name, n);
+            addr = Arrays.copyOf(addr, n);
+            tel = Arrays.copyOf(tel, n);
+            payName = Arrays.copyOf(payName, n);
+            typeName = Arrays.copyOf(typeName, n);
+            nightOpen = Arrays.copyOf(nightOpen, n);
+        }
+    }
+}
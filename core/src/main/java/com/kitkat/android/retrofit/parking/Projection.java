@@ -0,0 +1,94 @@
+package com.kitkat.android.retrofit.parking;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/** Row Field Projection
+ *
+ *  ParkingLotAdapter 가 Decode 할 Field 목록. 나머지 Field 는 JsonReader.skipValue() 로 값의 String 을 만들지 않고 건너뛴다.
+ *  (Field 이름은 JsonReader.nextName() 이 만들므로 그대로 할당된다.)
+ *  LotMerger 가 PARKING_CODE 로 합치므로 PARKING_CODE 는 항상 포함된다.
+ *
+ *      Projection projection = Projection.of("LAT", "LNG", "CAPACITY", "CUR_PARKING");
+ *      Gson gson = new GsonBuilder()
+ *          .registerTypeAdapter(ParkingLot.class, new ParkingLotAdapter(projection))
+ *          .create();
+ *
+ *  건너뛴 Field 는 ParkingLot.getRaw() 로 원래 Row 를 다시 읽어 얻는다.
+ */
+public final class Projection {
+    /** SearchParkingInfoRealtime Row 의 모든 Field */
+    public static final String[] FIELDS = {
+            "PARKING_CODE", "PARKING_NAME", "ADDR", "PARKING_TYPE_NM", "OPERATION_RULE_NM", "TEL",
+            "CAPACITY", "CUR_PARKING", "CUR_PARKING_TIME", "PAY_NM", "NIGHT_FREE_OPEN_NM",
+            "WEEKDAY_BEGIN_TIME", "WEEKDAY_END_TIME", "WEEKEND_BEGIN_TIME", "WEEKEND_END_TIME",
+            "HOLIDAY_BEGIN_TIME", "HOLIDAY_END_TIME", "SATURDAY_PAY_NM", "HOLIDAY_PAY_NM", "FULLTIME_MONTHLY",
+            "GRP_PARKNM", "RATES", "TIME_RATE", "ADD_RATES", "ADD_TIME_RATE",
+            "BUS_RATES", "BUS_TIME_RATE", "BUS_ADD_TIME_RATE", "BUS_ADD_RATES",
+            "DAY_MAXIMUM", "ASSIGN_CODE_NM", "WORK_DTTM", "LAT", "LNG"
+    };
+
+    private static final Set<String> KNOWN = new HashSet<>(Arrays.asList(FIELDS));
+
+    public static final Projection ALL = new Projection(null);
+
+    /** 지도 Marker 에 필요한 최소 Field */
+    public static final Projection MARKER = of("LAT", "LNG", "CAPACITY", "CUR_PARKING");
+
+    /** ParkingSnapshot 과 ScheduleTable 이 보관하는 Field (CompactLotFormat 과 같음) */
+    public static final Projection SNAPSHOT = of(CompactLotFormat.FIELDS);
+
+    // null 이면 모든 Field
+    private final Set<String> fields;
+
+    private Projection(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    /** @throws IllegalArgumentException Row 에 없는 Field 이름 */
+    public static Projection of(String... fields) {
+        Set<String> set = new HashSet<>(fields.length * 2 + 1);
+        set.add("PARKING_CODE");
+        for (String field : fields) {
+            if (!KNOWN.contains(field))
+                throw new IllegalArgumentException("Unknown field: " + field);
+            set.add(field);
+        }
+        return set.size() == KNOWN.size() ? ALL : new Projection(set);
+    }
+
+    public boolean includes(String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    public boolean isAll() {
+        return fields == null;
+    }
+
+    /** Projection 에 포함된 Field (ALL 이면 FIELDS 전체) */
+    public Set<String> fields() {
+        return Collections.unmodifiableSet(fields != null ? fields : KNOWN);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof Projection))
+            return false;
+        Projection other = (Projection) o;
+        return fields == null ? other.fields == null : fields.equals(other.fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return fields != null ? fields.hashCode() : 0;
+    }
+
+    @Override
+    public String toString() {
+        return fields != null ? "Projection " + fields : "Projection ALL";
+    }
+}
@@ -0,0 +1,23 @@
+package com.kitkat.android.retrofit.parking;
+
+import com.kitkat.android.retrofit.domain.Row;
+
+import java.io.IOException;
+
+/** Projection 으로 건너뛴 Field 를 위해 원래 Row 를 다시 읽는 곳
+ *
+ *  Page 하나에 하나씩 두고 ParkingLot 은 Page 안의 순서 (ordinal) 만 보관한다.
+ *  Decode 한 뒤 Row 가 바뀌었을 수 있으므로 구현은 PARKING_CODE 가 같은 Row 를 찾아야 한다.
+ *
+ *      ParkingLot.attachRaw(pageLots, source); // PagedFetcher
+ *      ...
+ *      Row row = lot.getRaw(); // 상세 화면 (Background Thread)
+ */
+public interface RawSource {
+    /**
+     * @param ordinal     Page 안에서의 Row 순서 (0 부터)
+     * @param parkingCode 그 Row 의 PARKING_CODE
+     * @return 원래 Row, 더 이상 없으면 null
+     */
+    Row row(int ordinal, int parkingCode) throws IOException;
+}
@@ -0,0 +1,265 @@
+package com.kitkat.android.retrofit.parking;
+
+import com.kitkat.android.retrofit.domain.Row;
+import com.kitkat.android.retrofit.domain.SearchParkingInfoRealtime;
+
+import java.util.Arrays;
+
+/** Operating Hours / Tariff Table
+ *
+ *  *_BEGIN_TIME / *_END_TIME, RATES / TIME_RATE / ADD_RATES / ADD_TIME_RATE / DAY_MAXIMUM, *PAY_NM 을
+ *  수집할 때 한 번 minutes of day 와 정수 요금표로 바꾸어 Primitive 배열에 보관한다. (ParkingSnapshot 과 같은 Columnar)
+ *  Query 할 때는 문자열을 다시 읽지 않고, 모든 주차장의 운영 여부와 예상 요금을 한 번의 Loop 로 계산한다.
+ *
+ *      ScheduleTable schedule = new ScheduleTable.Builder().addAll(lots).build(); // snapshot 과 같은 lots, 같은 Index
+ *      byte[] open = new byte[schedule.size()];
+ *      int[] cost = new int[schedule.size()];
+ *      long now = System.currentTimeMillis() / 1000;
+ *      schedule.evaluate(ScheduleTable.dayType(now), ScheduleTable.minuteOfDay(now), 120, open, cost); // 할당 없음
+ *
+ *  요일 구분은 Open API 와 같다. WEEKDAY (평일), WEEKEND (토요일 : WEEKEND_* 시간, SATURDAY_PAY_NM), HOLIDAY (일요일 / 공휴일)
+ *  dayType() 은 공휴일을 모르므로 공휴일에는 HOLIDAY 를 직접 넘긴다.
+ *
+ *      운영 시간   BEGIN == END 이면 운영하지 않는 날 ("0000" ~ "0000"), END < BEGIN 이면 자정을 넘겨 운영
+ *                  (전날부터 자정을 넘겨 이어지는 운영 시간은 보지 않는다)
+ *      요금       RATES (처음 TIME_RATE 분) + ADD_RATES (이후 ADD_TIME_RATE 분마다), 하루 DAY_MAXIMUM 이하
+ *                  시작 시각의 요일 요금이 주차하는 동안 그대로 적용된다고 보는 예상 요금이다.
+ *
+ *  생성 후에는 변경되지 않으므로 여러 Thread 에서 동시에 읽어도 안전하다.
+ */
+public final class ScheduleTable {
+    public static final int WEEKDAY = 0;
+    public static final int WEEKEND = 1;
+    public static final int HOLIDAY = 2;
+    private static final int DAY_TYPES = 3;
+
+    /** evaluate() 의 open 값 */
+    public static final byte CLOSED = 0;
+    public static final byte OPEN = 1;
+    /** 운영 시간을 알 수 없음 (open), 요금을 알 수 없음 (cost) */
+    public static final int UNKNOWN = ParkingLot.UNKNOWN;
+
+    static final String FREE = "무료";
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    final int size;
+    // 요일 d 의 i 번째 주차장 : [d * size + i], minutes of day (0 ~ 1440) 또는 UNKNOWN
+    final short[] begin;
+    final short[] end;
+    // 무료인 요일의 Bit (1 << d)
+    final byte[] freeDays;
+    // 요금을 알 수 없으면 baseMinutes == UNKNOWN
+    final int[] baseFee;
+    final int[] baseMinutes;
+    final int[] addFee;
+    final int[] addMinutes;
+    final int[] dayMaximum;
+
+    private ScheduleTable(Builder b) {
+        size = b.size;
+        begin = new short[DAY_TYPES * size];
+        end = new short[DAY_TYPES * size];
+        for (int d = 0; d < DAY_TYPES; d++) {
+            System.arraycopy(b.begin[d], 0, begin, d * size, size);
+            System.arraycopy(b.end[d], 0, end, d * size, size);
+        }
+        freeDays = Arrays.copyOf(b.freeDays, size);
+        baseFee = Arrays.copyOf(b.baseFee, size);
+        baseMinutes = Arrays.copyOf(b.baseMinutes, size);
+        addFee = Arrays.copyOf(b.addFee, size);
+        addMinutes = Arrays.copyOf(b.addMinutes, size);
+        dayMaximum = Arrays.copyOf(b.dayMaximum, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Epoch Seconds (Asia/Seoul) 의 요일 구분. 월 ~ 금 WEEKDAY, 토 WEEKEND, 일 HOLIDAY */
+    public static int dayType(long epochSeconds) {
+        long day = floorDiv(epochSeconds + FieldParser.SEOUL_OFFSET_SECONDS, 86400);
+        // 1970-01-01 은 목요일 : 0 = 월요일
+        int dayOfWeek = (int) floorMod(day + 3, 7);
+        return dayOfWeek < 5 ? WEEKDAY : dayOfWeek == 5 ? WEEKEND : HOLIDAY;
+    }
+
+    /** Epoch Seconds (Asia/Seoul) 의 minutes of day (0 ~ 1439) */
+    public static int minuteOfDay(long epochSeconds) {
+        return (int) (floorMod(epochSeconds + FieldParser.SEOUL_OFFSET_SECONDS, 86400) / 60);
+    }
+
+    /** dayType 의 minute 에 운영 중이면 OPEN, 아니면 CLOSED, 운영 시간을 모르면 UNKNOWN */
+    public int open(int i, int dayType, int minute) {
+        int k = dayType * size + i;
+        return state(begin[k], end[k], minute);
+    }
+
+    /** dayType 에 minutes 분 주차할 때의 예상 요금 (원), 알 수 없으면 UNKNOWN */
+    public int cost(int i, int dayType, int minutes) {
+        if (minutes <= 0 || (freeDays[i] & (1 << dayType)) != 0)
+            return 0;
+        if (baseMinutes[i] == UNKNOWN)
+            return UNKNOWN;
+        long days = minutes / MINUTES_PER_DAY;
+        int rest = minutes % MINUTES_PER_DAY;
+        long total = days * dayFee(i, MINUTES_PER_DAY) + (rest > 0 ? dayFee(i, rest) : 0);
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    /** 모든 주차장의 운영 여부 (OPEN / CLOSED / UNKNOWN) 를 open 에, minutes 분 예상 요금을 cost 에 채우고 운영 중인 주차장 수를 반환.
+     *  open.length, cost.length >= size() */
+    public int evaluate(int dayType, int minute, int minutes, byte[] open, int[] cost) {
+        if (dayType < 0 || dayType >= DAY_TYPES)
+            throw new IllegalArgumentException("dayType=" + dayType);
+        int offset = dayType * size;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int state = state(begin[offset + i], end[offset + i], minute);
+            open[i] = (byte) state;
+            if (state == OPEN)
+                count++;
+            cost[i] = cost(i, dayType, minutes);
+        }
+        return count;
+    }
+
+    private static int state(int begin, int end, int minute) {
+        if (begin == UNKNOWN || end == UNKNOWN)
+            return UNKNOWN;
+        if (begin == end)
+            return CLOSED;
+        if (begin < end)
+            return minute >= begin && minute < end ? OPEN : CLOSED;
+        return minute >= begin || minute < end ? OPEN : CLOSED;
+    }
+
+    // 하루 안의 minutes 분 (1 ~ 1440) 요금
+    private int dayFee(int i, int minutes) {
+        int fee = baseFee[i];
+        int over = minutes - baseMinutes[i];
+        if (over > 0)
+            fee += (over + addMinutes[i] - 1) / addMinutes[i] * addFee[i];
+        int maximum = dayMaximum[i];
+        return maximum > 0 && fee > maximum ? maximum : fee;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && (x ^ y) < 0) ? q - 1 : q;
+    }
+
+    private static long floorMod(long x, long y) {
+        return x - floorDiv(x, y) * y;
+    }
+
+    public static final class Builder {
+        private static final int INITIAL_CAPACITY = 256;
+
+        private int size;
+        private short[][] begin = new short[DAY_TYPES][INITIAL_CAPACITY];
+        private short[][] end = new short[DAY_TYPES][INITIAL_CAPACITY];
+        private byte[] freeDays = new byte[INITIAL_CAPACITY];
+        private int[] baseFee = new int[INITIAL_CAPACITY];
+        private int[] baseMinutes = new int[INITIAL_CAPACITY];
+        private int[] addFee = new int[INITIAL_CAPACITY];
+        private int[] addMinutes = new int[INITIAL_CAPACITY];
+        private int[] dayMaximum = new int[INITIAL_CAPACITY];
+
+        public Builder add(ParkingLot lot) {
+            return add(lot.weekdayBegin, lot.weekdayEnd, lot.weekendBegin, lot.weekendEnd, lot.holidayBegin, lot.holidayEnd,
+                    lot.rates, lot.timeRate, lot.addRates, lot.addTimeRate, lot.dayMaximum,
+                    lot.getText(ParkingLot.PAY_NM), lot.getText(ParkingLot.SATURDAY_PAY_NM), lot.getText(ParkingLot.HOLIDAY_PAY_NM));
+        }
+
+        public Builder add(Row row) {
+            return add(FieldParser.parseMinutesOfDay(row.getWEEKDAY_BEGIN_TIME()),
+                    FieldParser.parseMinutesOfDay(row.getWEEKDAY_END_TIME()),
+                    FieldParser.parseMinutesOfDay(row.getWEEKEND_BEGIN_TIME()),
+                    FieldParser.parseMinutesOfDay(row.getWEEKEND_END_TIME()),
+                    FieldParser.parseMinutesOfDay(row.getHOLIDAY_BEGIN_TIME()),
+                    FieldParser.parseMinutesOfDay(row.getHOLIDAY_END_TIME()),
+                    FieldParser.parseInt(row.getRATES(), 0), FieldParser.parseInt(row.getTIME_RATE(), 0),
+                    FieldParser.parseInt(row.getADD_RATES(), 0), FieldParser.parseInt(row.getADD_TIME_RATE(), 0),
+                    FieldParser.parseInt(row.getDAY_MAXIMUM(), 0),
+                    row.getPAY_NM(), row.getSATURDAY_PAY_NM(), row.getHOLIDAY_PAY_NM());
+        }
+
+        public Builder addAll(ParkingLot[] lots) {
+            ensureCapacity(size + lots.length);
+            for (ParkingLot lot : lots)
+                add(lot);
+            return this;
+        }
+
+        public Builder addAll(SearchParkingInfoRealtime response) {
+            Row[] rows = response.getRow();
+            if (rows == null)
+                return this;
+            ensureCapacity(size + rows.length);
+            for (Row row : rows)
+                add(row);
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public ScheduleTable build() {
+            return new ScheduleTable(this);
+        }
+
+        private Builder add(int weekdayBegin, int weekdayEnd, int weekendBegin, int weekendEnd, int holidayBegin, int holidayEnd,
+                            int rates, int timeRate, int addRates, int addTimeRate, int maximum,
+                            String payName, String saturdayPayName, String holidayPayName) {
+            ensureCapacity(size + 1);
+            int i = size++;
+            begin[WEEKDAY][i] = (short) weekdayBegin;
+            end[WEEKDAY][i] = (short) weekdayEnd;
+            begin[WEEKEND][i] = (short) weekendBegin;
+            end[WEEKEND][i] = (short) weekendEnd;
+            begin[HOLIDAY][i] = (short) holidayBegin;
+            end[HOLIDAY][i] = (short) holidayEnd;
+
+            // 1. 무료인 요일 : PAY_NM 이 무료이거나 요금이 0 이면 모든 요일, 토요일 / 공휴일은 따로
+            //    (TIME_RATE 가 없으면 요금 Field 를 받지 않은 것이므로 무료로 보지 않는다.)
+            int free = 0;
+            if (FREE.equals(payName) || (timeRate > 0 && rates <= 0 && addRates <= 0))
+                free = (1 << WEEKDAY) | (1 << WEEKEND) | (1 << HOLIDAY);
+            if (FREE.equals(saturdayPayName))
+                free |= 1 << WEEKEND;
+            if (FREE.equals(holidayPayName))
+                free |= 1 << HOLIDAY;
+            freeDays[i] = (byte) free;
+
+            // 2. 요금표 : 추가 요금이 없으면 기본 요금을 TIME_RATE 분마다 반복
+            if (timeRate <= 0) {
+                baseMinutes[i] = UNKNOWN;
+            } else {
+                baseFee[i] = Math.max(rates, 0);
+                baseMinutes[i] = timeRate;
+                boolean hasAdd = addTimeRate > 0 && addRates > 0;
+                addFee[i] = hasAdd ? addRates : baseFee[i];
+                addMinutes[i] = hasAdd ? addTimeRate : timeRate;
+            }
+            dayMaximum[i] = Math.max(maximum, 0);
+            return this;
+        }
+
+        private void ensureCapacity(int required) {
+            if (required <= freeDays.length)
+                return;
+            int n = Math.max(required, freeDays.length * 2);
+            for (int d = 0; d < DAY_TYPES; d++) {
+                begin[d] = Arrays.copyOf(begin[d], n);
+                end[d] = Arrays.copyOf(end[d], n);
+            }
+            freeDays = Arrays.copyOf(freeDays, n);
+            baseFee = Arrays.copyOf(baseFee, n);
+            baseMinutes = Arrays.copyOf(baseMinutes, n);
+            addFee = Arrays.copyOf(addFee, n);
+            addMinutes = Arrays.copyOf(addMinutes, n);
+            dayMaximum = Arrays.copyOf(dayMaximum, n);
+        }
+    }
+}
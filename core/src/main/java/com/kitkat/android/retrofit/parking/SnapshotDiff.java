@@ -0,0 +1,92 @@
+package com.kitkat.android.retrofit.parking;
+
+import java.util.Arrays;
+
+/** Diff Engine between two ParkingSnapshots
+ *
+ *  PARKING_CODE 로 이전 / 현재 Snapshot 의 주차장을 짝지어
+ *
+ *      - added   : 현재에만 있는 주차장 (현재 Snapshot 의 Index)
+ *      - removed : 이전에만 있는 주차장 (이전 Snapshot 의 Index)
+ *      - changed : 양쪽에 있고 CUR_PARKING 또는 CAPACITY 가 달라진 주차장 (현재 Snapshot 의 Index)
+ *
+ *  을 구한다. CUR_PARKING_TIME 이 같으면 값을 비교하지 않고 변경 없음으로 본다.
+ *  화면에서는 changed 주차장의 Marker 만 갱신하면 된다.
+ */
+public final class SnapshotDiff {
+    private static final int[] EMPTY = new int[0];
+
+    private final int[] added;
+    private final int[] removed;
+    private final int[] changed;
+
+    private SnapshotDiff(int[] added, int[] removed, int[] changed) {
+        this.added = added;
+        this.removed = removed;
+        this.changed = changed;
+    }
+
+    /** @param previous null 이면 current 전체가 added */
+    public static SnapshotDiff compute(ParkingSnapshot previous, ParkingSnapshot current) {
+        int n = current.size();
+        int[] added = new int[n];
+        int[] changed = new int[n];
+        int addedCount = 0;
+        int changedCount = 0;
+
+        for (int i = 0; i < n; i++) {
+            // 같은 코드가 중복된 경우 처음 것만 대표로 본다. PARKING_CODE 가 없는 주차장은 비교할 수 없으므로 제외
+            if (current.indexOf(current.code(i)) != i)
+                continue;
+
+            int p = previous != null ? previous.indexOf(current.code(i)) : IntIntMap.MISSING;
+            if (p == IntIntMap.MISSING) {
+                added[addedCount++] = i;
+                continue;
+            }
+
+            long updatedAt = current.updatedAt(i);
+            if (updatedAt != ParkingLot.UNKNOWN && updatedAt == previous.updatedAt(p))
+                continue;
+            if (current.current(i) != previous.current(p) || current.capacity(i) != previous.capacity(p))
+                changed[changedCount++] = i;
+        }
+
+        int[] removed = EMPTY;
+        if (previous != null) {
+            removed = new int[previous.size()];
+            int removedCount = 0;
+            for (int p = 0; p < previous.size(); p++) {
+                if (previous.indexOf(previous.code(p)) == p && current.indexOf(previous.code(p)) == IntIntMap.MISSING)
+                    removed[removedCount++] = p;
+            }
+            removed = Arrays.copyOf(removed, removedCount);
+        }
+
+        return new SnapshotDiff(Arrays.copyOf(added, addedCount), removed, Arrays.copyOf(changed, changedCount));
+    }
+
+    /** 현재 Snapshot 의 Index */
+    public int[] added() {
+        return added;
+    }
+
+    /** 이전 Snapshot 의 Index */
+    public int[] removed() {
+        return removed;
+    }
+
+    /** 현재 Snapshot 의 Index */
+    public int[] changed() {
+        return changed;
+    }
+
+    public boolean isEmpty() {
+        return added.length == 0 && removed.length == 0 && changed.length == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "SnapshotDiff [added = " + added.length + ", removed = " + removed.length + ", changed = " + changed.length + "]";
+    }
+}
@@ -0,0 +1,255 @@
+package com.kitkat.android.retrofit.parking;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.zip.CRC32;
+
+/** Persistent ParkingSnapshot File
+ *
+ *  마지막 Snapshot 을 Binary File 로 저장해 두었다가 다음 실행 시 Network 응답을 기다리지 않고 바로 Marker 를 그린다.
+ *  Column 배열을 그대로 Bulk 로 쓰고 읽으므로 JSON Parsing 이나 Row 단위 객체 생성이 없다.
+ *
+ *      int    MAGIC ("PKSN")
+ *      int    VERSION
+ *      int    size            주차장 수
+ *      int    stringCount     StringPool 문자열 수
+ *      int    bodyLength
+ *      long   CRC32(body)
+ *      body : stringCount x (int length, UTF-8 bytes)
+ *             codes int[size], lat double[size], lng double[size], capacity int[size], current int[size],
+ *             updatedAt long[size], name / addr / tel / payName / typeName / nightOpen int[size] (StringPool Id)
+ *
+ *  File 이 없거나, 손상되었거나 (길이 / CRC), VERSION 이 다르면 read() 는 null 을 반환하고 File 을 지운다.
+ *  호출하는 쪽은 Network 에서 새로 불러오면 된다.
+ *
+ *      SnapshotStore store = new SnapshotStore(new File(context.getFilesDir(), "parking.snapshot"));
+ *      ParkingSnapshot cached = store.read();  // Background Thread
+ *      ...
+ *      store.write(live);
+ */
+public final class SnapshotStore {
+    static final int MAGIC = 0x504B534E; // "PKSN"
+    static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 4 + 4 + 4 + 4 + 4 + 8;
+    private static final int CRC_OFFSET = HEADER_BYTES - 8;
+    // codes, capacity, current, 6 개 StringPool Id (int) + lat, lng (double) + updatedAt (long)
+    static final int BYTES_PER_LOT = 9 * 4 + 2 * 8 + 8;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final File file;
+
+    public SnapshotStore(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /** 임시 File 에 쓴 뒤 rename 하므로 쓰는 도중 종료되어도 이전 File 은 온전하다. */
+    public synchronized void write(ParkingSnapshot snapshot) throws IOException {
+        ByteBuffer buffer = encode(snapshot);
+
+        File tmp = new File(file.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(tmp);
+        try {
+            FileChannel channel = out.getChannel();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        } finally {
+            out.close();
+        }
+
+        if (!tmp.renameTo(file)) {
+            // 일부 File System 은 대상이 있으면 rename 실패
+            file.delete();
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                throw new IOException("Cannot rename " + tmp + " to " + file);
+            }
+        }
+    }
+
+    /** 저장된 Snapshot, 없거나 읽을 수 없는 File 이면 null */
+    public synchronized ParkingSnapshot read() throws IOException {
+        if (!file.isFile())
+            return null;
+
+        ByteBuffer buffer;
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = in.getChannel();
+            long length = channel.size();
+            if (length < HEADER_BYTES || length > Integer.MAX_VALUE) {
+                buffer = null;
+            } else {
+                buffer = ByteBuffer.allocate((int) length);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0)
+                        break;
+                }
+                buffer.flip();
+            }
+        } finally {
+            in.close();
+        }
+
+        ParkingSnapshot snapshot = buffer != null ? decode(buffer) : null;
+        if (snapshot == null)
+            file.delete();
+        return snapshot;
+    }
+
+    public synchronized boolean delete() {
+        return file.delete();
+    }
+
+    static ByteBuffer encode(ParkingSnapshot snapshot) {
+        int n = snapshot.size;
+
+        // Snapshot 의 Id 가 그대로 유효하도록 Pool 전체를 순서대로 기록
+        StringPool pool = snapshot.strings;
+        int stringCount = pool.size();
+        byte[][] utf8 = new byte[stringCount][];
+        int stringBytes = 0;
+        for (int i = 0; i < stringCount; i++) {
+            utf8[i] = pool.get(i).getBytes(UTF_8);
+            stringBytes += 4 + utf8[i].length;
+        }
+
+        int bodyLength = stringBytes + n * BYTES_PER_LOT;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + bodyLength);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(stringCount).putInt(bodyLength).putLong(0);
+
+        for (byte[] value : utf8)
+            buffer.putInt(value.length).put(value);
+
+        putInts(buffer, snapshot.codes, n);
+        putDoubles(buffer, snapshot.lat, n);
+        putDoubles(buffer, snapshot.lng, n);
+        putInts(buffer, snapshot.capacity, n);
+        putInts(buffer, snapshot.current, n);
+        putLongs(buffer, snapshot.updatedAt, n);
+        putInts(buffer, snapshot.name, n);
+        putInts(buffer, snapshot.addr, n);
+        putInts(buffer, snapshot.tel, n);
+        putInts(buffer, snapshot.payName, n);
+        putInts(buffer, snapshot.typeName, n);
+        putInts(buffer, snapshot.nightOpen, n);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_BYTES, bodyLength);
+        buffer.putLong(CRC_OFFSET, crc.getValue());
+
+        buffer.flip();
+        return buffer;
+    }
+
+    /** 형식이 맞지 않으면 null */
+    static ParkingSnapshot decode(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_BYTES)
+            return null;
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+            return null;
+
+        int n = buffer.getInt();
+        int stringCount = buffer.getInt();
+        int bodyLength = buffer.getInt();
+        long expectedCrc = buffer.getLong();
+        if (n < 0 || stringCount < 0 || bodyLength != buffer.remaining())
+            return null;
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), buffer.arrayOffset() + buffer.position(), bodyLength);
+        if (crc.getValue() != expectedCrc)
+            return null;
+
+        StringPool pool = new StringPool();
+        for (int i = 0; i < stringCount; i++) {
+            if (buffer.remaining() < 4)
+                return null;
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining())
+                return null;
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF_8);
+            buffer.position(buffer.position() + length);
+            // 중복 문자열이 있으면 Id 가 어긋난다.
+            if (pool.intern(value) != i)
+                return null;
+        }
+
+        if (buffer.remaining() != (long) n * BYTES_PER_LOT)
+            return null;
+
+        int[] codes = getInts(buffer, n);
+        double[] lat = getDoubles(buffer, n);
+        double[] lng = getDoubles(buffer, n);
+        int[] capacity = getInts(buffer, n);
+        int[] current = getInts(buffer, n);
+        long[] updatedAt = getLongs(buffer, n);
+        int[] name = getInts(buffer, n);
+        int[] addr = getInts(buffer, n);
+        int[] tel = getInts(buffer, n);
+        int[] payName = getInts(buffer, n);
+        int[] typeName = getInts(buffer, n);
+        int[] nightOpen = getInts(buffer, n);
+
+        if (!validIds(name, stringCount) || !validIds(addr, stringCount) || !validIds(tel, stringCount)
+                || !validIds(payName, stringCount) || !validIds(typeName, stringCount) || !validIds(nightOpen, stringCount))
+            return null;
+
+        return new ParkingSnapshot(n, codes, lat, lng, capacity, current, updatedAt,
+                name, addr, tel, payName, typeName, nightOpen, pool);
+    }
+
+    private static boolean validIds(int[] ids, int stringCount) {
+        for (int id : ids)
+            if (id < StringPool.NULL || id >= stringCount)
+                return false;
+        return true;
+    }
+
+    // View Buffer 로 배열 전체를 한 번에 복사하고 원래 Buffer 의 position 을 옮긴다.
+    private static void putInts(ByteBuffer buffer, int[] values, int n) {
+        buffer.asIntBuffer().put(values, 0, n);
+        buffer.position(buffer.position() + n * 4);
+    }
+
+    private static void putDoubles(ByteBuffer buffer, double[] values, int n) {
+        buffer.asDoubleBuffer().put(values, 0, n);
+        buffer.position(buffer.position() + n * 8);
+    }
+
+    private static void putLongs(ByteBuffer buffer, long[] values, int n) {
+        buffer.asLongBuffer().put(values, 0, n);
+        buffer.position(buffer.position() + n * 8);
+    }
+
+    private static int[] getInts(ByteBuffer buffer, int n) {
+        int[] values = new int[n];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + n * 4);
+        return values;
+    }
+
+    private static double[] getDoubles(ByteBuffer buffer, int n) {
+        double[] values = new double[n];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + n * 8);
+        return values;
+    }
+
+    private static long[] getLongs(ByteBuffer buffer, int n) {
+        long[] values = new long[n];
+        buffer.asLongBuffer().get(values);
+        buffer.position(buffer.position() + n * 8);
+        return values;
+    }
+}
@@ -0,0 +1,45 @@
+package com.kitkat.android.retrofit.parking;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** String Dictionary
+ *
+ *  PAY_NM ("유료" / "무료"), PARKING_TYPE_NM 처럼 값의 종류가 적은 문자열을 한 번만 보관하고 int Id 로 참조한다.
+ *  여러 Snapshot 이 하나의 Pool 을 공유하면 Refresh 때마다 같은 문자열을 다시 보관하지 않는다.
+ */
+public final class StringPool {
+    /** null 문자열의 Id */
+    public static final int NULL = -1;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    public synchronized int intern(String value) {
+        if (value == null)
+            return NULL;
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+
+    /** 없는 문자열이면 NULL (새로 추가하지 않음) */
+    public synchronized int find(String value) {
+        Integer id = value != null ? ids.get(value) : null;
+        return id != null ? id : NULL;
+    }
+
+    public synchronized String get(int id) {
+        return id == NULL ? null : values.get(id);
+    }
+
+    public synchronized int size() {
+        return values.size();
+    }
+}
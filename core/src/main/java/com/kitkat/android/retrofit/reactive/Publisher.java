@@ -0,0 +1,10 @@
+package com.kitkat.android.retrofit.reactive;
+
+/** Reactive Streams Publisher
+ *
+ *  org.reactivestreams.Publisher 와 같은 계약이다. (java.util.concurrent.Flow 는 Java 9 부터이므로 직접 선언)
+ *  Subscriber 가 request(n) 으로 요청한 만큼만 onNext 로 전달한다.
+ */
+public interface Publisher<T> {
+    void subscribe(Subscriber<? super T> subscriber);
+}
@@ -0,0 +1,338 @@
+package com.kitkat.android.retrofit.reactive;
+
+import com.kitkat.android.retrofit.converter.RowStream;
+import com.kitkat.android.retrofit.domain.RESULT;
+import com.kitkat.android.retrofit.metrics.Metrics;
+import com.kitkat.android.retrofit.network.OpenApiException;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.Streaming;
+
+/** CallAdapter.Factory for Publisher<T[]>
+ *
+ *  Return Type 이 Publisher<Row[]>, Publisher<ParkingLot[]> 인 Method 를 Row 묶음 (Batch) 의 Publisher 로 만든다.
+ *  Body 는 StreamingConverterFactory 의 RowStream<T> 로 받으므로 Method 에 @Streaming 을 함께 선언해야 한다.
+ *
+ *      Retrofit retrofit = new Retrofit.Builder()
+ *          .addCallAdapterFactory(PublisherCallAdapterFactory.create(executor))
+ *          .addConverterFactory(StreamingConverterFactory.create(gson))
+ *          ...
+ *      service.batches("중구", 1, 1000).subscribe(subscriber);   // request(1) 마다 ParkingLot 100개
+ *
+ *  Subscriber 가 request(n) 한 만큼만 Batch 를 Decode 하여 전달한다.
+ *
+ *      - subscribe() 마다 Call 을 clone() 하며, 처음 request() 를 받은 뒤에 executor 에서 Request 를 보낸다.
+ *      - 수요가 0 이 되면 Body 를 더 읽지 않는다. 읽히지 않은 Body 는 Socket Buffer 에 머물고,
+ *        Buffer 가 차면 TCP Flow Control 이 서버를 멈추게 하므로 Fetch → Decode → Render 의 모든 단계가 Bounded 이다.
+ *      - cancel() 은 Call 을 취소하고 Body 를 닫는다. (Decode 중이면 다음 Batch 전에)
+ *      - HTTP 오류, RESULT.CODE 오류는 onError(OpenApiException). INFO-200 은 Batch 없이 onComplete.
+ *
+ *  모든 Signal 은 executor 의 한 Thread 에서 순서대로 전달된다. (onNext 안에서 request() 해도 재귀하지 않음)
+ */
+public final class PublisherCallAdapterFactory extends CallAdapter.Factory {
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private final Executor executor;
+    private final int batchSize;
+
+    public static PublisherCallAdapterFactory create(Executor executor) {
+        return create(executor, DEFAULT_BATCH_SIZE);
+    }
+
+    public static PublisherCallAdapterFactory create(Executor executor, int batchSize) {
+        if (executor == null)
+            throw new NullPointerException("executor == null");
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize <= 0 : " + batchSize);
+        return new PublisherCallAdapterFactory(executor, batchSize);
+    }
+
+    private PublisherCallAdapterFactory(Executor executor, int batchSize) {
+        this.executor = executor;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        if (getRawType(returnType) != Publisher.class)
+            return null;
+        if (!(returnType instanceof ParameterizedType))
+            throw new IllegalArgumentException("Publisher return type must be parameterized as Publisher<Row[]> or Publisher<ParkingLot[]>");
+
+        Type batchType = getParameterUpperBound(0, (ParameterizedType) returnType);
+        if (!(batchType instanceof Class) || !((Class<?>) batchType).isArray()
+                || ((Class<?>) batchType).getComponentType().isPrimitive())
+            throw new IllegalArgumentException("Publisher element must be a batch array such as Row[] or ParkingLot[], not " + batchType);
+        if (!isStreaming(annotations))
+            throw new IllegalArgumentException("Publisher<" + ((Class<?>) batchType).getSimpleName() + "> method must be annotated with @Streaming");
+        return newAdapter(((Class<?>) batchType).getComponentType());
+    }
+
+    private static boolean isStreaming(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof Streaming)
+                return true;
+        }
+        return false;
+    }
+
+    private <T> CallAdapter<RowStream<T>, Publisher<T[]>> newAdapter(final Class<T> type) {
+        final Type responseType = new RowStreamType(type);
+        return new CallAdapter<RowStream<T>, Publisher<T[]>>() {
+            @Override
+            public Type responseType() {
+                return responseType;
+            }
+
+            @Override
+            public Publisher<T[]> adapt(final Call<RowStream<T>> call) {
+                return new Publisher<T[]>() {
+                    @Override
+                    public void subscribe(Subscriber<? super T[]> subscriber) {
+                        BatchSubscription<T> subscription = new BatchSubscription<>(call.clone(), type, batchSize, executor, subscriber);
+                        subscriber.onSubscribe(subscription);
+                        subscription.start();
+                    }
+                };
+            }
+        };
+    }
+
+    /** 한 번의 subscribe() : Call 하나와 그 Body 를 소유 */
+    private static final class BatchSubscription<T> implements Subscription, Runnable {
+        private final Call<RowStream<T>> call;
+        private final Class<T> type;
+        private final int batchSize;
+        private final Executor executor;
+        private final Subscriber<? super T[]> subscriber;
+
+        private final AtomicLong requested = new AtomicLong();
+        // Drain 예약 수. onSubscribe() 가 끝날 때까지 1 로 두어 onSubscribe 안의 request() 가 먼저 onNext 를 부르지 않게 한다.
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException invalid;
+
+        // Drain Thread 에서만 사용
+        private RowStream<T> stream;
+        private boolean done;
+
+        BatchSubscription(Call<RowStream<T>> call, Class<T> type, int batchSize, Executor executor,
+                          Subscriber<? super T[]> subscriber) {
+            this.call = call;
+            this.type = type;
+            this.batchSize = batchSize;
+            this.executor = executor;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (cancelled)
+                return;
+            if (n <= 0) {
+                invalid = new IllegalArgumentException("request(" + n + ") : n must be positive");
+                cancelled = true;
+            } else {
+                long current, next;
+                do {
+                    current = requested.get();
+                    if (current == Long.MAX_VALUE)
+                        return;
+                    next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                } while (!requested.compareAndSet(current, next));
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled)
+                return;
+            cancelled = true;
+            // 읽는 중인 Socket 을 닫아 Drain Thread 를 깨운다. Body 는 Drain Thread 가 닫는다.
+            call.cancel();
+            schedule();
+        }
+
+        void start() {
+            if (pending.decrementAndGet() != 0)
+                executor.execute(this);
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0)
+                executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                try {
+                    drain();
+                } catch (RuntimeException e) {
+                    // Subscriber 가 던진 예외 : 더 이상 Signal 을 보내지 않는다.
+                    cancelled = true;
+                    call.cancel();
+                    finish();
+                    throw e;
+                }
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (done)
+                return;
+            IllegalArgumentException invalid = this.invalid;
+            if (invalid != null) {
+                call.cancel();
+                finish();
+                subscriber.onError(invalid);
+                return;
+            }
+            if (cancelled) {
+                finish();
+                return;
+            }
+            if (requested.get() == 0)
+                return;
+
+            // 1. 처음 수요가 생기면 Request
+            if (stream == null) {
+                try {
+                    Response<RowStream<T>> response = call.execute();
+                    if (!response.isSuccessful()) {
+                        response.errorBody().close();
+                        error(new OpenApiException(response.code(), response.message()));
+                        return;
+                    }
+                    stream = response.body();
+                } catch (IOException e) {
+                    error(e);
+                    return;
+                }
+            }
+
+            // 2. 수요만큼 Batch 를 Decode 하여 전달. 수요가 0 이면 Body 를 읽지 않고 다음 request() 를 기다린다.
+            while (!cancelled && requested.get() > 0) {
+                T[] batch;
+                boolean last;
+                try {
+                    batch = read();
+                    // Row 수가 batchSize 의 배수이면 꽉 찬 Batch 가 마지막이다. 다음 수요를 기다리지 않고 완료한다.
+                    last = batch.length < batchSize || !stream.hasNext();
+                } catch (IOException | RuntimeException e) {
+                    error(e);
+                    return;
+                }
+                if (batch.length > 0) {
+                    subscriber.onNext(batch);
+                    if (requested.get() != Long.MAX_VALUE)
+                        requested.decrementAndGet();
+                }
+                // 3. 마지막 Batch
+                if (last) {
+                    complete();
+                    return;
+                }
+            }
+        }
+
+        private T[] read() throws IOException {
+            @SuppressWarnings("unchecked")
+            T[] batch = (T[]) Array.newInstance(type, batchSize);
+            long decodeStart = Metrics.start();
+            int n = 0;
+            while (n < batchSize && stream.hasNext())
+                batch[n++] = stream.next();
+            Metrics.stop(Metrics.Timer.DECODE, decodeStart);
+            Metrics.count(Metrics.Counter.ROWS, n);
+            return n == batchSize ? batch : Arrays.copyOf(batch, n);
+        }
+
+        // HTTP 200 이면서 RESULT.CODE 로 오류를 알리는 경우 (예: ERROR-500)
+        private void complete() {
+            RESULT result = stream.getResult();
+            finish();
+            if (result != null && OpenApiException.isError(result.getCODE()))
+                subscriber.onError(new OpenApiException(result.getCODE(), result.getMESSAGE()));
+            else
+                subscriber.onComplete();
+        }
+
+        private void error(Throwable e) {
+            finish();
+            // cancel() 로 인한 예외는 전달하지 않는다.
+            if (!cancelled)
+                subscriber.onError(e);
+        }
+
+        private void finish() {
+            done = true;
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+                }
+                stream = null;
+            }
+        }
+    }
+
+    /** RowStream<T> : StreamingConverterFactory 가 처리하는 Response Type */
+    private static final class RowStreamType implements ParameterizedType {
+        private final Type element;
+
+        RowStreamType(Type element) {
+            this.element = element;
+        }
+
+        @Override
+        public Type[] getActualTypeArguments() {
+            return new Type[]{element};
+        }
+
+        @Override
+        public Type getRawType() {
+            return RowStream.class;
+        }
+
+        @Override
+        public Type getOwnerType() {
+            return null;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof ParameterizedType))
+                return false;
+            ParameterizedType that = (ParameterizedType) other;
+            return that.getRawType() == RowStream.class && that.getOwnerType() == null
+                    && Arrays.equals(that.getActualTypeArguments(), getActualTypeArguments());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(getActualTypeArguments()) ^ RowStream.class.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return RowStream.class.getName() + "<" + element + ">";
+        }
+    }
+}
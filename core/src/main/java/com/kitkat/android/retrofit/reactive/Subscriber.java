@@ -0,0 +1,16 @@
+package com.kitkat.android.retrofit.reactive;
+
+/** Reactive Streams Subscriber
+ *
+ *  onSubscribe 가 먼저 한 번, 그 다음 request(n) 한 만큼의 onNext, 마지막으로 onError 또는 onComplete 중 하나.
+ *  모든 Signal 은 순서대로 (동시에 호출되지 않게) 전달된다.
+ */
+public interface Subscriber<T> {
+    void onSubscribe(Subscription subscription);
+
+    void onNext(T item);
+
+    void onError(Throwable error);
+
+    void onComplete();
+}
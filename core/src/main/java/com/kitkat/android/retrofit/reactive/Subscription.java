@@ -0,0 +1,12 @@
+package com.kitkat.android.retrofit.reactive;
+
+/** Subscriber 와 Publisher 사이의 수요 (Demand)
+ *
+ *  request(n) 은 누적되며 Long.MAX_VALUE 이면 무제한. n <= 0 이면 onError(IllegalArgumentException).
+ *  cancel() 이후에는 더 이상 Signal 을 보내지 않는다. (onError 도 없음)
+ */
+public interface Subscription {
+    void request(long n);
+
+    void cancel();
+}
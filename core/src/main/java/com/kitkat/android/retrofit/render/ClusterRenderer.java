@@ -0,0 +1,163 @@
+package com.kitkat.android.retrofit.render;
+
+import com.kitkat.android.retrofit.metrics.Metrics;
+import com.kitkat.android.retrofit.spatial.ClusterIndex;
+
+import java.util.Arrays;
+
+/** Viewport-driven Cluster Marker Renderer
+ *
+ *  ClusterIndex 가 미리 계산한 Zoom Level 중 현재 Camera Zoom 의 Cluster 만 범위 안에서 Marker 로 만든다.
+ *  같은 Level 안에서 Pan 하면 ViewportRenderer 처럼 차이만 추가 / 삭제하고, Level 이 바뀌면 모두 다시 그린다.
+ *  (Cluster 의 수는 화면 크기 / radius 로 제한되므로 다시 그려도 수백 개 이하)
+ *
+ *      ClusterRenderer<Marker> clusters = new ClusterRenderer<>(layer);
+ *      clusters.setClusters(ClusterIndex.build(snapshot));             // Worker Thread 에서 build
+ *      clusters.setViewport(camera.zoom, south, west, north, east);    // OnCameraIdleListener
+ *
+ *  Main Thread 에서만 호출.
+ */
+public final class ClusterRenderer<M> {
+    public interface Layer<M> {
+        M add(ClusterIndex.Level level, int c);
+
+        void remove(M marker);
+
+        /** setClusters() / setViewport() / clear() 한 번의 add / remove 가 끝난 뒤 (ViewportRenderer.Layer 와 같다) */
+        void flush();
+    }
+
+    private final Layer<M> layer;
+    private final double padding;
+
+    private ClusterIndex clusters;
+    private ClusterIndex.Level level;
+    private Object[] markers = new Object[0]; // level 의 Cluster Index → Marker
+    private int[] visible = new int[0];
+    private int visibleCount;
+
+    private int[] hits = new int[64];
+    private int[] seen = new int[0];
+    private int generation;
+
+    private boolean hasViewport;
+    private double zoom;
+    private double south, west, north, east;
+
+    public ClusterRenderer(Layer<M> layer) {
+        this(layer, ViewportRenderer.DEFAULT_PADDING);
+    }
+
+    public ClusterRenderer(Layer<M> layer, double padding) {
+        this.layer = layer;
+        this.padding = padding;
+    }
+
+    public ClusterIndex getClusters() {
+        return clusters;
+    }
+
+    /** 현재 그리고 있는 Level, 아직 없으면 null */
+    public ClusterIndex.Level getLevel() {
+        return level;
+    }
+
+    public int visibleCount() {
+        return visibleCount;
+    }
+
+    /** 새 Cluster 로 교체. Cluster 의 Index 가 달라지므로 화면의 Marker 를 모두 다시 그린다. */
+    public void setClusters(ClusterIndex clusters) {
+        // clear() 와 달리 Viewport 는 유지하여 바로 다시 그린다.
+        removeAll();
+        level = null;
+        this.clusters = clusters;
+        render();
+        layer.flush();
+    }
+
+    public void setViewport(double zoom, double south, double west, double north, double east) {
+        double dy = (north - south) * padding;
+        double dx = (east - west) * padding;
+        this.zoom = zoom;
+        this.south = south - dy;
+        this.north = north + dy;
+        this.west = west - dx;
+        this.east = east + dx;
+        this.hasViewport = true;
+
+        render();
+        layer.flush();
+    }
+
+    /** 모든 Marker 제거. 다시 setViewport() 할 때까지 그리지 않는다. */
+    public void clear() {
+        removeAll();
+        hasViewport = false;
+        layer.flush();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void removeAll() {
+        for (int k = 0; k < visibleCount; k++) {
+            int c = visible[k];
+            layer.remove((M) markers[c]);
+            markers[c] = null;
+        }
+        visibleCount = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void render() {
+        if (!hasViewport || clusters == null)
+            return;
+        long start = Metrics.start();
+        int added = 0;
+
+        // Zoom 변경은 미리 계산한 Level 조회
+        ClusterIndex.Level next = clusters.level(zoom);
+        if (next != level) {
+            removeAll();
+            level = next;
+            markers = new Object[next.size()];
+            seen = new int[next.size()];
+            generation = 0;
+        }
+
+        int count = level.query(south, west, north, east, hits);
+        if (count > hits.length) {
+            hits = new int[Math.max(count, hits.length * 2)];
+            count = level.query(south, west, north, east, hits);
+        }
+
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            generation = 1;
+        }
+        for (int k = 0; k < count; k++)
+            seen[hits[k]] = generation;
+
+        for (int k = 0; k < visibleCount; k++) {
+            int c = visible[k];
+            if (seen[c] != generation) {
+                layer.remove((M) markers[c]);
+                markers[c] = null;
+            }
+        }
+
+        if (visible.length < count)
+            visible = new int[Math.max(count, visible.length * 2)];
+        for (int k = 0; k < count; k++) {
+            int c = hits[k];
+            if (markers[c] == null) {
+                markers[c] = layer.add(level, c);
+                added++;
+            }
+            visible[k] = c;
+        }
+        visibleCount = count;
+
+        Metrics.stop(Metrics.Timer.RENDER, start);
+        Metrics.count(Metrics.Counter.MARKERS, added);
+    }
+}
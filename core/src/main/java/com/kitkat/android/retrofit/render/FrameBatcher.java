@@ -0,0 +1,145 @@
+package com.kitkat.android.retrofit.render;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/** Frame-sized Batches to the Main Thread
+ *
+ *  Worker Thread 가 submit() 한 Item 을 Main Thread 에서 한 번에 frameBudget 만큼만 Sink 에 전달하고,
+ *  남은 Item 은 다음 Message 로 넘긴다. 그 사이 Looper 가 Input / Draw 를 처리하므로 Item 이 많아도 Frame 이 밀리지 않는다.
+ *
+ *      FrameBatcher<MarkerOptions> batcher = new FrameBatcher<>(mainExecutor, new FrameBatcher.Sink<MarkerOptions>() {
+ *          public void apply(MarkerOptions options) { map.addMarker(options); } // Main Thread
+ *      });
+ *      batcher.submit(options);             // Worker Thread
+ *      batcher.post(onDone);                // 앞서 submit 한 Item 이 모두 적용된 뒤 Main Thread 에서 실행
+ */
+public final class FrameBatcher<T> {
+    // 16.6 ms Frame 중 나머지는 Layout / Draw 몫
+    public static final long DEFAULT_FRAME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(8);
+
+    // nanoTime() 호출 비용을 줄이기 위해 Item 몇 개마다 시간을 확인
+    private static final int CLOCK_CHECK_INTERVAL = 8;
+
+    /** Main Thread 에서 호출 */
+    public interface Sink<T> {
+        void apply(T item);
+    }
+
+    // submit() 순서를 지키며 Item 사이에 끼워 넣는 Runnable
+    private static final class Barrier {
+        final Runnable action;
+
+        Barrier(Runnable action) {
+            this.action = action;
+        }
+    }
+
+    private final Executor mainExecutor;
+    private final Sink<T> sink;
+    private final long frameBudgetNanos;
+
+    private final ConcurrentLinkedQueue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean cancelled;
+
+    // Main Thread 에서만 기록
+    private volatile int batches;
+    private volatile long totalNanos;
+    private volatile long maxBatchNanos;
+
+    public FrameBatcher(Executor mainExecutor, Sink<T> sink) {
+        this(mainExecutor, sink, DEFAULT_FRAME_BUDGET_NANOS);
+    }
+
+    public FrameBatcher(Executor mainExecutor, Sink<T> sink, long frameBudgetNanos) {
+        this.mainExecutor = mainExecutor;
+        this.sink = sink;
+        this.frameBudgetNanos = frameBudgetNanos;
+    }
+
+    /** 어느 Thread 에서나 호출 가능 */
+    public void submit(Collection<? extends T> items) {
+        if (cancelled || items.isEmpty())
+            return;
+        queue.addAll(items);
+        schedule();
+    }
+
+    /** 지금까지 submit() 한 Item 이 모두 적용된 뒤 Main Thread 에서 action 실행 */
+    public void post(Runnable action) {
+        if (cancelled)
+            return;
+        queue.add(new Barrier(action));
+        schedule();
+    }
+
+    /** 남은 Item 을 버리고 이후 Sink 를 호출하지 않는다. */
+    public void cancel() {
+        cancelled = true;
+        queue.clear();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** 아직 적용하지 않은 Item 수 (Barrier 포함) */
+    public int pending() {
+        return queue.size();
+    }
+
+    /** Main Thread 에서 실행한 Batch 수 */
+    public int batchCount() {
+        return batches;
+    }
+
+    /** Main Thread 에서 보낸 시간의 합 */
+    public long totalNanos() {
+        return totalNanos;
+    }
+
+    /** 가장 길었던 Batch 하나의 시간 */
+    public long maxBatchNanos() {
+        return maxBatchNanos;
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true))
+            mainExecutor.execute(drain);
+    }
+
+    private final Runnable drain = new Runnable() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public void run() {
+            long start = System.nanoTime();
+            long deadline = start + frameBudgetNanos;
+            int applied = 0;
+            Object next;
+            while (!cancelled && (next = queue.poll()) != null) {
+                if (next instanceof Barrier)
+                    ((Barrier) next).action.run();
+                else
+                    sink.apply((T) next);
+
+                if (++applied % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() > deadline)
+                    break;
+            }
+
+            long elapsed = System.nanoTime() - start;
+            batches++;
+            totalNanos += elapsed;
+            if (elapsed > maxBatchNanos)
+                maxBatchNanos = elapsed;
+
+            // scheduled 를 내린 뒤 다시 확인해야 그 사이 submit() 된 Item 을 놓치지 않는다.
+            scheduled.set(false);
+            if (!cancelled && !queue.isEmpty())
+                schedule();
+        }
+    };
+}
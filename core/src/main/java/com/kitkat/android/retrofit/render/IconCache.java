@@ -0,0 +1,116 @@
+package com.kitkat.android.retrofit.render;
+
+/** Bounded LRU Cache of Marker Icons
+ *
+ *  Icon (예: BitmapDescriptor) 을 Marker 마다 만들지 않고 int Key (점유 구간 등) 로 한 번만 만들어 재사용한다.
+ *  Key 의 종류는 수십 개 이하이므로 배열을 선형 탐색하고, 가득 차면 가장 오래 쓰지 않은 Icon 을 버린다.
+ *
+ *      IconCache<BitmapDescriptor> icons = new IconCache<>(32, new IconCache.Factory<BitmapDescriptor>() {
+ *          public BitmapDescriptor create(int key) { return BitmapDescriptorFactory.defaultMarker(hue(key)); }
+ *      });
+ *      marker.setIcon(icons.get(MarkerLayer.lotKey(remaining, capacity)));
+ *
+ *  get() 은 Cache 에 있으면 할당하지 않는다. Main Thread 에서만 사용.
+ */
+public final class IconCache<I> {
+    public static final int DEFAULT_CAPACITY = 32;
+
+    public interface Factory<I> {
+        I create(int key);
+    }
+
+    private final Factory<I> factory;
+    private final int[] keys;
+    private final Object[] icons;
+    private final long[] used;
+    private int size;
+    private long clock;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public IconCache(Factory<I> factory) {
+        this(DEFAULT_CAPACITY, factory);
+    }
+
+    public IconCache(int capacity, Factory<I> factory) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity=" + capacity);
+        this.factory = factory;
+        keys = new int[capacity];
+        icons = new Object[capacity];
+        used = new long[capacity];
+    }
+
+    /** key 의 Icon. 없으면 Factory 로 만들고, 가득 찼으면 가장 오래 쓰지 않은 Icon 과 교체 */
+    @SuppressWarnings("unchecked")
+    public I get(int key) {
+        for (int k = 0; k < size; k++) {
+            if (keys[k] == key) {
+                hits++;
+                used[k] = ++clock;
+                return (I) icons[k];
+            }
+        }
+
+        misses++;
+        I icon = factory.create(key);
+        int slot;
+        if (size < keys.length) {
+            slot = size++;
+        } else {
+            slot = 0;
+            for (int k = 1; k < size; k++) {
+                if (used[k] < used[slot])
+                    slot = k;
+            }
+            evictions++;
+        }
+        keys[slot] = key;
+        icons[slot] = icon;
+        used[slot] = ++clock;
+        return icon;
+    }
+
+    public boolean contains(int key) {
+        for (int k = 0; k < size; k++) {
+            if (keys[k] == key)
+                return true;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+
+    public long evictions() {
+        return evictions;
+    }
+
+    /** get() 중 Cache 에 있던 비율, 아직 없으면 NaN */
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? Double.NaN : (double) hits / total;
+    }
+
+    /** 모든 Icon 을 버린다. (예: onTrimMemory) 통계는 유지 */
+    public void clear() {
+        for (int k = 0; k < size; k++)
+            icons[k] = null;
+        size = 0;
+    }
+}
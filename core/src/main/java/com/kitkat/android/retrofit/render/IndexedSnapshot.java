@@ -0,0 +1,50 @@
+package com.kitkat.android.retrofit.render;
+
+import com.kitkat.android.retrofit.metrics.Metrics;
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+import com.kitkat.android.retrofit.spatial.ClusterIndex;
+import com.kitkat.android.retrofit.spatial.GridIndex;
+
+/** ParkingSnapshot with its GridIndex and ClusterIndex
+ *
+ *  ViewportRenderer 의 GridIndex 와 ClusterRenderer 의 ClusterIndex 는 Snapshot 크기에 비례하므로
+ *  Snapshot 을 만든 Worker Thread 에서 함께 만들어 두고, Main Thread 는 교체만 한다.
+ *
+ *      IndexedSnapshot indexed = IndexedSnapshot.build(snapshot);     // Worker Thread
+ *      renderer.setSnapshot(indexed.getSnapshot(), indexed.getGrid());  // Main Thread
+ *      clusterRenderer.setClusters(indexed.getClusters());
+ *
+ *  생성 후에는 변경되지 않으므로 여러 Thread 에서 동시에 읽어도 안전하다.
+ */
+public final class IndexedSnapshot {
+    private final ParkingSnapshot snapshot;
+    private final GridIndex grid;
+    private final ClusterIndex clusters;
+
+    public IndexedSnapshot(ParkingSnapshot snapshot, GridIndex grid, ClusterIndex clusters) {
+        this.snapshot = snapshot;
+        this.grid = grid;
+        this.clusters = clusters;
+    }
+
+    /** Worker Thread 에서 호출 */
+    public static IndexedSnapshot build(ParkingSnapshot snapshot) {
+        GridIndex grid = GridIndex.build(snapshot);
+        long start = Metrics.start();
+        ClusterIndex clusters = ClusterIndex.build(snapshot);
+        Metrics.stop(Metrics.Timer.CLUSTER, start);
+        return new IndexedSnapshot(snapshot, grid, clusters);
+    }
+
+    public ParkingSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public GridIndex getGrid() {
+        return grid;
+    }
+
+    public ClusterIndex getClusters() {
+        return clusters;
+    }
+}
@@ -0,0 +1,336 @@
+package com.kitkat.android.retrofit.render;
+
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+import com.kitkat.android.retrofit.spatial.ClusterIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/** Batched, Recycling Marker Layer
+ *
+ *  ViewportRenderer / ClusterRenderer 의 Layer. Renderer 에는 Handle 만 바로 돌려주고,
+ *  실제 Marker 변경 (GoogleMap 호출) 은 render() 한 번마다 모아 FrameBatcher 로 Frame 크기만큼씩 적용한다.
+ *
+ *      - 같은 Frame 안에서 추가 후 삭제, 여러 번 update 된 Handle 은 마지막 상태만 한 번 적용한다.
+ *      - Icon 은 점유 구간 (bucket) 으로 나눈 Key 마다 IconCache 에서 하나만 만든다. (Marker 마다 만들지 않음)
+ *      - 지운 Marker 는 remove() 하지 않고 숨겨 두었다가 다음 add() 에 재사용한다. (최대 maxPooled 개)
+ *      - 제목 문자열은 만들지 않는다. 필요하면 Marker Click 때 Handle 의 remaining() / capacity() 로 만든다.
+ *
+ *      MarkerLayer<Marker, BitmapDescriptor> layer = new MarkerLayer<>(mainExecutor, canvas, iconFactory);
+ *      ViewportRenderer<MarkerLayer.Handle> lots = new ViewportRenderer<>(layer);
+ *      ClusterRenderer<MarkerLayer.Handle> clusters = new ClusterRenderer<>(layer);   // 같은 Pool 을 공유
+ *
+ *  Canvas 가 실제 Map 을 다루므로 GoogleMap 없이 Unit Test 할 수 있다. Main Thread 에서만 호출.
+ */
+public final class MarkerLayer<M, I> implements ViewportRenderer.Layer<MarkerLayer.Handle>, ClusterRenderer.Layer<MarkerLayer.Handle> {
+    // 점유 구간 (남은 자리 / 주차면수)
+    public static final int AVAILABLE = 0;      // 50% 이상
+    public static final int FILLING = 1;        // 20% 이상
+    public static final int ALMOST_FULL = 2;    // 한 자리 이상
+    public static final int FULL = 3;
+    public static final int UNKNOWN = 4;        // 주차면수 없음
+    public static final int BUCKETS = 5;
+
+    // 한 Pan 에서 지워지고 새로 들어오는 Marker 수 정도. 숨긴 Marker 도 Map 의 Memory 를 쓰므로 제한한다.
+    public static final int DEFAULT_MAX_POOLED = 256;
+
+    /** 실제 Map. MarkerLayer 가 Main Thread 에서 호출 */
+    public interface Canvas<M, I> {
+        /** handle.lat(), handle.lng() 에 icon 으로 새 Marker (Tag 로 handle 을 두면 Click 때 찾을 수 있다) */
+        M create(Handle handle, I icon);
+
+        void move(M marker, double lat, double lng);
+
+        void setIcon(M marker, I icon);
+
+        /** Pool 에서 꺼낸 Marker 를 handle 에 연결하고 표시 */
+        void show(M marker, Handle handle);
+
+        /** Pool 로 돌려보낼 Marker 숨김 */
+        void hide(M marker);
+
+        /** Pool 이 가득 찼거나 trim() 때 실제로 제거 */
+        void remove(M marker);
+    }
+
+    /** Renderer 가 들고 있는 Marker 자리. 값은 Main Thread 에서만 바뀐다. */
+    public static final class Handle {
+        private double lat, lng;
+        private int remaining, capacity, count;
+        private int key;
+        private boolean removed;
+
+        // MarkerLayer 가 마지막으로 적용한 상태
+        private Object marker;
+        private double appliedLat, appliedLng;
+        private int appliedKey;
+        private boolean queued;
+
+        Handle() {
+        }
+
+        public double lat() {
+            return lat;
+        }
+
+        public double lng() {
+            return lng;
+        }
+
+        public int remaining() {
+            return remaining;
+        }
+
+        public int capacity() {
+            return capacity;
+        }
+
+        /** Cluster 의 주차장 수, 주차장 Marker 이면 1 */
+        public int count() {
+            return count;
+        }
+
+        /** IconCache Key */
+        public int key() {
+            return key;
+        }
+
+        public boolean isRemoved() {
+            return removed;
+        }
+    }
+
+    private final Canvas<M, I> canvas;
+    private final IconCache<I> icons;
+    private final FrameBatcher<Handle> batcher;
+
+    // 이번 render() 에서 바뀐 Handle
+    private final List<Handle> pending = new ArrayList<>();
+
+    // 숨긴 Marker 와 그 Marker 의 Icon Key
+    private final Object[] pool;
+    private final int[] poolKeys;
+    private int pooled;
+
+    private long created;
+    private long reused;
+    private long destroyed;
+
+    public MarkerLayer(Executor mainExecutor, Canvas<M, I> canvas, IconCache.Factory<I> iconFactory) {
+        this(mainExecutor, canvas, new IconCache<>(iconFactory), DEFAULT_MAX_POOLED, FrameBatcher.DEFAULT_FRAME_BUDGET_NANOS);
+    }
+
+    public MarkerLayer(Executor mainExecutor, Canvas<M, I> canvas, IconCache<I> icons, int maxPooled, long frameBudgetNanos) {
+        this.canvas = canvas;
+        this.icons = icons;
+        this.pool = new Object[maxPooled];
+        this.poolKeys = new int[maxPooled];
+        this.batcher = new FrameBatcher<>(mainExecutor, new FrameBatcher.Sink<Handle>() {
+            @Override
+            public void apply(Handle handle) {
+                MarkerLayer.this.apply(handle);
+            }
+        }, frameBudgetNanos);
+    }
+
+    /** 점유 구간 */
+    public static int bucket(int remaining, int capacity) {
+        if (capacity <= 0)
+            return UNKNOWN;
+        if (remaining <= 0)
+            return FULL;
+        if (remaining * 2 >= capacity)
+            return AVAILABLE;
+        if (remaining * 5 >= capacity)
+            return FILLING;
+        return ALMOST_FULL;
+    }
+
+    /** 주차장 Marker 의 Icon Key (0 ~ BUCKETS - 1) */
+    public static int lotKey(int remaining, int capacity) {
+        return bucket(remaining, capacity);
+    }
+
+    /** Cluster Marker 의 Icon Key : 크기 (10 곳 미만, 100 곳 미만, 그 이상) x 점유 구간. 한 곳이면 lotKey() */
+    public static int clusterKey(int count, int remaining, int capacity) {
+        int bucket = bucket(remaining, capacity);
+        if (count <= 1)
+            return bucket;
+        int size = count < 10 ? 1 : count < 100 ? 2 : 3;
+        return size * BUCKETS + bucket;
+    }
+
+    /** Key 의 점유 구간 */
+    public static int bucketOf(int key) {
+        return key % BUCKETS;
+    }
+
+    /** Key 의 크기 구분. 주차장이면 0, Cluster 이면 1 ~ 3 */
+    public static int sizeOf(int key) {
+        return key / BUCKETS;
+    }
+
+    // ViewportRenderer.Layer
+
+    @Override
+    public Handle add(ParkingSnapshot snapshot, int i) {
+        Handle handle = new Handle();
+        set(handle, snapshot, i);
+        return handle;
+    }
+
+    @Override
+    public void update(Handle handle, ParkingSnapshot snapshot, int i) {
+        set(handle, snapshot, i);
+    }
+
+    // ClusterRenderer.Layer
+
+    @Override
+    public Handle add(ClusterIndex.Level level, int c) {
+        Handle handle = new Handle();
+        handle.lat = level.lat(c);
+        handle.lng = level.lng(c);
+        handle.remaining = level.remaining(c);
+        handle.capacity = level.capacity(c);
+        handle.count = level.count(c);
+        handle.key = clusterKey(handle.count, handle.remaining, handle.capacity);
+        enqueue(handle);
+        return handle;
+    }
+
+    @Override
+    public void remove(Handle handle) {
+        handle.removed = true;
+        enqueue(handle);
+    }
+
+    /** 이번 render() 의 변경을 Main Thread 의 다음 Frame 부터 적용 */
+    @Override
+    public void flush() {
+        if (pending.isEmpty())
+            return;
+        batcher.submit(pending);
+        pending.clear();
+    }
+
+    /** 적용하지 않은 변경을 버리고 이후 Canvas 를 호출하지 않는다. (예: onDestroy) */
+    public void cancel() {
+        pending.clear();
+        batcher.cancel();
+    }
+
+    /** Pool 의 숨긴 Marker 를 모두 제거 (예: onTrimMemory) */
+    @SuppressWarnings("unchecked")
+    public void trim() {
+        while (pooled > 0) {
+            M marker = (M) pool[--pooled];
+            pool[pooled] = null;
+            canvas.remove(marker);
+            destroyed++;
+        }
+    }
+
+    public IconCache<I> getIcons() {
+        return icons;
+    }
+
+    public FrameBatcher<Handle> getBatcher() {
+        return batcher;
+    }
+
+    /** 아직 Canvas 에 적용하지 않은 Handle 수 */
+    public int pending() {
+        return pending.size() + batcher.pending();
+    }
+
+    /** Canvas.create() 로 만든 Marker 수 */
+    public long created() {
+        return created;
+    }
+
+    /** Pool 에서 재사용한 Marker 수 */
+    public long reused() {
+        return reused;
+    }
+
+    /** Canvas.remove() 로 제거한 Marker 수 */
+    public long destroyed() {
+        return destroyed;
+    }
+
+    /** Pool 에 숨겨 둔 Marker 수 */
+    public int pooled() {
+        return pooled;
+    }
+
+    private void set(Handle handle, ParkingSnapshot snapshot, int i) {
+        handle.lat = snapshot.lat(i);
+        handle.lng = snapshot.lng(i);
+        handle.remaining = snapshot.remaining(i);
+        handle.capacity = snapshot.capacity(i);
+        handle.count = 1;
+        handle.key = lotKey(handle.remaining, handle.capacity);
+        enqueue(handle);
+    }
+
+    private void enqueue(Handle handle) {
+        if (handle.queued)
+            return;
+        handle.queued = true;
+        pending.add(handle);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void apply(Handle handle) {
+        handle.queued = false;
+        M marker = (M) handle.marker;
+
+        // 1. 지운 Handle : Marker 를 Pool 로 (아직 만들지 않았으면 아무것도 하지 않는다)
+        if (handle.removed) {
+            if (marker != null) {
+                handle.marker = null;
+                recycle(marker, handle.appliedKey);
+            }
+            return;
+        }
+
+        // 2. 새 Handle : Pool 의 Marker 를 옮겨 쓰거나 새로 만든다.
+        if (marker == null) {
+            if (pooled > 0) {
+                marker = (M) pool[--pooled];
+                pool[pooled] = null;
+                canvas.move(marker, handle.lat, handle.lng);
+                if (poolKeys[pooled] != handle.key)
+                    canvas.setIcon(marker, icons.get(handle.key));
+                canvas.show(marker, handle);
+                reused++;
+            } else {
+                marker = canvas.create(handle, icons.get(handle.key));
+                created++;
+            }
+            handle.marker = marker;
+        } else {
+            // 3. 바뀐 것만
+            if (handle.lat != handle.appliedLat || handle.lng != handle.appliedLng)
+                canvas.move(marker, handle.lat, handle.lng);
+            if (handle.key != handle.appliedKey)
+                canvas.setIcon(marker, icons.get(handle.key));
+        }
+        handle.appliedLat = handle.lat;
+        handle.appliedLng = handle.lng;
+        handle.appliedKey = handle.key;
+    }
+
+    private void recycle(M marker, int key) {
+        if (pooled < pool.length) {
+            canvas.hide(marker);
+            poolKeys[pooled] = key;
+            pool[pooled++] = marker;
+        } else {
+            canvas.remove(marker);
+            destroyed++;
+        }
+    }
+}
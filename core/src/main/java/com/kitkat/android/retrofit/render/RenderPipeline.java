@@ -0,0 +1,246 @@
+package com.kitkat.android.retrofit.render;
+
+import com.kitkat.android.retrofit.metrics.Metrics;
+import com.kitkat.android.retrofit.network.ApiClient;
+import com.kitkat.android.retrofit.network.CityLoader;
+import com.kitkat.android.retrofit.network.PagedFetcher;
+import com.kitkat.android.retrofit.parking.LotMerger;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.CacheControl;
+
+/** Network → Decode → Transform → Batch-to-UI
+ *
+ *      1. Network / Decode : CityLoader + PagedFetcher 가 Worker Thread 에서 Page 를 받아 바로 ParkingLot 으로 Decode
+ *      2. Transform        : 같은 Worker Thread 에서 PARKING_CODE 중복 제거 후 Transform 으로 UI Item (예: MarkerOptions) 생성
+ *      3. Batch-to-UI      : FrameBatcher 가 Main Thread 에 Frame 크기만큼씩 Sink 로 전달 (Map 변경만 Main Thread)
+ *      4. Progress         : 구가 도착하면 지금까지 합친 ParkingSnapshot 과 그 GridIndex / ClusterIndex 를 Worker Thread 에서 만들어 전달
+ *      5. Complete         : 전체 결과의 IndexedSnapshot 을 모든 Item 이 적용된 뒤 전달
+ *
+ *  Progress 는 한 번에 한 Worker 만 만들고, 만드는 동안 도착한 구는 다음 한 번으로 합친다.
+ *  Main Thread 에는 아직 전달하지 않은 Progress 가 최대 하나만 있으며, 그 사이 만든 Progress 는 그것을 교체한다.
+ *  Progress 가 필요 없으면 (예: Refresh) setProgress(false) 로 만들지 않는다.
+ *
+ *  Snapshot 단위로 그리는 경우 (예: ViewportRenderer) Transform 을 null 로 두면 Item 단계를 건너뛴다.
+ *  setFallback() 으로 지난 Snapshot 을 주면 아직 도착하지 않은 구의 주차장을 Progress 에 채우고,
+ *  실패한 구가 있으면 Complete 에도 남긴다. (응답에 없을 뿐 사라진 것이 아니므로)
+ *
+ *      RenderPipeline<MarkerOptions> pipeline = new RenderPipeline<>(ApiClient.getInstance(), null, transform, sink);
+ *      pipeline.start(CityLoader.SEOUL_GU);
+ *      ...
+ *      pipeline.cancel(); // Activity.onDestroy()
+ *
+ *  화면 회전처럼 곧 같은 요청을 다시 할 때는 cancel() 대신 detach() 로 UI 전달만 멈춘다.
+ *  진행 중인 Request 는 끝까지 진행되므로 새 Activity 의 같은 Request 가 SingleFlightInterceptor 로 합쳐진다.
+ *
+ *  한 번만 start() 할 수 있다. 다시 불러오려면 새 RenderPipeline 을 만든다.
+ */
+public final class RenderPipeline<T> {
+    /** Worker Thread 에서 호출. null 을 반환하면 UI 에 전달하지 않는다. */
+    public interface Transform<T> {
+        T apply(ParkingLot lot);
+    }
+
+    /** 모든 Method 는 Main Thread 에서 호출. cancel() 이후에는 호출되지 않는다. */
+    public interface Sink<T> extends FrameBatcher.Sink<T> {
+        /** 지금까지 도착한 모든 구를 합친 Snapshot. 여러 구가 한 번으로 합쳐질 수 있고 onComplete() 이후에는 오지 않는다. */
+        void onProgress(IndexedSnapshot snapshot);
+
+        void onDistrictFailed(String gu, Throwable t);
+
+        void onComplete(int loaded, int failed, IndexedSnapshot snapshot);
+    }
+
+    // Listener 를 Page 를 받은 Worker Thread 에서 그대로 실행
+    private static final Executor WORKER = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final CityLoader loader;
+    private final Transform<T> transform;
+    private final Sink<T> sink;
+    private final FrameBatcher<T> batcher;
+
+    // 여러 Worker 가 동시에 구 결과를 합치므로 synchronized (merger)
+    private final LotMerger merger = new LotMerger();
+    private CityLoader.Task task;
+    private volatile ParkingSnapshot fallback;
+    private volatile long loadStart;
+    private volatile boolean progress = true;
+
+    // Progress 를 만드는 Worker 는 하나 : 만드는 동안 도착한 구의 수
+    private final AtomicInteger progressRequests = new AtomicInteger();
+    // Main Thread 에 아직 전달하지 않은 가장 최근 Progress
+    private final AtomicReference<IndexedSnapshot> latestProgress = new AtomicReference<>();
+    // Main Thread 에서만
+    private boolean completed;
+
+    public RenderPipeline(ApiClient client, CacheControl cacheControl, Transform<T> transform, Sink<T> sink) {
+        this(new CityLoader(new PagedFetcher(client.getOpenApiService(), client.getExecutor(), WORKER,
+                        PagedFetcher.MAX_PAGE_SIZE, PagedFetcher.DEFAULT_MAX_IN_FLIGHT, cacheControl),
+                        client.getExecutor(), WORKER, CityLoader.DEFAULT_CONCURRENCY),
+                client.getCallbackExecutor(), FrameBatcher.DEFAULT_FRAME_BUDGET_NANOS, transform, sink);
+    }
+
+    /** loader 의 callbackExecutor 는 Main Thread 가 아닌 Worker (또는 호출 Thread) 여야 Transform 이 Main Thread 를 벗어난다. */
+    public RenderPipeline(CityLoader loader, Executor mainExecutor, long frameBudgetNanos,
+                          Transform<T> transform, Sink<T> sink) {
+        this.loader = loader;
+        this.transform = transform;
+        this.sink = sink;
+        this.batcher = new FrameBatcher<>(mainExecutor, sink, frameBudgetNanos);
+    }
+
+    public synchronized void start(String[] districts) {
+        if (task != null)
+            throw new IllegalStateException("Already started");
+        loadStart = Metrics.start();
+        task = loader.load(districts, listener);
+    }
+
+    /** 지난 Snapshot (Disk 에서 읽은 것, Refresh 이전 것 등). start() 이후에 호출해도 된다. */
+    public void setFallback(ParkingSnapshot fallback) {
+        this.fallback = fallback;
+    }
+
+    /** false 이면 Progress 를 만들지도 전달하지도 않는다. start() 전에 호출 */
+    public void setProgress(boolean enabled) {
+        this.progress = enabled;
+    }
+
+    public synchronized void cancel() {
+        batcher.cancel();
+        if (task != null)
+            task.cancel();
+    }
+
+    /** UI 전달만 멈추고 진행 중인 Request 는 그대로 둔다. */
+    public void detach() {
+        batcher.cancel();
+    }
+
+    public boolean isCancelled() {
+        return batcher.isCancelled();
+    }
+
+    /** Main Thread 사용 통계 */
+    public FrameBatcher<T> getBatcher() {
+        return batcher;
+    }
+
+    /** 합친 결과 + (withFallback 이면) fallback 중 아직 없는 주차장. merger Lock 안에서 호출 */
+    private ParkingSnapshot snapshot(boolean withFallback) {
+        long start = Metrics.start();
+        ParkingSnapshot previous = fallback;
+        // 지난 Snapshot 과 StringPool 을 공유하면 같은 문자열을 다시 보관하지 않는다.
+        ParkingSnapshot.Builder builder = previous != null
+                ? new ParkingSnapshot.Builder(previous.strings())
+                : new ParkingSnapshot.Builder();
+        builder.addAll(merger.toArray());
+
+        if (withFallback && previous != null) {
+            for (int i = 0; i < previous.size(); i++) {
+                // PARKING_CODE 가 없는 주차장은 새 결과에 이미 있는지 알 수 없으므로 지난 것을 남기지 않는다.
+                int code = previous.code(i);
+                if (code != ParkingLot.UNKNOWN && !merger.contains(code))
+                    builder.add(previous, i);
+            }
+        }
+        ParkingSnapshot snapshot = builder.build();
+        Metrics.stop(Metrics.Timer.SNAPSHOT, start);
+        return snapshot;
+    }
+
+    /** 지금까지의 Progress 를 만들어 Main Thread 에 넘긴다. 그 사이 다른 Worker 가 요청하면 한 번 더 만든다. */
+    private void publishProgress() {
+        int missed = 1;
+        do {
+            ParkingSnapshot snapshot;
+            synchronized (merger) {
+                snapshot = snapshot(true);
+            }
+            // Index 는 Lock 밖에서 (다른 구의 중복 제거를 막지 않도록)
+            IndexedSnapshot next = IndexedSnapshot.build(snapshot);
+            if (latestProgress.getAndSet(next) == null)
+                batcher.post(deliverProgress);
+            missed = progressRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private final Runnable deliverProgress = new Runnable() {
+        @Override
+        public void run() {
+            IndexedSnapshot next = latestProgress.getAndSet(null);
+            if (next != null && !completed)
+                sink.onProgress(next);
+        }
+    };
+
+    private final CityLoader.Listener listener = new CityLoader.Listener() {
+        @Override
+        public void onDistrictLoaded(String gu, ParkingLot[] lots) {
+            // detach() 이후에는 Response 만 받아두고 (SingleFlight Follower 에게 전달) 더 처리하지 않는다.
+            if (batcher.isCancelled())
+                return;
+
+            ParkingLot[] added;
+            synchronized (merger) {
+                long dedupStart = Metrics.start();
+                added = merger.add(lots);
+                Metrics.stop(Metrics.Timer.DEDUP, dedupStart);
+            }
+            if (progress && progressRequests.getAndIncrement() == 0)
+                publishProgress();
+            if (transform == null)
+                return;
+
+            List<T> items = new ArrayList<>(added.length);
+            for (ParkingLot lot : added) {
+                T item = transform.apply(lot);
+                if (item != null)
+                    items.add(item);
+            }
+            batcher.submit(items);
+        }
+
+        @Override
+        public void onDistrictFailed(final String gu, final Throwable t) {
+            batcher.post(new Runnable() {
+                @Override
+                public void run() {
+                    sink.onDistrictFailed(gu, t);
+                }
+            });
+        }
+
+        @Override
+        public void onComplete(final int loaded, final int failed) {
+            ParkingSnapshot merged;
+            synchronized (merger) {
+                merged = snapshot(failed > 0);
+            }
+            final IndexedSnapshot snapshot = IndexedSnapshot.build(merged);
+
+            batcher.post(new Runnable() {
+                @Override
+                public void run() {
+                    // 모든 Item 이 UI 에 전달된 시점. 아직 만들고 있는 Progress 는 더 이상 전달하지 않는다.
+                    completed = true;
+                    latestProgress.set(null);
+                    Metrics.stop(Metrics.Timer.LOAD, loadStart);
+                    sink.onComplete(loaded, failed, snapshot);
+                }
+            });
+        }
+    };
+}
@@ -0,0 +1,204 @@
+package com.kitkat.android.retrofit.render;
+
+import com.kitkat.android.retrofit.metrics.Metrics;
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+import com.kitkat.android.retrofit.spatial.GridIndex;
+
+import java.util.Arrays;
+
+/** Viewport-driven Marker Renderer
+ *
+ *  도시 전체의 주차장 중 현재 Camera 범위 (+ padding) 안에 있는 것만 Marker 로 만든다.
+ *  Camera 가 움직이면 GridIndex 로 새 범위를 Query 하여 벗어난 Marker 는 지우고 들어온 주차장만 추가한다.
+ *
+ *      ViewportRenderer<Marker> renderer = new ViewportRenderer<>(layer);
+ *      renderer.setSnapshot(snapshot, grid);                                // 새 Data (Refresh 포함), GridIndex 는 Worker 에서
+ *      renderer.setViewport(bounds.southwest.latitude, bounds.southwest.longitude,
+ *                           bounds.northeast.latitude, bounds.northeast.longitude); // OnCameraIdleListener
+ *
+ *  Layer 가 실제 Map 을 다루므로 이 Class 는 GoogleMap 없이 Unit Test 할 수 있다. Main Thread 에서만 호출.
+ *  Frame 단위 Batch, Icon Cache, Marker 재사용은 MarkerLayer 가 맡는다.
+ */
+public final class ViewportRenderer<M> {
+    // 조금씩 Pan 할 때마다 가장자리 Marker 가 지워졌다 다시 생기지 않도록 화면보다 넓게 그린다.
+    public static final double DEFAULT_PADDING = 0.25;
+
+    /** Marker 생성 / 갱신 / 삭제 */
+    public interface Layer<M> {
+        M add(ParkingSnapshot snapshot, int i);
+
+        /** 같은 PARKING_CODE 의 위치나 점유가 바뀌었을 때 */
+        void update(M marker, ParkingSnapshot snapshot, int i);
+
+        void remove(M marker);
+
+        /** setSnapshot() / setViewport() / clear() 한 번의 add / update / remove 가 끝난 뒤. 모은 변경을 한 번에 적용할 수 있다. */
+        void flush();
+    }
+
+    private final Layer<M> layer;
+    private final double padding;
+
+    private ParkingSnapshot snapshot;
+    private GridIndex index;
+    private Object[] markers = new Object[0]; // snapshot Index → Marker
+    private int[] visible = new int[0];
+    private int visibleCount;
+
+    private int[] hits = new int[64];
+    private int[] seen = new int[0];
+    private int generation;
+
+    private boolean hasViewport;
+    private double south, west, north, east;
+
+    public ViewportRenderer(Layer<M> layer) {
+        this(layer, DEFAULT_PADDING);
+    }
+
+    /** padding : 화면 크기에 대한 비율 (0.25 → 상하좌우로 25% 씩 넓게) */
+    public ViewportRenderer(Layer<M> layer, double padding) {
+        this.layer = layer;
+        this.padding = padding;
+    }
+
+    public ParkingSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /** 화면에 있는 Marker 수 */
+    public int visibleCount() {
+        return visibleCount;
+    }
+
+    /** PARKING_CODE 의 Marker, 화면 밖이면 null */
+    @SuppressWarnings("unchecked")
+    public M marker(int code) {
+        if (snapshot == null)
+            return null;
+        int i = snapshot.indexOf(code);
+        return i >= 0 ? (M) markers[i] : null;
+    }
+
+    /** 새 Snapshot 으로 교체. GridIndex 를 Main Thread 에서 만드므로 큰 Snapshot 은 setSnapshot(next, index) */
+    public void setSnapshot(ParkingSnapshot next) {
+        setSnapshot(next, GridIndex.build(next));
+    }
+
+    /** 새 Snapshot 과 Worker Thread 에서 미리 만든 그 GridIndex 로 교체.
+     *  화면에 있던 Marker 는 PARKING_CODE 로 이어 받아 바뀐 것만 update */
+    @SuppressWarnings("unchecked")
+    public void setSnapshot(ParkingSnapshot next, GridIndex index) {
+        Object[] nextMarkers = new Object[next.size()];
+        int[] nextVisible = new int[Math.max(visible.length, 16)];
+        int nextCount = 0;
+
+        for (int k = 0; k < visibleCount; k++) {
+            int i = visible[k];
+            M marker = (M) markers[i];
+            // PARKING_CODE 가 없는 (UNKNOWN) 주차장도 -1 : 이어 받을 수 없으므로 지우고 render() 가 다시 그린다.
+            int j = next.indexOf(snapshot.code(i));
+            if (j < 0 || !next.hasLocation(j)) {
+                layer.remove(marker);
+                continue;
+            }
+
+            if (changed(snapshot, i, next, j))
+                layer.update(marker, next, j);
+            nextMarkers[j] = marker;
+            nextVisible[nextCount++] = j;
+        }
+
+        snapshot = next;
+        this.index = index;
+        markers = nextMarkers;
+        visible = nextVisible;
+        visibleCount = nextCount;
+        seen = new int[next.size()];
+        generation = 0;
+
+        render();
+        layer.flush();
+    }
+
+    /** Camera 범위. OnCameraIdleListener 에서 호출 */
+    public void setViewport(double south, double west, double north, double east) {
+        double dy = (north - south) * padding;
+        double dx = (east - west) * padding;
+        this.south = south - dy;
+        this.north = north + dy;
+        this.west = west - dx;
+        this.east = east + dx;
+        this.hasViewport = true;
+
+        render();
+        layer.flush();
+    }
+
+    /** 모든 Marker 제거. 다시 setViewport() 할 때까지 그리지 않는다. (예: Cluster 로 전환) */
+    @SuppressWarnings("unchecked")
+    public void clear() {
+        for (int k = 0; k < visibleCount; k++) {
+            int i = visible[k];
+            layer.remove((M) markers[i]);
+            markers[i] = null;
+        }
+        visibleCount = 0;
+        hasViewport = false;
+        layer.flush();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void render() {
+        if (!hasViewport || snapshot == null)
+            return;
+        long start = Metrics.start();
+        int added = 0;
+
+        int count = index.query(south, west, north, east, hits);
+        if (count > hits.length) {
+            hits = new int[Math.max(count, hits.length * 2)];
+            count = index.query(south, west, north, east, hits);
+        }
+
+        // 이번 Query 결과에 표시
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            generation = 1;
+        }
+        for (int k = 0; k < count; k++)
+            seen[hits[k]] = generation;
+
+        // 1. 범위를 벗어난 Marker 제거
+        for (int k = 0; k < visibleCount; k++) {
+            int i = visible[k];
+            if (seen[i] != generation) {
+                layer.remove((M) markers[i]);
+                markers[i] = null;
+            }
+        }
+
+        // 2. 새로 들어온 주차장만 추가
+        if (visible.length < count)
+            visible = new int[Math.max(count, visible.length * 2)];
+        for (int k = 0; k < count; k++) {
+            int i = hits[k];
+            if (markers[i] == null) {
+                markers[i] = layer.add(snapshot, i);
+                added++;
+            }
+            visible[k] = i;
+        }
+        visibleCount = count;
+
+        Metrics.stop(Metrics.Timer.RENDER, start);
+        Metrics.count(Metrics.Counter.MARKERS, added);
+    }
+
+    private static boolean changed(ParkingSnapshot previous, int i, ParkingSnapshot next, int j) {
+        return previous.current(i) != next.current(j)
+                || previous.capacity(i) != next.capacity(j)
+                || previous.lat(i) != next.lat(j)
+                || previous.lng(i) != next.lng(j);
+    }
+}
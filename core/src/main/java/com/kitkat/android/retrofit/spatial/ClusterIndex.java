@@ -0,0 +1,242 @@
+package com.kitkat.android.retrofit.spatial;
+
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+
+import java.util.Arrays;
+
+/** Hierarchical Marker Clusters precomputed per Zoom Level
+ *
+ *  Snapshot 을 받아 minZoom ~ maxZoom 의 모든 Zoom 에 대한 Cluster 를 미리 계산해 두므로 Zoom 변경은 level(zoom) 조회뿐이다.
+ *  GoogleMap 과 같은 Web Mercator 좌표에서 radius (px) 크기의 격자로 한 단계 아래 Level 의 Cluster 를 묶는다.
+ *
+ *      leaves (maxZoom + 1) : 좌표가 있는 주차장 하나가 Cluster 하나
+ *      zoom z               : zoom z + 1 의 Cluster 들을 z 의 radius px 격자 Cell 별로 합친다.
+ *
+ *  Cluster 마다 주차장 수, capacity 합, 남은 자리 합과 Count 가중 중심 좌표를 보관한다.
+ *
+ *      ClusterIndex clusters = ClusterIndex.build(snapshot);       // Worker Thread
+ *      ClusterIndex.Level level = clusters.level(cameraZoom);      // Main Thread, O(1)
+ *      int n = level.query(south, west, north, east, out);
+ *      for (int k = 0; k < n; k++)
+ *          draw(level.lat(out[k]), level.lng(out[k]), level.count(out[k]), level.remaining(out[k]));
+ *
+ *  생성 후에는 변경되지 않으므로 여러 Thread 에서 동시에 읽어도 안전하다.
+ */
+public final class ClusterIndex {
+    public static final int DEFAULT_MIN_ZOOM = 8;
+    public static final int DEFAULT_MAX_ZOOM = 16;
+    public static final int DEFAULT_RADIUS = 60;
+
+    // Google Maps Tile 한 장의 px (zoom 0 에서 세계 전체)
+    static final int TILE_SIZE = 256;
+    // Cell 좌표를 long Key 하나에 (cy, cx, child) 로 담는다.
+    private static final int BITS = 21;
+    private static final long MASK = (1L << BITS) - 1;
+    static final int MAX_ZOOM = 17;
+
+    /** 한 Zoom Level 의 Cluster 들 */
+    public static final class Level {
+        private final int zoom;
+        private final int size;
+        private final double[] x, y; // Web Mercator [0, 1)
+        private final double[] lat, lng;
+        private final int[] count;
+        private final int[] capacity;
+        private final int[] remaining;
+        private final int[] lot;
+        private final GridIndex index;
+
+        Level(int zoom, int size, double[] x, double[] y, int[] count, int[] capacity, int[] remaining, int[] lot) {
+            this.zoom = zoom;
+            this.size = size;
+            this.x = x;
+            this.y = y;
+            this.count = count;
+            this.capacity = capacity;
+            this.remaining = remaining;
+            this.lot = lot;
+            lat = new double[size];
+            lng = new double[size];
+            for (int c = 0; c < size; c++) {
+                lat[c] = latitude(y[c]);
+                lng[c] = longitude(x[c]);
+            }
+            index = GridIndex.build(lat, lng, size);
+        }
+
+        public int zoom() {
+            return zoom;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public double lat(int c) {
+            return lat[c];
+        }
+
+        public double lng(int c) {
+            return lng[c];
+        }
+
+        /** Cluster 의 주차장 수 */
+        public int count(int c) {
+            return count[c];
+        }
+
+        public int capacity(int c) {
+            return capacity[c];
+        }
+
+        /** 남은 자리 합 (주차장별로 0 미만은 0) */
+        public int remaining(int c) {
+            return remaining[c];
+        }
+
+        /** 주차장 하나뿐인 Cluster 의 Snapshot Index, 여러 개면 -1 */
+        public int lot(int c) {
+            return lot[c];
+        }
+
+        /** 범위 안의 Cluster Index. GridIndex.query() 와 같은 규칙 */
+        public int query(double south, double west, double north, double east, int[] out) {
+            return index.query(south, west, north, east, out);
+        }
+    }
+
+    private final int minZoom;
+    private final int maxZoom;
+    private final Level[] levels; // levels[z - minZoom], 마지막은 leaves
+
+    public static ClusterIndex build(ParkingSnapshot snapshot) {
+        return build(snapshot, DEFAULT_MIN_ZOOM, DEFAULT_MAX_ZOOM, DEFAULT_RADIUS);
+    }
+
+    public static ClusterIndex build(ParkingSnapshot snapshot, int minZoom, int maxZoom, int radius) {
+        if (minZoom < 0 || maxZoom < minZoom || maxZoom > MAX_ZOOM)
+            throw new IllegalArgumentException("zoom must satisfy 0 <= " + minZoom + " <= " + maxZoom + " <= " + MAX_ZOOM);
+        if (radius < 16)
+            throw new IllegalArgumentException("radius < 16: " + radius);
+        return new ClusterIndex(snapshot, minZoom, maxZoom, radius);
+    }
+
+    private ClusterIndex(ParkingSnapshot snapshot, int minZoom, int maxZoom, int radius) {
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+        this.levels = new Level[maxZoom - minZoom + 2];
+
+        // 1. Leaves
+        int n = 0;
+        for (int i = 0; i < snapshot.size(); i++)
+            if (snapshot.hasLocation(i))
+                n++;
+        if (n > MASK)
+            throw new IllegalArgumentException("Too many lots: " + n);
+        double[] x = new double[n], y = new double[n];
+        int[] count = new int[n], capacity = new int[n], remaining = new int[n], lot = new int[n];
+        for (int i = 0, c = 0; i < snapshot.size(); i++) {
+            if (!snapshot.hasLocation(i))
+                continue;
+            x[c] = mercatorX(snapshot.lng(i));
+            y[c] = mercatorY(snapshot.lat(i));
+            count[c] = 1;
+            capacity[c] = snapshot.capacity(i);
+            remaining[c] = Math.max(0, snapshot.remaining(i));
+            lot[c] = i;
+            c++;
+        }
+        Level child = new Level(maxZoom + 1, n, x, y, count, capacity, remaining, lot);
+        levels[levels.length - 1] = child;
+
+        // 2. 아래 Level 부터 한 단계씩 합친다.
+        for (int z = maxZoom; z >= minZoom; z--) {
+            child = merge(child, z, (double) TILE_SIZE * (1L << z) / radius);
+            levels[z - minZoom] = child;
+        }
+    }
+
+    private static Level merge(Level child, int zoom, double cellsPerWorld) {
+        int n = child.size;
+        if (n == 0)
+            return new Level(zoom, 0, new double[0], new double[0], new int[0], new int[0], new int[0], new int[0]);
+
+        // 1. 각 Cluster 의 Cell 좌표. 범위의 최소값을 빼서 BITS 안에 들어가게 한다.
+        long[] cx = new long[n], cy = new long[n];
+        long minX = Long.MAX_VALUE, minY = Long.MAX_VALUE;
+        long lastCell = (long) cellsPerWorld - 1;
+        for (int c = 0; c < n; c++) {
+            // x, y 가 정확히 1 인 경우 (경도 180, 남극) 마지막 Cell
+            cx[c] = Math.min(lastCell, (long) Math.floor(child.x[c] * cellsPerWorld));
+            cy[c] = Math.min(lastCell, (long) Math.floor(child.y[c] * cellsPerWorld));
+            minX = Math.min(minX, cx[c]);
+            minY = Math.min(minY, cy[c]);
+        }
+
+        // 2. (cy, cx, child) 를 long 하나로 만들어 정렬하면 같은 Cell 의 Cluster 가 연속된다.
+        long[] keys = new long[n];
+        for (int c = 0; c < n; c++)
+            keys[c] = ((cy[c] - minY) << (2 * BITS)) | ((cx[c] - minX) << BITS) | c;
+        Arrays.sort(keys);
+
+        int groups = 0;
+        for (int k = 0; k < n; k++)
+            if (k == 0 || (keys[k] >>> BITS) != (keys[k - 1] >>> BITS))
+                groups++;
+
+        // 3. Cell 별 합계와 Count 가중 중심
+        double[] x = new double[groups], y = new double[groups];
+        int[] count = new int[groups], capacity = new int[groups], remaining = new int[groups], lot = new int[groups];
+        int g = -1;
+        for (int k = 0; k < n; k++) {
+            if (k == 0 || (keys[k] >>> BITS) != (keys[k - 1] >>> BITS))
+                g++;
+            int c = (int) (keys[k] & MASK);
+            int weight = child.count[c];
+            x[g] += child.x[c] * weight;
+            y[g] += child.y[c] * weight;
+            count[g] += weight;
+            capacity[g] += child.capacity[c];
+            remaining[g] += child.remaining[c];
+            lot[g] = count[g] == 1 ? child.lot[c] : -1;
+        }
+        for (g = 0; g < groups; g++) {
+            x[g] /= count[g];
+            y[g] /= count[g];
+        }
+        return new Level(zoom, groups, x, y, count, capacity, remaining, lot);
+    }
+
+    public int minZoom() {
+        return minZoom;
+    }
+
+    public int maxZoom() {
+        return maxZoom;
+    }
+
+    /** Camera Zoom 의 Level. maxZoom 보다 크면 Cluster 없이 주차장 하나씩 (leaves) */
+    public Level level(double zoom) {
+        int z = (int) Math.floor(zoom);
+        z = Math.max(minZoom, Math.min(maxZoom + 1, z));
+        return levels[z - minZoom];
+    }
+
+    static double mercatorX(double lng) {
+        return (lng + 180) / 360;
+    }
+
+    static double mercatorY(double lat) {
+        double sin = Math.sin(Math.toRadians(lat));
+        double y = 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+        return Math.max(0, Math.min(1, y));
+    }
+
+    static double longitude(double x) {
+        return x * 360 - 180;
+    }
+
+    static double latitude(double y) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y))));
+    }
+}
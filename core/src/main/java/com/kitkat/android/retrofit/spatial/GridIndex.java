@@ -0,0 +1,343 @@
+package com.kitkat.android.retrofit.spatial;
+
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+
+/** Uniform Grid Spatial Index over LAT / LNG
+ *
+ *  주차장 좌표의 Bounding Box 를 평균 TARGET_PER_CELL 개가 들어가는 격자로 나누고,
+ *  Cell 순서로 정렬한 좌표 배열 (CSR : cellStart + 정렬된 배열) 로 보관한다. 객체는 Cell 당 하나도 만들지 않는다.
+ *
+ *      GridIndex index = GridIndex.build(snapshot);
+ *      int[] hits = new int[index.size()];
+ *      int n = index.query(south, west, north, east, hits); // hits[0..n) : snapshot Index
+ *
+ *      int[] ids = new int[k];
+ *      double[] meters = new double[k];
+ *      int m = index.nearest(lat, lng, k, filter, ids, meters); // 가까운 순서, Haversine 거리 (m)
+ *
+ *  좌표가 없는 (NaN) 주차장은 색인하지 않는다. 서울 범위만 다루므로 날짜 변경선은 고려하지 않는다.
+ *  생성 후에는 변경되지 않으므로 여러 Thread 에서 동시에 Query 해도 안전하다.
+ */
+public final class GridIndex {
+    static final int TARGET_PER_CELL = 8;
+    /** 평균 지구 반지름 (m) */
+    public static final double EARTH_RADIUS = 6371008.8;
+
+    /** nearest() 의 후보 조건. 색인한 Index 를 받는다. */
+    public interface Filter {
+        boolean accept(int id);
+    }
+
+    private final int size;
+    private final int rows;
+    private final int cols;
+    private final double minLat;
+    private final double minLng;
+    private final double cellHeight;
+    private final double cellWidth;
+    // Bounding Box 안에서 가장 작은 cos(위도) : 경도 차이 → 거리의 하한
+    private final double minCosLat;
+
+    // cell c 의 점 : [cellStart[c], cellStart[c + 1])
+    private final int[] cellStart;
+    private final double[] lat;
+    private final double[] lng;
+    private final int[] ids;
+
+    public static GridIndex build(ParkingSnapshot snapshot) {
+        int n = snapshot.size();
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = snapshot.lat(i);
+            lng[i] = snapshot.lng(i);
+        }
+        return new GridIndex(lat, lng, n);
+    }
+
+    /** lat[i], lng[i] 의 점을 Index i 로 색인. NaN 좌표는 제외 */
+    public static GridIndex build(double[] lat, double[] lng, int n) {
+        return new GridIndex(lat, lng, n);
+    }
+
+    private GridIndex(double[] pointLat, double[] pointLng, int n) {
+        // 1. 좌표가 있는 점의 Bounding Box
+        int count = 0;
+        double south = Double.POSITIVE_INFINITY, north = Double.NEGATIVE_INFINITY;
+        double west = Double.POSITIVE_INFINITY, east = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            double y = pointLat[i], x = pointLng[i];
+            if (Double.isNaN(y) || Double.isNaN(x))
+                continue;
+            count++;
+            if (y < south) south = y;
+            if (y > north) north = y;
+            if (x < west) west = x;
+            if (x > east) east = x;
+        }
+        size = count;
+
+        // 2. Cell 이 정사각형에 가깝도록 Bounding Box 의 가로 세로 비율에 맞추어 격자 크기 결정
+        if (count == 0) {
+            south = north = west = east = 0;
+        }
+        double height = Math.max(north - south, 1e-9);
+        double width = Math.max(east - west, 1e-9);
+        int cells = Math.max(1, count / TARGET_PER_CELL);
+        int c = (int) Math.max(1, Math.min(cells, Math.round(Math.sqrt(cells * width / height))));
+        int r = Math.max(1, (cells + c - 1) / c);
+        rows = r;
+        cols = c;
+        minLat = south;
+        minLng = west;
+        // 경계의 점이 마지막 Cell 에 들어가도록 약간 넓힌다.
+        cellHeight = height * (1 + 1e-9) / r;
+        cellWidth = width * (1 + 1e-9) / c;
+        minCosLat = Math.cos(Math.toRadians(Math.max(Math.abs(south), Math.abs(north))));
+
+        // 3. Counting Sort : Cell 별 개수 → 누적 합 → 배치
+        cellStart = new int[r * c + 1];
+        int[] cellOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            double y = pointLat[i], x = pointLng[i];
+            if (Double.isNaN(y) || Double.isNaN(x)) {
+                cellOf[i] = -1;
+                continue;
+            }
+            int cell = row(y) * cols + col(x);
+            cellOf[i] = cell;
+            cellStart[cell + 1]++;
+        }
+        for (int i = 0; i < r * c; i++)
+            cellStart[i + 1] += cellStart[i];
+
+        lat = new double[count];
+        lng = new double[count];
+        ids = new int[count];
+        int[] fill = new int[r * c];
+        System.arraycopy(cellStart, 0, fill, 0, r * c);
+        for (int i = 0; i < n; i++) {
+            int cell = cellOf[i];
+            if (cell < 0)
+                continue;
+            int slot = fill[cell]++;
+            lat[slot] = pointLat[i];
+            lng[slot] = pointLng[i];
+            ids[slot] = i;
+        }
+    }
+
+    /** 색인된 점의 수 */
+    public int size() {
+        return size;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    /** [south, north] x [west, east] 안의 점 Index 를 out 에 채우고 전체 개수를 반환.
+     *  반환값이 out.length 보다 크면 out 에는 앞의 out.length 개만 들어 있다. */
+    public int query(double south, double west, double north, double east, int[] out) {
+        if (size == 0 || south > north || west > east)
+            return 0;
+
+        int r0 = row(south), r1 = row(north);
+        int c0 = col(west), c1 = col(east);
+        // Bounding Box 밖
+        if (r1 < 0 || r0 >= rows || c1 < 0 || c0 >= cols)
+            return 0;
+        r0 = Math.max(r0, 0);
+        c0 = Math.max(c0, 0);
+        r1 = Math.min(r1, rows - 1);
+        c1 = Math.min(c1, cols - 1);
+
+        int count = 0;
+        for (int r = r0; r <= r1; r++) {
+            // 한 행의 [c0, c1] Cell 들은 정렬된 배열에서 연속 구간
+            int from = cellStart[r * cols + c0];
+            int to = cellStart[r * cols + c1 + 1];
+
+            // 가장자리 Cell 이 아니면 (행 기준) 위도 비교를 생략
+            boolean insideRows = r > r0 && r < r1;
+            for (int k = from; k < to; k++) {
+                double x = lng[k];
+                if (x < west || x > east)
+                    continue;
+                if (!insideRows) {
+                    double y = lat[k];
+                    if (y < south || y > north)
+                        continue;
+                }
+                if (count < out.length)
+                    out[count] = ids[k];
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** (lat, lng) 에서 Haversine 거리가 가까운 순서로 filter 를 통과하는 점 k 개를 ids, meters 에 채우고 개수를 반환.
+     *  filter 가 null 이면 모든 점. 거리가 같으면 Index 가 작은 점이 먼저다.
+     *
+     *  Query 점의 Cell 에서 시작해 한 겹씩 Cell 을 넓혀 가며, 아직 보지 않은 Cell 까지의 거리 하한이
+     *  지금까지 찾은 k 번째 거리 이상이 되면 멈춘다. ids / meters 를 Heap 으로 쓰므로 할당하지 않는다.
+     */
+    public int nearest(double lat, double lng, int k, Filter filter, int[] ids, double[] meters) {
+        if (k < 0 || ids.length < k || meters.length < k)
+            throw new IllegalArgumentException("k=" + k + ", ids=" + ids.length + ", meters=" + meters.length);
+        if (size == 0 || k == 0 || Double.isNaN(lat) || Double.isNaN(lng))
+            return 0;
+
+        // Bounding Box 밖의 Query 는 바로 바깥 Cell (-1 또는 rows / cols) 에 둔다.
+        int qr = clamp(row(lat), -1, rows);
+        int qc = clamp(col(lng), -1, cols);
+        double cosLat = Math.cos(Math.toRadians(lat));
+
+        int count = 0;
+        int start = Math.max(Math.max(-qr, qr - (rows - 1)), Math.max(-qc, qc - (cols - 1)));
+        for (int ring = Math.max(0, start); ; ring++) {
+            int r0 = qr - ring, r1 = qr + ring;
+            int c0 = qc - ring, c1 = qc + ring;
+
+            // 1. 이번 겹의 Cell : 위 / 아래 행 전체와 그 사이 행의 양 끝 Cell
+            for (int r = Math.max(r0, 0); r <= Math.min(r1, rows - 1); r++) {
+                boolean edge = r == r0 || r == r1;
+                int step = edge ? 1 : c1 - c0;
+                for (int c = c0; c <= c1; c += step) {
+                    if (c >= 0 && c < cols)
+                        count = scan(r * cols + c, lat, lng, cosLat, k, filter, ids, meters, count);
+                    if (step == 0)
+                        break;
+                }
+            }
+
+            // 2. 남은 Cell 이 없거나, 남은 Cell 의 거리 하한이 k 번째 거리 이상이면 끝
+            boolean south = r0 > 0, north = r1 < rows - 1, west = c0 > 0, east = c1 < cols - 1;
+            if (!south && !north && !west && !east)
+                break;
+            if (count == k) {
+                double bound = Double.POSITIVE_INFINITY;
+                if (south)
+                    bound = Math.min(bound, latitudeBound(lat - (minLat + r0 * cellHeight)));
+                if (north)
+                    bound = Math.min(bound, latitudeBound(minLat + (r1 + 1) * cellHeight - lat));
+                if (west)
+                    bound = Math.min(bound, longitudeBound(lng - (minLng + c0 * cellWidth), cosLat));
+                if (east)
+                    bound = Math.min(bound, longitudeBound(minLng + (c1 + 1) * cellWidth - lng, cosLat));
+                if (meters[0] < bound)
+                    break;
+            }
+        }
+
+        // 3. Max Heap → 가까운 순서 (Heap Sort)
+        for (int n = count - 1; n > 0; n--) {
+            swap(ids, meters, 0, n);
+            siftDown(ids, meters, 0, n);
+        }
+        return count;
+    }
+
+    /** 두 좌표 사이의 Haversine 거리 (m) */
+    public static double distance(double lat1, double lng1, double lat2, double lng2) {
+        return haversine(lat1, lng1, Math.cos(Math.toRadians(lat1)), lat2, lng2);
+    }
+
+    // cosLat1 = cos(lat1) : Query 마다 한 번만 계산
+    private static double haversine(double lat1, double lng1, double cosLat1, double lat2, double lng2) {
+        double sinLat = Math.sin(Math.toRadians(lat2 - lat1) / 2);
+        double sinLng = Math.sin(Math.toRadians(lng2 - lng1) / 2);
+        double h = sinLat * sinLat + cosLat1 * Math.cos(Math.toRadians(lat2)) * sinLng * sinLng;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    // cell 의 점 중 filter 를 통과하는 점을 크기 k 의 Max Heap (ids, meters) 에 넣는다.
+    private int scan(int cell, double qLat, double qLng, double cosLat, int k, Filter filter,
+                     int[] ids, double[] meters, int count) {
+        for (int p = cellStart[cell], end = cellStart[cell + 1]; p < end; p++) {
+            int id = this.ids[p];
+            if (filter != null && !filter.accept(id))
+                continue;
+            double d = haversine(qLat, qLng, cosLat, lat[p], lng[p]);
+            if (count < k) {
+                ids[count] = id;
+                meters[count] = d;
+                siftUp(ids, meters, count++);
+            } else if (before(d, id, meters[0], ids[0])) {
+                ids[0] = id;
+                meters[0] = d;
+                siftDown(ids, meters, 0, count);
+            }
+        }
+        return count;
+    }
+
+    // 위도 차이 (도) 만큼 떨어진 점까지의 거리 하한 : 경도와 무관하게 R * Δφ
+    private static double latitudeBound(double degrees) {
+        return degrees <= 0 ? 0 : EARTH_RADIUS * Math.toRadians(degrees);
+    }
+
+    // 경도 차이 (도) 만큼 떨어진 색인 점까지의 거리 하한 : hav(d / R) >= cos(φ) cos(φmax) hav(Δλ)
+    private double longitudeBound(double degrees, double cosLat) {
+        if (degrees <= 0)
+            return 0;
+        double s = Math.sqrt(cosLat * minCosLat) * Math.sin(Math.toRadians(Math.min(degrees, 180)) / 2);
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, s));
+    }
+
+    // (d1, id1) 이 (d2, id2) 보다 가까운가
+    private static boolean before(double d1, int id1, double d2, int id2) {
+        return d1 < d2 || (d1 == d2 && id1 < id2);
+    }
+
+    private static void siftUp(int[] ids, double[] meters, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(meters[parent], ids[parent], meters[i], ids[i]))
+                break;
+            swap(ids, meters, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] ids, double[] meters, int i, int n) {
+        while (true) {
+            int largest = i;
+            int left = 2 * i + 1, right = left + 1;
+            if (left < n && before(meters[largest], ids[largest], meters[left], ids[left]))
+                largest = left;
+            if (right < n && before(meters[largest], ids[largest], meters[right], ids[right]))
+                largest = right;
+            if (largest == i)
+                return;
+            swap(ids, meters, i, largest);
+            i = largest;
+        }
+    }
+
+    private static void swap(int[] ids, double[] meters, int i, int j) {
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        double d = meters[i];
+        meters[i] = meters[j];
+        meters[j] = d;
+    }
+
+    private static int clamp(int v, int min, int max) {
+        return Math.max(min, Math.min(max, v));
+    }
+
+    private int row(double y) {
+        return (int) Math.floor((y - minLat) / cellHeight);
+    }
+
+    private int col(double x) {
+        return (int) Math.floor((x - minLng) / cellWidth);
+    }
+}
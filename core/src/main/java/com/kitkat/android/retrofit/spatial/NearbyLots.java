@@ -0,0 +1,113 @@
+package com.kitkat.android.retrofit.spatial;
+
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+import com.kitkat.android.retrofit.parking.StringPool;
+
+/** Nearest Available Parking Query
+ *
+ *  Snapshot 하나에 GridIndex 를 한 번 만들어 두고, 현재 위치에서 남은 자리가 있는 가장 가까운 주차장 k 개를 찾는다.
+ *  거리는 Haversine (m) 이며 PAY_NM, PARKING_TYPE_NM, NIGHT_FREE_OPEN_NM 은 StringPool Id 로 비교한다.
+ *
+ *      NearbyLots nearby = NearbyLots.build(snapshot);                   // Snapshot 마다 한 번 (Worker Thread)
+ *      NearbyLots.Filter filter = nearby.filter().minRemaining(1).payName("무료");
+ *
+ *      int[] lots = new int[5];
+ *      double[] meters = new double[5];
+ *      int n = nearby.nearest(myLat, myLng, 5, filter, lots, meters);  // 할당 없음
+ *      for (int i = 0; i < n; i++)
+ *          show(snapshot.name(lots[i]), snapshot.remaining(lots[i]), meters[i]);
+ *
+ *  Filter 는 만든 NearbyLots (Snapshot) 에서만 쓸 수 있다. 생성 후에는 변경되지 않으므로 여러 Thread 에서 동시에 Query 해도 안전하다.
+ */
+public final class NearbyLots {
+    // Snapshot 에 없는 문자열 : 어떤 주차장과도 같지 않다.
+    private static final int ABSENT = -2;
+    // 조건 없음
+    private static final int ANY = -3;
+
+    private final ParkingSnapshot snapshot;
+    private final GridIndex index;
+    private final Filter all;
+
+    /** 남은 자리 / 문자열 조건. 불변이며, 조건을 더하면 새 Filter 를 반환한다. */
+    public final class Filter implements GridIndex.Filter {
+        private final int minRemaining;
+        private final int payName;
+        private final int typeName;
+        private final int nightOpen;
+
+        private Filter(int minRemaining, int payName, int typeName, int nightOpen) {
+            this.minRemaining = minRemaining;
+            this.payName = payName;
+            this.typeName = typeName;
+            this.nightOpen = nightOpen;
+        }
+
+        /** capacity - current >= remaining */
+        public Filter minRemaining(int remaining) {
+            return new Filter(remaining, payName, typeName, nightOpen);
+        }
+
+        /** PAY_NM (예: "무료", "유료") */
+        public Filter payName(String value) {
+            return new Filter(minRemaining, id(value), typeName, nightOpen);
+        }
+
+        /** PARKING_TYPE_NM (예: "노외 주차장") */
+        public Filter typeName(String value) {
+            return new Filter(minRemaining, payName, id(value), nightOpen);
+        }
+
+        /** NIGHT_FREE_OPEN_NM (예: "야간 개방") */
+        public Filter nightOpen(String value) {
+            return new Filter(minRemaining, payName, typeName, id(value));
+        }
+
+        @Override
+        public boolean accept(int i) {
+            return snapshot.remaining(i) >= minRemaining
+                    && (payName == ANY || snapshot.payNameId(i) == payName)
+                    && (typeName == ANY || snapshot.typeNameId(i) == typeName)
+                    && (nightOpen == ANY || snapshot.nightOpenId(i) == nightOpen);
+        }
+
+        private NearbyLots owner() {
+            return NearbyLots.this;
+        }
+    }
+
+    public static NearbyLots build(ParkingSnapshot snapshot) {
+        return new NearbyLots(snapshot);
+    }
+
+    private NearbyLots(ParkingSnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.index = GridIndex.build(snapshot);
+        this.all = new Filter(Integer.MIN_VALUE, ANY, ANY, ANY);
+    }
+
+    public ParkingSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /** 조건 없는 Filter */
+    public Filter filter() {
+        return all;
+    }
+
+    /** (lat, lng) 에서 가까운 순서로 filter 를 통과하는 주차장 k 개의 snapshot Index 를 lots 에, 거리 (m) 를 meters 에 채우고 개수를 반환.
+     *  좌표가 없는 주차장은 제외한다. filter 가 null 이면 filter() 와 같다. */
+    public int nearest(double lat, double lng, int k, Filter filter, int[] lots, double[] meters) {
+        if (filter != null && filter.owner() != this)
+            throw new IllegalArgumentException("Filter of another NearbyLots");
+        return index.nearest(lat, lng, k, filter == null || filter == all ? null : filter, lots, meters);
+    }
+
+    private int id(String value) {
+        StringPool strings = snapshot.strings();
+        if (value == null)
+            return StringPool.NULL;
+        int id = strings.find(value);
+        return id == StringPool.NULL ? ABSENT : id;
+    }
+}
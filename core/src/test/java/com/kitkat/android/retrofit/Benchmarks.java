@@ -0,0 +1,24 @@
+package com.kitkat.android.retrofit;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Deterministic allocation checks for the local JVM. Timings belong in the :jmh module.
+ * Allocation counters need a HotSpot-compatible JVM; elsewhere they report -1.
+ */
+public final class Benchmarks {
+    private Benchmarks() {
+    }
+
+    /** Bytes allocated by the current thread so far, or -1 if the JVM cannot tell. */
+    public static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return -1;
+    }
+
+    /** Side-effect sink so the JIT cannot drop benchmarked work. */
+    public static volatile long blackhole;
+}
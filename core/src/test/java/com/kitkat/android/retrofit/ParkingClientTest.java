@@ -0,0 +1,79 @@
+package com.kitkat.android.retrofit;
+
+import com.kitkat.android.retrofit.network.ApiClient;
+import com.kitkat.android.retrofit.network.OpenApiException;
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+import com.kitkat.android.retrofit.parking.ScheduleTable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URLEncoder;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+public class ParkingClientTest {
+    private MockWebServer server;
+    private ParkingDispatcher dispatcher;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        dispatcher = new ParkingDispatcher(1500).total("종로구", 2500);
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void load_mergesDistrictsIntoOneSnapshot() throws Exception {
+        server.setDispatcher(dispatcher);
+        ParkingClient client = new ParkingClient(new ApiClient(server.url("/").toString()));
+
+        ParkingClient.Result result = client.load("중구", "종로구", "용산구");
+
+        assertTrue(result.isComplete());
+        assertEquals(3, result.getLoadedCount());
+        // Fixture 의 PARKING_CODE 는 구와 무관하게 Index 로 정해지므로 가장 큰 구의 Row 수만큼 남는다.
+        ParkingSnapshot snapshot = result.getSnapshot();
+        ScheduleTable schedule = result.getSchedule();
+        assertEquals(2500, snapshot.size());
+        assertEquals(2500, schedule.size());
+        for (int i = 0; i < snapshot.size(); i++) {
+            assertEquals(ParkingFixtures.parkingCode(i + 1), snapshot.code(i));
+            assertEquals(ParkingFixtures.capacity(i + 1), snapshot.capacity(i));
+            // Fixture : 처음 5분 100 * (1 + i % 5) 원, i % 5 == 0 이면 무료
+            assertEquals((i + 1) % 5 == 0 ? 0 : 100 * (1 + (i + 1) % 5), schedule.cost(i, ScheduleTable.WEEKDAY, 5));
+        }
+    }
+
+    @Test
+    public void load_reportsFailedDistrictsAndKeepsTheRest() throws Exception {
+        final String failing = "/" + URLEncoder.encode("용산구", "UTF-8");
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                if (request.getPath().endsWith(failing))
+                    return new MockResponse().setResponseCode(404);
+                return dispatcher.dispatch(request);
+            }
+        });
+        ParkingClient client = new ParkingClient(new ApiClient(server.url("/").toString()));
+
+        ParkingClient.Result result = client.load("중구", "용산구");
+
+        assertFalse(result.isComplete());
+        assertEquals(1, result.getLoadedCount());
+        assertEquals(1500, result.getSnapshot().size());
+        assertTrue(result.getFailures().get("용산구") instanceof OpenApiException);
+    }
+}
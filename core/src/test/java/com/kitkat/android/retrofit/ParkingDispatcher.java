@@ -0,0 +1,84 @@
+package com.kitkat.android.retrofit;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * MockWebServer stand-in for the Seoul open API.
+ * Serves .../SearchParkingInfoRealtime/{start}/{end}/{gu} windows of a synthetic dataset
+ * (see {@link ParkingFixtures}) and records request count and peak concurrency.
+ */
+public class ParkingDispatcher extends Dispatcher {
+    private final Map<String, Integer> totals = new ConcurrentHashMap<>();
+    private final int defaultTotal;
+    private volatile long latencyMillis;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    public ParkingDispatcher(int defaultTotal) {
+        this.defaultTotal = defaultTotal;
+    }
+
+    public ParkingDispatcher total(String gu, int total) {
+        totals.put(gu, total);
+        return this;
+    }
+
+    public ParkingDispatcher latency(long millis) {
+        this.latencyMillis = millis;
+        return this;
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        requests.incrementAndGet();
+        int current = inFlight.incrementAndGet();
+        try {
+            int max;
+            while (current > (max = maxInFlight.get()) && !maxInFlight.compareAndSet(max, current)) {
+                // retry
+            }
+            if (latencyMillis > 0)
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+
+            String[] segments = request.getPath().split("/");
+            int n = segments.length;
+            String gu = decode(segments[n - 1]);
+            int start = Integer.parseInt(segments[n - 3]);
+            int end = Integer.parseInt(segments[n - 2]);
+
+            int total = totals.containsKey(gu) ? totals.get(gu) : defaultTotal;
+            if (start > total)
+                return new MockResponse().setBody(ParkingFixtures.error("INFO-200", "해당하는 데이터가 없습니다."));
+            return new MockResponse().setBody(ParkingFixtures.page(total, start, end));
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static String decode(String segment) {
+        try {
+            return URLDecoder.decode(segment, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    public int requestCount() {
+        return requests.get();
+    }
+
+    public int maxInFlight() {
+        return maxInFlight.get();
+    }
+}
@@ -0,0 +1,183 @@
+package com.kitkat.android.retrofit;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.kitkat.android.retrofit.converter.RowStream;
+import com.kitkat.android.retrofit.domain.Data;
+import com.kitkat.android.retrofit.domain.Row;
+import com.kitkat.android.retrofit.domain.SearchParkingInfoRealtime;
+import com.kitkat.android.retrofit.parking.CompactLotFormat;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+import com.kitkat.android.retrofit.parking.ParkingLotAdapter;
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Synthetic SearchParkingInfoRealtime JSON for local unit tests.
+ * Rows are generated deterministically from their 1-based index, so any {start}/{end} window of
+ * the same dataset always produces the same rows.
+ */
+public final class ParkingFixtures {
+    public static final String OK_CODE = "INFO-000";
+
+    // Seoul bounding box
+    public static final double SOUTH = 37.41, NORTH = 37.72, WEST = 126.76, EAST = 127.19;
+
+    private ParkingFixtures() {
+    }
+
+    /** Rows start..end (inclusive, 1-based) of a dataset holding total rows. */
+    public static String page(int total, int start, int end) {
+        int last = Math.min(end, total);
+        StringBuilder sb = new StringBuilder(512 + Math.max(0, last - start + 1) * 900);
+        sb.append("{\"SearchParkingInfoRealtime\":{\"list_total_count\":").append(total)
+                .append(",\"RESULT\":{\"CODE\":\"").append(OK_CODE)
+                .append("\",\"MESSAGE\":\"정상 처리되었습니다\"},\"row\":[");
+        for (int i = start; i <= last; i++) {
+            if (i > start)
+                sb.append(',');
+            row(sb, i);
+        }
+        return sb.append("]}}").toString();
+    }
+
+    /** Same rows as page(), but the given rows (1-based index) carry an empty PARKING_CODE. */
+    public static String pageWithoutCodes(int total, int start, int end, int... indexes) {
+        String page = page(total, start, end);
+        for (int i : indexes)
+            page = page.replace("\"PARKING_CODE\":\"" + parkingCode(i) + "\"", "\"PARKING_CODE\":\"\"");
+        return page;
+    }
+
+    /** Same rows as page(), re-encoded as a proxy would serve them (see CompactLotFormat). */
+    public static String compactPage(int total, int start, int end) {
+        try {
+            Gson gson = new GsonBuilder().registerTypeAdapter(ParkingLot.class, new ParkingLotAdapter()).create();
+            RowStream<ParkingLot> stream = RowStream.create(gson, new StringReader(page(total, start, end)), ParkingLot.class);
+            List<ParkingLot> lots = new ArrayList<>();
+            while (stream.hasNext())
+                lots.add(stream.next());
+            stream.close();
+
+            StringWriter out = new StringWriter();
+            CompactLotFormat.writePage(new JsonWriter(out), total, lots.toArray(new ParkingLot[lots.size()]));
+            return out.toString();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /** Rows 1..total of page(), decoded into the Row tree. */
+    public static SearchParkingInfoRealtime response(int total) {
+        return new Gson().fromJson(page(total, 1, total), Data.class).getSearchParkingInfoRealtime();
+    }
+
+    /** Rows 1..total of page() as a snapshot; lot i is row i + 1. */
+    public static ParkingSnapshot snapshot(int total) {
+        return new ParkingSnapshot.Builder().addAll(response(total)).build();
+    }
+
+    /**
+     * Same lots as snapshot(total), moved to a seeded city-like spread: dense around City Hall and
+     * clamped to the Seoul bounding box. Every 97th lot (0, 97, 194, ...) has no location.
+     */
+    public static ParkingSnapshot seoulSnapshot(int total, long seed) {
+        SearchParkingInfoRealtime response = response(total);
+        Random random = new Random(seed);
+        Row[] rows = response.getRow();
+        for (int i = 0; i < rows.length; i++) {
+            if (i % 97 == 0) {
+                rows[i].setLAT(null);
+                rows[i].setLNG(null);
+                continue;
+            }
+            rows[i].setLAT(String.valueOf(clamp(37.56 + random.nextGaussian() * 0.06, SOUTH, NORTH)));
+            rows[i].setLNG(String.valueOf(clamp(126.98 + random.nextGaussian() * 0.08, WEST, EAST)));
+        }
+        return new ParkingSnapshot.Builder().addAll(response).build();
+    }
+
+    private static double clamp(double v, double min, double max) {
+        return Math.max(min, Math.min(max, v));
+    }
+
+    /** Error envelope the open API returns instead of rows (e.g. INFO-200 : no data). */
+    public static String error(String code, String message) {
+        return "{\"RESULT\":{\"CODE\":\"" + code + "\",\"MESSAGE\":\"" + message + "\"}}";
+    }
+
+    public static int parkingCode(int index) {
+        return 100000 + index;
+    }
+
+    public static double lat(int index) {
+        return 37.45 + (index * 7919 % 1000) / 4000.0;
+    }
+
+    public static double lng(int index) {
+        return 126.80 + (index * 104729 % 1000) / 2500.0;
+    }
+
+    public static int capacity(int index) {
+        return 10 + index % 190;
+    }
+
+    public static int curParking(int index) {
+        return (index * 31) % (capacity(index) + 1);
+    }
+
+    private static void row(StringBuilder sb, int i) {
+        sb.append('{');
+        str(sb, "PARKING_CODE", String.valueOf(parkingCode(i))).append(',');
+        str(sb, "PARKING_NAME", "공영주차장 " + i).append(',');
+        str(sb, "ADDR", "중구 세종대로 " + i).append(',');
+        str(sb, "PARKING_TYPE_NM", i % 3 == 0 ? "노상 주차장" : "노외 주차장").append(',');
+        str(sb, "OPERATION_RULE_NM", "시간제 주차장").append(',');
+        str(sb, "TEL", "02-120").append(',');
+        num(sb, "CAPACITY", String.valueOf(capacity(i))).append(',');
+        num(sb, "CUR_PARKING", String.valueOf(curParking(i))).append(',');
+        str(sb, "CUR_PARKING_TIME", "2017-03-25 15:" + String.format(Locale.US, "%02d", i % 60) + ":00").append(',');
+        str(sb, "PAY_NM", i % 5 == 0 ? "무료" : "유료").append(',');
+        str(sb, "NIGHT_FREE_OPEN_NM", i % 2 == 0 ? "야간 개방" : "야간 미개방").append(',');
+        str(sb, "WEEKDAY_BEGIN_TIME", "0900").append(',');
+        str(sb, "WEEKDAY_END_TIME", "2100").append(',');
+        str(sb, "WEEKEND_BEGIN_TIME", "1000").append(',');
+        str(sb, "WEEKEND_END_TIME", "1800").append(',');
+        str(sb, "HOLIDAY_BEGIN_TIME", "0000").append(',');
+        str(sb, "HOLIDAY_END_TIME", "0000").append(',');
+        str(sb, "SATURDAY_PAY_NM", "유료").append(',');
+        str(sb, "HOLIDAY_PAY_NM", "무료").append(',');
+        str(sb, "FULLTIME_MONTHLY", "100000").append(',');
+        str(sb, "GRP_PARKNM", "").append(',');
+        num(sb, "RATES", String.valueOf(100 * (1 + i % 5))).append(',');
+        num(sb, "TIME_RATE", "5").append(',');
+        num(sb, "ADD_RATES", String.valueOf(100 * (1 + i % 5))).append(',');
+        num(sb, "ADD_TIME_RATE", "5").append(',');
+        num(sb, "BUS_RATES", "0").append(',');
+        num(sb, "BUS_TIME_RATE", "0").append(',');
+        num(sb, "BUS_ADD_TIME_RATE", "0").append(',');
+        num(sb, "BUS_ADD_RATES", "0").append(',');
+        num(sb, "DAY_MAXIMUM", i % 4 == 0 ? "0" : "20000").append(',');
+        str(sb, "ASSIGN_CODE_NM", "").append(',');
+        str(sb, "WORK_DTTM", "2017-03-25 15:00:00").append(',');
+        num(sb, "LAT", String.valueOf(lat(i))).append(',');
+        num(sb, "LNG", String.valueOf(lng(i)));
+        sb.append('}');
+    }
+
+    private static StringBuilder str(StringBuilder sb, String name, String value) {
+        return sb.append('"').append(name).append("\":\"").append(value).append('"');
+    }
+
+    private static StringBuilder num(StringBuilder sb, String name, String value) {
+        return sb.append('"').append(name).append("\":").append(value);
+    }
+}
@@ -0,0 +1,194 @@
+package com.kitkat.android.retrofit.converter;
+
+import com.kitkat.android.retrofit.ParkingFixtures;
+import com.kitkat.android.retrofit.domain.Data;
+import com.kitkat.android.retrofit.domain.Row;
+import com.kitkat.android.retrofit.network.ApiClient;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import retrofit2.Call;
+import retrofit2.http.GET;
+import retrofit2.http.Streaming;
+
+import static org.junit.Assert.*;
+
+public class StreamingConverterFactoryTest {
+    private MockWebServer server;
+    private ApiClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        client = new ApiClient(server.url("/").toString());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void stream_matchesGsonTreeDecoding() throws Exception {
+        String body = ParkingFixtures.page(1500, 1, 1000);
+        server.enqueue(new MockResponse().setBody(body));
+        server.enqueue(new MockResponse().setBody(body));
+
+        Row[] expected = client.getOpenApiService().get("중구", 1, 1000).execute().body()
+                .getSearchParkingInfoRealtime().getRow();
+
+        RowStream<Row> stream = client.getOpenApiService().stream("중구", 1, 1000).execute().body();
+        final List<Row> rows = new ArrayList<>();
+        try {
+            assertEquals(ParkingFixtures.OK_CODE, stream.getResult().getCODE());
+            assertEquals(1500, stream.getTotalCount());
+
+            int count = stream.readAll(new RowConsumer<Row>() {
+                @Override
+                public void accept(Row row) {
+                    rows.add(row);
+                }
+            });
+            assertEquals(1000, count);
+            assertFalse(stream.hasNext());
+        } finally {
+            stream.close();
+        }
+
+        assertEquals(expected.length, rows.size());
+        for (int i = 0; i < expected.length; i++) {
+            Row row = rows.get(i);
+            assertEquals(expected[i].getPARKING_CODE(), row.getPARKING_CODE());
+            assertEquals(expected[i].getLAT(), row.getLAT());
+            assertEquals(expected[i].getLNG(), row.getLNG());
+            assertEquals(expected[i].getCAPACITY(), row.getCAPACITY());
+            assertEquals(expected[i].getCUR_PARKING(), row.getCUR_PARKING());
+            assertEquals(expected[i].getPARKING_NAME(), row.getPARKING_NAME());
+        }
+    }
+
+    @Test
+    public void stream_errorEnvelopeHasResultAndNoRows() throws Exception {
+        server.enqueue(new MockResponse().setBody(ParkingFixtures.error("INFO-200", "해당하는 데이터가 없습니다.")));
+
+        RowStream<Row> stream = client.getOpenApiService().stream("중구", 1, 1000).execute().body();
+        try {
+            assertEquals("INFO-200", stream.getResult().getCODE());
+            assertEquals(-1, stream.getTotalCount());
+            assertFalse(stream.hasNext());
+        } finally {
+            stream.close();
+        }
+    }
+
+    /** 시간 대신 첫 Row 를 받았을 때까지 Body 에서 읽은 Byte 수로 판정 */
+    @Test
+    public void stream_firstRowArrivesBeforeBodyIsDownloaded() throws Exception {
+        String body = ParkingFixtures.page(1000, 1, 1000);
+        server.enqueue(new MockResponse().setBody(body));
+        final AtomicLong read = new AtomicLong();
+        OkHttpClient counting = ApiClient.newOkHttpClientBuilder()
+                .addInterceptor(new Interceptor() {
+                    @Override
+                    public okhttp3.Response intercept(Chain chain) throws IOException {
+                        okhttp3.Response response = chain.proceed(chain.request());
+                        ResponseBody original = response.body();
+                        BufferedSource source = Okio.buffer(new ForwardingSource(original.source()) {
+                            @Override
+                            public long read(Buffer sink, long byteCount) throws IOException {
+                                long n = super.read(sink, byteCount);
+                                if (n > 0)
+                                    read.addAndGet(n);
+                                return n;
+                            }
+                        });
+                        return response.newBuilder()
+                                .body(ResponseBody.create(original.contentType(), original.contentLength(), source))
+                                .build();
+                    }
+                })
+                .build();
+
+        RowStream<Row> stream = new ApiClient(server.url("/").toString(), counting).getOpenApiService()
+                .stream("중구", 1, 1000).execute().body();
+        long length = body.getBytes("UTF-8").length;
+        long firstRow;
+        int count = 0;
+        try {
+            assertEquals(1000, stream.getTotalCount());
+
+            stream.next();
+            count++;
+            firstRow = read.get();
+            while (stream.hasNext()) {
+                stream.next();
+                count++;
+            }
+        } finally {
+            stream.close();
+        }
+
+        assertEquals(1000, count);
+        assertEquals(length, read.get());
+        assertTrue("read " + firstRow + " of " + length + " bytes before the first row", firstRow * 4 < length);
+    }
+
+    @Test
+    public void lots_decodesOnlyProjectedFields() throws Exception {
+        server.enqueue(new MockResponse().setBody(ParkingFixtures.page(3, 1, 3)));
+
+        RowStream<ParkingLot> stream = client.getOpenApiService().lots("중구", 1, 3, null, null).execute().body();
+        try {
+            ParkingLot lot = stream.next();
+            assertEquals(ParkingFixtures.parkingCode(1), lot.getParkingCode());
+            assertEquals(ParkingFixtures.capacity(1), lot.getCapacity());
+            assertEquals("공영주차장 1", lot.getName());
+            assertEquals(200, lot.getRates());
+            assertEquals(9 * 60, lot.getWeekdayBegin());
+            // @Project 에 없는 Field
+            assertEquals(0, lot.getFulltimeMonthly());
+            assertNull(lot.getText(ParkingLot.OPERATION_RULE_NM));
+        } finally {
+            stream.close();
+        }
+    }
+
+    interface ProjectedRows {
+        @Project({"LAT", "LNG"})
+        @Streaming
+        @GET("rows")
+        Call<RowStream<Row>> rows();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void project_isOnlySupportedForParkingLot() {
+        client.getRetrofit().create(ProjectedRows.class).rows();
+    }
+
+    @Test
+    public void gsonStillHandlesData() throws Exception {
+        server.enqueue(new MockResponse().setBody(ParkingFixtures.page(3, 1, 3)));
+
+        Data data = client.getOpenApiService().get("중구", 1, 1000).execute().body();
+
+        assertEquals(3, data.getSearchParkingInfoRealtime().getRow().length);
+    }
+}
@@ -0,0 +1,80 @@
+package com.kitkat.android.retrofit.metrics;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+    @Test
+    public void buckets_areContiguousAndBoundValues() {
+        long previousUpper = -1;
+        for (int i = 0; i < Histogram.BUCKETS; i++) {
+            assertEquals(previousUpper + 1, Histogram.lowerBound(i));
+            previousUpper = Histogram.upperBound(i);
+        }
+        assertEquals(Long.MAX_VALUE, previousUpper);
+
+        Random random = new Random(7);
+        for (int k = 0; k < 100000; k++) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            int i = Histogram.index(value);
+            assertTrue(value + " in bucket " + i, Histogram.lowerBound(i) <= value && value <= Histogram.upperBound(i));
+        }
+    }
+
+    @Test
+    public void percentiles_areWithinBucketPrecision() {
+        Histogram histogram = new Histogram();
+        Random random = new Random(11);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            // 대략 1 ms ~ 100 ms 의 Latency (nanos)
+            values[i] = (long) (1e6 * Math.exp(random.nextDouble() * Math.log(100)));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, histogram.count());
+        assertEquals(values[values.length - 1], histogram.max());
+        for (double p : new double[]{0.5, 0.9, 0.99}) {
+            long exact = values[(int) Math.ceil(p * values.length) - 1];
+            long estimate = histogram.percentile(p);
+            assertTrue("p" + p + " " + estimate + " vs " + exact, estimate >= exact && estimate <= exact * 1.125 + 1);
+        }
+    }
+
+    @Test
+    public void concurrentRecords_areNotLost() throws Exception {
+        final Histogram histogram = new Histogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100000; i++)
+                        histogram.record(i);
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(400000, histogram.count());
+        assertEquals(4L * (99999L * 100000L / 2), histogram.sum());
+        assertEquals(99999, histogram.max());
+    }
+
+    @Test
+    public void reset_clears() {
+        Histogram histogram = new Histogram();
+        histogram.record(42);
+        histogram.reset();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(0.5));
+    }
+}
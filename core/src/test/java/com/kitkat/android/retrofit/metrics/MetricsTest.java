@@ -0,0 +1,99 @@
+package com.kitkat.android.retrofit.metrics;
+
+import com.kitkat.android.retrofit.Benchmarks;
+import com.kitkat.android.retrofit.ParkingDispatcher;
+import com.kitkat.android.retrofit.network.ApiClient;
+import com.kitkat.android.retrofit.network.PagedFetcher;
+
+import org.junit.After;
+import org.junit.Test;
+
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+    private static final int ITERATIONS = 100000;
+
+    @After
+    public void tearDown() {
+        Metrics.uninstall();
+    }
+
+    /** Hook 의 시간 비용은 :jmh 의 MetricsBenchmark */
+    @Test
+    public void disabled_recordsNothingAndDoesNotAllocate() {
+        Metrics.uninstall();
+        long sum = 0;
+        for (int i = 0; i < 10000; i++)
+            sum += hooks(i);
+
+        long before = Benchmarks.allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++)
+            sum += hooks(i);
+        long allocated = Benchmarks.allocatedBytes() - before;
+        Benchmarks.blackhole += sum;
+
+        assertEquals(0, Metrics.start());
+        assertNull(Metrics.get());
+        // ITERATIONS 번의 Hook 이 한 번이라도 할당하면 넘는 크기
+        if (before >= 0)
+            assertTrue("allocated " + allocated + " bytes", allocated < 16 * 1024);
+    }
+
+    @Test
+    public void enabled_recordsTimersAndCounters() {
+        Metrics metrics = Metrics.install();
+        for (int i = 0; i < 1000; i++)
+            Benchmarks.blackhole += hooks(i);
+
+        assertEquals(1000, metrics.histogram(Metrics.Timer.DECODE).count());
+        assertEquals(1000L * 999 / 2, metrics.counter(Metrics.Counter.ROWS));
+
+        String summary = metrics.summary();
+        assertTrue(summary, summary.contains("decode"));
+        assertFalse(summary, summary.contains("render"));
+
+        metrics.reset();
+        assertEquals(0, metrics.histogram(Metrics.Timer.DECODE).count());
+    }
+
+    private static long hooks(int i) {
+        long start = Metrics.start();
+        long value = plain(i);
+        Metrics.stop(Metrics.Timer.DECODE, start);
+        Metrics.count(Metrics.Counter.ROWS, i);
+        return value;
+    }
+
+    private static long plain(int i) {
+        return i * 31L ^ (i >>> 3);
+    }
+
+    /** Local MockWebServer 에 대한 실제 Paging 으로 Network / Decode 단계가 모두 기록되는지 */
+    @Test
+    public void fetch_recordsNetworkAndDecodeStages() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(new ParkingDispatcher(3000).latency(10));
+        server.start();
+        try {
+            Metrics metrics = Metrics.install();
+            ApiClient client = new ApiClient(server.url("/").toString());
+
+            assertEquals(3000, new PagedFetcher(client).fetch("중구").length);
+
+            assertEquals(3, metrics.counter(Metrics.Counter.REQUESTS));
+            assertEquals(3000, metrics.counter(Metrics.Counter.ROWS));
+            assertTrue(metrics.counter(Metrics.Counter.BYTES) > 3000 * 500);
+            assertTrue(metrics.histogram(Metrics.Timer.DNS).count() >= 1);
+            assertTrue(metrics.histogram(Metrics.Timer.CONNECT).count() >= 1);
+            assertEquals(3, metrics.histogram(Metrics.Timer.TTFB).count());
+            assertEquals(3, metrics.histogram(Metrics.Timer.BODY).count());
+            assertEquals(3, metrics.histogram(Metrics.Timer.DECODE).count());
+            // Dispatcher 의 Latency 는 Header 전에 기다리므로 TTFB 에 포함된다.
+            assertTrue(metrics.histogram(Metrics.Timer.TTFB).percentile(0.5) >= 10000000);
+        } finally {
+            server.shutdown();
+        }
+    }
+}
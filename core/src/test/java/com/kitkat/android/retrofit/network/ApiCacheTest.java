@@ -0,0 +1,213 @@
+package com.kitkat.android.retrofit.network;
+
+import com.kitkat.android.retrofit.ParkingFixtures;
+import com.kitkat.android.retrofit.converter.RowStream;
+import com.kitkat.android.retrofit.domain.Data;
+import com.kitkat.android.retrofit.parking.CompactLotFormat;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.CacheControl;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+import retrofit2.Response;
+
+import static org.junit.Assert.*;
+
+/**
+ * 서버는 Cache Header 를 보내지 않으므로 (MockResponse 기본값과 같음) ApiCache 의 freshness 정책만으로 동작하는지
+ * MockWebServer 가 받은 Request 수로 확인한다.
+ */
+public class ApiCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockWebServer server;
+    private ApiCache cache;
+    private ApiClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        cache = new ApiCache(folder.newFolder("openapi"), ApiCache.DEFAULT_MAX_SIZE, 1, 60, TimeUnit.SECONDS);
+        client = new ApiClient(server.url("/").toString(), cache);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private int rows() throws Exception {
+        Response<Data> response = client.getOpenApiService().get("중구", 1, 1000).execute();
+        assertTrue(response.isSuccessful());
+        return response.body().getSearchParkingInfoRealtime().getRow().length;
+    }
+
+    @Test
+    public void fresh_servedFromDisk() throws Exception {
+        server.enqueue(new MockResponse().setBody(ParkingFixtures.page(10, 1, 10)));
+
+        assertEquals(10, rows());
+        assertEquals(10, rows());
+        assertEquals(10, rows());
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(2, cache.hitCount());
+        assertEquals(0, cache.staleHitCount());
+    }
+
+    @Test
+    public void stale_servedImmediately_thenRevalidatedInBackground() throws Exception {
+        server.enqueue(new MockResponse().setBody(ParkingFixtures.page(10, 1, 10)));
+        server.enqueue(new MockResponse().setBody(ParkingFixtures.page(5, 1, 5)));
+
+        assertEquals(10, rows());
+        Thread.sleep(1100); // freshness window (1 초) 경과
+
+        // 지난 Response 를 기다림 없이 반환하고 Background 에서 다시 요청
+        assertEquals(10, rows());
+        assertEquals(1, cache.staleHitCount());
+        assertEquals(1, cache.revalidationCount());
+
+        server.takeRequest(5, TimeUnit.SECONDS);
+        server.takeRequest(5, TimeUnit.SECONDS);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.getCache().writeSuccessCount() < 2 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+
+        // 재요청 결과가 Cache 에 기록되어 다시 fresh
+        assertEquals(5, rows());
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    public void noCache_bypassesCacheAndUpdatesIt() throws Exception {
+        server.enqueue(new MockResponse().setBody(ParkingFixtures.page(10, 1, 10)));
+        server.enqueue(new MockResponse().setBody(ParkingFixtures.page(5, 1, 5)));
+
+        assertEquals(10, rows());
+        client.getOpenApiService().lots("중구", 1, 1000, CacheControl.FORCE_NETWORK.toString(), null).execute().body().close();
+        assertEquals(2, server.getRequestCount());
+        assertNull(server.takeRequest().getHeader("Cache-Control"));
+        assertEquals("no-cache", server.takeRequest().getHeader("Cache-Control"));
+
+        assertEquals(5, rows());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void errors_areNotCached() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setBody(ParkingFixtures.page(10, 1, 10)));
+
+        assertFalse(client.getOpenApiService().get("중구", 1, 1000).execute().isSuccessful());
+        assertEquals(10, rows());
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    public void resultErrors_areNotCached() throws Exception {
+        server.enqueue(new MockResponse().setBody(ParkingFixtures.error("ERROR-500", "서버 오류입니다.")));
+        server.enqueue(new MockResponse().setBody(gzip(ParkingFixtures.error("ERROR-600", "DB 오류입니다.")))
+                .setHeader("Content-Encoding", "gzip"));
+        server.enqueue(new MockResponse().setBody(ParkingFixtures.page(10, 1, 10)));
+
+        // HTTP 200 이지만 RESULT 가 오류 : Cache 에 남지 않으므로 매번 Network
+        assertTrue(client.getOpenApiService().get("중구", 1, 1000).execute().isSuccessful());
+        assertTrue(client.getOpenApiService().get("중구", 1, 1000).execute().isSuccessful());
+        assertEquals(10, rows());
+        assertEquals(10, rows());
+
+        assertEquals(3, server.getRequestCount());
+        assertEquals(3, cache.missCount());
+        assertEquals(1, cache.hitCount());
+    }
+
+    @Test
+    public void retry_afterResultError_getsFreshPage() throws Exception {
+        server.enqueue(new MockResponse().setBody(ParkingFixtures.error("ERROR-500", "서버 오류입니다.")));
+        server.enqueue(new MockResponse().setBody(ParkingFixtures.page(10, 1, 10)));
+        PagedFetcher fetcher = new PagedFetcher(client.getOpenApiService(), client.getExecutor(), client.getCallbackExecutor(),
+                PagedFetcher.MAX_PAGE_SIZE, 1, null, new Resilience(new RetryPolicy.Builder()
+                        .backoff(10, 50, TimeUnit.MILLISECONDS).maxAttempts(3).build(), client.getExecutor()));
+
+        ParkingLot[] lots = fetcher.fetch("중구");
+
+        assertEquals(10, lots.length);
+        assertEquals(1, fetcher.getResilience().retryCount());
+        assertEquals(2, server.getRequestCount());
+        // 재시도는 Cache 를 건너뛴다.
+        assertNull(server.takeRequest().getHeader("Cache-Control"));
+        assertEquals("no-cache", server.takeRequest().getHeader("Cache-Control"));
+
+        // 성공한 Page 가 Cache 에 남는다.
+        assertEquals(10, fetcher.fetch("중구").length);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    /** Proxy 가 Vary 없이 Accept 에 따라 Compact Row 로 응답해도 원래 JSON 을 읽는 Request 는 Cache 의 Compact Body 를 받지 않는다. */
+    @Test
+    public void compactResponses_areKeptApartByAccept() throws Exception {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String accept = request.getHeader("Accept");
+                if (accept == null || !accept.contains(CompactLotFormat.MEDIA_TYPE))
+                    return new MockResponse().setBody(ParkingFixtures.page(10, 1, 10));
+                return new MockResponse()
+                        .setHeader("Content-Type", CompactLotFormat.MEDIA_TYPE)
+                        .setBody(ParkingFixtures.compactPage(10, 1, 10));
+            }
+        });
+
+        assertEquals(10, lots());
+        assertEquals(10, lots());
+        assertEquals(1, server.getRequestCount());
+
+        // 같은 URL 이지만 Accept 가 다르다 : Network 에서 원래 JSON
+        assertEquals(10, rows());
+        assertEquals(2, server.getRequestCount());
+        assertEquals(10, rows());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    private int lots() throws Exception {
+        RowStream<ParkingLot> stream = client.getOpenApiService().lots("중구", 1, 1000, null, null).execute().body();
+        try {
+            int lots = 0;
+            for (; stream.hasNext(); lots++)
+                assertEquals(ParkingFixtures.parkingCode(lots + 1), stream.next().getParkingCode());
+            return lots;
+        } finally {
+            stream.close();
+        }
+    }
+
+    private static Buffer gzip(String body) throws Exception {
+        Buffer buffer = new Buffer();
+        BufferedSink sink = Okio.buffer(new GzipSink(buffer));
+        sink.writeUtf8(body);
+        sink.close();
+        return buffer;
+    }
+}
@@ -0,0 +1,73 @@
+package com.kitkat.android.retrofit.network;
+
+import com.kitkat.android.retrofit.ParkingFixtures;
+import com.kitkat.android.retrofit.domain.Data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Response;
+
+import static org.junit.Assert.*;
+
+/**
+ * Cold load : Retrofit / OkHttpClient / OpenApiService 를 매번 새로 생성 (기존 MapsActivity.retrofit() 방식)
+ * Warm load : 하나의 ApiClient 를 재사용
+ *
+ * Loopback 에서는 Handshake 비용이 거의 없고 MockWebServer 의 Nagle 지연이 섞이므로 시간은 재지 않고,
+ * 판정은 Connection 재사용 여부(RecordedRequest.getSequenceNumber)로 한다.
+ */
+public class ApiClientTest {
+    private static final int LOADS = 20;
+
+    private MockWebServer server;
+    private String baseUrl;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        baseUrl = server.url("/").toString();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void getInstance_isShared() throws Exception {
+        ApiClient client = ApiClient.getInstance();
+
+        assertSame(client, ApiClient.getInstance());
+        assertSame(client.getOpenApiService(), ApiClient.getInstance().getOpenApiService());
+    }
+
+    @Test
+    public void warmLoads_reuseKeepAliveConnection() throws Exception {
+        String body = ParkingFixtures.page(10, 1, 10);
+        for (int i = 0; i < LOADS * 2; i++)
+            server.enqueue(new MockResponse().setBody(body));
+
+        for (int i = 0; i < LOADS; i++) {
+            Response<Data> response = new ApiClient(baseUrl).getOpenApiService().get("중구", 1, 10).execute();
+
+            assertTrue(response.isSuccessful());
+            // 새 OkHttpClient 는 Connection Pool 이 비어 있으므로 항상 새 Connection 의 첫 Request
+            assertEquals(0, server.takeRequest().getSequenceNumber());
+        }
+
+        ApiClient shared = new ApiClient(baseUrl);
+        for (int i = 0; i < LOADS; i++) {
+            Response<Data> response = shared.getOpenApiService().get("중구", 1, 10).execute();
+
+            assertTrue(response.isSuccessful());
+            assertEquals(10, response.body().getSearchParkingInfoRealtime().getRow().length);
+            // Keep-Alive Connection 재사용 : 같은 Connection 위의 i 번째 Request
+            assertEquals(i, server.takeRequest().getSequenceNumber());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.kitkat.android.retrofit.network;
+
+import com.kitkat.android.retrofit.ParkingDispatcher;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.*;
+
+public class CityLoaderTest {
+    private static final int ROWS_PER_GU = 1500; // 2 Page
+    private static final long LATENCY_MILLIS = 30;
+
+    private MockWebServer server;
+    private ParkingDispatcher dispatcher;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        dispatcher = new ParkingDispatcher(ROWS_PER_GU).latency(LATENCY_MILLIS);
+        server.setDispatcher(dispatcher);
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private CityLoader loader(int maxRequestsPerHost, int concurrency, int pageInFlight) {
+        ApiClient client = new ApiClient(server.url("/").toString(),
+                ApiClient.newOkHttpClientBuilder(maxRequestsPerHost).build());
+        PagedFetcher fetcher = new PagedFetcher(client.getOpenApiService(), client.getExecutor(),
+                client.getCallbackExecutor(), PagedFetcher.MAX_PAGE_SIZE, pageInFlight);
+        return new CityLoader(fetcher, client.getExecutor(), client.getCallbackExecutor(), concurrency);
+    }
+
+    /** 시간 대신 동시에 열린 Request 수로 판정 : 순차 Loader 는 1, 동시 Loader 는 1 초과 per-host 한도 이하 */
+    @Test
+    public void load_streamsEveryDistrictWithinTheConcurrencyLimit() throws Exception {
+        load(loader(1, 1, 1));
+        assertEquals(50, dispatcher.requestCount());
+        assertEquals(1, dispatcher.maxInFlight());
+
+        dispatcher = new ParkingDispatcher(ROWS_PER_GU).latency(LATENCY_MILLIS);
+        server.setDispatcher(dispatcher);
+        load(loader(6, 5, 2));
+
+        assertEquals(50, dispatcher.requestCount());
+        assertTrue("per-host limit exceeded: " + dispatcher.maxInFlight(), dispatcher.maxInFlight() <= 6);
+        assertTrue("districts were not loaded concurrently", dispatcher.maxInFlight() > 1);
+    }
+
+    private void load(CityLoader loader) throws InterruptedException {
+        final List<String> districts = Collections.synchronizedList(new ArrayList<String>());
+        final AtomicInteger rows = new AtomicInteger();
+        final CountDownLatch complete = new CountDownLatch(1);
+
+        loader.load(CityLoader.SEOUL_GU, new CityLoader.Listener() {
+            @Override
+            public void onDistrictLoaded(String gu, ParkingLot[] result) {
+                assertEquals(1, complete.getCount());
+                districts.add(gu);
+                rows.addAndGet(result.length);
+            }
+
+            @Override
+            public void onDistrictFailed(String gu, Throwable t) {
+                fail(gu + " " + t);
+            }
+
+            @Override
+            public void onComplete(int loaded, int failed) {
+                assertEquals(CityLoader.SEOUL_GU.length, loaded);
+                assertEquals(0, failed);
+                complete.countDown();
+            }
+        });
+        assertTrue(complete.await(30, TimeUnit.SECONDS));
+
+        assertEquals(CityLoader.SEOUL_GU.length, districts.size());
+        assertEquals(CityLoader.SEOUL_GU.length * ROWS_PER_GU, rows.get());
+    }
+
+    @Test
+    public void cancel_stopsCallbacksAndRemainingDistricts() throws Exception {
+        // Android Main Thread 처럼 Callback 과 cancel() 이 같은 단일 Thread 에서 실행
+        ExecutorService mainThread = Executors.newSingleThreadExecutor();
+        ApiClient client = new ApiClient(server.url("/").toString());
+        PagedFetcher fetcher = new PagedFetcher(client.getOpenApiService(), client.getExecutor(),
+                mainThread, PagedFetcher.MAX_PAGE_SIZE, 1);
+        final CityLoader loader = new CityLoader(fetcher, client.getExecutor(), mainThread, 2);
+
+        final AtomicInteger callbacks = new AtomicInteger();
+        final AtomicInteger afterCancel = new AtomicInteger(-1);
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final AtomicReference<CityLoader.Task> task = new AtomicReference<>();
+
+        final CityLoader.Listener listener = new CityLoader.Listener() {
+            @Override
+            public void onDistrictLoaded(String gu, ParkingLot[] rows) {
+                callbacks.incrementAndGet();
+                task.get().cancel();
+                afterCancel.set(callbacks.get());
+                cancelled.countDown();
+            }
+
+            @Override
+            public void onDistrictFailed(String gu, Throwable t) {
+                callbacks.incrementAndGet();
+            }
+
+            @Override
+            public void onComplete(int loaded, int failed) {
+                callbacks.incrementAndGet();
+            }
+        };
+
+        final CountDownLatch started = new CountDownLatch(1);
+        mainThread.execute(new Runnable() {
+            @Override
+            public void run() {
+                task.set(loader.load(CityLoader.SEOUL_GU, listener));
+                started.countDown();
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertTrue(cancelled.await(10, TimeUnit.SECONDS));
+
+        Thread.sleep(LATENCY_MILLIS * 10);
+        mainThread.shutdown();
+        assertTrue(mainThread.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertTrue(task.get().isCancelled());
+        assertEquals(1, afterCancel.get());
+        assertEquals(1, callbacks.get());
+        assertTrue("requests " + dispatcher.requestCount(), dispatcher.requestCount() < 50);
+    }
+}
@@ -0,0 +1,201 @@
+package com.kitkat.android.retrofit.network;
+
+import com.kitkat.android.retrofit.ParkingDispatcher;
+import com.kitkat.android.retrofit.ParkingFixtures;
+import com.kitkat.android.retrofit.domain.Row;
+import com.kitkat.android.retrofit.metrics.Metrics;
+import com.kitkat.android.retrofit.parking.CompactLotFormat;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+import static org.junit.Assert.*;
+
+public class PagedFetcherTest {
+    private static final int TOTAL = 10000;
+
+    private MockWebServer server;
+    private ParkingDispatcher dispatcher;
+    private ApiClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        dispatcher = new ParkingDispatcher(TOTAL).latency(20);
+        server.setDispatcher(dispatcher);
+        server.start();
+        client = new ApiClient(server.url("/").toString());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void fetch_mergesAllPagesInOrder() throws Exception {
+        PagedFetcher fetcher = new PagedFetcher(client.getOpenApiService(), client.getExecutor(),
+                client.getCallbackExecutor(), PagedFetcher.MAX_PAGE_SIZE, 4);
+
+        ParkingLot[] rows = fetcher.fetch("중구");
+
+        assertEquals(TOTAL, rows.length);
+        for (int i = 0; i < rows.length; i++)
+            assertEquals(ParkingFixtures.parkingCode(i + 1), rows[i].getParkingCode());
+
+        assertEquals(10, dispatcher.requestCount());
+        assertTrue("in-flight " + dispatcher.maxInFlight(), dispatcher.maxInFlight() <= 4);
+        assertTrue("pages were not fetched concurrently", dispatcher.maxInFlight() > 1);
+    }
+
+    @Test
+    public void fetch_respectsInFlightLimitWithSmallPages() throws Exception {
+        PagedFetcher fetcher = new PagedFetcher(client.getOpenApiService(), client.getExecutor(),
+                client.getCallbackExecutor(), 250, 3);
+
+        ParkingLot[] rows = fetcher.fetch("중구");
+
+        assertEquals(TOTAL, rows.length);
+        assertEquals(ParkingFixtures.parkingCode(TOTAL), rows[TOTAL - 1].getParkingCode());
+        assertEquals(40, dispatcher.requestCount());
+        assertTrue("in-flight " + dispatcher.maxInFlight(), dispatcher.maxInFlight() <= 3);
+    }
+
+    @Test
+    public void fetch_singlePage() throws Exception {
+        dispatcher.total("종로구", 37);
+
+        ParkingLot[] rows = new PagedFetcher(client).fetch("종로구");
+
+        assertEquals(37, rows.length);
+        assertEquals(1, dispatcher.requestCount());
+    }
+
+    @Test
+    public void getRaw_rereadsFieldsSkippedByProjection() throws Exception {
+        dispatcher.total("종로구", 37);
+        ParkingLot[] rows = new PagedFetcher(client).fetch("종로구");
+        int requests = dispatcher.requestCount();
+
+        ParkingLot lot = rows[6];
+        assertEquals(0, lot.getFulltimeMonthly());
+        Row raw = lot.getRaw();
+
+        assertEquals(requests + 1, dispatcher.requestCount());
+        assertEquals(String.valueOf(ParkingFixtures.parkingCode(7)), raw.getPARKING_CODE());
+        assertEquals("100000", raw.getFULLTIME_MONTHLY());
+        assertEquals(String.valueOf(100 * (1 + 7 % 5)), raw.getRATES());
+        assertEquals("시간제 주차장", raw.getOPERATION_RULE_NM());
+    }
+
+    @Test
+    public void fetch_noData() throws Exception {
+        dispatcher.total("강남구", 0);
+
+        assertEquals(0, new PagedFetcher(client).fetch("강남구").length);
+    }
+
+    @Test(expected = IOException.class)
+    public void fetch_httpErrorFails() throws Exception {
+        server.setDispatcher(new okhttp3.mockwebserver.Dispatcher() {
+            @Override
+            public MockResponse dispatch(okhttp3.mockwebserver.RecordedRequest request) {
+                return new MockResponse().setResponseCode(500);
+            }
+        });
+
+        new PagedFetcher(client).fetch("중구");
+    }
+
+    /** Proxy 처럼 Accept 를 보고 gzip 한 Compact Row 로 응답해도 같은 결과 */
+    @Test
+    public void fetch_negotiatesGzipAndCompactRows() throws Exception {
+        final AtomicReference<RecordedRequest> recorded = new AtomicReference<>();
+        final AtomicLong wireBytes = new AtomicLong();
+        server.setDispatcher(new okhttp3.mockwebserver.Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                recorded.set(request);
+                if (!request.getHeader("Accept").contains(CompactLotFormat.MEDIA_TYPE))
+                    return dispatcher.dispatch(request);
+
+                String[] segments = request.getPath().split("/");
+                int start = Integer.parseInt(segments[segments.length - 3]);
+                int end = Integer.parseInt(segments[segments.length - 2]);
+                Buffer body = gzip(ParkingFixtures.compactPage(TOTAL, start, end));
+                wireBytes.addAndGet(body.size());
+                return new MockResponse()
+                        .setHeader("Content-Type", CompactLotFormat.MEDIA_TYPE)
+                        .setHeader("Content-Encoding", "gzip")
+                        .setBody(body);
+            }
+        });
+        Metrics metrics = Metrics.install();
+        try {
+            ParkingLot[] rows = new PagedFetcher(client).fetch("중구");
+
+            assertEquals(TOTAL, rows.length);
+            for (int i = 0; i < rows.length; i += 997) {
+                assertEquals(ParkingFixtures.parkingCode(i + 1), rows[i].getParkingCode());
+                assertEquals(ParkingFixtures.lat(i + 1), rows[i].getLat(), 1e-9);
+                assertEquals(ParkingFixtures.curParking(i + 1), rows[i].getCurParking());
+                assertEquals("공영주차장 " + (i + 1), rows[i].getName());
+            }
+            // OkHttp 가 gzip 을 요청하고 풀어 준다. BYTES 는 압축된 전송량
+            assertEquals("gzip", recorded.get().getHeader("Accept-Encoding"));
+            assertEquals(wireBytes.get(), metrics.counter(Metrics.Counter.BYTES));
+        } finally {
+            Metrics.uninstall();
+        }
+    }
+
+    private static Buffer gzip(String json) {
+        try {
+            Buffer buffer = new Buffer();
+            BufferedSink sink = Okio.buffer(new GzipSink(buffer));
+            sink.writeUtf8(json);
+            sink.close();
+            return buffer;
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Test
+    public void enqueue_deliversToCallback() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<ParkingLot[]> result = new AtomicReference<>();
+
+        new PagedFetcher(client).enqueue("중구", new PagedFetcher.Callback() {
+            @Override
+            public void onResponse(ParkingLot[] rows) {
+                result.set(rows);
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(TOTAL, result.get().length);
+    }
+}
@@ -0,0 +1,234 @@
+package com.kitkat.android.retrofit.network;
+
+import com.kitkat.android.retrofit.ParkingDispatcher;
+import com.kitkat.android.retrofit.ParkingFixtures;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * 느리거나 실패하는 Open API 를 흉내내는 Dispatcher 앞에서 PagedFetcher 의 Retry / Timeout / Hedge 동작을 확인한다.
+ */
+public class ResilienceTest {
+    private static final int ROWS = 10;
+
+    private MockWebServer server;
+    private ScriptedDispatcher dispatcher;
+    private ApiClient client;
+
+    /** 앞에서부터 script 의 응답 (Delay, Error) 을 사용하고, 비면 ParkingDispatcher 의 정상 Page 를 반환 */
+    private static final class ScriptedDispatcher extends Dispatcher {
+        final ParkingDispatcher pages = new ParkingDispatcher(ROWS);
+        final Queue<Object> script = new ConcurrentLinkedQueue<>();
+        final AtomicInteger requests = new AtomicInteger();
+        volatile Random random;
+        volatile double slowRatio;
+        volatile long fastMillis;
+        volatile long slowMillis;
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            requests.incrementAndGet();
+            Object next = script.poll();
+            if (next instanceof String)
+                return new MockResponse().setBody(ParkingFixtures.error((String) next, "scripted"));
+            if (next instanceof Integer)
+                return new MockResponse().setResponseCode((Integer) next);
+            if (next instanceof Long)
+                TimeUnit.MILLISECONDS.sleep((Long) next);
+
+            Random delays = random;
+            if (delays != null) {
+                boolean slow;
+                synchronized (delays) {
+                    slow = delays.nextDouble() < slowRatio;
+                }
+                TimeUnit.MILLISECONDS.sleep(slow ? slowMillis : fastMillis);
+            }
+            return pages.dispatch(request);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dispatcher = new ScriptedDispatcher();
+        server = new MockWebServer();
+        server.setDispatcher(dispatcher);
+        server.start();
+        client = new ApiClient(server.url("/").toString());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private PagedFetcher fetcher(RetryPolicy policy) {
+        return new PagedFetcher(client.getOpenApiService(), client.getExecutor(), client.getCallbackExecutor(),
+                PagedFetcher.MAX_PAGE_SIZE, 1, null, new Resilience(policy, client.getExecutor()));
+    }
+
+    private static RetryPolicy.Builder quickBackoff() {
+        return new RetryPolicy.Builder().backoff(10, 50, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void retryableResultCode_isRetried() throws Exception {
+        dispatcher.script.add("ERROR-500");
+        dispatcher.script.add(503);
+        PagedFetcher fetcher = fetcher(quickBackoff().maxAttempts(3).build());
+
+        ParkingLot[] lots = fetcher.fetch("중구");
+
+        assertEquals(ROWS, lots.length);
+        assertEquals(3, dispatcher.requests.get());
+        assertEquals(2, fetcher.getResilience().retryCount());
+    }
+
+    @Test
+    public void requestError_isNotRetried() throws Exception {
+        dispatcher.script.add("INFO-100");
+        PagedFetcher fetcher = fetcher(quickBackoff().maxAttempts(3).build());
+
+        try {
+            fetcher.fetch("중구");
+            fail("INFO-100 should fail");
+        } catch (OpenApiException e) {
+            assertEquals("INFO-100", e.getResultCode());
+            assertFalse(e.isRetryable());
+        }
+        assertEquals(1, dispatcher.requests.get());
+    }
+
+    @Test
+    public void noData_isEmptyPage() throws Exception {
+        dispatcher.script.add(OpenApiException.NO_DATA);
+
+        assertEquals(0, fetcher(quickBackoff().build()).fetch("중구").length);
+        assertEquals(1, dispatcher.requests.get());
+    }
+
+    @Test
+    public void slowAttempt_timesOutAndIsRetried() throws Exception {
+        dispatcher.script.add(3000L);
+        PagedFetcher fetcher = fetcher(quickBackoff()
+                .attemptTimeout(200, TimeUnit.MILLISECONDS)
+                .build());
+
+        long start = System.nanoTime();
+        ParkingLot[] lots = fetcher.fetch("중구");
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(ROWS, lots.length);
+        assertEquals(1, fetcher.getResilience().timeoutCount());
+        assertTrue("took " + elapsed + " ms", elapsed < 1500);
+    }
+
+    @Test
+    public void deadline_boundsTotalTime() throws Exception {
+        for (int i = 0; i < 10; i++)
+            dispatcher.script.add(3000L);
+        PagedFetcher fetcher = fetcher(quickBackoff()
+                .maxAttempts(10)
+                .attemptTimeout(300, TimeUnit.MILLISECONDS)
+                .deadline(800, TimeUnit.MILLISECONDS)
+                .build());
+
+        long start = System.nanoTime();
+        try {
+            fetcher.fetch("중구");
+            fail("every attempt is slower than the deadline");
+        } catch (SocketTimeoutException expected) {
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue("took " + elapsed + " ms", elapsed < 1500);
+        assertTrue("attempts " + dispatcher.requests.get(), dispatcher.requests.get() <= 3);
+    }
+
+    @Test
+    public void cancel_stopsRetrying() throws Exception {
+        for (int i = 0; i < 10; i++)
+            dispatcher.script.add(3000L);
+        final PagedFetcher fetcher = fetcher(quickBackoff()
+                .maxAttempts(10)
+                .attemptTimeout(200, TimeUnit.MILLISECONDS)
+                .build());
+        final CallGroup group = new CallGroup();
+
+        new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException ignored) {
+                }
+                group.cancel();
+            }
+        }.start();
+
+        try {
+            fetcher.fetch("중구", group);
+            fail("cancelled");
+        } catch (IOException expected) {
+        }
+        int requests = dispatcher.requests.get();
+        Thread.sleep(500);
+        assertEquals(requests, dispatcher.requests.get());
+    }
+
+    /**
+     * 4% 의 Request 가 400 ms 걸리는 서버.
+     * Hedge 는 p95 무렵 두 번째 Request 를 보내고 그것이 먼저 끝난다. 느린 Request 에만 보내므로 추가 Request 는 일부.
+     * Tail Latency 자체는 시간 측정이 필요하므로 여기서는 Hedge 횟수와 Request 수로 판정한다.
+     */
+    @Test
+    public void hedging_racesOnlySlowRequests() throws Exception {
+        RetryPolicy hedged = new RetryPolicy.Builder().hedge(0.95, 20, TimeUnit.MILLISECONDS).build();
+
+        fetchWithSlowTail(fetcher(RetryPolicy.DEFAULT), 42);
+        int plainRequests = dispatcher.requests.getAndSet(0);
+        PagedFetcher hedgedFetcher = fetcher(hedged);
+        fetchWithSlowTail(hedgedFetcher, 42);
+        int hedgedRequests = dispatcher.requests.get();
+        Resilience resilience = hedgedFetcher.getResilience();
+
+        assertTrue(resilience.hedgeWinCount() > 0);
+        assertTrue(resilience.hedgeWinCount() <= resilience.hedgeCount());
+        assertTrue("requests " + hedgedRequests + " vs " + plainRequests, hedgedRequests < plainRequests * 1.2);
+    }
+
+    private void fetchWithSlowTail(PagedFetcher fetcher, long seed) throws Exception {
+        // Warm-up : Connection, LatencyTracker Sample
+        dispatcher.random = null;
+        for (int i = 0; i < LatencyTracker.DEFAULT_MIN_SAMPLES + 10; i++)
+            fetcher.fetch("중구");
+
+        dispatcher.random = new Random(seed);
+        dispatcher.slowRatio = 0.04;
+        dispatcher.fastMillis = 5;
+        dispatcher.slowMillis = 400;
+        dispatcher.requests.set(0);
+
+        for (int i = 0; i < 60; i++)
+            assertEquals(ROWS, fetcher.fetch("중구").length);
+        dispatcher.random = null;
+    }
+}
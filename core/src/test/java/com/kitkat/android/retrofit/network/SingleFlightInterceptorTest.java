@@ -0,0 +1,219 @@
+package com.kitkat.android.retrofit.network;
+
+import com.kitkat.android.retrofit.ParkingDispatcher;
+import com.kitkat.android.retrofit.converter.RowStream;
+import com.kitkat.android.retrofit.domain.Data;
+import com.kitkat.android.retrofit.domain.Row;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import static org.junit.Assert.*;
+
+/**
+ * 동시에 같은 Request 를 보내는 여러 호출자가 Network Request 하나만 만드는지
+ * ParkingDispatcher 가 받은 Request 수로 확인한다.
+ */
+public class SingleFlightInterceptorTest {
+    private static final int CALLERS = 8;
+    private static final long LATENCY_MILLIS = 300;
+
+    private MockWebServer server;
+    private ParkingDispatcher dispatcher;
+    private SingleFlightInterceptor singleFlight;
+    private ApiClient client;
+    private ExecutorService callers;
+
+    @Before
+    public void setUp() throws Exception {
+        dispatcher = new ParkingDispatcher(10).latency(LATENCY_MILLIS);
+        server = new MockWebServer();
+        server.setDispatcher(dispatcher);
+        server.start();
+
+        singleFlight = new SingleFlightInterceptor();
+        OkHttpClient okHttpClient = new OkHttpClient.Builder()
+                .addInterceptor(singleFlight)
+                .build();
+        client = new ApiClient(server.url("/").toString(), okHttpClient);
+        callers = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        callers.shutdownNow();
+        server.shutdown();
+    }
+
+    private List<Future<Integer>> callConcurrently(final String[] districts) {
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < districts.length; i++) {
+            final String gu = districts[i];
+            results.add(callers.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    start.await();
+                    return rows(gu);
+                }
+            }));
+        }
+        start.countDown();
+        return results;
+    }
+
+    private int rows(String gu) throws IOException {
+        Response<Data> response = client.getOpenApiService().get(gu, 1, 1000).execute();
+        assertTrue(response.isSuccessful());
+        return response.body().getSearchParkingInfoRealtime().getRow().length;
+    }
+
+    private static String[] repeat(String gu, int n) {
+        String[] districts = new String[n];
+        for (int i = 0; i < n; i++)
+            districts[i] = gu;
+        return districts;
+    }
+
+    @Test
+    public void concurrentIdenticalCalls_shareOneRequest() throws Exception {
+        for (Future<Integer> result : callConcurrently(repeat("중구", CALLERS)))
+            assertEquals(10, (int) result.get(5, TimeUnit.SECONDS));
+
+        assertEquals(1, dispatcher.requestCount());
+        assertEquals(1, singleFlight.flightCount());
+        assertEquals(CALLERS - 1, singleFlight.coalescedCount());
+    }
+
+    @Test
+    public void distinctCalls_areNotCoalesced() throws Exception {
+        dispatcher.total("종로구", 20);
+        String[] districts = {"중구", "종로구", "중구", "종로구"};
+        List<Future<Integer>> results = callConcurrently(districts);
+
+        assertEquals(10, (int) results.get(0).get(5, TimeUnit.SECONDS));
+        assertEquals(20, (int) results.get(1).get(5, TimeUnit.SECONDS));
+        assertEquals(10, (int) results.get(2).get(5, TimeUnit.SECONDS));
+        assertEquals(20, (int) results.get(3).get(5, TimeUnit.SECONDS));
+        assertEquals(2, dispatcher.requestCount());
+    }
+
+    @Test
+    public void differentAccept_isNotCoalesced() throws Exception {
+        Future<Integer> json = callConcurrently(repeat("중구", 1)).get(0);
+        // Compact Format 을 먼저 받는 lots() : 같은 URL 이라도 Proxy 는 다른 Body 를 보낸다.
+        RowStream<ParkingLot> lots = client.getOpenApiService().lots("중구", 1, 1000, null, null).execute().body();
+        try {
+            int rows = 0;
+            for (; lots.hasNext(); rows++)
+                lots.next();
+            assertEquals(10, rows);
+        } finally {
+            lots.close();
+        }
+        assertEquals(10, (int) json.get(5, TimeUnit.SECONDS));
+
+        assertEquals(2, dispatcher.requestCount());
+        assertEquals(0, singleFlight.coalescedCount());
+    }
+
+    @Test
+    public void sequentialCalls_eachGoToNetwork() throws Exception {
+        dispatcher.latency(0);
+
+        assertEquals(10, rows("중구"));
+        assertEquals(10, rows("중구"));
+
+        // 끝난 Request 는 다시 사용하지 않는다 (ApiCache 의 몫)
+        assertEquals(2, dispatcher.requestCount());
+        assertEquals(0, singleFlight.coalescedCount());
+    }
+
+    @Test
+    public void cancelledLeader_followersRequestThemselves() throws Exception {
+        final Call<Data> leader = client.getOpenApiService().get("중구", 1, 1000);
+        Future<?> leading = callers.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                leader.execute();
+                return null;
+            }
+        });
+        Thread.sleep(LATENCY_MILLIS / 3);
+
+        List<Future<Integer>> followers = callConcurrently(repeat("중구", 3));
+        Thread.sleep(LATENCY_MILLIS / 3);
+        leader.cancel();
+
+        try {
+            leading.get(5, TimeUnit.SECONDS);
+            fail("leader was cancelled");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof IOException);
+        }
+
+        // Follower 는 취소의 영향을 받지 않는다.
+        for (Future<Integer> result : followers)
+            assertEquals(10, (int) result.get(5, TimeUnit.SECONDS));
+        assertTrue(dispatcher.requestCount() >= 2);
+    }
+
+    @Test
+    public void slowLeader_followersStopWaitingAndRequestThemselves() throws Exception {
+        singleFlight = new SingleFlightInterceptor(LATENCY_MILLIS / 3, TimeUnit.MILLISECONDS);
+        client = new ApiClient(server.url("/").toString(), new OkHttpClient.Builder()
+                .addInterceptor(singleFlight)
+                .build());
+
+        for (Future<Integer> result : callConcurrently(repeat("중구", 3)))
+            assertEquals(10, (int) result.get(5, TimeUnit.SECONDS));
+
+        // Leader 의 Latency 보다 짧게만 기다린다.
+        assertEquals(3, dispatcher.requestCount());
+        assertEquals(1, singleFlight.flightCount());
+        assertEquals(0, singleFlight.coalescedCount());
+    }
+
+    @Test
+    public void leaderReadingAlone_doesNotTakeFollowers() throws Exception {
+        dispatcher.latency(0);
+        // Follower 없이 Body 를 읽기 시작한 Leader 는 복사하지 않으므로 이후의 같은 요청을 받을 수 없다.
+        RowStream<Row> leader = client.getOpenApiService().stream("중구", 1, 1000).execute().body();
+        try {
+            assertTrue(leader.hasNext());
+            leader.next();
+
+            // Leader 가 Body 를 쥐고 있는 동안에도 기다리지 않고 Network 로
+            assertEquals(10, (int) callConcurrently(repeat("중구", 1)).get(0).get(2, TimeUnit.SECONDS));
+            assertEquals(2, dispatcher.requestCount());
+            assertEquals(0, singleFlight.coalescedCount());
+
+            int rows = 1;
+            while (leader.hasNext()) {
+                leader.next();
+                rows++;
+            }
+            assertEquals(10, rows);
+        } finally {
+            leader.close();
+        }
+    }
+}
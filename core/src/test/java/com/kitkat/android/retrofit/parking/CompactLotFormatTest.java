@@ -0,0 +1,124 @@
+package com.kitkat.android.retrofit.parking;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.kitkat.android.retrofit.Benchmarks;
+import com.kitkat.android.retrofit.ParkingFixtures;
+import com.kitkat.android.retrofit.converter.RowStream;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class CompactLotFormatTest {
+    private static final int ROWS = 1000;
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(ParkingLot.class, new ParkingLotAdapter())
+            .create();
+
+    @Test
+    public void compactRows_decodeToTheSameLots() throws Exception {
+        ParkingLot[] full = decode(ParkingFixtures.page(ROWS, 1, ROWS));
+        ParkingLot[] compact = decode(ParkingFixtures.compactPage(ROWS, 1, ROWS));
+
+        assertEquals(full.length, compact.length);
+        for (int i = 0; i < full.length; i++) {
+            assertEquals(full[i].getParkingCode(), compact[i].getParkingCode());
+            assertEquals(full[i].getLat(), compact[i].getLat(), 0);
+            assertEquals(full[i].getLng(), compact[i].getLng(), 0);
+            assertEquals(full[i].getCapacity(), compact[i].getCapacity());
+            assertEquals(full[i].getCurParking(), compact[i].getCurParking());
+            assertEquals(full[i].getCurParkingTime(), compact[i].getCurParkingTime());
+            for (int field : new int[]{ParkingLot.PARKING_NAME, ParkingLot.ADDR, ParkingLot.TEL,
+                    ParkingLot.PAY_NM, ParkingLot.PARKING_TYPE_NM, ParkingLot.NIGHT_FREE_OPEN_NM,
+                    ParkingLot.SATURDAY_PAY_NM, ParkingLot.HOLIDAY_PAY_NM})
+                assertEquals(full[i].getText(field), compact[i].getText(field));
+            assertEquals(full[i].getWeekdayBegin(), compact[i].getWeekdayBegin());
+            assertEquals(full[i].getWeekendEnd(), compact[i].getWeekendEnd());
+            assertEquals(full[i].getHolidayEnd(), compact[i].getHolidayEnd());
+            assertEquals(full[i].getRates(), compact[i].getRates());
+            assertEquals(full[i].getAddTimeRate(), compact[i].getAddTimeRate());
+            assertEquals(full[i].getDayMaximum(), compact[i].getDayMaximum());
+        }
+    }
+
+    @Test
+    public void compactRows_tolerateMissingAndExtraValues() throws Exception {
+        String json = "{\"SearchParkingInfoRealtime\":{\"list_total_count\":2,\"row\":["
+                + "[7,37.5,null],"
+                + "[8,37.5,127.0,10,4,\"2017-03-25 15:00:00\",\"a\",\"b\",\"c\",\"무료\",\"노상 주차장\",\"야간 개방\",\"extra\",[1,2]]"
+                + "]}}";
+
+        ParkingLot[] lots = decode(json);
+
+        assertEquals(7, lots[0].getParkingCode());
+        assertTrue(Double.isNaN(lots[0].getLng()));
+        assertEquals(0, lots[0].getCapacity());
+        assertNull(lots[0].getName());
+        assertEquals(8, lots[1].getParkingCode());
+        assertEquals("야간 개방", lots[1].getText(ParkingLot.NIGHT_FREE_OPEN_NM));
+        // 운영시간 / 요금이 없는 이전 Proxy 의 Row
+        assertEquals(ParkingLot.UNKNOWN, lots[1].getWeekdayBegin());
+        assertEquals(0, lots[1].getRates());
+    }
+
+    /** 1000 Row 한 Page 의 전송량 (그대로 / gzip) 과 Decode 할당량. Decode 시간은 :jmh 의 FormatBenchmark */
+    @Test
+    public void compactRows_areSmallerAndAllocateLessToDecode() throws Exception {
+        String full = ParkingFixtures.page(ROWS, 1, ROWS);
+        String compact = ParkingFixtures.compactPage(ROWS, 1, ROWS);
+        long fullBytes = utf8(full).length;
+        long compactBytes = utf8(compact).length;
+        long fullGzip = gzip(full);
+        long compactGzip = gzip(compact);
+
+        assertTrue(fullGzip * 3 < fullBytes);
+        assertTrue(compactBytes * 3 < fullBytes);
+        assertTrue(compactGzip < fullGzip);
+
+        for (int i = 0; i < 20; i++)
+            Benchmarks.blackhole += decode(full).length + decode(compact).length;
+        long before = Benchmarks.allocatedBytes();
+        Benchmarks.blackhole += decode(full).length;
+        long fullAllocated = Benchmarks.allocatedBytes() - before;
+        before = Benchmarks.allocatedBytes();
+        Benchmarks.blackhole += decode(compact).length;
+        long compactAllocated = Benchmarks.allocatedBytes() - before;
+
+        // Field 이름 문자열이 없다.
+        if (before >= 0)
+            assertTrue("compact " + compactAllocated + " vs full " + fullAllocated, compactAllocated < fullAllocated);
+    }
+
+    private ParkingLot[] decode(String json) throws IOException {
+        RowStream<ParkingLot> stream = RowStream.create(gson, new StringReader(json), ParkingLot.class);
+        try {
+            List<ParkingLot> lots = new ArrayList<>();
+            while (stream.hasNext())
+                lots.add(stream.next());
+            return lots.toArray(new ParkingLot[lots.size()]);
+        } finally {
+            stream.close();
+        }
+    }
+
+    private static byte[] utf8(String s) throws IOException {
+        return s.getBytes("UTF-8");
+    }
+
+    private static long gzip(String s) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        gzip.write(utf8(s));
+        gzip.close();
+        return out.size();
+    }
+}
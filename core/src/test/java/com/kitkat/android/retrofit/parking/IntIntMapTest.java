@@ -0,0 +1,46 @@
+package com.kitkat.android.retrofit.parking;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IntIntMapTest {
+
+    @Test
+    public void matchesHashMap() {
+        Random random = new Random(42);
+        IntIntMap map = new IntIntMap(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 50000; i++) {
+            int key = random.nextInt(20000) - 10000;
+            int value = random.nextInt(1000);
+            Integer previous = expected.put(key, value);
+            assertEquals(previous != null ? previous : IntIntMap.MISSING, map.put(key, value));
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = -10000; key < 10000; key++) {
+            Integer value = expected.get(key);
+            assertEquals(value != null ? value : IntIntMap.MISSING, map.get(key));
+        }
+    }
+
+    @Test
+    public void minValueKey() {
+        IntIntMap map = new IntIntMap();
+
+        assertEquals(IntIntMap.MISSING, map.putIfAbsent(Integer.MIN_VALUE, 7));
+        assertEquals(7, map.putIfAbsent(Integer.MIN_VALUE, 8));
+        assertEquals(7, map.get(Integer.MIN_VALUE));
+        assertEquals(1, map.size());
+
+        map.clear();
+        assertFalse(map.containsKey(Integer.MIN_VALUE));
+        assertEquals(0, map.size());
+    }
+}
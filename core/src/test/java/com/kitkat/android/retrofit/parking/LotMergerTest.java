@@ -0,0 +1,109 @@
+package com.kitkat.android.retrofit.parking;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LotMergerTest {
+    // 주차장마다 요금 Variant Row 가 3개씩 있다고 가정
+    private static final int VARIANTS = 3;
+
+    private static ParkingLot[] rows(int count) {
+        ParkingLot[] rows = new ParkingLot[count];
+        for (int i = 0; i < count; i++) {
+            ParkingLot lot = new ParkingLot();
+            // 같은 코드가 멀리 떨어져 나오도록 섞는다.
+            lot.parkingCode = 100000 + (i % (count / VARIANTS));
+            lot.rates = 100 * (i / (count / VARIANTS) + 1);
+            lot.capacity = 30;
+            rows[i] = lot;
+        }
+        return rows;
+    }
+
+    @Test
+    public void merge_foldsDuplicatesIntoVariants() {
+        ParkingLot[] rows = rows(30);
+
+        ParkingLot[] lots = LotMerger.merge(rows);
+
+        assertEquals(10, lots.length);
+        for (int i = 0; i < lots.length; i++) {
+            assertSame(rows[i], lots[i]);
+            assertEquals(VARIANTS - 1, lots[i].getVariantCount());
+            assertEquals(200, lots[i].getVariants()[0].getRates());
+            assertEquals(300, lots[i].getVariants()[1].getRates());
+        }
+    }
+
+    @Test
+    public void merge_keepsRowsWithoutParkingCodeApart() {
+        ParkingLot[] rows = rows(6);
+        ParkingLot first = new ParkingLot();
+        first.capacity = 10;
+        ParkingLot second = new ParkingLot();
+        second.capacity = 20;
+        assertEquals(ParkingLot.UNKNOWN, first.getParkingCode());
+        ParkingLot[] all = Arrays.copyOf(rows, rows.length + 2);
+        all[rows.length] = first;
+        all[rows.length + 1] = second;
+
+        LotMerger merger = new LotMerger();
+        assertEquals(4, merger.add(all).length);
+        ParkingLot[] lots = merger.toArray();
+
+        // 2 개의 주차장 (Variant 3 개씩) + 코드 없는 Row 2 개
+        assertEquals(2 + 2, lots.length);
+        assertSame(first, lots[2]);
+        assertSame(second, lots[3]);
+        assertEquals(0, first.getVariantCount());
+        assertEquals(0, second.getVariantCount());
+        assertFalse(merger.contains(ParkingLot.UNKNOWN));
+        assertNull(merger.get(ParkingLot.UNKNOWN));
+    }
+
+    @Test
+    public void add_returnsOnlyNewLotsAcrossBatches() {
+        LotMerger merger = new LotMerger();
+        ParkingLot[] rows = rows(30);
+
+        ParkingLot[] first = merger.add(Arrays.copyOfRange(rows, 0, 15));
+        ParkingLot[] second = merger.add(Arrays.copyOfRange(rows, 15, 30));
+
+        assertEquals(10, first.length);
+        assertEquals(0, second.length);
+        assertEquals(10, merger.size());
+        assertTrue(merger.contains(100003));
+        assertEquals(2, merger.get(100003).getVariantCount());
+        assertNull(merger.get(1));
+    }
+
+    /** 기존 MapsActivity 의 List<Integer>.contains 중복 제거와 같은 결과인지. 시간은 :jmh 의 DedupBenchmark */
+    @Test
+    public void merge_matchesListDedupAt1k10k100k() {
+        for (int count : new int[] { 1000, 10000, 100000 }) {
+            ParkingLot[] rows = rows(count - count % VARIANTS);
+            int merged = LotMerger.merge(rows).length;
+
+            assertEquals(rows.length / VARIANTS, merged);
+            // O(n²) 이라 100k 에서는 수십 초가 걸리므로 생략
+            if (count <= 10000)
+                assertEquals(merged, listDedup(rows));
+        }
+    }
+
+    private static int listDedup(ParkingLot[] rows) {
+        List<Integer> parkingList = new ArrayList<>();
+        for (ParkingLot row : rows) {
+            int parkingCode = row.getParkingCode();
+            if (parkingList.contains(parkingCode))
+                continue;
+            parkingList.add(parkingCode);
+        }
+        return parkingList.size();
+    }
+}
@@ -0,0 +1,162 @@
+package com.kitkat.android.retrofit.parking;
+
+import com.kitkat.android.retrofit.Benchmarks;
+import com.kitkat.android.retrofit.ParkingFixtures;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class OccupancyHistoryTest {
+    private static final long START = FieldParser.parseSeoulDateTime("2017-03-27 08:00:00");
+
+    // 모든 Sample 로 직접 계산한 최소제곱 기울기 (분당)
+    private static double leastSquares(long[] t, int[] y, int from, int to) {
+        double n = to - from, mt = 0, my = 0;
+        for (int i = from; i < to; i++) {
+            mt += t[i];
+            my += y[i];
+        }
+        mt /= n;
+        my /= n;
+        double cov = 0, var = 0;
+        for (int i = from; i < to; i++) {
+            cov += (t[i] - mt) * (y[i] - my);
+            var += (t[i] - mt) * (t[i] - mt);
+        }
+        return cov / var * 60;
+    }
+
+    @Test
+    public void fillRate_matchesLeastSquaresOverTheLastSamples() {
+        int window = 12;
+        OccupancyHistory history = new OccupancyHistory(4, window);
+        Random random = new Random(1);
+        long[] t = new long[100];
+        int[] y = new int[100];
+        long now = START;
+
+        for (int i = 0; i < t.length; i++) {
+            now += 30 + random.nextInt(120);
+            t[i] = now;
+            y[i] = 100 + i * 2 + random.nextInt(9) - 4;
+            assertTrue(history.record(7, t[i], y[i], 500));
+
+            int from = Math.max(0, i + 1 - window);
+            assertEquals(i + 1 - from, history.size(7));
+            if (i > 0)
+                assertEquals(leastSquares(t, y, from, i + 1), history.fillRate(7), 1e-9);
+        }
+
+        long[] times = new long[window];
+        int[] values = new int[window];
+        assertEquals(window, history.samples(7, times, values));
+        assertArrayEquals(Arrays.copyOfRange(t, t.length - window, t.length), times);
+        assertArrayEquals(Arrays.copyOfRange(y, y.length - window, y.length), values);
+        assertEquals(y[y.length - 1], history.latest(7));
+    }
+
+    @Test
+    public void timeToFull_followsTheTrend() {
+        OccupancyHistory history = new OccupancyHistory(4, 8);
+        // 1분에 2대씩 증가 : 90 → 100 대, 남은 자리 20 → 10분
+        for (int i = 0; i <= 5; i++)
+            history.record(1, START + i * 60, 90 + 2 * i, 120);
+        assertEquals(2.0, history.fillRate(1), 1e-9);
+        assertEquals(600, history.timeToFull(1));
+        assertEquals(95.0 / 120, history.averageOccupancy(1), 1e-9);
+
+        // 줄어드는 주차장
+        for (int i = 0; i <= 5; i++)
+            history.record(2, START + i * 60, 50 - i, 120);
+        assertEquals(-1.0, history.fillRate(2), 1e-9);
+        assertEquals(OccupancyHistory.UNKNOWN, history.timeToFull(2));
+
+        // 이미 만차
+        history.record(3, START, 120, 120);
+        assertEquals(0, history.timeToFull(3));
+        assertTrue(Double.isNaN(history.fillRate(3)));
+
+        assertEquals(OccupancyHistory.UNKNOWN, history.timeToFull(4));
+        assertTrue(Double.isNaN(history.fillRate(4)));
+    }
+
+    @Test
+    public void record_ignoresStaleSamplesAndStaysBounded() {
+        OccupancyHistory history = new OccupancyHistory(2, 4);
+
+        assertTrue(history.record(1, START, 10, 100));
+        // 같은 CUR_PARKING_TIME 을 다시 받은 경우 / 더 오래된 값 / 시각을 모르는 값
+        assertFalse(history.record(1, START, 11, 100));
+        assertFalse(history.record(1, START - 60, 12, 100));
+        assertFalse(history.record(1, ParkingLot.UNKNOWN, 13, 100));
+        assertEquals(1, history.size(1));
+        assertEquals(10, history.latest(1));
+
+        assertTrue(history.record(2, START, 10, 100));
+        assertFalse(history.record(3, START, 10, 100));
+        assertEquals(2, history.lots());
+        assertEquals(1, history.dropped());
+        assertEquals(0, history.size(3));
+    }
+
+    @Test
+    public void record_snapshotOfEachRefresh() {
+        ParkingSnapshot snapshot = ParkingFixtures.snapshot(3);
+        OccupancyHistory history = new OccupancyHistory(10, 10);
+
+        for (int refresh = 0; refresh < 5; refresh++) {
+            for (int i = 0; i < 3; i++) {
+                snapshot.updatedAt[i] = START + refresh * 300;
+                snapshot.current[i] = 10 * i + refresh * (i + 1);
+            }
+            assertEquals(3, history.record(snapshot));
+            // 같은 Snapshot 을 다시 받아도 늘지 않는다.
+            assertEquals(0, history.record(snapshot));
+        }
+        for (int i = 0; i < 3; i++) {
+            assertEquals(5, history.size(snapshot.code(i)));
+            assertEquals((i + 1) / 5.0, history.fillRate(snapshot.code(i)), 1e-9);
+        }
+    }
+
+    /** 3000 주차장을 하루 동안 1분마다 Refresh (Sample 96개 유지). 시간은 :jmh 의 OccupancyBenchmark */
+    @Test
+    public void dayOfRefreshes_staysWithinThePreallocatedRing() {
+        int size = 3000, samples = 96, refreshes = 24 * 60;
+        ParkingSnapshot snapshot = ParkingFixtures.snapshot(size);
+        Random random = new Random(2);
+
+        long before = Benchmarks.allocatedBytes();
+        OccupancyHistory history = new OccupancyHistory(size, samples);
+        long preallocated = Benchmarks.allocatedBytes() - before;
+
+        long bytes = 0;
+        for (int refresh = 0; refresh < refreshes; refresh++) {
+            // 처음 Refresh 들은 JIT 잡음이 있으므로 뒤의 절반만
+            if (refresh == refreshes / 2)
+                bytes = Benchmarks.allocatedBytes();
+            for (int i = 0; i < size; i++) {
+                snapshot.updatedAt[i] = START + refresh * 60L;
+                snapshot.current[i] = Math.max(0, Math.min(snapshot.capacity[i], snapshot.current[i] + random.nextInt(5) - 2));
+            }
+            Benchmarks.blackhole += history.record(snapshot);
+            for (int i = 0; i < size; i += 10)
+                Benchmarks.blackhole += history.timeToFull(snapshot.code(i)) + (long) history.fillRate(snapshot.code(i));
+        }
+        long allocated = Benchmarks.allocatedBytes() - bytes;
+
+        assertEquals(size, history.lots());
+        for (int i = 0; i < size; i++)
+            assertEquals(samples, history.size(snapshot.code(i)));
+        if (before < 0)
+            return; // Allocation 을 셀 수 없는 JVM
+        // Sample 당 time / current 8 Byte + 주차장 당 합계와 PARKING_CODE Index
+        assertTrue("preallocated " + preallocated + " bytes", preallocated < size * (samples * 8L + 128));
+        // 측정 잡음 (JIT 등) 을 감안하여 Refresh 당 몇 Byte 이하이면 할당 없음으로 본다.
+        assertTrue("allocated " + allocated + " bytes", allocated < refreshes * 16);
+    }
+}
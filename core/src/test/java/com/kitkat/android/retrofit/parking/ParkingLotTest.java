@@ -0,0 +1,142 @@
+package com.kitkat.android.retrofit.parking;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.kitkat.android.retrofit.Benchmarks;
+import com.kitkat.android.retrofit.ParkingFixtures;
+import com.kitkat.android.retrofit.converter.RowStream;
+import com.kitkat.android.retrofit.domain.Data;
+import com.kitkat.android.retrofit.domain.Row;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class ParkingLotTest {
+    private static final int ROWS = 1000;
+    private static final int ITERATIONS = 50;
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(ParkingLot.class, new ParkingLotAdapter())
+            .create();
+
+    @Test
+    public void adapter_parsesHotFieldsOnce() throws Exception {
+        String json = "{\"PARKING_CODE\":\"171721\",\"LAT\":37.5636,\"LNG\":\"126.9827\",\"CAPACITY\":\"30.0\","
+                + "\"CUR_PARKING\":12,\"RATES\":300,\"TIME_RATE\":\"5\",\"DAY_MAXIMUM\":\"\","
+                + "\"WEEKDAY_BEGIN_TIME\":\"0900\",\"WEEKDAY_END_TIME\":\"2400\",\"WEEKEND_BEGIN_TIME\":\"0000\","
+                + "\"WEEKEND_END_TIME\":\"\",\"CUR_PARKING_TIME\":\"2017-03-25 15:34:12\","
+                + "\"PARKING_NAME\":\"세종로 공영주차장\",\"PAY_NM\":\"유료\",\"UNKNOWN_FIELD\":[1,2]}";
+
+        ParkingLot lot = gson.fromJson(json, ParkingLot.class);
+
+        assertEquals(171721, lot.getParkingCode());
+        assertEquals(37.5636, lot.getLat(), 0);
+        assertEquals(126.9827, lot.getLng(), 0);
+        assertEquals(30, lot.getCapacity());
+        assertEquals(12, lot.getCurParking());
+        assertEquals(18, lot.getRemaining());
+        assertEquals(300, lot.getRates());
+        assertEquals(5, lot.getTimeRate());
+        assertEquals(0, lot.getDayMaximum());
+        assertEquals(9 * 60, lot.getWeekdayBegin());
+        assertEquals(24 * 60, lot.getWeekdayEnd());
+        assertEquals(0, lot.getWeekendBegin());
+        assertEquals(ParkingLot.UNKNOWN, lot.getWeekendEnd());
+        assertEquals(ParkingLot.UNKNOWN, lot.getHolidayBegin());
+        // 2017-03-25T06:34:12Z
+        assertEquals(1490423652L, lot.getCurParkingTime());
+        assertEquals("세종로 공영주차장", lot.getName());
+        assertEquals("유료", lot.getText(ParkingLot.PAY_NM));
+        assertNull(lot.getText(ParkingLot.TEL));
+
+        Row row = lot.toRow();
+        assertEquals("171721", row.getPARKING_CODE());
+        assertEquals("0900", row.getWEEKDAY_BEGIN_TIME());
+        assertEquals("2017-03-25 15:34:12", row.getCUR_PARKING_TIME());
+
+        ParkingLot copy = gson.fromJson(gson.toJson(lot), ParkingLot.class);
+        assertEquals(lot.getParkingCode(), copy.getParkingCode());
+        assertEquals(lot.getWeekdayEnd(), copy.getWeekdayEnd());
+        assertEquals(lot.getName(), copy.getName());
+    }
+
+    @Test
+    public void adapter_matchesRowDecoding() throws Exception {
+        String json = ParkingFixtures.page(ROWS, 1, ROWS);
+        Row[] rows = gson.fromJson(json, Data.class).getSearchParkingInfoRealtime().getRow();
+        ParkingLot[] lots = decodeLots(json);
+
+        assertEquals(rows.length, lots.length);
+        for (int i = 0; i < rows.length; i++) {
+            assertEquals(Integer.parseInt(rows[i].getPARKING_CODE()), lots[i].getParkingCode());
+            assertEquals(Double.parseDouble(rows[i].getLAT()), lots[i].getLat(), 0);
+            assertEquals(Double.parseDouble(rows[i].getLNG()), lots[i].getLng(), 0);
+            assertEquals(Integer.parseInt(rows[i].getCAPACITY()), lots[i].getCapacity());
+            assertEquals(Integer.parseInt(rows[i].getCUR_PARKING()), lots[i].getCurParking());
+            assertEquals(Integer.parseInt(rows[i].getRATES()), lots[i].getRates());
+            assertEquals(rows[i].getPARKING_NAME(), lots[i].getName());
+        }
+    }
+
+    /** Row (Reflection + MapsActivity 의 문자열 Parsing) vs ParkingLotAdapter, 1000 Row Page 기준 할당량. 시간은 :jmh 의 DecodeBenchmark */
+    @Test
+    public void decode_allocatesLessThanRowDecoding() throws Exception {
+        String json = ParkingFixtures.page(ROWS, 1, ROWS);
+
+        // Warm-up
+        for (int i = 0; i < ITERATIONS; i++) {
+            Benchmarks.blackhole += decodeRowsAndTransform(json);
+            Benchmarks.blackhole += decodeLotsAndTransform(json);
+        }
+
+        long rowBytes = Benchmarks.allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++)
+            Benchmarks.blackhole += decodeRowsAndTransform(json);
+        rowBytes = Benchmarks.allocatedBytes() - rowBytes;
+
+        long lotBytes = Benchmarks.allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++)
+            Benchmarks.blackhole += decodeLotsAndTransform(json);
+        lotBytes = Benchmarks.allocatedBytes() - lotBytes;
+
+        if (rowBytes > 0)
+            assertTrue("ParkingLot allocated " + lotBytes + " vs Row " + rowBytes, lotBytes < rowBytes);
+    }
+
+    private ParkingLot[] decodeLots(String json) throws IOException {
+        RowStream<ParkingLot> stream = RowStream.create(gson, new StringReader(json), ParkingLot.class);
+        try {
+            ParkingLot[] lots = new ParkingLot[stream.getTotalCount()];
+            int i = 0;
+            while (stream.hasNext())
+                lots[i++] = stream.next();
+            return lots;
+        } finally {
+            stream.close();
+        }
+    }
+
+    /** 기존 MapsActivity.onResponse 의 변환 */
+    private long decodeRowsAndTransform(String json) {
+        long sum = 0;
+        for (Row row : gson.fromJson(json, Data.class).getSearchParkingInfoRealtime().getRow()) {
+            double lat = Double.parseDouble(row.getLAT());
+            double lng = Double.parseDouble(row.getLNG());
+            double capa = Double.parseDouble(row.getCAPACITY());
+            double cur = Double.parseDouble(row.getCUR_PARKING());
+            sum += Integer.parseInt(row.getPARKING_CODE()) + (long) (lat + lng) + (long) (capa - cur);
+        }
+        return sum;
+    }
+
+    private long decodeLotsAndTransform(String json) throws IOException {
+        long sum = 0;
+        for (ParkingLot lot : decodeLots(json))
+            sum += lot.getParkingCode() + (long) (lot.getLat() + lot.getLng()) + lot.getRemaining();
+        return sum;
+    }
+}
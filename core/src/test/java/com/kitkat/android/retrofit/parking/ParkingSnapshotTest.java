@@ -0,0 +1,99 @@
+package com.kitkat.android.retrofit.parking;
+
+import com.kitkat.android.retrofit.Benchmarks;
+import com.kitkat.android.retrofit.ParkingFixtures;
+import com.kitkat.android.retrofit.domain.Row;
+import com.kitkat.android.retrofit.domain.SearchParkingInfoRealtime;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ParkingSnapshotTest {
+    private static final int CITY_ROWS = 20000;
+
+    @Test
+    public void builder_readsResponseIntoColumns() {
+        SearchParkingInfoRealtime response = ParkingFixtures.response(600);
+        ParkingSnapshot snapshot = new ParkingSnapshot.Builder().addAll(response).build();
+
+        assertEquals(600, snapshot.size());
+        for (int i = 0; i < snapshot.size(); i++) {
+            Row row = response.getRow()[i];
+            assertEquals(ParkingFixtures.parkingCode(i + 1), snapshot.code(i));
+            assertEquals(ParkingFixtures.lat(i + 1), snapshot.lat(i), 1e-9);
+            assertEquals(ParkingFixtures.lng(i + 1), snapshot.lng(i), 1e-9);
+            assertEquals(ParkingFixtures.capacity(i + 1), snapshot.capacity(i));
+            assertEquals(ParkingFixtures.curParking(i + 1), snapshot.current(i));
+            assertEquals(row.getPARKING_NAME(), snapshot.name(i));
+            assertEquals(row.getPAY_NM(), snapshot.payName(i));
+        }
+
+        // "유료" / "무료" 는 한 번씩만 보관
+        assertEquals(snapshot.payNameId(1), snapshot.payNameId(2));
+        assertEquals(snapshot.strings().find("무료"), snapshot.payNameId(4));
+    }
+
+    @Test
+    public void builder_sharesStringPoolAcrossSnapshots() {
+        ParkingSnapshot first = new ParkingSnapshot.Builder().addAll(ParkingFixtures.response(100)).build();
+        int pooled = first.strings().size();
+
+        ParkingSnapshot second = new ParkingSnapshot.Builder(first.strings()).addAll(ParkingFixtures.response(100)).build();
+
+        assertSame(first.strings(), second.strings());
+        assertEquals(pooled, second.strings().size());
+    }
+
+    @Test
+    public void queries_doNotAllocate() {
+        ParkingSnapshot snapshot = ParkingFixtures.snapshot(1000);
+        int[] remaining = new int[snapshot.size()];
+
+        // Warm-up (JIT, ThreadMXBean)
+        for (int i = 0; i < 100; i++)
+            Benchmarks.blackhole += sum(snapshot, remaining);
+
+        long before = Benchmarks.allocatedBytes();
+        for (int i = 0; i < 100; i++)
+            Benchmarks.blackhole += sum(snapshot, remaining);
+        long allocated = Benchmarks.allocatedBytes() - before;
+
+        // JIT / GC 통계 등 측정 잡음을 감안하여 방문한 주차장 100,000 개 당 몇 KB 이하이면 할당 없음으로 본다.
+        if (before >= 0)
+            assertTrue("allocated " + allocated + " bytes", allocated < 16 * 1024);
+    }
+
+    private static long sum(ParkingSnapshot snapshot, int[] remaining) {
+        snapshot.remaining(remaining);
+        long sum = 0;
+        for (int i = 0; i < snapshot.size(); i++)
+            sum += remaining[i] + (long) (snapshot.lat(i) * 1000) + (long) (snapshot.lng(i) * 1000);
+        return sum;
+    }
+
+    /** Snapshot 은 문자열을 StringPool Id 로만 가지므로 주차장 당 고정 크기 Column 뿐이다. (Row 는 주차장마다 String 20 여 개)
+     *  Heap 측정 대신 같은 StringPool 로 Snapshot 을 복사할 때 할당되는 양으로 판정 (문자열 Parsing 잡음 없음) */
+    @Test
+    public void footprint_isFixedColumnsPerLot() {
+        ParkingSnapshot source = ParkingFixtures.snapshot(CITY_ROWS);
+        Benchmarks.blackhole += copy(source).size();
+
+        long before = Benchmarks.allocatedBytes();
+        ParkingSnapshot snapshot = copy(source);
+        long allocated = Benchmarks.allocatedBytes() - before;
+
+        assertEquals(CITY_ROWS, snapshot.size());
+        assertEquals(source.strings().size(), snapshot.strings().size());
+        // Column 9 int + 3 double/long = 60 Byte. 2 배씩 늘리는 Builder 배열, 마지막 복사, PARKING_CODE Index 를 포함해도 이 이하
+        if (before >= 0)
+            assertTrue("allocated " + allocated / CITY_ROWS + " bytes per lot", allocated < CITY_ROWS * 320L);
+    }
+
+    private static ParkingSnapshot copy(ParkingSnapshot source) {
+        ParkingSnapshot.Builder builder = new ParkingSnapshot.Builder(source.strings());
+        for (int i = 0; i < source.size(); i++)
+            builder.add(source, i);
+        return builder.build();
+    }
+}
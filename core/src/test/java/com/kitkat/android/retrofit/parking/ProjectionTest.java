@@ -0,0 +1,109 @@
+package com.kitkat.android.retrofit.parking;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.kitkat.android.retrofit.Benchmarks;
+import com.kitkat.android.retrofit.ParkingFixtures;
+import com.kitkat.android.retrofit.converter.RowStream;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ProjectionTest {
+    private static final int ROWS = 1000;
+
+    @Test
+    public void of_alwaysIncludesParkingCodeAndRejectsUnknownFields() {
+        Projection projection = Projection.of("LAT");
+
+        assertTrue(projection.includes("PARKING_CODE"));
+        assertTrue(projection.includes("LAT"));
+        assertFalse(projection.includes("LNG"));
+        assertSame(Projection.ALL, Projection.of(Projection.FIELDS));
+        assertTrue(Projection.ALL.includes("ANYTHING"));
+        try {
+            Projection.of("lat");
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void projectedDecode_keepsOnlyDeclaredFields() throws Exception {
+        ParkingLot[] full = decode(Projection.ALL, ParkingFixtures.page(ROWS, 1, ROWS));
+        ParkingLot[] marker = decode(Projection.MARKER, ParkingFixtures.page(ROWS, 1, ROWS));
+
+        assertEquals(full.length, marker.length);
+        for (int i = 0; i < full.length; i++) {
+            assertEquals(full[i].getParkingCode(), marker[i].getParkingCode());
+            assertEquals(full[i].getLat(), marker[i].getLat(), 0);
+            assertEquals(full[i].getLng(), marker[i].getLng(), 0);
+            assertEquals(full[i].getCapacity(), marker[i].getCapacity());
+            assertEquals(full[i].getCurParking(), marker[i].getCurParking());
+            assertNull(marker[i].getName());
+            assertEquals(ParkingLot.UNKNOWN, marker[i].getCurParkingTime());
+        }
+        // Compact Row 에도 같은 Projection
+        ParkingLot compact = decode(Projection.MARKER, ParkingFixtures.compactPage(ROWS, 1, 1))[0];
+        assertEquals(full[0].getCapacity(), compact.getCapacity());
+        assertNull(compact.getName());
+    }
+
+    /** 1000 Row Page 를 Decode 할 때 할당되는 Byte (Row 당). Field 이름은 JsonReader.nextName() 이 매번 만든다. */
+    @Test
+    public void narrowerProjection_allocatesLess() throws Exception {
+        String json = ParkingFixtures.page(ROWS, 1, ROWS);
+        Projection[] projections = {Projection.ALL, Projection.SNAPSHOT, Projection.MARKER};
+        Gson[] gsons = new Gson[projections.length];
+        long[] allocated = new long[projections.length];
+        for (int p = 0; p < projections.length; p++)
+            gsons[p] = gson(projections[p]);
+
+        for (int i = 0; i < 20; i++) {
+            for (Gson gson : gsons)
+                Benchmarks.blackhole += decode(gson, json).length;
+        }
+        for (int p = 0; p < projections.length; p++) {
+            allocated[p] = Long.MAX_VALUE;
+            for (int round = 0; round < 5; round++) {
+                long before = Benchmarks.allocatedBytes();
+                Benchmarks.blackhole += decode(gsons[p], json).length;
+                allocated[p] = Math.min(allocated[p], Benchmarks.allocatedBytes() - before);
+            }
+        }
+
+        if (allocated[0] < 0)
+            return; // Allocation 을 셀 수 없는 JVM
+        assertTrue(allocated[1] < allocated[0]);
+        assertTrue(allocated[2] < allocated[1]);
+        assertTrue("marker " + allocated[2] + " vs all " + allocated[0], allocated[2] * 10 < allocated[0] * 7);
+    }
+
+    private static ParkingLot[] decode(Projection projection, String json) throws IOException {
+        return decode(gson(projection), json);
+    }
+
+    private static ParkingLot[] decode(Gson gson, String json) throws IOException {
+        RowStream<ParkingLot> stream = RowStream.create(gson, new StringReader(json), ParkingLot.class);
+        try {
+            List<ParkingLot> lots = new ArrayList<>();
+            while (stream.hasNext())
+                lots.add(stream.next());
+            return lots.toArray(new ParkingLot[lots.size()]);
+        } finally {
+            stream.close();
+        }
+    }
+
+    private static Gson gson(Projection projection) {
+        return new GsonBuilder()
+                .registerTypeAdapter(ParkingLot.class, new ParkingLotAdapter(projection))
+                .create();
+    }
+}
@@ -0,0 +1,169 @@
+package com.kitkat.android.retrofit.parking;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.kitkat.android.retrofit.Benchmarks;
+import com.kitkat.android.retrofit.ParkingFixtures;
+import com.kitkat.android.retrofit.converter.RowStream;
+import com.kitkat.android.retrofit.domain.Data;
+import com.kitkat.android.retrofit.domain.SearchParkingInfoRealtime;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ScheduleTableTest {
+    // 2017-03-25 (토) 에 기록한 Open API 응답 (서울시 공영주차장) + 야간 전용 / 운영정보 없는 주차장
+    private static final String RECORDED = "/ParkingSchedules.json";
+    private static final int SEJONGNO = 0;      // 0000 ~ 2400, 430원 / 5분
+    private static final int NAMSAN = 2;        // 250원 / 5분, 일 최대 20000원
+    private static final int EULJIRO = 3;       // 평일 0900 ~ 1900, 토요일 미운영 / 무료, 공휴일 무료
+    private static final int SEOUL_STATION = 4; // 무료
+    private static final int YEOKSAM = 5;       // 평일 / 토요일 1800 ~ 0700, 30분 1000원 + 10분 500원, 일 최대 15000원
+    private static final int MAPO = 6;          // 운영시간 / 요금 없음
+
+    private static String recordedJson() throws IOException {
+        Reader reader = new InputStreamReader(ScheduleTableTest.class.getResourceAsStream(RECORDED), Charset.forName("UTF-8"));
+        try {
+            StringBuilder sb = new StringBuilder();
+            char[] buffer = new char[4096];
+            for (int n; (n = reader.read(buffer)) != -1; )
+                sb.append(buffer, 0, n);
+            return sb.toString();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static SearchParkingInfoRealtime recorded() throws IOException {
+        return new Gson().fromJson(recordedJson(), Data.class).getSearchParkingInfoRealtime();
+    }
+
+    private static ParkingLot[] lots(String json) throws IOException {
+        Gson gson = new GsonBuilder().registerTypeAdapter(ParkingLot.class, new ParkingLotAdapter()).create();
+        RowStream<ParkingLot> stream = RowStream.create(gson, new StringReader(json), ParkingLot.class);
+        try {
+            List<ParkingLot> lots = new ArrayList<>();
+            while (stream.hasNext())
+                lots.add(stream.next());
+            return lots.toArray(new ParkingLot[lots.size()]);
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test
+    public void recordedRows_openingHours() throws Exception {
+        ScheduleTable table = new ScheduleTable.Builder().addAll(recorded()).build();
+        int weekday = ScheduleTable.WEEKDAY;
+
+        assertEquals(7, table.size());
+        assertEquals(ScheduleTable.OPEN, table.open(SEJONGNO, weekday, 0));
+        assertEquals(ScheduleTable.OPEN, table.open(SEJONGNO, ScheduleTable.HOLIDAY, 23 * 60 + 59));
+
+        assertEquals(ScheduleTable.CLOSED, table.open(EULJIRO, weekday, 9 * 60 - 1));
+        assertEquals(ScheduleTable.OPEN, table.open(EULJIRO, weekday, 9 * 60));
+        assertEquals(ScheduleTable.CLOSED, table.open(EULJIRO, weekday, 19 * 60));
+        assertEquals(ScheduleTable.CLOSED, table.open(EULJIRO, ScheduleTable.WEEKEND, 12 * 60)); // "0000" ~ "0000"
+
+        // 자정을 넘겨 운영
+        assertEquals(ScheduleTable.OPEN, table.open(YEOKSAM, weekday, 23 * 60));
+        assertEquals(ScheduleTable.OPEN, table.open(YEOKSAM, weekday, 7 * 60 - 1));
+        assertEquals(ScheduleTable.CLOSED, table.open(YEOKSAM, weekday, 7 * 60));
+        assertEquals(ScheduleTable.CLOSED, table.open(YEOKSAM, weekday, 12 * 60));
+
+        assertEquals(ScheduleTable.UNKNOWN, table.open(MAPO, weekday, 12 * 60));
+    }
+
+    @Test
+    public void recordedRows_estimatedCost() throws Exception {
+        ScheduleTable table = new ScheduleTable.Builder().addAll(recorded()).build();
+        int weekday = ScheduleTable.WEEKDAY;
+
+        assertEquals(430 * 24, table.cost(SEJONGNO, weekday, 120));
+        assertEquals(430, table.cost(SEJONGNO, weekday, 1));
+        assertEquals(0, table.cost(SEJONGNO, weekday, 0));
+
+        assertEquals(250 * 24, table.cost(NAMSAN, weekday, 120));
+        assertEquals(20000, table.cost(NAMSAN, weekday, 10 * 60));
+        assertEquals(20000 + 250 * 72, table.cost(NAMSAN, weekday, 30 * 60)); // 하루 최대 + 다음날 6시간
+
+        assertEquals(300 * 24, table.cost(EULJIRO, weekday, 120));
+        assertEquals(0, table.cost(EULJIRO, ScheduleTable.WEEKEND, 120));
+        assertEquals(0, table.cost(EULJIRO, ScheduleTable.HOLIDAY, 120));
+
+        assertEquals(0, table.cost(SEOUL_STATION, weekday, 120));
+
+        assertEquals(1000 + 9 * 500, table.cost(YEOKSAM, weekday, 120));
+        assertEquals(1000 + 27 * 500, table.cost(YEOKSAM, weekday, 5 * 60));
+        assertEquals(15000, table.cost(YEOKSAM, weekday, 6 * 60));
+
+        assertEquals(ScheduleTable.UNKNOWN, table.cost(MAPO, weekday, 120));
+    }
+
+    @Test
+    public void evaluate_matchesPerLotAndParkingLotIngest() throws Exception {
+        ScheduleTable fromRows = new ScheduleTable.Builder().addAll(recorded()).build();
+        ScheduleTable fromLots = new ScheduleTable.Builder().addAll(lots(recordedJson())).build();
+        byte[] open = new byte[fromRows.size()];
+        int[] cost = new int[fromRows.size()];
+
+        for (int day = ScheduleTable.WEEKDAY; day <= ScheduleTable.HOLIDAY; day++) {
+            for (int minute = 0; minute < 24 * 60; minute += 7) {
+                int count = fromLots.evaluate(day, minute, 95, open, cost);
+                int expected = 0;
+                for (int i = 0; i < fromRows.size(); i++) {
+                    assertEquals(fromRows.open(i, day, minute), open[i]);
+                    assertEquals(fromRows.cost(i, day, 95), cost[i]);
+                    if (open[i] == ScheduleTable.OPEN)
+                        expected++;
+                }
+                assertEquals(expected, count);
+            }
+        }
+    }
+
+    @Test
+    public void dayTypeAndMinuteOfDay_inSeoul() {
+        long recordedAt = FieldParser.parseSeoulDateTime("2017-03-25 15:04:12");
+        assertEquals(ScheduleTable.WEEKEND, ScheduleTable.dayType(recordedAt));
+        assertEquals(15 * 60 + 4, ScheduleTable.minuteOfDay(recordedAt));
+        assertEquals(ScheduleTable.HOLIDAY, ScheduleTable.dayType(FieldParser.parseSeoulDateTime("2017-03-26 00:00:00")));
+        assertEquals(ScheduleTable.WEEKDAY, ScheduleTable.dayType(FieldParser.parseSeoulDateTime("2017-03-27 08:59:00")));
+        // UTC 로는 아직 일요일
+        assertEquals(ScheduleTable.WEEKDAY, ScheduleTable.dayType(FieldParser.parseSeoulDateTime("2017-03-27 00:30:00")));
+        assertEquals(30, ScheduleTable.minuteOfDay(FieldParser.parseSeoulDateTime("2017-03-27 00:30:00")));
+    }
+
+    /** 20000 주차장의 운영 여부 / 2시간 요금. 미리 만든 Table 은 문자열을 다시 읽지 않는다. 시간은 :jmh 의 ScheduleBenchmark */
+    @Test
+    public void evaluate_doesNotAllocate() throws Exception {
+        int size = 20000;
+        SearchParkingInfoRealtime response = new Gson().fromJson(ParkingFixtures.page(size, 1, size), Data.class)
+                .getSearchParkingInfoRealtime();
+        ScheduleTable table = new ScheduleTable.Builder().addAll(response).build();
+        byte[] open = new byte[size];
+        int[] cost = new int[size];
+
+        // Warm-up (JIT, ThreadMXBean)
+        for (int i = 0; i < 20; i++)
+            Benchmarks.blackhole += table.evaluate(ScheduleTable.WEEKDAY, 14 * 60, 120, open, cost);
+
+        long before = Benchmarks.allocatedBytes();
+        for (int i = 0; i < 10; i++)
+            Benchmarks.blackhole += table.evaluate(ScheduleTable.WEEKDAY, 14 * 60, 120, open, cost);
+        long allocated = Benchmarks.allocatedBytes() - before;
+
+        // 측정 잡음 (JIT 등) 을 감안하여 주차장 당 1 Byte 미만이면 할당 없음으로 본다.
+        if (before >= 0)
+            assertTrue("allocated " + allocated + " bytes", allocated < size);
+    }
+}
@@ -0,0 +1,78 @@
+package com.kitkat.android.retrofit.parking;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SnapshotDiffTest {
+
+    private static ParkingLot lot(int code, int capacity, int current, long updatedAt) {
+        ParkingLot lot = new ParkingLot();
+        lot.parkingCode = code;
+        lot.capacity = capacity;
+        lot.curParking = current;
+        lot.curParkingTime = updatedAt;
+        return lot;
+    }
+
+    private static ParkingSnapshot snapshot(ParkingLot... lots) {
+        return new ParkingSnapshot.Builder().addAll(lots).build();
+    }
+
+    @Test
+    public void compute_reportsAddedRemovedChanged() {
+        ParkingSnapshot previous = snapshot(
+                lot(1, 30, 10, 100),
+                lot(2, 30, 10, 100),
+                lot(3, 30, 10, 100),
+                lot(4, 30, 10, 100));
+        ParkingSnapshot current = snapshot(
+                lot(2, 30, 10, 200),  // 시각만 바뀌고 점유는 같음
+                lot(3, 30, 12, 200),  // 변경
+                lot(1, 30, 10, 100),  // 그대로
+                lot(5, 20, 0, 200));  // 추가, 4 는 삭제
+
+        SnapshotDiff diff = SnapshotDiff.compute(previous, current);
+
+        assertArrayEquals(new int[] { 3 }, diff.added());
+        assertArrayEquals(new int[] { 3 }, diff.removed());
+        assertEquals(4, previous.code(diff.removed()[0]));
+        assertArrayEquals(new int[] { 1 }, diff.changed());
+        assertEquals(3, current.code(diff.changed()[0]));
+        assertFalse(diff.isEmpty());
+    }
+
+    @Test
+    public void compute_sameUpdateTimeSkipsComparison() {
+        ParkingSnapshot previous = snapshot(lot(1, 30, 10, 100));
+        ParkingSnapshot current = snapshot(lot(1, 30, 11, 100));
+
+        assertTrue(SnapshotDiff.compute(previous, current).isEmpty());
+    }
+
+    @Test
+    public void compute_unknownUpdateTimeComparesOccupancy() {
+        ParkingSnapshot previous = snapshot(lot(1, 30, 10, ParkingLot.UNKNOWN));
+        ParkingSnapshot current = snapshot(lot(1, 30, 11, ParkingLot.UNKNOWN));
+
+        assertArrayEquals(new int[] { 0 }, SnapshotDiff.compute(previous, current).changed());
+    }
+
+    @Test
+    public void compute_withoutPreviousEverythingIsAdded() {
+        ParkingSnapshot current = snapshot(lot(1, 30, 10, 100), lot(2, 30, 10, 100), lot(1, 30, 10, 100));
+
+        SnapshotDiff diff = SnapshotDiff.compute(null, current);
+
+        assertArrayEquals(new int[] { 0, 1 }, diff.added());
+        assertEquals(0, diff.removed().length);
+        assertEquals(0, diff.changed().length);
+    }
+
+    @Test
+    public void compute_identicalSnapshotsAreEmpty() {
+        ParkingSnapshot snapshot = snapshot(lot(1, 30, 10, 100), lot(2, 30, 5, 100));
+
+        assertTrue(SnapshotDiff.compute(snapshot, snapshot).isEmpty());
+    }
+}
@@ -0,0 +1,133 @@
+package com.kitkat.android.retrofit.parking;
+
+import com.kitkat.android.retrofit.ParkingFixtures;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+public class SnapshotStoreTest {
+    private static final int CITY_ROWS = 20000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SnapshotStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new SnapshotStore(new File(folder.getRoot(), "parking.snapshot"));
+    }
+
+    private static void assertSameLots(ParkingSnapshot expected, ParkingSnapshot actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.code(i), actual.code(i));
+            assertEquals(expected.lat(i), actual.lat(i), 0);
+            assertEquals(expected.lng(i), actual.lng(i), 0);
+            assertEquals(expected.capacity(i), actual.capacity(i));
+            assertEquals(expected.current(i), actual.current(i));
+            assertEquals(expected.updatedAt(i), actual.updatedAt(i));
+            assertEquals(expected.name(i), actual.name(i));
+            assertEquals(expected.addr(i), actual.addr(i));
+            assertEquals(expected.tel(i), actual.tel(i));
+            assertEquals(expected.payName(i), actual.payName(i));
+            assertEquals(expected.typeName(i), actual.typeName(i));
+            assertEquals(expected.nightOpen(i), actual.nightOpen(i));
+            assertEquals(i, actual.indexOf(actual.code(i)));
+        }
+    }
+
+    private void corrupt(long offset, int value) throws Exception {
+        RandomAccessFile file = new RandomAccessFile(store.getFile(), "rw");
+        try {
+            file.seek(offset);
+            file.writeInt(value);
+        } finally {
+            file.close();
+        }
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        ParkingSnapshot snapshot = ParkingFixtures.snapshot(600);
+        store.write(snapshot);
+
+        ParkingSnapshot read = store.read();
+        assertSameLots(snapshot, read);
+        assertEquals(snapshot.strings().size(), read.strings().size());
+    }
+
+    @Test
+    public void roundTrip_empty() throws Exception {
+        store.write(new ParkingSnapshot.Builder().build());
+        assertEquals(0, store.read().size());
+    }
+
+    @Test
+    public void missingFile_returnsNull() throws Exception {
+        assertNull(store.read());
+    }
+
+    @Test
+    public void versionMismatch_fallsBackAndDeletes() throws Exception {
+        store.write(ParkingFixtures.snapshot(100));
+        corrupt(4, SnapshotStore.VERSION + 1);
+
+        assertNull(store.read());
+        assertFalse(store.getFile().exists());
+    }
+
+    @Test
+    public void corruptBody_failsChecksum() throws Exception {
+        store.write(ParkingFixtures.snapshot(100));
+        corrupt(store.getFile().length() - 64, 0x7fffffff);
+
+        assertNull(store.read());
+        assertFalse(store.getFile().exists());
+    }
+
+    @Test
+    public void truncatedFile_returnsNull() throws Exception {
+        store.write(ParkingFixtures.snapshot(100));
+        RandomAccessFile file = new RandomAccessFile(store.getFile(), "rw");
+        try {
+            file.setLength(file.length() / 2);
+        } finally {
+            file.close();
+        }
+
+        assertNull(store.read());
+    }
+
+    @Test
+    public void overwrite_replacesPreviousSnapshot() throws Exception {
+        store.write(ParkingFixtures.snapshot(100));
+        ParkingSnapshot second = ParkingFixtures.snapshot(300);
+        store.write(second);
+
+        assertSameLots(second, store.read());
+        assertFalse(new File(store.getFile().getPath() + ".tmp").exists());
+    }
+
+    /** 도시 전체 크기에서도 Column 을 그대로 쓰므로 File 은 Header + StringPool + 주차장 당 고정 크기. 시간은 :jmh 의 SnapshotStoreBenchmark */
+    @Test
+    public void roundTrip_cityScale() throws Exception {
+        ParkingSnapshot snapshot = ParkingFixtures.snapshot(CITY_ROWS);
+        store.write(snapshot);
+
+        assertSameLots(snapshot, store.read());
+
+        long strings = 0;
+        for (int id = 0; id < snapshot.strings().size(); id++)
+            strings += 4 + snapshot.strings().get(id).getBytes("UTF-8").length;
+        assertEquals(SnapshotStore.HEADER_BYTES + strings + (long) CITY_ROWS * SnapshotStore.BYTES_PER_LOT,
+                store.getFile().length());
+    }
+}
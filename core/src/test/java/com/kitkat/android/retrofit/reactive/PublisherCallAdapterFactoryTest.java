@@ -0,0 +1,270 @@
+package com.kitkat.android.retrofit.reactive;
+
+import com.kitkat.android.retrofit.ParkingDispatcher;
+import com.kitkat.android.retrofit.ParkingFixtures;
+import com.kitkat.android.retrofit.domain.Row;
+import com.kitkat.android.retrofit.network.ApiClient;
+import com.kitkat.android.retrofit.network.OpenApiException;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.http.GET;
+import retrofit2.http.Path;
+import retrofit2.http.Streaming;
+
+import static org.junit.Assert.*;
+
+public class PublisherCallAdapterFactoryTest {
+    private static final int TOTAL = 1000;
+    private static final int BATCH = PublisherCallAdapterFactory.DEFAULT_BATCH_SIZE;
+
+    private MockWebServer server;
+    private ApiClient client;
+
+    interface RowService {
+        @Streaming
+        @GET("666569554d63686f36356b6f5a615a/json/SearchParkingInfoRealtime/{start}/{end}/{gu}")
+        Publisher<Row[]> rows(@Path("gu") String gu, @Path("start") int start, @Path("end") int end);
+
+        @GET("666569554d63686f36356b6f5a615a/json/SearchParkingInfoRealtime/{start}/{end}/{gu}")
+        Publisher<Row[]> buffered(@Path("gu") String gu, @Path("start") int start, @Path("end") int end);
+
+        @Streaming
+        @GET("666569554d63686f36356b6f5a615a/json/SearchParkingInfoRealtime/{start}/{end}/{gu}")
+        Publisher<Row> single(@Path("gu") String gu, @Path("start") int start, @Path("end") int end);
+    }
+
+    /** 받은 Signal 을 순서대로 기록 */
+    private static final class RecordingSubscriber<T> implements Subscriber<T[]> {
+        final BlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+        final CountDownLatch terminated = new CountDownLatch(1);
+        volatile Subscription subscription;
+        volatile int batches;
+        volatile int rows;
+        volatile Throwable error;
+        volatile boolean completed;
+        private final long initialRequest;
+
+        RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0)
+                subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(T[] batch) {
+            batches++;
+            rows += batch.length;
+            signals.add(batch);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            terminated.countDown();
+        }
+
+        Object[] take() throws InterruptedException {
+            Object[] batch = (Object[]) signals.poll(5, TimeUnit.SECONDS);
+            assertNotNull("no batch", batch);
+            return batch;
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("not terminated", terminated.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        client = new ApiClient(server.url("/").toString());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    // 초당 bytesPerSecond 로 보내는 느린 서버
+    private void enqueueSlowPage(int total, long bytesPerSecond) {
+        server.enqueue(new MockResponse().setBody(ParkingFixtures.page(total, 1, total))
+                .throttleBody(bytesPerSecond / 20, 50, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void batches_deliverOnlyWhatWasRequested() throws Exception {
+        server.setDispatcher(new ParkingDispatcher(TOTAL));
+        Publisher<ParkingLot[]> publisher = client.getOpenApiService().batches("중구", 1, TOTAL);
+        // subscribe() 만으로는 Request 를 보내지 않는다.
+        RecordingSubscriber<ParkingLot> subscriber = new RecordingSubscriber<>(0);
+        publisher.subscribe(subscriber);
+        Thread.sleep(100);
+        assertEquals(0, server.getRequestCount());
+
+        subscriber.subscription.request(2);
+        for (int b = 0; b < 2; b++) {
+            Object[] batch = subscriber.take();
+            assertEquals(BATCH, batch.length);
+            for (int i = 0; i < batch.length; i++)
+                assertEquals(ParkingFixtures.parkingCode(b * BATCH + i + 1), ((ParkingLot) batch[i]).getParkingCode());
+        }
+        // 수요가 0 이면 더 Decode 하지 않는다.
+        Thread.sleep(200);
+        assertEquals(2, subscriber.batches);
+        assertFalse(subscriber.completed);
+
+        // TOTAL 은 BATCH 의 배수 : 남은 Batch 만큼만 요청해도 마지막 꽉 찬 Batch 와 함께 완료된다.
+        subscriber.subscription.request(TOTAL / BATCH - 2);
+        subscriber.await();
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+        assertEquals(TOTAL / BATCH, subscriber.batches);
+        assertEquals(TOTAL, subscriber.rows);
+        assertEquals(1, server.getRequestCount());
+
+        // 다시 subscribe() 하면 새 Request (Cold Publisher)
+        RecordingSubscriber<ParkingLot> again = new RecordingSubscriber<>(Long.MAX_VALUE);
+        publisher.subscribe(again);
+        again.await();
+        assertEquals(TOTAL, again.rows);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    /** 느린 서버 → Decode → 느린 Render 를 크기 2 의 Queue 로 이은 Pipeline */
+    @Test
+    public void slowServer_pipelineStaysBounded() throws Exception {
+        enqueueSlowPage(TOTAL, 2 * 1024 * 1024);
+        final int capacity = 2;
+        final BlockingQueue<Row[]> queue = new ArrayBlockingQueue<>(capacity);
+        final CountDownLatch done = new CountDownLatch(1);
+        final boolean[] overflow = new boolean[1];
+        final Subscription[] subscription = new Subscription[1];
+
+        client.getRetrofit().create(RowService.class).rows("중구", 1, TOTAL).subscribe(new Subscriber<Row[]>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription[0] = s;
+                s.request(capacity); // Queue 의 빈 자리만큼
+            }
+
+            @Override
+            public void onNext(Row[] batch) {
+                if (!queue.offer(batch))
+                    overflow[0] = true;
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                done.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                done.countDown();
+            }
+        });
+
+        // Render : Batch 하나에 60 ms (서버보다 느림), 처리한 만큼 다시 요청
+        int rows = 0, maxQueued = 0;
+        while (rows < TOTAL) {
+            maxQueued = Math.max(maxQueued, queue.size());
+            Row[] batch = queue.poll(5, TimeUnit.SECONDS);
+            assertNotNull(batch);
+            for (int i = 0; i < batch.length; i++)
+                assertEquals(String.valueOf(ParkingFixtures.parkingCode(rows + i + 1)), batch[i].getPARKING_CODE());
+            rows += batch.length;
+            Thread.sleep(60);
+            subscription[0].request(1);
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertFalse("queue overflow", overflow[0]);
+        assertTrue(maxQueued <= capacity);
+    }
+
+    @Test
+    public void cancel_stopsDeliveryWithoutError() throws Exception {
+        enqueueSlowPage(TOTAL, 100 * 1024);
+        RecordingSubscriber<Row> subscriber = new RecordingSubscriber<>(1);
+        client.getRetrofit().create(RowService.class).rows("중구", 1, TOTAL).subscribe(subscriber);
+
+        assertEquals(BATCH, subscriber.take().length);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(5);
+        Thread.sleep(300);
+
+        assertEquals(1, subscriber.batches);
+        assertFalse(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void errors_areSignalledAsOpenApiException() throws Exception {
+        RowService service = client.getRetrofit().create(RowService.class);
+
+        server.enqueue(new MockResponse().setResponseCode(503));
+        RecordingSubscriber<Row> http = new RecordingSubscriber<>(1);
+        service.rows("중구", 1, TOTAL).subscribe(http);
+        http.await();
+        assertEquals(503, ((OpenApiException) http.error).getHttpCode());
+
+        server.enqueue(new MockResponse().setBody(ParkingFixtures.error("ERROR-500", "서버 오류입니다.")));
+        RecordingSubscriber<Row> result = new RecordingSubscriber<>(1);
+        service.rows("중구", 1, TOTAL).subscribe(result);
+        result.await();
+        assertEquals("ERROR-500", ((OpenApiException) result.error).getResultCode());
+
+        // 데이터 없음은 오류가 아니다.
+        server.enqueue(new MockResponse().setBody(ParkingFixtures.error("INFO-200", "해당하는 데이터가 없습니다.")));
+        RecordingSubscriber<Row> empty = new RecordingSubscriber<>(1);
+        service.rows("중구", 1, TOTAL).subscribe(empty);
+        empty.await();
+        assertTrue(empty.completed);
+        assertEquals(0, empty.batches);
+
+        RecordingSubscriber<Row> invalid = new RecordingSubscriber<>(0);
+        service.rows("중구", 1, TOTAL).subscribe(invalid);
+        invalid.subscription.request(0);
+        invalid.await();
+        assertTrue(invalid.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void get_rejectsUnsupportedMethods() {
+        RowService service = client.getRetrofit().create(RowService.class);
+        try {
+            service.buffered("중구", 1, TOTAL); // @Streaming 없음
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            service.single("중구", 1, TOTAL); // Batch 가 아님
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.kitkat.android.retrofit.render;
+
+import com.kitkat.android.retrofit.ParkingFixtures;
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+import com.kitkat.android.retrofit.spatial.ClusterIndex;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ClusterRendererTest {
+    private static final class RecordingLayer implements ClusterRenderer.Layer<Integer> {
+        final Set<Integer> onMap = new HashSet<>();
+        int added, removed;
+        private int next;
+
+        @Override
+        public Integer add(ClusterIndex.Level level, int c) {
+            added++;
+            onMap.add(next);
+            return next++;
+        }
+
+        @Override
+        public void remove(Integer marker) {
+            assertTrue(onMap.remove(marker));
+            removed++;
+        }
+
+        @Override
+        public void flush() {
+            // add / remove 를 바로 기록하므로 할 일 없음
+        }
+    }
+
+    private ClusterIndex clusters;
+    private RecordingLayer layer;
+    private ClusterRenderer<Integer> renderer;
+
+    @Before
+    public void setUp() {
+        ParkingSnapshot snapshot = ParkingFixtures.snapshot(3000);
+        clusters = ClusterIndex.build(snapshot);
+        layer = new RecordingLayer();
+        renderer = new ClusterRenderer<>(layer, 0);
+        renderer.setClusters(clusters);
+    }
+
+    @Test
+    public void zoomChange_swapsLevel() {
+        renderer.setViewport(10, -90, -180, 90, 180);
+        ClusterIndex.Level level10 = renderer.getLevel();
+        assertSame(clusters.level(10), level10);
+        assertEquals(level10.size(), layer.onMap.size());
+
+        renderer.setViewport(13, -90, -180, 90, 180);
+        assertSame(clusters.level(13), renderer.getLevel());
+        assertEquals(clusters.level(13).size(), layer.onMap.size());
+        assertEquals(level10.size(), layer.removed);
+    }
+
+    @Test
+    public void sameLevel_reusesMarkers() {
+        renderer.setViewport(12, -90, -180, 90, 180);
+        int added = layer.added;
+
+        // 같은 Level (12.x) 에서 다시 호출하면 그대로
+        renderer.setViewport(12.7, -90, -180, 90, 180);
+        assertEquals(added, layer.added);
+        assertEquals(0, layer.removed);
+    }
+
+    @Test
+    public void setClusters_redrawsTheCurrentViewport() {
+        renderer.setViewport(10, -90, -180, 90, 180);
+        int before = layer.onMap.size();
+        assertTrue(before > 0);
+
+        // 구 하나가 더 도착하거나 Refresh 되어 새 Cluster 로 교체 : Camera 가 움직이지 않아도 바로 그린다.
+        ClusterIndex next = ClusterIndex.build(ParkingFixtures.snapshot(3000));
+        renderer.setClusters(next);
+        assertSame(next.level(10), renderer.getLevel());
+        assertEquals(next.level(10).size(), layer.onMap.size());
+        assertEquals(layer.onMap.size(), renderer.visibleCount());
+        assertEquals(before, layer.removed);
+
+        // 같은 Cluster 로 다시 교체해도 그대로 보인다.
+        renderer.setClusters(next);
+        assertEquals(next.level(10).size(), layer.onMap.size());
+    }
+
+    @Test
+    public void clear_removesEverythingUntilNextViewport() {
+        renderer.setViewport(10, -90, -180, 90, 180);
+        renderer.clear();
+        assertTrue(layer.onMap.isEmpty());
+
+        renderer.setClusters(clusters);
+        assertTrue(layer.onMap.isEmpty());
+    }
+}
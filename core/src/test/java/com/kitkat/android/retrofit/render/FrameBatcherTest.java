@@ -0,0 +1,114 @@
+package com.kitkat.android.retrofit.render;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class FrameBatcherTest {
+    /** Main Looper 처럼 execute() 된 Runnable 을 쌓아 두었다가 하나씩 실행 */
+    private static final class ManualLooper implements Executor {
+        final List<Runnable> messages = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            messages.add(command);
+        }
+
+        boolean runOne() {
+            if (messages.isEmpty())
+                return false;
+            messages.remove(0).run();
+            return true;
+        }
+
+        int runAll() {
+            int n = 0;
+            while (runOne())
+                n++;
+            return n;
+        }
+    }
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = from; i < to; i++)
+            values.add(i);
+        return values;
+    }
+
+    @Test
+    public void submit_appliesInOrderAndRunsBarrierAfterItems() {
+        ManualLooper looper = new ManualLooper();
+        final List<Object> applied = new ArrayList<>();
+        FrameBatcher<Integer> batcher = new FrameBatcher<>(looper, new FrameBatcher.Sink<Integer>() {
+            @Override
+            public void apply(Integer item) {
+                applied.add(item);
+            }
+        });
+
+        batcher.submit(range(0, 3));
+        batcher.post(new Runnable() {
+            @Override
+            public void run() {
+                applied.add("done");
+            }
+        });
+        batcher.submit(range(3, 5));
+
+        // 여러 번 submit 해도 Main Thread 에 예약되는 Message 는 하나
+        assertEquals(1, looper.messages.size());
+        looper.runAll();
+
+        assertEquals(Arrays.<Object>asList(0, 1, 2, "done", 3, 4), applied);
+        assertEquals(0, batcher.pending());
+    }
+
+    @Test
+    public void drain_yieldsToLooperWhenBudgetIsExceeded() {
+        ManualLooper looper = new ManualLooper();
+        final List<Integer> applied = new ArrayList<>();
+        // Budget 0 : Clock 을 확인할 때마다 (8 Item) 다음 Message 로 넘긴다.
+        FrameBatcher<Integer> batcher = new FrameBatcher<>(looper, new FrameBatcher.Sink<Integer>() {
+            @Override
+            public void apply(Integer item) {
+                applied.add(item);
+            }
+        }, 0);
+
+        batcher.submit(range(0, 100));
+        looper.runOne();
+        assertEquals(8, applied.size());
+        assertEquals(1, looper.messages.size());
+
+        looper.runAll();
+        assertEquals(range(0, 100), applied);
+        assertEquals(13, batcher.batchCount());
+    }
+
+    @Test
+    public void cancel_dropsPendingItems() {
+        ManualLooper looper = new ManualLooper();
+        final List<Integer> applied = new ArrayList<>();
+        FrameBatcher<Integer> batcher = new FrameBatcher<>(looper, new FrameBatcher.Sink<Integer>() {
+            @Override
+            public void apply(Integer item) {
+                applied.add(item);
+            }
+        }, 0);
+
+        batcher.submit(range(0, 100));
+        looper.runOne();
+        batcher.cancel();
+        batcher.submit(range(100, 110));
+        looper.runAll();
+
+        assertEquals(8, applied.size());
+        assertTrue(batcher.isCancelled());
+    }
+}
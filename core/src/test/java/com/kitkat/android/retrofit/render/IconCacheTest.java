@@ -0,0 +1,66 @@
+package com.kitkat.android.retrofit.render;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IconCacheTest {
+    /** Key 마다 새 Icon (String) 을 만들고 횟수를 센다. */
+    private static final class CountingFactory implements IconCache.Factory<String> {
+        int created;
+
+        @Override
+        public String create(int key) {
+            created++;
+            return "icon " + key + " #" + created;
+        }
+    }
+
+    @Test
+    public void get_createsEachKeyOnce() {
+        CountingFactory factory = new CountingFactory();
+        IconCache<String> icons = new IconCache<>(8, factory);
+
+        String first = icons.get(3);
+        for (int i = 0; i < 100; i++)
+            assertSame(first, icons.get(3));
+        assertEquals(1, factory.created);
+        assertEquals(100, icons.hits());
+        assertEquals(1, icons.misses());
+        assertEquals(100 / 101.0, icons.hitRate(), 1e-9);
+        assertTrue(Double.isNaN(new IconCache<>(factory).hitRate()));
+    }
+
+    @Test
+    public void get_evictsLeastRecentlyUsed() {
+        CountingFactory factory = new CountingFactory();
+        IconCache<String> icons = new IconCache<>(2, factory);
+
+        String one = icons.get(1);
+        icons.get(2);
+        assertSame(one, icons.get(1)); // 2 가 가장 오래 쓰지 않은 Key
+        icons.get(3);
+
+        assertTrue(icons.contains(1));
+        assertFalse(icons.contains(2));
+        assertTrue(icons.contains(3));
+        assertEquals(2, icons.size());
+        assertEquals(1, icons.evictions());
+
+        // 다시 만들면 새 Icon
+        assertEquals(3, factory.created);
+        icons.get(2);
+        assertEquals(4, factory.created);
+        assertFalse(icons.contains(1));
+
+        icons.clear();
+        assertEquals(0, icons.size());
+        icons.get(3);
+        assertEquals(5, factory.created);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacity_mustBePositive() {
+        new IconCache<>(0, new CountingFactory());
+    }
+}
@@ -0,0 +1,407 @@
+package com.kitkat.android.retrofit.render;
+
+import com.kitkat.android.retrofit.ParkingFixtures;
+import com.kitkat.android.retrofit.domain.Row;
+import com.kitkat.android.retrofit.domain.SearchParkingInfoRealtime;
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+import com.kitkat.android.retrofit.spatial.ClusterIndex;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class MarkerLayerTest {
+    /** Main Looper 처럼 execute() 된 Runnable 을 쌓아 두었다가 하나씩 실행 (한 번 = 한 Frame) */
+    private static final class ManualLooper implements Executor {
+        final List<Runnable> messages = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            messages.add(command);
+        }
+
+        int runAll() {
+            int n = 0;
+            while (!messages.isEmpty()) {
+                messages.remove(0).run();
+                n++;
+            }
+            return n;
+        }
+    }
+
+    private static final class FakeMarker {
+        double lat, lng;
+        String icon;
+        boolean visible = true;
+        MarkerLayer.Handle handle;
+    }
+
+    /** GoogleMap 대신 Marker 를 기록하고 호출 수를 센다. */
+    private static final class RecordingCanvas implements MarkerLayer.Canvas<FakeMarker, String> {
+        final Set<FakeMarker> onMap = new HashSet<>();
+        int creates, moves, icons, shows, hides, removes;
+
+        int visible() {
+            int n = 0;
+            for (FakeMarker marker : onMap)
+                if (marker.visible)
+                    n++;
+            return n;
+        }
+
+        int calls() {
+            return creates + moves + icons + shows + hides + removes;
+        }
+
+        @Override
+        public FakeMarker create(MarkerLayer.Handle handle, String icon) {
+            creates++;
+            FakeMarker marker = new FakeMarker();
+            marker.lat = handle.lat();
+            marker.lng = handle.lng();
+            marker.icon = icon;
+            marker.handle = handle;
+            onMap.add(marker);
+            return marker;
+        }
+
+        @Override
+        public void move(FakeMarker marker, double lat, double lng) {
+            moves++;
+            marker.lat = lat;
+            marker.lng = lng;
+        }
+
+        @Override
+        public void setIcon(FakeMarker marker, String icon) {
+            icons++;
+            marker.icon = icon;
+        }
+
+        @Override
+        public void show(FakeMarker marker, MarkerLayer.Handle handle) {
+            shows++;
+            assertFalse(marker.visible);
+            marker.visible = true;
+            marker.handle = handle;
+        }
+
+        @Override
+        public void hide(FakeMarker marker) {
+            hides++;
+            assertTrue(marker.visible);
+            marker.visible = false;
+        }
+
+        @Override
+        public void remove(FakeMarker marker) {
+            removes++;
+            assertTrue(onMap.remove(marker));
+        }
+    }
+
+    private static final IconCache.Factory<String> ICONS = new IconCache.Factory<String>() {
+        @Override
+        public String create(int key) {
+            return "bucket " + MarkerLayer.bucketOf(key) + " size " + MarkerLayer.sizeOf(key);
+        }
+    };
+
+    private ParkingSnapshot snapshot;
+    private ManualLooper looper;
+    private RecordingCanvas canvas;
+
+    @Before
+    public void setUp() {
+        snapshot = ParkingFixtures.snapshot(2000);
+        looper = new ManualLooper();
+        canvas = new RecordingCanvas();
+    }
+
+    // Frame Budget 0 : Frame 마다 FrameBatcher 의 시간 확인 간격 (8 개) 만큼 적용
+    private MarkerLayer<FakeMarker, String> layer(int maxPooled) {
+        return new MarkerLayer<>(looper, canvas, new IconCache<>(ICONS), maxPooled, 0);
+    }
+
+    private double[] box(ParkingSnapshot s, double fromFraction, double toFraction) {
+        double south = Double.MAX_VALUE, north = -Double.MAX_VALUE, west = Double.MAX_VALUE, east = -Double.MAX_VALUE;
+        for (int i = 0; i < s.size(); i++) {
+            south = Math.min(south, s.lat(i));
+            north = Math.max(north, s.lat(i));
+            west = Math.min(west, s.lng(i));
+            east = Math.max(east, s.lng(i));
+        }
+        double h = north - south, w = east - west;
+        return new double[]{south + h * fromFraction, west + w * fromFraction, south + h * toFraction, west + w * toFraction};
+    }
+
+    // 화면의 Marker 가 Handle 의 위치 / Icon 과 같은지
+    private void assertMatchesHandles(IconCache<String> icons) {
+        for (FakeMarker marker : canvas.onMap) {
+            if (!marker.visible)
+                continue;
+            assertEquals(marker.handle.lat(), marker.lat, 0);
+            assertEquals(marker.handle.lng(), marker.lng, 0);
+            assertEquals(icons.get(marker.handle.key()), marker.icon);
+        }
+    }
+
+    @Test
+    public void additions_areAppliedInFrameSizedBatches() {
+        MarkerLayer<FakeMarker, String> layer = layer(MarkerLayer.DEFAULT_MAX_POOLED);
+        ViewportRenderer<MarkerLayer.Handle> renderer = new ViewportRenderer<>(layer, 0);
+        renderer.setSnapshot(snapshot);
+        double[] b = box(snapshot, 0.0, 1.0);
+        renderer.setViewport(b[0], b[1], b[2], b[3]);
+        int n = renderer.visibleCount();
+
+        // render() 는 Handle 만 만들고 Map 은 다음 Frame 부터 바뀐다.
+        assertEquals(0, canvas.calls());
+        assertEquals(n, layer.pending());
+
+        int frames = looper.runAll();
+        assertEquals((n + 7) / 8, frames);
+        assertEquals(0, layer.pending());
+        assertEquals(n, canvas.creates);
+        assertEquals(n, canvas.visible());
+        assertEquals(n, layer.created());
+
+        // Icon 은 점유 구간마다 하나
+        IconCache<String> icons = layer.getIcons();
+        assertTrue(icons.misses() <= MarkerLayer.BUCKETS);
+        assertEquals(n, icons.hits() + icons.misses());
+        Set<String> distinct = new HashSet<>();
+        for (FakeMarker marker : canvas.onMap)
+            distinct.add(marker.icon);
+        assertEquals(icons.misses(), distinct.size());
+        assertMatchesHandles(icons);
+    }
+
+    @Test
+    public void pan_recyclesRemovedMarkers() {
+        // 화면 전체가 바뀌므로 Pool 이 화면의 Marker 수보다 커야 모두 재사용한다.
+        MarkerLayer<FakeMarker, String> layer = layer(snapshot.size());
+        ViewportRenderer<MarkerLayer.Handle> renderer = new ViewportRenderer<>(layer, 0);
+        renderer.setSnapshot(snapshot);
+        double[] left = box(snapshot, 0.0, 0.5), right = box(snapshot, 0.5, 1.0);
+
+        renderer.setViewport(left[0], left[1], left[2], left[3]);
+        looper.runAll();
+        int first = canvas.creates;
+
+        int peak = first;
+        for (int i = 0; i < 4; i++) {
+            double[] b = i % 2 == 0 ? right : left;
+            renderer.setViewport(b[0], b[1], b[2], b[3]);
+            looper.runAll();
+            peak = Math.max(peak, renderer.visibleCount());
+            assertEquals(renderer.visibleCount(), canvas.visible());
+            assertMatchesHandles(layer.getIcons());
+        }
+
+        // 숨겨 둔 Marker 를 옮겨 쓰므로 화면에 가장 많았던 수 이상은 만들지 않는다.
+        assertTrue(layer.reused() > 0);
+        assertEquals(peak, canvas.creates);
+        assertEquals(0, canvas.removes);
+        assertEquals(canvas.shows, layer.reused());
+        assertEquals(canvas.onMap.size() - canvas.visible(), layer.pooled());
+
+        layer.trim();
+        assertEquals(0, layer.pooled());
+        assertEquals(renderer.visibleCount(), canvas.onMap.size());
+    }
+
+    @Test
+    public void pool_isBounded() {
+        MarkerLayer<FakeMarker, String> layer = layer(10);
+        ViewportRenderer<MarkerLayer.Handle> renderer = new ViewportRenderer<>(layer, 0);
+        renderer.setSnapshot(snapshot);
+        double[] b = box(snapshot, 0.0, 1.0);
+        renderer.setViewport(b[0], b[1], b[2], b[3]);
+        looper.runAll();
+        int n = canvas.creates;
+
+        renderer.clear();
+        looper.runAll();
+        assertEquals(10, layer.pooled());
+        assertEquals(10, canvas.hides);
+        assertEquals(n - 10, canvas.removes);
+        assertEquals(n - 10, layer.destroyed());
+        assertEquals(10, canvas.onMap.size());
+        assertEquals(0, canvas.visible());
+    }
+
+    @Test
+    public void changesWithinAFrame_areCoalesced() {
+        MarkerLayer<FakeMarker, String> layer = layer(MarkerLayer.DEFAULT_MAX_POOLED);
+        ViewportRenderer<MarkerLayer.Handle> renderer = new ViewportRenderer<>(layer, 0);
+        renderer.setSnapshot(snapshot);
+        double[] b = box(snapshot, 0.0, 1.0);
+
+        // 그리기 전에 지운 Marker 는 Map 에 닿지 않는다.
+        renderer.setViewport(b[0], b[1], b[2], b[3]);
+        renderer.clear();
+        looper.runAll();
+        assertEquals(0, canvas.calls());
+
+        renderer.setViewport(b[0], b[1], b[2], b[3]);
+        looper.runAll();
+        int creates = canvas.creates;
+
+        // 점유만 바뀐 주차장은 점유 구간이 바뀐 경우에만 Icon 을 바꾼다.
+        SearchParkingInfoRealtime next = ParkingFixtures.response(2000);
+        Row[] rows = next.getRow();
+        int bucketChanged = 0;
+        for (int i = 0; i < 30; i++) {
+            int capacity = Integer.parseInt(rows[i].getCAPACITY());
+            int before = Integer.parseInt(rows[i].getCUR_PARKING());
+            int after = i % 2 == 0 ? capacity : Math.max(0, before - 1);
+            rows[i].setCUR_PARKING(String.valueOf(after));
+            if (MarkerLayer.bucket(capacity - before, capacity) != MarkerLayer.bucket(capacity - after, capacity))
+                bucketChanged++;
+        }
+        ParkingSnapshot updated = new ParkingSnapshot.Builder(snapshot.strings()).addAll(next).build();
+        renderer.setSnapshot(updated);
+        renderer.setSnapshot(updated);
+        looper.runAll();
+
+        assertTrue(bucketChanged > 0);
+        assertEquals(creates, canvas.creates);
+        assertEquals(0, canvas.moves);
+        assertEquals(bucketChanged, canvas.icons);
+        assertMatchesHandles(layer.getIcons());
+    }
+
+    @Test
+    public void clusterAndLotRenderers_shareThePool() {
+        MarkerLayer<FakeMarker, String> layer = layer(MarkerLayer.DEFAULT_MAX_POOLED);
+        ViewportRenderer<MarkerLayer.Handle> lots = new ViewportRenderer<>(layer, 0);
+        ClusterRenderer<MarkerLayer.Handle> clusters = new ClusterRenderer<>(layer, 0);
+        lots.setSnapshot(snapshot);
+        clusters.setClusters(ClusterIndex.build(snapshot));
+
+        clusters.setViewport(12, -90, -180, 90, 180);
+        looper.runAll();
+        int clusterMarkers = clusters.visibleCount();
+        assertEquals(clusterMarkers, canvas.creates);
+        for (FakeMarker marker : canvas.onMap) {
+            MarkerLayer.Handle handle = marker.handle;
+            assertEquals(handle.count() > 1 ? 1 : 0, Math.min(1, MarkerLayer.sizeOf(handle.key())));
+        }
+
+        // Zoom In : Cluster 를 지우고 주차장을 그리면 Cluster 의 Marker 를 옮겨 쓴다.
+        clusters.clear();
+        double[] b = box(snapshot, 0.0, 1.0);
+        lots.setViewport(b[0], b[1], b[2], b[3]);
+        looper.runAll();
+
+        int reusable = Math.min(clusterMarkers, MarkerLayer.DEFAULT_MAX_POOLED);
+        assertEquals(Math.min(reusable, lots.visibleCount()), layer.reused());
+        assertEquals(lots.visibleCount(), canvas.visible());
+        assertMatchesHandles(layer.getIcons());
+    }
+
+    @Test
+    public void cancel_stopsApplying() {
+        MarkerLayer<FakeMarker, String> layer = layer(MarkerLayer.DEFAULT_MAX_POOLED);
+        ViewportRenderer<MarkerLayer.Handle> renderer = new ViewportRenderer<>(layer, 0);
+        renderer.setSnapshot(snapshot);
+        double[] b = box(snapshot, 0.0, 1.0);
+        renderer.setViewport(b[0], b[1], b[2], b[3]);
+
+        layer.cancel();
+        looper.runAll();
+        assertEquals(0, canvas.calls());
+    }
+
+    @Test
+    public void bucketAndKeys() {
+        assertEquals(MarkerLayer.AVAILABLE, MarkerLayer.bucket(50, 100));
+        assertEquals(MarkerLayer.FILLING, MarkerLayer.bucket(49, 100));
+        assertEquals(MarkerLayer.FILLING, MarkerLayer.bucket(20, 100));
+        assertEquals(MarkerLayer.ALMOST_FULL, MarkerLayer.bucket(19, 100));
+        assertEquals(MarkerLayer.ALMOST_FULL, MarkerLayer.bucket(1, 100));
+        assertEquals(MarkerLayer.FULL, MarkerLayer.bucket(0, 100));
+        assertEquals(MarkerLayer.FULL, MarkerLayer.bucket(-3, 100));
+        assertEquals(MarkerLayer.UNKNOWN, MarkerLayer.bucket(0, 0));
+
+        assertEquals(MarkerLayer.lotKey(5, 10), MarkerLayer.clusterKey(1, 5, 10));
+        Set<Integer> keys = new HashSet<>();
+        for (int count : new int[]{1, 9, 99, 1000})
+            for (int remaining = -1; remaining <= 10; remaining++)
+                for (int capacity : new int[]{0, 10}) {
+                    int key = MarkerLayer.clusterKey(count, remaining, capacity);
+                    assertEquals(MarkerLayer.bucket(remaining, capacity), MarkerLayer.bucketOf(key));
+                    keys.add(key);
+                }
+        // 크기 4 종류 x 점유 구간 5 종류 : 기본 IconCache 에 모두 들어간다.
+        assertEquals(4 * MarkerLayer.BUCKETS, keys.size());
+        assertTrue(keys.size() <= IconCache.DEFAULT_CAPACITY);
+    }
+
+    /** 20000 주차장 도시를 가로질러 Pan : Marker / Icon 을 매번 만들고 지우는 방식과 Map 호출 수 비교 */
+    @Test
+    public void panAcrossCity_reusesMarkersAndIcons() {
+        int size = 20000, steps = 100;
+        ParkingSnapshot city = ParkingFixtures.snapshot(size);
+        MarkerLayer<FakeMarker, String> layer = new MarkerLayer<>(looper, canvas, new IconCache<>(ICONS),
+                MarkerLayer.DEFAULT_MAX_POOLED, FrameBatcher.DEFAULT_FRAME_BUDGET_NANOS);
+        ViewportRenderer<MarkerLayer.Handle> renderer = new ViewportRenderer<>(layer, 0);
+        renderer.setSnapshot(city);
+
+        // 지금까지의 방식 : add 마다 addMarker (+ Icon 생성), remove 마다 Marker.remove()
+        final long[] naive = new long[2];
+        ViewportRenderer<Object> direct = new ViewportRenderer<>(new ViewportRenderer.Layer<Object>() {
+            @Override
+            public Object add(ParkingSnapshot snapshot, int i) {
+                naive[0]++;
+                return this;
+            }
+
+            @Override
+            public void update(Object marker, ParkingSnapshot snapshot, int i) {
+                naive[1]++;
+            }
+
+            @Override
+            public void remove(Object marker) {
+                naive[1]++;
+            }
+
+            @Override
+            public void flush() {
+            }
+        }, 0);
+        direct.setSnapshot(city);
+
+        double[] all = box(city, 0.0, 1.0);
+        double h = (all[2] - all[0]) * 0.1, w = (all[3] - all[1]) * 0.1;
+        int frames = 0;
+        for (int step = 0; step < steps; step++) {
+            // 화면 (도시의 1/100) 이 대각선으로 이동
+            double south = all[0] + (all[2] - all[0] - h) * step / steps;
+            double west = all[1] + (all[3] - all[1] - w) * step / steps;
+            renderer.setViewport(south, west, south + h, west + w);
+            frames += looper.runAll();
+            direct.setViewport(south, west, south + h, west + w);
+        }
+        IconCache<String> icons = layer.getIcons();
+
+        assertEquals(frames, layer.getBatcher().batchCount());
+        assertEquals(direct.visibleCount(), renderer.visibleCount());
+        assertEquals(renderer.visibleCount(), canvas.visible());
+        assertTrue(icons.misses() <= MarkerLayer.BUCKETS);
+        assertTrue(icons.hitRate() > 0.99);
+        // addMarker 는 화면에 가장 많았던 수 정도만
+        assertTrue(layer.reused() > layer.created());
+        assertTrue(layer.created() * 4 < naive[0]);
+    }
+}
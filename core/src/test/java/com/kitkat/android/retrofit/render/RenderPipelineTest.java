@@ -0,0 +1,395 @@
+package com.kitkat.android.retrofit.render;
+
+import com.google.gson.Gson;
+import com.kitkat.android.retrofit.ParkingDispatcher;
+import com.kitkat.android.retrofit.ParkingFixtures;
+import com.kitkat.android.retrofit.domain.Data;
+import com.kitkat.android.retrofit.network.ApiClient;
+import com.kitkat.android.retrofit.network.CityLoader;
+import com.kitkat.android.retrofit.network.PagedFetcher;
+import com.kitkat.android.retrofit.parking.LotMerger;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+import com.kitkat.android.retrofit.spatial.ClusterIndex;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * 단일 Thread Executor 를 Main Thread 로 보고, 어느 Thread 에서 무엇이 실행되는지 확인한다.
+ *
+ *      Legacy   : CityLoader Callback (Main Thread) 에서 중복 제거 + Marker Item 생성 + Map 변경
+ *      Pipeline : RenderPipeline 으로 Map 변경 (Sink.apply) 만 Main Thread
+ *
+ * 두 경로의 시간 비교는 :jmh 의 TransformBenchmark
+ */
+public class RenderPipelineTest {
+    private static final int ROWS_PER_GU = 2000;
+    private static final long FRAME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(4);
+
+    private MockWebServer server;
+    private ApiClient client;
+    private MainThread main;
+
+    /** Main Looper 대용 */
+    private static final class MainThread implements Executor {
+        final ExecutorService thread = Executors.newSingleThreadExecutor();
+        volatile Thread owner;
+
+        @Override
+        public void execute(final Runnable command) {
+            thread.execute(new Runnable() {
+                @Override
+                public void run() {
+                    owner = Thread.currentThread();
+                    command.run();
+                }
+            });
+        }
+    }
+
+    /** Map.addMarker 대용 */
+    private static final class FakeMap {
+        final List<String> markers = new ArrayList<>();
+
+        void addMarker(String title) {
+            markers.add(title);
+        }
+    }
+
+    private static String title(ParkingLot lot) {
+        return lot.getName() + " " + lot.getRemaining() + " / " + lot.getCapacity();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new ParkingDispatcher(ROWS_PER_GU));
+        server.start();
+        client = new ApiClient(server.url("/").toString());
+        main = new MainThread();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        main.thread.shutdownNow();
+        server.shutdown();
+    }
+
+    private CityLoader loader(Executor callbackExecutor) {
+        PagedFetcher fetcher = new PagedFetcher(client.getOpenApiService(), client.getExecutor(), callbackExecutor,
+                PagedFetcher.MAX_PAGE_SIZE, PagedFetcher.DEFAULT_MAX_IN_FLIGHT);
+        return new CityLoader(fetcher, client.getExecutor(), callbackExecutor, CityLoader.DEFAULT_CONCURRENCY);
+    }
+
+    @Test
+    public void pipeline_keepsTransformOffTheMainThread() throws Exception {
+        // 1. Legacy : Callback 이 Main Thread 에서 모든 처리
+        final FakeMap legacyMap = new FakeMap();
+        final LotMerger merger = new LotMerger();
+        final CountDownLatch legacyDone = new CountDownLatch(1);
+        loader(main).load(CityLoader.SEOUL_GU, new CityLoader.Listener() {
+            @Override
+            public void onDistrictLoaded(String gu, ParkingLot[] lots) {
+                for (ParkingLot lot : merger.add(lots))
+                    if (lot.hasLocation())
+                        legacyMap.addMarker(title(lot));
+            }
+
+            @Override
+            public void onDistrictFailed(String gu, Throwable t) {
+                fail(gu + " " + t);
+            }
+
+            @Override
+            public void onComplete(int loaded, int failed) {
+                new ParkingSnapshot.Builder().addAll(merger.toArray()).build();
+                legacyDone.countDown();
+            }
+        });
+        assertTrue(legacyDone.await(30, TimeUnit.SECONDS));
+
+        // 2. Pipeline : Main Thread 는 Sink 만
+        final MainThread pipelineMain = new MainThread();
+        final FakeMap map = new FakeMap();
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<ParkingSnapshot> result = new AtomicReference<>();
+        final List<Thread> transformThreads = new ArrayList<>();
+        final AtomicInteger progress = new AtomicInteger();
+        final AtomicInteger lastProgress = new AtomicInteger();
+
+        Executor worker = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        final RenderPipeline<String> pipeline = new RenderPipeline<>(loader(worker), pipelineMain, FRAME_BUDGET_NANOS,
+                new RenderPipeline.Transform<String>() {
+                    @Override
+                    public String apply(ParkingLot lot) {
+                        synchronized (transformThreads) {
+                            transformThreads.add(Thread.currentThread());
+                        }
+                        return lot.hasLocation() ? title(lot) : null;
+                    }
+                }, new RenderPipeline.Sink<String>() {
+                    @Override
+                    public void apply(String item) {
+                        assertSame(pipelineMain.owner, Thread.currentThread());
+                        map.addMarker(item);
+                    }
+
+                    @Override
+                    public void onProgress(IndexedSnapshot snapshot) {
+                        // 구가 도착할수록 커지는 Snapshot, Index 는 Worker 에서 이미 만들어져 있다.
+                        assertTrue(snapshot.getSnapshot().size() >= lastProgress.get());
+                        assertNotNull(snapshot.getGrid());
+                        assertNotNull(snapshot.getClusters());
+                        lastProgress.set(snapshot.getSnapshot().size());
+                        progress.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onDistrictFailed(String gu, Throwable t) {
+                        fail(gu + " " + t);
+                    }
+
+                    @Override
+                    public void onComplete(int loaded, int failed, IndexedSnapshot snapshot) {
+                        assertEquals(CityLoader.SEOUL_GU.length, loaded);
+                        result.set(snapshot.getSnapshot());
+                        done.countDown();
+                    }
+                });
+        pipeline.start(CityLoader.SEOUL_GU);
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+
+        // 같은 결과
+        assertEquals(legacyMap.markers.size(), map.markers.size());
+        assertEquals(merger.size(), result.get().size());
+        // 여러 구가 한 번의 Progress 로 합쳐질 수 있다.
+        assertTrue(progress.get() >= 1 && progress.get() <= CityLoader.SEOUL_GU.length);
+        assertTrue(lastProgress.get() <= merger.size());
+        // Transform 은 Main Thread 밖에서
+        assertFalse(transformThreads.isEmpty());
+        for (Thread thread : transformThreads)
+            assertNotSame(pipelineMain.owner, thread);
+
+        pipelineMain.thread.shutdownNow();
+    }
+
+    @Test
+    public void cancel_stopsDeliveringToSink() throws Exception {
+        final CountDownLatch first = new CountDownLatch(1);
+        final List<String> applied = new ArrayList<>();
+        Executor worker = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        final AtomicReference<RenderPipeline<String>> ref = new AtomicReference<>();
+        RenderPipeline<String> pipeline = new RenderPipeline<>(loader(worker), main, 0,
+                new RenderPipeline.Transform<String>() {
+                    @Override
+                    public String apply(ParkingLot lot) {
+                        return title(lot);
+                    }
+                }, new RenderPipeline.Sink<String>() {
+                    @Override
+                    public void apply(String item) {
+                        applied.add(item);
+                        ref.get().cancel();
+                        first.countDown();
+                    }
+
+                    @Override
+                    public void onProgress(IndexedSnapshot snapshot) {
+                    }
+
+                    @Override
+                    public void onDistrictFailed(String gu, Throwable t) {
+                        applied.add("failed");
+                    }
+
+                    @Override
+                    public void onComplete(int loaded, int failed, IndexedSnapshot snapshot) {
+                        applied.add("complete");
+                    }
+                });
+        ref.set(pipeline);
+        pipeline.start(CityLoader.SEOUL_GU);
+
+        assertTrue(first.await(30, TimeUnit.SECONDS));
+        Thread.sleep(300);
+        main.thread.shutdown();
+        assertTrue(main.thread.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertTrue(pipeline.isCancelled());
+        assertEquals(1, applied.size());
+    }
+
+    /** Main Thread 가 바쁜 동안 도착한 구의 Progress 는 가장 최근 것 하나로 합쳐진다. */
+    @Test
+    public void progress_isCoalescedWhileMainThreadIsBusy() throws Exception {
+        final List<Integer> progress = new ArrayList<>();
+        final AtomicReference<IndexedSnapshot> result = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        Executor worker = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        RenderPipeline<String> pipeline = new RenderPipeline<>(loader(worker), main, FRAME_BUDGET_NANOS, null,
+                new RenderPipeline.Sink<String>() {
+                    @Override
+                    public void apply(String item) {
+                    }
+
+                    @Override
+                    public void onProgress(IndexedSnapshot snapshot) {
+                        assertNull("progress after complete", result.get());
+                        progress.add(snapshot.getSnapshot().size());
+                    }
+
+                    @Override
+                    public void onDistrictFailed(String gu, Throwable t) {
+                        fail(gu + " " + t);
+                    }
+
+                    @Override
+                    public void onComplete(int loaded, int failed, IndexedSnapshot snapshot) {
+                        result.set(snapshot);
+                        done.countDown();
+                    }
+                });
+
+        // 모든 Page 를 받을 때까지 Main Thread 를 막는다.
+        final int pages = CityLoader.SEOUL_GU.length * ((ROWS_PER_GU + PagedFetcher.MAX_PAGE_SIZE - 1) / PagedFetcher.MAX_PAGE_SIZE);
+        main.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (server.getRequestCount() < pages)
+                        Thread.sleep(10);
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        pipeline.start(CityLoader.SEOUL_GU);
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+
+        assertTrue("progress " + progress, progress.size() <= 2);
+        // Complete 의 Index 는 그 Snapshot 으로 만든 것
+        ParkingSnapshot snapshot = result.get().getSnapshot();
+        int located = 0;
+        for (int i = 0; i < snapshot.size(); i++)
+            if (snapshot.hasLocation(i))
+                located++;
+        assertTrue(located > 0);
+        assertEquals(located, result.get().getClusters().level(ClusterIndex.DEFAULT_MAX_ZOOM + 1).size());
+        for (int size : progress)
+            assertTrue(size <= snapshot.size());
+    }
+
+    /** PARKING_CODE 가 없는 주차장은 Fallback 에서 다시 붙지 않는다. (새 결과의 것과 구분할 수 없으므로) */
+    @Test
+    public void fallback_doesNotDuplicateLotsWithoutCode() throws Exception {
+        final ParkingDispatcher pages = new ParkingDispatcher(ROWS_PER_GU);
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                String path = request.getPath();
+                // 강남구는 실패 (재시도하지 않는 오류) : Complete 에도 Fallback 을 합친다.
+                if (path.endsWith(encode("강남구")))
+                    return new MockResponse().setBody(ParkingFixtures.error("INFO-100", "인증키가 유효하지 않습니다."));
+                if (path.endsWith(encode("중구")) && path.contains("/1/"))
+                    return new MockResponse().setBody(ParkingFixtures.pageWithoutCodes(ROWS_PER_GU, 1, PagedFetcher.MAX_PAGE_SIZE, 1, 2));
+                return pages.dispatch(request);
+            }
+        });
+
+        final List<Integer> progressWithoutCode = new ArrayList<>();
+        final AtomicReference<IndexedSnapshot> result = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        Executor worker = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        RenderPipeline<String> pipeline = new RenderPipeline<>(loader(worker), main, FRAME_BUDGET_NANOS, null,
+                new RenderPipeline.Sink<String>() {
+                    @Override
+                    public void apply(String item) {
+                    }
+
+                    @Override
+                    public void onProgress(IndexedSnapshot snapshot) {
+                        progressWithoutCode.add(withoutCode(snapshot.getSnapshot()));
+                    }
+
+                    @Override
+                    public void onDistrictFailed(String gu, Throwable t) {
+                    }
+
+                    @Override
+                    public void onComplete(int loaded, int failed, IndexedSnapshot snapshot) {
+                        assertEquals(1, failed);
+                        result.set(snapshot);
+                        done.countDown();
+                    }
+                });
+        ParkingSnapshot fallback = new ParkingSnapshot.Builder().addAll(new Gson()
+                .fromJson(ParkingFixtures.pageWithoutCodes(10, 1, 10, 1, 2), Data.class).getSearchParkingInfoRealtime()).build();
+        assertEquals(2, withoutCode(fallback));
+        pipeline.setFallback(fallback);
+        pipeline.start(CityLoader.SEOUL_GU);
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+
+        // 중구의 두 주차장만
+        for (int count : progressWithoutCode)
+            assertTrue(count <= 2);
+        assertEquals(2, withoutCode(result.get().getSnapshot()));
+    }
+
+    private static int withoutCode(ParkingSnapshot snapshot) {
+        int n = 0;
+        for (int i = 0; i < snapshot.size(); i++)
+            if (snapshot.code(i) == ParkingLot.UNKNOWN)
+                n++;
+        return n;
+    }
+
+    private static String encode(String gu) {
+        try {
+            return URLEncoder.encode(gu, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
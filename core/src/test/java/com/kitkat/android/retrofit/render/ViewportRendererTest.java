@@ -0,0 +1,173 @@
+package com.kitkat.android.retrofit.render;
+
+import com.google.gson.Gson;
+import com.kitkat.android.retrofit.ParkingFixtures;
+import com.kitkat.android.retrofit.domain.Data;
+import com.kitkat.android.retrofit.domain.Row;
+import com.kitkat.android.retrofit.domain.SearchParkingInfoRealtime;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ViewportRendererTest {
+    /** Marker 대신 PARKING_CODE 를 기록하는 Layer. PARKING_CODE 가 없는 Marker 는 live 로만 센다. */
+    private static final class RecordingLayer implements ViewportRenderer.Layer<int[]> {
+        final Set<Integer> onMap = new HashSet<>();
+        // 배열은 equals 를 Override 하지 않으므로 Marker 마다 구분된다.
+        final Set<int[]> live = new HashSet<>();
+        int added, updated, removed;
+
+        @Override
+        public int[] add(ParkingSnapshot snapshot, int i) {
+            if (snapshot.code(i) != ParkingLot.UNKNOWN)
+                assertTrue(onMap.add(snapshot.code(i)));
+            added++;
+            int[] marker = {snapshot.code(i)};
+            live.add(marker);
+            return marker;
+        }
+
+        @Override
+        public void update(int[] marker, ParkingSnapshot snapshot, int i) {
+            assertEquals(marker[0], snapshot.code(i));
+            updated++;
+        }
+
+        @Override
+        public void remove(int[] marker) {
+            assertTrue(live.remove(marker));
+            if (marker[0] != ParkingLot.UNKNOWN)
+                assertTrue(onMap.remove(marker[0]));
+            removed++;
+        }
+
+        @Override
+        public void flush() {
+            // add / remove 를 바로 기록하므로 할 일 없음
+        }
+    }
+
+    private ParkingSnapshot snapshot;
+    private RecordingLayer layer;
+    private ViewportRenderer<int[]> renderer;
+
+    @Before
+    public void setUp() {
+        snapshot = ParkingFixtures.snapshot(2000);
+        layer = new RecordingLayer();
+        renderer = new ViewportRenderer<>(layer, 0);
+    }
+
+    private int inside(ParkingSnapshot s, double south, double west, double north, double east) {
+        int n = 0;
+        for (int i = 0; i < s.size(); i++)
+            if (s.hasLocation(i) && s.lat(i) >= south && s.lat(i) <= north && s.lng(i) >= west && s.lng(i) <= east)
+                n++;
+        return n;
+    }
+
+    // Fixture 좌표 범위의 가운데 일부
+    private double[] box(double fromFraction, double toFraction) {
+        double south = Double.MAX_VALUE, north = -Double.MAX_VALUE, west = Double.MAX_VALUE, east = -Double.MAX_VALUE;
+        for (int i = 0; i < snapshot.size(); i++) {
+            south = Math.min(south, snapshot.lat(i));
+            north = Math.max(north, snapshot.lat(i));
+            west = Math.min(west, snapshot.lng(i));
+            east = Math.max(east, snapshot.lng(i));
+        }
+        double h = north - south, w = east - west;
+        return new double[]{south + h * fromFraction, west + w * fromFraction, south + h * toFraction, west + w * toFraction};
+    }
+
+    @Test
+    public void onlyMarkersInViewportAreMaterialized() {
+        double[] b = box(0.2, 0.5);
+        renderer.setSnapshot(snapshot);
+        assertEquals(0, layer.added); // Viewport 를 모르면 그리지 않는다.
+
+        renderer.setViewport(b[0], b[1], b[2], b[3]);
+        int expected = inside(snapshot, b[0], b[1], b[2], b[3]);
+        assertTrue(expected > 0 && expected < snapshot.size());
+        assertEquals(expected, layer.onMap.size());
+        assertEquals(expected, renderer.visibleCount());
+    }
+
+    @Test
+    public void pan_addsAndRemovesOnlyTheDifference() {
+        renderer.setSnapshot(snapshot);
+        double[] a = box(0.2, 0.5);
+        renderer.setViewport(a[0], a[1], a[2], a[3]);
+        int first = layer.added;
+
+        double[] b = box(0.3, 0.6);
+        renderer.setViewport(b[0], b[1], b[2], b[3]);
+
+        int kept = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            boolean inA = snapshot.lat(i) >= a[0] && snapshot.lat(i) <= a[2] && snapshot.lng(i) >= a[1] && snapshot.lng(i) <= a[3];
+            boolean inB = snapshot.lat(i) >= b[0] && snapshot.lat(i) <= b[2] && snapshot.lng(i) >= b[1] && snapshot.lng(i) <= b[3];
+            if (inA && inB)
+                kept++;
+        }
+        assertEquals(first - kept, layer.removed);
+        assertEquals(inside(snapshot, b[0], b[1], b[2], b[3]), layer.onMap.size());
+
+        // 같은 범위로 다시 호출하면 아무것도 바뀌지 않는다.
+        int added = layer.added, removed = layer.removed;
+        renderer.setViewport(b[0], b[1], b[2], b[3]);
+        assertEquals(added, layer.added);
+        assertEquals(removed, layer.removed);
+    }
+
+    @Test
+    public void setSnapshot_updatesOnlyChangedVisibleLots() {
+        renderer.setSnapshot(snapshot);
+        double[] b = box(0.0, 1.0);
+        renderer.setViewport(b[0], b[1], b[2], b[3]);
+        int visible = layer.onMap.size();
+
+        // 3 개 주차장의 점유 변경, 1 개 삭제
+        SearchParkingInfoRealtime next = ParkingFixtures.response(2000);
+        Row[] rows = next.getRow();
+        for (int i = 0; i < 3; i++)
+            rows[i].setCUR_PARKING(String.valueOf(Integer.parseInt(rows[i].getCUR_PARKING()) + 1));
+        Row gone = rows[rows.length - 1];
+        next.setRow(Arrays.copyOf(rows, rows.length - 1));
+
+        renderer.setSnapshot(new ParkingSnapshot.Builder(snapshot.strings()).addAll(next).build());
+
+        assertEquals(3, layer.updated);
+        assertEquals(1, layer.removed);
+        assertEquals(visible, layer.added);
+        assertFalse(layer.onMap.contains(Integer.parseInt(gone.getPARKING_CODE())));
+        assertEquals(visible - 1, renderer.visibleCount());
+    }
+
+    @Test
+    public void setSnapshot_keepsLotsWithoutCodeApart() {
+        String page = ParkingFixtures.pageWithoutCodes(20, 1, 20, 3, 7);
+        ParkingSnapshot first = new ParkingSnapshot.Builder()
+                .addAll(new Gson().fromJson(page, Data.class).getSearchParkingInfoRealtime()).build();
+        renderer.setSnapshot(first);
+        renderer.setViewport(-90, -180, 90, 180);
+        assertEquals(20, layer.live.size());
+
+        // Refresh 마다 같은 주차장들 : 코드 없는 두 주차장은 이어 받지 못하므로 지우고 다시 그린다. (Marker 누수 없음)
+        for (int refresh = 1; refresh <= 3; refresh++) {
+            renderer.setSnapshot(new ParkingSnapshot.Builder(first.strings())
+                    .addAll(new Gson().fromJson(page, Data.class).getSearchParkingInfoRealtime()).build());
+            assertEquals(20, layer.live.size());
+            assertEquals(20, renderer.visibleCount());
+            assertEquals(2 * refresh, layer.removed);
+        }
+        assertEquals(18, layer.onMap.size());
+    }
+}
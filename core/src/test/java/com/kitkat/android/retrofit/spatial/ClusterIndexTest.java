@@ -0,0 +1,109 @@
+package com.kitkat.android.retrofit.spatial;
+
+import com.kitkat.android.retrofit.Benchmarks;
+import com.kitkat.android.retrofit.ParkingFixtures;
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ClusterIndexTest {
+    private static final int CITY_ROWS = 50000;
+
+    @Test
+    public void everyLevelPreservesTotals() {
+        ParkingSnapshot snapshot = ParkingFixtures.seoulSnapshot(5000, 1);
+        ClusterIndex clusters = ClusterIndex.build(snapshot);
+
+        long capacity = 0, remaining = 0;
+        int located = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (!snapshot.hasLocation(i))
+                continue;
+            located++;
+            capacity += snapshot.capacity(i);
+            remaining += Math.max(0, snapshot.remaining(i));
+        }
+
+        int previous = Integer.MAX_VALUE;
+        for (int z = clusters.maxZoom() + 1; z >= clusters.minZoom(); z--) {
+            ClusterIndex.Level level = clusters.level(z);
+            assertEquals(z, level.zoom());
+
+            long count = 0, cap = 0, rem = 0;
+            for (int c = 0; c < level.size(); c++) {
+                count += level.count(c);
+                cap += level.capacity(c);
+                rem += level.remaining(c);
+                assertEquals(level.count(c) == 1, level.lot(c) >= 0);
+            }
+            assertEquals("zoom " + z, located, count);
+            assertEquals("zoom " + z, capacity, cap);
+            assertEquals("zoom " + z, remaining, rem);
+
+            // 낮은 Zoom 일수록 Cluster 가 적거나 같다.
+            assertTrue(level.size() <= previous);
+            previous = level.size();
+        }
+
+        assertEquals(located, clusters.level(clusters.maxZoom() + 1).size());
+        assertTrue(clusters.level(10).size() < located / 10);
+    }
+
+    @Test
+    public void leaves_pointToSnapshotLots() {
+        ParkingSnapshot snapshot = ParkingFixtures.seoulSnapshot(500, 2);
+        ClusterIndex.Level leaves = ClusterIndex.build(snapshot).level(30);
+
+        for (int c = 0; c < leaves.size(); c++) {
+            int i = leaves.lot(c);
+            assertEquals(snapshot.lat(i), leaves.lat(c), 1e-9);
+            assertEquals(snapshot.lng(i), leaves.lng(c), 1e-9);
+            assertEquals(snapshot.capacity(i), leaves.capacity(c));
+        }
+    }
+
+    @Test
+    public void level_clampsAndFloorsZoom() {
+        ClusterIndex clusters = ClusterIndex.build(ParkingFixtures.seoulSnapshot(100, 3));
+
+        assertSame(clusters.level(clusters.minZoom()), clusters.level(2));
+        assertSame(clusters.level(12), clusters.level(12.9));
+        assertSame(clusters.level(clusters.maxZoom() + 1), clusters.level(21));
+    }
+
+    @Test
+    public void mercator_roundTrips() {
+        for (double lat = -80; lat <= 80; lat += 7.3)
+            assertEquals(lat, ClusterIndex.latitude(ClusterIndex.mercatorY(lat)), 1e-9);
+        for (double lng = -180; lng <= 180; lng += 11.1)
+            assertEquals(lng, ClusterIndex.longitude(ClusterIndex.mercatorX(lng)), 1e-9);
+    }
+
+    @Test
+    public void emptySnapshot() {
+        ClusterIndex clusters = ClusterIndex.build(new ParkingSnapshot.Builder().build());
+        assertEquals(0, clusters.level(10).size());
+        assertEquals(0, clusters.level(10).query(37, 126, 38, 128, new int[4]));
+    }
+
+    /** Zoom 변경 (Level 조회 + 화면 범위 Query) 은 미리 만든 Level 을 읽기만 한다. 시간은 :jmh 의 ClusterBenchmark */
+    @Test
+    public void zoomChange_doesNotAllocateAt50kLots() {
+        ClusterIndex clusters = ClusterIndex.build(ParkingFixtures.seoulSnapshot(CITY_ROWS, 4));
+        int[] out = new int[CITY_ROWS];
+
+        // Warm-up (JIT, ThreadMXBean)
+        for (int k = 0; k < 1000; k++)
+            Benchmarks.blackhole += clusters.level(8 + k % 9).query(37.45, 126.85, 37.65, 127.10, out);
+
+        long before = Benchmarks.allocatedBytes();
+        for (int k = 0; k < 1000; k++)
+            Benchmarks.blackhole += clusters.level(8 + k % 9).query(37.45, 126.85, 37.65, 127.10, out);
+        long allocated = Benchmarks.allocatedBytes() - before;
+
+        if (before >= 0)
+            assertTrue("allocated " + allocated + " bytes", allocated < 16 * 1024);
+    }
+}
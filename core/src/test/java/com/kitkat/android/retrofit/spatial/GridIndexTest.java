@@ -0,0 +1,123 @@
+package com.kitkat.android.retrofit.spatial;
+
+import com.kitkat.android.retrofit.Benchmarks;
+import com.kitkat.android.retrofit.ParkingFixtures;
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GridIndexTest {
+    private static final double SOUTH = ParkingFixtures.SOUTH, NORTH = ParkingFixtures.NORTH;
+    private static final double WEST = ParkingFixtures.WEST, EAST = ParkingFixtures.EAST;
+    private static final int POINTS = 50000;
+
+    // 도심에 몰린 분포 + 일부 좌표 없음
+    private static double[][] points(int n, long seed) {
+        ParkingSnapshot snapshot = ParkingFixtures.seoulSnapshot(n, seed);
+        double[] lat = new double[n], lng = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = snapshot.lat(i);
+            lng[i] = snapshot.lng(i);
+        }
+        return new double[][]{lat, lng};
+    }
+
+    private static int bruteForce(double[] lat, double[] lng, double s, double w, double n, double e, int[] out) {
+        int count = 0;
+        for (int i = 0; i < lat.length; i++)
+            if (lat[i] >= s && lat[i] <= n && lng[i] >= w && lng[i] <= e)
+                out[count++] = i;
+        return count;
+    }
+
+    @Test
+    public void query_matchesBruteForce() {
+        double[][] p = points(5000, 1);
+        GridIndex index = GridIndex.build(p[0], p[1], 5000);
+        assertEquals(5000 - (5000 + 96) / 97, index.size());
+
+        Random random = new Random(2);
+        int[] expected = new int[5000], actual = new int[5000];
+        for (int q = 0; q < 500; q++) {
+            double h = random.nextDouble() * 0.3, w = random.nextDouble() * 0.4;
+            double s = SOUTH - 0.05 + random.nextDouble() * 0.35, west = WEST - 0.05 + random.nextDouble() * 0.45;
+
+            int n = bruteForce(p[0], p[1], s, west, s + h, west + w, expected);
+            assertEquals(n, index.query(s, west, s + h, west + w, actual));
+
+            int[] a = Arrays.copyOf(actual, n);
+            Arrays.sort(a);
+            assertArrayEquals(Arrays.copyOf(expected, n), a);
+        }
+    }
+
+    @Test
+    public void query_reportsTotalWhenOutIsTooSmall() {
+        double[][] p = points(1000, 3);
+        GridIndex index = GridIndex.build(p[0], p[1], 1000);
+
+        int[] small = new int[10];
+        int total = index.query(SOUTH, WEST, NORTH, EAST, small);
+        assertEquals(index.size(), total);
+    }
+
+    @Test
+    public void emptyAndDegenerate() {
+        GridIndex empty = GridIndex.build(new double[0], new double[0], 0);
+        assertEquals(0, empty.query(SOUTH, WEST, NORTH, EAST, new int[4]));
+
+        // 모든 점이 같은 좌표
+        double[] lat = {37.5, 37.5, 37.5}, lng = {127.0, 127.0, 127.0};
+        GridIndex same = GridIndex.build(lat, lng, 3);
+        assertEquals(3, same.query(37.5, 127.0, 37.5, 127.0, new int[4]));
+        assertEquals(0, same.query(37.6, 127.0, 37.7, 127.1, new int[4]));
+        // 뒤집힌 범위
+        assertEquals(0, same.query(37.7, 127.0, 37.4, 127.1, new int[4]));
+    }
+
+    /** 도시 규모에서 Zoom 16 / 14 / 12 정도의 화면 크기 (도). 시간은 :jmh 의 ViewportBenchmark */
+    @Test
+    public void query_matchesBruteForceAt50kPoints() {
+        double[][] p = points(POINTS, 4);
+        GridIndex index = GridIndex.build(p[0], p[1], POINTS);
+
+        int[] expected = new int[POINTS], actual = new int[POINTS];
+        Random random = new Random(5);
+        for (double span : new double[]{0.005, 0.02, 0.08}) {
+            for (int q = 0; q < 100; q++) {
+                double s = 37.50 + random.nextDouble() * 0.12, w = 126.90 + random.nextDouble() * 0.16;
+
+                int n = bruteForce(p[0], p[1], s, w, s + span, w + span, expected);
+                assertEquals(n, index.query(s, w, s + span, w + span, actual));
+
+                int[] a = Arrays.copyOf(actual, n);
+                Arrays.sort(a);
+                assertArrayEquals(Arrays.copyOf(expected, n), a);
+            }
+        }
+    }
+
+    @Test
+    public void query_doesNotAllocate() {
+        double[][] p = points(POINTS, 6);
+        GridIndex index = GridIndex.build(p[0], p[1], POINTS);
+        int[] out = new int[POINTS];
+
+        // Warm-up (JIT, ThreadMXBean)
+        for (int q = 0; q < 1000; q++)
+            Benchmarks.blackhole += index.query(37.50 + q * 1e-4, 126.90 + q * 1e-4, 37.52 + q * 1e-4, 126.92 + q * 1e-4, out);
+
+        long before = Benchmarks.allocatedBytes();
+        for (int q = 0; q < 1000; q++)
+            Benchmarks.blackhole += index.query(37.50 + q * 1e-4, 126.90 + q * 1e-4, 37.52 + q * 1e-4, 126.92 + q * 1e-4, out);
+        long allocated = Benchmarks.allocatedBytes() - before;
+
+        if (before >= 0)
+            assertTrue("allocated " + allocated + " bytes", allocated < 16 * 1024);
+    }
+}
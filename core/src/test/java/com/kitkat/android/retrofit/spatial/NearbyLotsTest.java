@@ -0,0 +1,162 @@
+package com.kitkat.android.retrofit.spatial;
+
+import com.kitkat.android.retrofit.Benchmarks;
+import com.kitkat.android.retrofit.ParkingFixtures;
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NearbyLotsTest {
+    private static final String[] PAY = {"유료", "무료"};
+    private static final String[] TYPE = {"노외 주차장", "노상 주차장", "부설 주차장"};
+    private static final String[] NIGHT = {"야간 개방", "야간 미개방"};
+
+    private static boolean matches(ParkingSnapshot s, int i, int minRemaining, String pay, String type, String night) {
+        return s.hasLocation(i) && s.remaining(i) >= minRemaining
+                && (pay == null || pay.equals(s.payName(i)))
+                && (type == null || type.equals(s.typeName(i)))
+                && (night == null || night.equals(s.nightOpen(i)));
+    }
+
+    // 모든 주차장의 거리를 재서 정렬 (거리, Index 순)
+    private static int bruteForce(ParkingSnapshot s, double lat, double lng, int k,
+                                  int minRemaining, String pay, String type, String night, int[] lots, double[] meters) {
+        final double[] distance = new double[s.size()];
+        Integer[] sorted = new Integer[s.size()];
+        int n = 0;
+        for (int i = 0; i < s.size(); i++) {
+            if (!matches(s, i, minRemaining, pay, type, night))
+                continue;
+            distance[i] = GridIndex.distance(lat, lng, s.lat(i), s.lng(i));
+            sorted[n++] = i;
+        }
+        Arrays.sort(sorted, 0, n, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                int c = Double.compare(distance[a], distance[b]);
+                return c != 0 ? c : a.compareTo(b);
+            }
+        });
+        int count = Math.min(k, n);
+        for (int i = 0; i < count; i++) {
+            lots[i] = sorted[i];
+            meters[i] = distance[lots[i]];
+        }
+        return count;
+    }
+
+    @Test
+    public void nearest_matchesBruteForce() {
+        ParkingSnapshot snapshot = ParkingFixtures.seoulSnapshot(5000, 1);
+        NearbyLots nearby = NearbyLots.build(snapshot);
+        Random random = new Random(2);
+        int[] expected = new int[50], actual = new int[50];
+        double[] expectedMeters = new double[50], actualMeters = new double[50];
+
+        for (int q = 0; q < 500; q++) {
+            // 일부는 서울 밖 (Bounding Box 밖) 에서 Query
+            double lat = 37.3 + random.nextDouble() * 0.55;
+            double lng = 126.6 + random.nextDouble() * 0.75;
+            int k = 1 + random.nextInt(50);
+            int minRemaining = random.nextInt(3) == 0 ? Integer.MIN_VALUE : random.nextInt(20);
+            String pay = random.nextBoolean() ? PAY[random.nextInt(PAY.length)] : null;
+            String type = random.nextInt(3) == 0 ? TYPE[random.nextInt(TYPE.length)] : null;
+            String night = random.nextInt(3) == 0 ? NIGHT[random.nextInt(NIGHT.length)] : null;
+
+            NearbyLots.Filter filter = nearby.filter().minRemaining(minRemaining);
+            if (pay != null)
+                filter = filter.payName(pay);
+            if (type != null)
+                filter = filter.typeName(type);
+            if (night != null)
+                filter = filter.nightOpen(night);
+
+            int n = bruteForce(snapshot, lat, lng, k, minRemaining, pay, type, night, expected, expectedMeters);
+            assertEquals(n, nearby.nearest(lat, lng, k, filter, actual, actualMeters));
+            assertArrayEquals(Arrays.copyOf(expected, n), Arrays.copyOf(actual, n));
+            for (int i = 0; i < n; i++)
+                assertEquals(expectedMeters[i], actualMeters[i], 1e-6);
+        }
+    }
+
+    @Test
+    public void nearest_edgeCases() {
+        ParkingSnapshot snapshot = ParkingFixtures.seoulSnapshot(300, 3);
+        NearbyLots nearby = NearbyLots.build(snapshot);
+        int[] lots = new int[300];
+        double[] meters = new double[300];
+
+        // 조건을 만족하는 주차장보다 k 가 크면 모두
+        int located = 300 - (300 + 96) / 97;
+        assertEquals(located, nearby.nearest(37.56, 126.98, 300, null, lots, meters));
+        for (int i = 1; i < located; i++)
+            assertTrue(meters[i - 1] <= meters[i]);
+        // Snapshot 에 없는 값
+        assertEquals(0, nearby.nearest(37.56, 126.98, 5, nearby.filter().payName("알 수 없음"), lots, meters));
+        assertEquals(0, nearby.nearest(37.56, 126.98, 0, null, lots, meters));
+        assertEquals(0, nearby.nearest(Double.NaN, 126.98, 5, null, lots, meters));
+        // 아주 먼 곳에서도 가장 가까운 주차장
+        assertEquals(1, nearby.nearest(-33.86, 151.2, 1, null, lots, meters));
+        assertTrue(meters[0] > 8000000);
+
+        try {
+            nearby.nearest(37.56, 126.98, 5, NearbyLots.build(snapshot).filter(), lots, meters);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            nearby.nearest(37.56, 126.98, 5, null, new int[4], meters);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+
+        NearbyLots empty = NearbyLots.build(new ParkingSnapshot.Builder().build());
+        assertEquals(0, empty.nearest(37.56, 126.98, 5, null, lots, meters));
+    }
+
+    @Test
+    public void distance_isHaversine() {
+        // 서울시청 → 부산시청 약 325 km
+        assertEquals(325000, GridIndex.distance(37.5663, 126.9779, 35.1798, 129.0750), 2000);
+        assertEquals(0, GridIndex.distance(37.5, 127.0, 37.5, 127.0), 0);
+    }
+
+    /** 50000 주차장 중 남은 자리가 있는 가장 가까운 5 곳. 시간은 :jmh 의 NearestBenchmark */
+    @Test
+    public void nearest_doesNotAllocateAt50kLots() {
+        NearbyLots nearby = NearbyLots.build(ParkingFixtures.seoulSnapshot(50000, 4));
+
+        int queries = 2000, k = 5;
+        double[] qLat = new double[queries], qLng = new double[queries];
+        Random random = new Random(5);
+        for (int q = 0; q < queries; q++) {
+            qLat[q] = 37.45 + random.nextDouble() * 0.22;
+            qLng[q] = 126.85 + random.nextDouble() * 0.28;
+        }
+        int[] lots = new int[k];
+        double[] meters = new double[k];
+
+        NearbyLots.Filter[] filters = {nearby.filter().minRemaining(1),
+                nearby.filter().minRemaining(20).payName("무료").nightOpen("야간 개방")};
+        for (NearbyLots.Filter filter : filters) {
+            // Warm-up (JIT, ThreadMXBean)
+            for (int q = 0; q < queries; q++)
+                Benchmarks.blackhole += nearby.nearest(qLat[q], qLng[q], k, filter, lots, meters);
+
+            long before = Benchmarks.allocatedBytes();
+            for (int q = 0; q < queries; q++)
+                Benchmarks.blackhole += nearby.nearest(qLat[q], qLng[q], k, filter, lots, meters);
+            long allocated = Benchmarks.allocatedBytes() - before;
+
+            // 측정 잡음 (JIT 등) 을 감안하여 Query 당 1 Byte 미만이면 할당 없음으로 본다.
+            if (before >= 0)
+                assertTrue("allocated " + allocated + " bytes", allocated < queries);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.kitkat.android.retrofit.benchmark;
+
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+import com.kitkat.android.retrofit.spatial.ClusterIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Zoom 별 Marker Cluster
+ *
+ *      build       Snapshot 마다 Worker 에서 한 번 (모든 Zoom Level)
+ *      zoomChange  Camera Zoom 이 바뀔 때 Main Thread 의 Level 조회 + 화면 범위 Query
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClusterBenchmark {
+    @Param({"10000", "50000"})
+    public int rows;
+
+    private ParkingSnapshot snapshot;
+    private ClusterIndex clusters;
+    private int[] out;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        snapshot = new ParkingSnapshot.Builder().addAll(Payloads.lots(Payloads.gson(), Payloads.load(rows))).build();
+        clusters = ClusterIndex.build(snapshot);
+        out = new int[snapshot.size()];
+    }
+
+    @Benchmark
+    public ClusterIndex build() {
+        return ClusterIndex.build(snapshot);
+    }
+
+    @Benchmark
+    public int zoomChange() {
+        int zoom = ClusterIndex.DEFAULT_MIN_ZOOM + next++ % (ClusterIndex.DEFAULT_MAX_ZOOM - ClusterIndex.DEFAULT_MIN_ZOOM + 1);
+        return clusters.level(zoom).query(37.45, 126.85, 37.65, 127.10, out);
+    }
+}
@@ -0,0 +1,77 @@
+package com.kitkat.android.retrofit.benchmark;
+
+import com.google.gson.Gson;
+import com.kitkat.android.retrofit.converter.RowStream;
+import com.kitkat.android.retrofit.domain.Data;
+import com.kitkat.android.retrofit.domain.Row;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Response Body → Java Object
+ *
+ *      gsonData        GsonConverterFactory 와 같은 Reflection Decode : Data → SearchParkingInfoRealtime → Row[] (String Field)
+ *      streamRows      RowStream<Row> : 같은 Row 를 Page 전체 배열 없이 하나씩
+ *      streamLots      RowStream<ParkingLot> : ParkingLotAdapter 가 숫자 / 시각을 Primitive 로 바로 변환 (PagedFetcher 의 경로)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int rows;
+
+    private Gson gson;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        gson = Payloads.gson();
+        json = Payloads.load(rows);
+    }
+
+    @Benchmark
+    public Data gsonData() {
+        return gson.fromJson(Payloads.reader(json), Data.class);
+    }
+
+    @Benchmark
+    public int streamRows(Blackhole blackhole) throws IOException {
+        return drain(RowStream.create(gson, Payloads.reader(json), Row.class), blackhole);
+    }
+
+    @Benchmark
+    public int streamLots(Blackhole blackhole) throws IOException {
+        return drain(RowStream.create(gson, Payloads.reader(json), ParkingLot.class), blackhole);
+    }
+
+    private static int drain(RowStream<?> stream, Blackhole blackhole) throws IOException {
+        try {
+            int count = 0;
+            while (stream.hasNext()) {
+                blackhole.consume(stream.next());
+                count++;
+            }
+            return count;
+        } finally {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.kitkat.android.retrofit.benchmark;
+
+import com.google.gson.Gson;
+import com.kitkat.android.retrofit.parking.LotMerger;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/** PARKING_CODE 중복 제거
+ *
+ *      listContains    처음 MapsActivity 의 List<Integer>.contains (O(n²), Boxing)
+ *      hashSet         HashSet<Integer> (O(n), Boxing)
+ *      lotMerger       LotMerger (IntIntMap, Boxing 없음, Variant 보존)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DedupBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int rows;
+
+    private Gson gson;
+    private byte[] json;
+    private ParkingLot[] lots;
+
+    @Setup
+    public void setUp() throws IOException {
+        gson = Payloads.gson();
+        json = Payloads.load(rows);
+    }
+
+    // LotMerger 는 대표 주차장에 Variant 를 붙이므로 매번 새로 Decode 한 ParkingLot 을 사용
+    @Setup(Level.Invocation)
+    public void decodeLots() throws IOException {
+        lots = Payloads.lots(gson, json);
+    }
+
+    @Benchmark
+    public int listContains() {
+        List<Integer> codes = new ArrayList<>();
+        for (ParkingLot lot : lots) {
+            if (!codes.contains(lot.getParkingCode()))
+                codes.add(lot.getParkingCode());
+        }
+        return codes.size();
+    }
+
+    @Benchmark
+    public int hashSet() {
+        Set<Integer> codes = new HashSet<>();
+        for (ParkingLot lot : lots)
+            codes.add(lot.getParkingCode());
+        return codes.size();
+    }
+
+    @Benchmark
+    public int lotMerger() {
+        LotMerger merger = new LotMerger(lots.length);
+        merger.add(lots);
+        return merger.size();
+    }
+}
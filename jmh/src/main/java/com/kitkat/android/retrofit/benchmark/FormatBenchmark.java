@@ -0,0 +1,90 @@
+package com.kitkat.android.retrofit.benchmark;
+
+import com.google.gson.Gson;
+import com.kitkat.android.retrofit.converter.RowStream;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/** Open API JSON vs Proxy 의 Compact Row, 각각 그대로 / gzip
+ *
+ *  Client 가 받은 Body 를 (gzip 이면 풀어서) RowStream<ParkingLot> 으로 Decode 하는 시간.
+ *  전송량은 Setup 에서 한 줄로 출력한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int rows;
+
+    private Gson gson;
+    private byte[] full;
+    private byte[] fullGzip;
+    private byte[] compact;
+    private byte[] compactGzip;
+
+    @Setup
+    public void setUp() throws IOException {
+        gson = Payloads.gson();
+        full = Payloads.load(rows);
+        fullGzip = Payloads.gzip(full);
+        compact = Payloads.compact(rows);
+        compactGzip = Payloads.gzip(compact);
+        System.out.printf(Locale.US, "%n%d rows : json %d B (gzip %d B), compact %d B (gzip %d B)%n",
+                rows, full.length, fullGzip.length, compact.length, compactGzip.length);
+    }
+
+    @Benchmark
+    public int json(Blackhole blackhole) throws IOException {
+        return drain(Payloads.reader(full), blackhole);
+    }
+
+    @Benchmark
+    public int jsonGzip(Blackhole blackhole) throws IOException {
+        return drain(Payloads.gunzipReader(fullGzip), blackhole);
+    }
+
+    @Benchmark
+    public int compact(Blackhole blackhole) throws IOException {
+        return drain(Payloads.reader(compact), blackhole);
+    }
+
+    @Benchmark
+    public int compactGzip(Blackhole blackhole) throws IOException {
+        return drain(Payloads.gunzipReader(compactGzip), blackhole);
+    }
+
+    private int drain(Reader body, Blackhole blackhole) throws IOException {
+        RowStream<ParkingLot> stream = RowStream.create(gson, body, ParkingLot.class);
+        try {
+            int count = 0;
+            while (stream.hasNext()) {
+                blackhole.consume(stream.next());
+                count++;
+            }
+            return count;
+        } finally {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.kitkat.android.retrofit.benchmark;
+
+import com.kitkat.android.retrofit.metrics.Metrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Decode Loop 안의 Metrics Hook (start / stop / count) 비용
+ *
+ *      plain    : Hook 없음
+ *      hooks    : enabled = false 이면 volatile 읽기와 분기뿐이어야 한다. (plain 과 몇 ns 이내)
+ *                 enabled = true 이면 nanoTime() 두 번 + Histogram 기록
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+    @Param({"false", "true"})
+    public boolean enabled;
+
+    private int i;
+
+    @Setup
+    public void setUp() {
+        if (enabled)
+            Metrics.install();
+        else
+            Metrics.uninstall();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Metrics.uninstall();
+    }
+
+    @Benchmark
+    public long plain() {
+        return work(i++);
+    }
+
+    @Benchmark
+    public long hooks() {
+        int n = i++;
+        long start = Metrics.start();
+        long value = work(n);
+        Metrics.stop(Metrics.Timer.DECODE, start);
+        Metrics.count(Metrics.Counter.ROWS, n);
+        return value;
+    }
+
+    private static long work(int i) {
+        return i * 31L ^ (i >>> 3);
+    }
+}
@@ -0,0 +1,116 @@
+package com.kitkat.android.retrofit.benchmark;
+
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+import com.kitkat.android.retrofit.spatial.GridIndex;
+import com.kitkat.android.retrofit.spatial.NearbyLots;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** 남은 자리가 있는 가장 가까운 주차장 k 개
+ *
+ *      nearest     NearbyLots (GridIndex 를 한 겹씩 넓혀 가며 탐색)
+ *      scan        모든 주차장의 Haversine 거리를 재며 k 개를 유지
+ *      build       Snapshot 마다 한 번 만드는 비용
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NearestBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"1000", "10000", "50000"})
+    public int rows;
+
+    @Param({"1", "10"})
+    public int k;
+
+    private ParkingSnapshot snapshot;
+    private NearbyLots nearby;
+    private NearbyLots.Filter filter;
+    private double[] lat;
+    private double[] lng;
+    private int[] lots;
+    private double[] meters;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        snapshot = new ParkingSnapshot.Builder().addAll(Payloads.lots(Payloads.gson(), Payloads.load(rows))).build();
+        nearby = NearbyLots.build(snapshot);
+        filter = nearby.filter().minRemaining(1);
+
+        // 주차장이 있는 범위 안의 Query 위치
+        double south = Double.POSITIVE_INFINITY, north = Double.NEGATIVE_INFINITY;
+        double west = Double.POSITIVE_INFINITY, east = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (!snapshot.hasLocation(i))
+                continue;
+            south = Math.min(south, snapshot.lat(i));
+            north = Math.max(north, snapshot.lat(i));
+            west = Math.min(west, snapshot.lng(i));
+            east = Math.max(east, snapshot.lng(i));
+        }
+        Random random = new Random(1);
+        lat = new double[QUERIES];
+        lng = new double[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            lat[q] = south + random.nextDouble() * (north - south);
+            lng[q] = west + random.nextDouble() * (east - west);
+        }
+        lots = new int[k];
+        meters = new double[k];
+    }
+
+    @Benchmark
+    public int nearest() {
+        int q = next++ & (QUERIES - 1);
+        return nearby.nearest(lat[q], lng[q], k, filter, lots, meters);
+    }
+
+    @Benchmark
+    public int scan() {
+        int q = next++ & (QUERIES - 1);
+        int count = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (!snapshot.hasLocation(i) || snapshot.remaining(i) < 1)
+                continue;
+            double d = GridIndex.distance(lat[q], lng[q], snapshot.lat(i), snapshot.lng(i));
+            // 정렬된 lots / meters 에 삽입
+            int slot = count < k ? count++ : k;
+            while (slot > 0 && meters[slot - 1] > d) {
+                if (slot < k) {
+                    meters[slot] = meters[slot - 1];
+                    lots[slot] = lots[slot - 1];
+                }
+                slot--;
+            }
+            if (slot < k) {
+                meters[slot] = d;
+                lots[slot] = i;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public NearbyLots build() {
+        return NearbyLots.build(snapshot);
+    }
+}
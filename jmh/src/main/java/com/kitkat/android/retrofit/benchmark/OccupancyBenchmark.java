@@ -0,0 +1,77 @@
+package com.kitkat.android.retrofit.benchmark;
+
+import com.kitkat.android.retrofit.parking.OccupancyHistory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** 모든 주차장의 Refresh 한 번을 OccupancyHistory 에 기록 (op 당 lots 개), 이후 추세 Query
+ *
+ *  Ring 이 이미 가득 찬 상태에서 측정하므로 오래된 Sample 을 빼고 넣는 정상 상태의 비용이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OccupancyBenchmark {
+    @Param({"1000", "5000"})
+    public int lots;
+
+    @Param({"96", "1440"})
+    public int samples;
+
+    private OccupancyHistory history;
+    private int[] capacity;
+    private int[][] current;
+    private long now = 1490400000L;
+
+    @Setup
+    public void setUp() {
+        history = new OccupancyHistory(lots, samples);
+        Random random = new Random(1);
+        capacity = new int[lots];
+        // 미리 만든 점유 값을 돌려 쓴다.
+        current = new int[64][lots];
+        for (int i = 0; i < lots; i++) {
+            capacity[i] = 50 + random.nextInt(500);
+            for (int r = 0; r < current.length; r++)
+                current[r][i] = random.nextInt(capacity[i] + 1);
+        }
+        for (int r = 0; r < samples; r++)
+            refresh();
+    }
+
+    @Benchmark
+    public int refresh() {
+        now += 60;
+        int[] values = current[(int) (now / 60) & (current.length - 1)];
+        int recorded = 0;
+        for (int i = 0; i < lots; i++) {
+            if (history.record(i, now, values[i], capacity[i]))
+                recorded++;
+        }
+        return recorded;
+    }
+
+    @Benchmark
+    public long trend() {
+        long sum = 0;
+        for (int i = 0; i < lots; i++)
+            sum += history.timeToFull(i) + (long) history.fillRate(i);
+        return sum;
+    }
+}
@@ -0,0 +1,152 @@
+package com.kitkat.android.retrofit.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.kitkat.android.retrofit.converter.RowStream;
+import com.kitkat.android.retrofit.parking.CompactLotFormat;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+import com.kitkat.android.retrofit.parking.ParkingLotAdapter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/** Benchmark 입력 JSON
+ *
+ *  SearchParkingInfoRealtime.json (Open API 의 한 Page 와 같은 형식, 같은 PARKING_CODE 의 Variant Row 포함) 의 Row 를
+ *  원하는 개수만큼 반복하여 한 Page 의 Response Body 를 만든다.
+ *  반복할 때마다 PARKING_CODE / 좌표 / 주차 대수만 바꾸므로 Variant 비율과 Field 구성은 원본과 같다.
+ *
+ *      byte[] json = Payloads.load(10000);
+ *      Data data = Payloads.gson().fromJson(Payloads.reader(json), Data.class);
+ */
+final class Payloads {
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String FIXTURE = "/SearchParkingInfoRealtime.json";
+    private static final int FIRST_CODE = 1000000;
+
+    private Payloads() {
+    }
+
+    /** ApiClient 와 같은 설정 : ParkingLot 은 ParkingLotAdapter, 나머지는 Reflection */
+    static Gson gson() {
+        return new GsonBuilder()
+                .registerTypeAdapter(ParkingLot.class, new ParkingLotAdapter())
+                .create();
+    }
+
+    static Reader reader(byte[] json) {
+        return new InputStreamReader(new ByteArrayInputStream(json), UTF_8);
+    }
+
+    /** PagedFetcher 와 같이 RowStream 으로 Decode 한 ParkingLot (Variant 가 붙지 않은 새 Instance) */
+    static ParkingLot[] lots(Gson gson, byte[] json) throws IOException {
+        RowStream<ParkingLot> stream = RowStream.create(gson, reader(json), ParkingLot.class);
+        try {
+            List<ParkingLot> lots = new ArrayList<>(Math.max(0, stream.getTotalCount()));
+            while (stream.hasNext())
+                lots.add(stream.next());
+            return lots.toArray(new ParkingLot[lots.size()]);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /** rows 개의 Row 를 가진 Response Body (UTF-8) */
+    static byte[] load(int rows) throws IOException {
+        JsonArray templates = fixture().getAsJsonObject("SearchParkingInfoRealtime").getAsJsonArray("row");
+
+        // Fixture 안에서 같은 PARKING_CODE 는 반복할 때도 같은 Code 가 되도록 Code 마다 번호를 매긴다.
+        Map<String, Integer> lotIndex = new HashMap<>();
+        for (int t = 0; t < templates.size(); t++) {
+            String code = templates.get(t).getAsJsonObject().get("PARKING_CODE").getAsString();
+            if (!lotIndex.containsKey(code))
+                lotIndex.put(code, lotIndex.size());
+        }
+
+        Gson gson = new Gson();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows * 1024);
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, UTF_8));
+        writer.beginObject().name("SearchParkingInfoRealtime").beginObject();
+        writer.name("list_total_count").value(rows);
+        writer.name("RESULT").beginObject()
+                .name("CODE").value("INFO-000")
+                .name("MESSAGE").value("정상 처리되었습니다")
+                .endObject();
+        writer.name("row").beginArray();
+        for (int i = 0; i < rows; i++) {
+            int copy = i / templates.size();
+            JsonObject row = templates.get(i % templates.size()).getAsJsonObject();
+
+            String code = row.get("PARKING_CODE").getAsString();
+            double lat = row.get("LAT").getAsDouble();
+            double lng = row.get("LNG").getAsDouble();
+            int capacity = row.get("CAPACITY").getAsInt();
+            int current = row.get("CUR_PARKING").getAsInt();
+
+            row.addProperty("PARKING_CODE", String.valueOf(FIRST_CODE + copy * lotIndex.size() + lotIndex.get(code)));
+            row.addProperty("LAT", lat + (copy % 100) * 0.001);
+            row.addProperty("LNG", lng + (copy / 100) * 0.001);
+            row.addProperty("CUR_PARKING", (current + copy) % (capacity + 1));
+            gson.toJson(row, writer);
+
+            // 다음 반복을 위해 Fixture 의 값으로 되돌린다.
+            row.addProperty("PARKING_CODE", code);
+            row.addProperty("LAT", lat);
+            row.addProperty("LNG", lng);
+            row.addProperty("CUR_PARKING", current);
+        }
+        writer.endArray().endObject().endObject();
+        writer.close();
+        return out.toByteArray();
+    }
+
+    /** load(rows) 와 같은 Row 를 Proxy 의 CompactLotFormat 으로 */
+    static byte[] compact(int rows) throws IOException {
+        ParkingLot[] lots = lots(gson(), load(rows));
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows * 256);
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, UTF_8));
+        CompactLotFormat.writePage(writer, rows, lots);
+        writer.close();
+        return out.toByteArray();
+    }
+
+    static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        gzip.write(json);
+        gzip.close();
+        return out.toByteArray();
+    }
+
+    static Reader gunzipReader(byte[] gzip) throws IOException {
+        return new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(gzip)), UTF_8);
+    }
+
+    private static JsonObject fixture() throws IOException {
+        InputStream in = Payloads.class.getResourceAsStream(FIXTURE);
+        if (in == null)
+            throw new IOException("Missing fixture " + FIXTURE);
+        try {
+            return new JsonParser().parse(new InputStreamReader(in, UTF_8)).getAsJsonObject();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.kitkat.android.retrofit.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.kitkat.android.retrofit.converter.RowStream;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+import com.kitkat.android.retrofit.parking.ParkingLotAdapter;
+import com.kitkat.android.retrofit.parking.Projection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Projection 별 RowStream<ParkingLot> Decode
+ *
+ *  할당량은 GC Profiler 로 본다. (gc.alloc.rate.norm : op 당 Byte)
+ *
+ *      ./gradlew :jmh:jmh -PjmhArgs='ProjectionBenchmark -prof gc'
+ *
+ *      ALL         모든 Field (ParkingLotAdapter 기본값)
+ *      SNAPSHOT    OpenApiService.lots() 의 @Project 와 같은 12 Field
+ *      MARKER      PARKING_CODE, LAT, LNG, CAPACITY, CUR_PARKING
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectionBenchmark {
+    @Param({"1000", "10000"})
+    public int rows;
+
+    @Param({"ALL", "SNAPSHOT", "MARKER"})
+    public String projection;
+
+    private Gson gson;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        Projection selected = "SNAPSHOT".equals(projection) ? Projection.SNAPSHOT
+                : "MARKER".equals(projection) ? Projection.MARKER
+                : Projection.ALL;
+        gson = new GsonBuilder()
+                .registerTypeAdapter(ParkingLot.class, new ParkingLotAdapter(selected))
+                .create();
+        json = Payloads.load(rows);
+    }
+
+    @Benchmark
+    public int decode(Blackhole blackhole) throws IOException {
+        RowStream<ParkingLot> stream = RowStream.create(gson, Payloads.reader(json), ParkingLot.class);
+        try {
+            int count = 0;
+            while (stream.hasNext()) {
+                blackhole.consume(stream.next());
+                count++;
+            }
+            return count;
+        } finally {
+            stream.close();
+        }
+    }
+}
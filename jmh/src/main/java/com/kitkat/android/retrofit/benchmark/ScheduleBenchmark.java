@@ -0,0 +1,60 @@
+package com.kitkat.android.retrofit.benchmark;
+
+import com.kitkat.android.retrofit.parking.ParkingLot;
+import com.kitkat.android.retrofit.parking.ScheduleTable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** 모든 주차장의 운영 여부 / 예상 요금
+ *
+ *      evaluate    미리 만든 ScheduleTable 로 한 번에 (op 당 rows 개)
+ *      compile     수집할 때 한 번 : ParkingLot[] → ScheduleTable
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScheduleBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private ParkingLot[] lots;
+    private ScheduleTable table;
+    private byte[] open;
+    private int[] cost;
+    private int minute;
+
+    @Setup
+    public void setUp() throws IOException {
+        lots = Payloads.lots(Payloads.gson(), Payloads.load(rows));
+        table = new ScheduleTable.Builder().addAll(lots).build();
+        open = new byte[rows];
+        cost = new int[rows];
+    }
+
+    @Benchmark
+    public int evaluate() {
+        minute = (minute + 17) % (24 * 60);
+        return table.evaluate(ScheduleTable.WEEKDAY, minute, 120, open, cost);
+    }
+
+    @Benchmark
+    public ScheduleTable compile() {
+        return new ScheduleTable.Builder().addAll(lots).build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.kitkat.android.retrofit.benchmark;
+
+import com.kitkat.android.retrofit.parking.LotMerger;
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+import com.kitkat.android.retrofit.parking.SnapshotStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Cold Start 의 SnapshotStore 쓰기 / 읽기 (op 당 Snapshot 하나)
+ *
+ *  read 는 onMapReady 직후 첫 Marker 까지의 지연이므로 도시 전체 (20000) 에서도 몇 Frame 안이어야 한다.
+ *  File 은 임시 Directory 에 두므로 Disk Cache 의 영향을 받는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotStoreBenchmark {
+    @Param({"1000", "20000"})
+    public int rows;
+
+    private ParkingSnapshot snapshot;
+    private SnapshotStore store;
+
+    @Setup
+    public void setUp() throws IOException {
+        snapshot = new ParkingSnapshot.Builder()
+                .addAll(LotMerger.merge(Payloads.lots(Payloads.gson(), Payloads.load(rows))))
+                .build();
+        store = new SnapshotStore(File.createTempFile("parking", ".snapshot"));
+        store.write(snapshot);
+    }
+
+    @TearDown
+    public void tearDown() {
+        store.delete();
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        store.write(snapshot);
+        return store.getFile().length();
+    }
+
+    @Benchmark
+    public ParkingSnapshot read() throws IOException {
+        return store.read();
+    }
+}
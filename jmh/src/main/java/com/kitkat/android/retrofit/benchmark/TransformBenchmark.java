@@ -0,0 +1,107 @@
+package com.kitkat.android.retrofit.benchmark;
+
+import com.google.gson.Gson;
+import com.kitkat.android.retrofit.domain.Data;
+import com.kitkat.android.retrofit.domain.Row;
+import com.kitkat.android.retrofit.parking.LotMerger;
+import com.kitkat.android.retrofit.parking.ParkingLot;
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Decode 된 Row → Marker (위치 + Title)
+ *
+ *  GoogleMap / MarkerOptions 는 JVM 에서 쓸 수 없으므로 Marker 에 넘기던 위도 / 경도 / Title 을 Blackhole 로 보낸다.
+ *
+ *      legacyOnResponse    처음 MapsActivity.onResponse 의 Loop
+ *                          (String → int / double 변환, List<Integer>.contains 중복 제거, Title 문자열)
+ *      lotSnapshot         ParkingLot[] → LotMerger → ParkingSnapshot → Title (RenderPipeline 의 경로)
+ *
+ *  lotSnapshot 은 숫자 변환을 Decode (ParkingLotAdapter) 에서 이미 마쳤으므로 DecodeBenchmark 와 함께 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int rows;
+
+    private Gson gson;
+    private byte[] json;
+    private Data data;
+    private ParkingLot[] lots;
+
+    @Setup
+    public void setUp() throws IOException {
+        gson = Payloads.gson();
+        json = Payloads.load(rows);
+        data = gson.fromJson(Payloads.reader(json), Data.class);
+    }
+
+    // LotMerger 는 대표 주차장에 Variant 를 붙이므로 매번 새로 Decode 한 ParkingLot 을 사용
+    @Setup(Level.Invocation)
+    public void decodeLots() throws IOException {
+        lots = Payloads.lots(gson, json);
+    }
+
+    @Benchmark
+    public int legacyOnResponse(Blackhole blackhole) {
+        List<Integer> parkingList = new ArrayList<>();
+        for (Row row : data.getSearchParkingInfoRealtime().getRow()) {
+            int parkingCode = Integer.parseInt(row.getPARKING_CODE());
+
+            if (parkingList.contains(parkingCode))
+                continue;
+
+            parkingList.add(parkingCode);
+
+            double lat = Double.parseDouble(row.getLAT());
+            double lng = Double.parseDouble(row.getLNG());
+
+            double capa = Double.parseDouble(row.getCAPACITY());
+            double cur = Double.parseDouble(row.getCUR_PARKING());
+            double remain = capa - cur;
+
+            blackhole.consume(lat);
+            blackhole.consume(lng);
+            blackhole.consume((int) remain + " / " + (int) capa);
+        }
+        return parkingList.size();
+    }
+
+    @Benchmark
+    public int lotSnapshot(Blackhole blackhole) {
+        LotMerger merger = new LotMerger(lots.length);
+        ParkingLot[] unique = merger.add(lots);
+        return markers(new ParkingSnapshot.Builder().addAll(unique).build(), blackhole);
+    }
+
+    private static int markers(ParkingSnapshot snapshot, Blackhole blackhole) {
+        for (int i = 0; i < snapshot.size(); i++) {
+            blackhole.consume(snapshot.lat(i));
+            blackhole.consume(snapshot.lng(i));
+            blackhole.consume(snapshot.remaining(i) + " / " + snapshot.capacity(i));
+        }
+        return snapshot.size();
+    }
+}
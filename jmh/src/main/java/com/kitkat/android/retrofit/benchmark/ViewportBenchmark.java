@@ -0,0 +1,95 @@
+package com.kitkat.android.retrofit.benchmark;
+
+import com.kitkat.android.retrofit.parking.ParkingSnapshot;
+import com.kitkat.android.retrofit.spatial.GridIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Camera 범위 안의 주차장 (ViewportRenderer 의 Query)
+ *
+ *      grid    GridIndex.query
+ *      scan    모든 주차장의 좌표를 범위와 비교
+ *
+ *  span 은 화면 한 변의 크기 (도) : 0.005 / 0.02 / 0.08 이 대략 Zoom 16 / 14 / 12
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewportBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"10000", "50000"})
+    public int rows;
+
+    @Param({"0.005", "0.02", "0.08"})
+    public double span;
+
+    private ParkingSnapshot snapshot;
+    private GridIndex index;
+    private double[] south;
+    private double[] west;
+    private int[] out;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        snapshot = new ParkingSnapshot.Builder().addAll(Payloads.lots(Payloads.gson(), Payloads.load(rows))).build();
+        index = GridIndex.build(snapshot);
+
+        // 주차장이 있는 범위 안의 화면 위치
+        double minLat = Double.POSITIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+        double minLng = Double.POSITIVE_INFINITY, maxLng = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (!snapshot.hasLocation(i))
+                continue;
+            minLat = Math.min(minLat, snapshot.lat(i));
+            maxLat = Math.max(maxLat, snapshot.lat(i));
+            minLng = Math.min(minLng, snapshot.lng(i));
+            maxLng = Math.max(maxLng, snapshot.lng(i));
+        }
+        Random random = new Random(1);
+        south = new double[QUERIES];
+        west = new double[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            south[q] = minLat + random.nextDouble() * Math.max(0, maxLat - minLat - span);
+            west[q] = minLng + random.nextDouble() * Math.max(0, maxLng - minLng - span);
+        }
+        out = new int[snapshot.size()];
+    }
+
+    @Benchmark
+    public int grid() {
+        int q = next++ & (QUERIES - 1);
+        return index.query(south[q], west[q], south[q] + span, west[q] + span, out);
+    }
+
+    @Benchmark
+    public int scan() {
+        int q = next++ & (QUERIES - 1);
+        double s = south[q], w = west[q], n = s + span, e = w + span;
+        int count = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            double lat = snapshot.lat(i), lng = snapshot.lng(i);
+            if (lat >= s && lat <= n && lng >= w && lng <= e)
+                out[count++] = i;
+        }
+        return count;
+    }
+}